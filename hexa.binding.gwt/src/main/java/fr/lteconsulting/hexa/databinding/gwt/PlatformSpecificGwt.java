@@ -3,13 +3,18 @@ package fr.lteconsulting.hexa.databinding.gwt;
 import java.util.HashMap;
 import java.util.logging.Logger;
 
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.user.client.ui.HasValue;
 import com.google.gwt.user.client.ui.TextBox;
 
+import fr.lteconsulting.hexa.databinding.ClassCache;
 import fr.lteconsulting.hexa.databinding.Converters;
+import fr.lteconsulting.hexa.databinding.Counter;
 import fr.lteconsulting.hexa.databinding.DataAdapterInfo;
+import fr.lteconsulting.hexa.databinding.IObjectMetadataHolder;
 import fr.lteconsulting.hexa.databinding.PlatformSpecific;
+import fr.lteconsulting.hexa.databinding.PropagationQueue;
 import fr.lteconsulting.hexa.databinding.gwt.propertyadapters.ValuePropertyAdapter;
 import fr.lteconsulting.hexa.databinding.properties.DynamicPropertyBag;
 import fr.lteconsulting.hexa.databinding.propertyadapters.CompositePropertyAdapter;
@@ -45,7 +50,9 @@ public final class PlatformSpecificGwt implements PlatformSpecific {
 	
 	@Override
 	public DynamicPropertyBag getObjectDynamicPropertyBag(Object object) {
-		if(GWT.isScript())
+		if(object instanceof IObjectMetadataHolder)
+			return ((IObjectMetadataHolder) object).retrieveObjectDynamicPropertyBag();
+		else if(GWT.isScript())
 			return getObjectDynamicPropertyBagImpl(object);
 		else
 			return DynamicPropertyBagAccessJre.getObjectDynamicPropertyBag(object);
@@ -57,7 +64,9 @@ public final class PlatformSpecificGwt implements PlatformSpecific {
 
 	@Override
 	public void setObjectDynamicPropertyBag(Object object, DynamicPropertyBag bag) {
-		if(GWT.isScript())
+		if(object instanceof IObjectMetadataHolder)
+			((IObjectMetadataHolder) object).storeObjectDynamicPropertyBag(bag);
+		else if(GWT.isScript())
 			setObjectDynamicPropertyBagImpl(object, bag);
 		else
 			DynamicPropertyBagAccessJre.setObjectDynamicPropertyBag(object, bag);
@@ -113,7 +122,9 @@ public final class PlatformSpecificGwt implements PlatformSpecific {
 
 	@Override
 	public void setObjectMetadata(Object object, Object metadata) {
-		if(GWT.isScript())
+		if(object instanceof IObjectMetadataHolder)
+			((IObjectMetadataHolder) object).storeObjectMetadata(metadata);
+		else if(GWT.isScript())
 			setObjectMetadataImpl(object, metadata);
 		else
 			MetatdataJre.setObjectMetadata(object, metadata);
@@ -125,7 +136,12 @@ public final class PlatformSpecificGwt implements PlatformSpecific {
 	
 	@Override
 	public <T> T getObjectMetadata(Object object) {
-		if(GWT.isScript())
+		if(object instanceof IObjectMetadataHolder) {
+			@SuppressWarnings("unchecked")
+			T result = (T) ((IObjectMetadataHolder) object).retrieveObjectMetadata();
+			return result;
+		}
+		else if(GWT.isScript())
 			return getObjectMetadataImpl(object);
 		else
 			return MetatdataJre.getObjectMetadata(object);
@@ -167,4 +183,74 @@ public final class PlatformSpecificGwt implements PlatformSpecific {
 
 		res.setAdapter(new CompositePropertyAdapter(context, property + ".$HasValue"));
 	}
-}
\ No newline at end of file
+
+	// Statistics
+
+	@Override
+	public Counter createCounter() {
+		// the browser is single threaded
+		return new Counter() {
+			private long value;
+
+			@Override
+			public void increment() {
+				value++;
+			}
+
+			@Override
+			public void decrement() {
+				value--;
+			}
+
+			@Override
+			public void add(long delta) {
+				value += delta;
+			}
+
+			@Override
+			public long sum() {
+				return value;
+			}
+		};
+	}
+
+	@Override
+	public long nanoTime() {
+		return (long) (Duration.currentTimeMillis() * 1000000);
+	}
+
+	// Caches
+
+	@Override
+	public <V> ClassCache<V> createClassCache(final ClassCache.Loader<V> loader) {
+		// classes are never unloaded in the browser
+		return new ClassCache<V>() {
+			private final HashMap<Class<?>, V> values = new HashMap<>();
+
+			@Override
+			public V get(Class<?> classs) {
+				V value = values.get(classs);
+				if (value == null) {
+					value = loader.load(classs);
+					values.put(classs, value);
+				}
+				return value;
+			}
+
+			@Override
+			public void remove(Class<?> classs) {
+				values.remove(classs);
+			}
+		};
+	}
+
+	// Batched propagation
+
+	// the browser is single threaded
+	private final PropagationQueue propagationQueue = new PropagationQueue();
+
+	@Override
+	public PropagationQueue getPropagationQueue() {
+		return propagationQueue;
+	}
+}
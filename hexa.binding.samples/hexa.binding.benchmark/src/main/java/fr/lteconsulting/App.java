@@ -1,73 +1,33 @@
 package fr.lteconsulting;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import fr.lteconsulting.hexa.client.tools.Action;
-import fr.lteconsulting.hexa.databinding.Binder;
-import fr.lteconsulting.hexa.databinding.properties.Properties;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 /**
- * Hello world!
- *
+ * Runs the hexa.binding benchmarks of the fr.lteconsulting.jmh package, with
+ * the GC profiler so that the allocation rates are reported next to the
+ * timings.
+ * 
+ * The usual JMH command line options can be given, for example
+ * <code>-p depth=10 NotifyBenchmark</code>. The shaded jar built by this
+ * module can also be run with <code>java -jar target/benchmarks.jar</code>.
  */
 public class App {
-	public static void main(String[] args) {
-		new App().go2();
-	}
-
-	void go1() {
-		DTO1 src = new DTO1();
-
-		final List<DTO1> list1 = new ArrayList<>();
-		int nb = 3000;
-
-		for (int i = 0; i < nb; i++) {
-			DTO1 n = new DTO1();
-			list1.add(n);
-
-			Binder.bindObject(src).mapTo(n);
-		}
-
-		stamp("change source", () -> {
-			for (int i = 0; i < nb; i++)
-				src.setA(2);
-		});
-
-		System.out.println(Properties.getStatistics());
-	}
-
-	void go2() {
-		DTO1 c = new DTO1();
-		int nb = 100;
-
-		DTO1 first = c;
-
-		for (int i = 0; i < nb; i++) {
-			DTO1 d = new DTO1();
-
-			Binder.bind(c, "a").to(d, "a");
-
-			c = d;
-		}
-
-		DTO1 last = c;
-
-		stamp("changing source", () -> {
-			for (int i = 0; i < 10000; i++) {
-				first.setA(i);
-				last.setA(i + 1);
-			}
-		});
-	}
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
 
-	void stamp(String title, Action action) {
-		System.out.println("running " + title);
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(commandLine);
+		if (commandLine.getIncludes().isEmpty())
+			builder.include("fr\\.lteconsulting\\.jmh\\..*");
 
-		long start = System.nanoTime();
-		action.exec();
-		long end = System.nanoTime();
+		Options options = builder.addProfiler(GCProfiler.class).build();
 
-		System.out.println("duration: " + (end - start) / 1000 + "us");
+		new Runner(options).run();
 	}
 }
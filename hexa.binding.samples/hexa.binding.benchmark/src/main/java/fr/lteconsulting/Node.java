@@ -0,0 +1,64 @@
+package fr.lteconsulting;
+
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+
+/**
+ * A linked structure used to bind property paths of various lengths
+ */
+public class Node {
+	private Node next;
+	private int value;
+
+	public Node getNext() {
+		return next;
+	}
+
+	public void setNext(Node next) {
+		this.next = next;
+		Properties.notify(this, "next");
+	}
+
+	public int getValue() {
+		return value;
+	}
+
+	public void setValue(int value) {
+		this.value = value;
+		Properties.notify(this, "value");
+	}
+
+	/**
+	 * Creates a chain of nodes, so that the "next.next....value" path with
+	 * <i>length - 1</i> "next" is valid from the returned node
+	 */
+	public static Node chain(int length) {
+		Node root = new Node();
+		Node current = root;
+		for (int i = 1; i < length; i++) {
+			Node next = new Node();
+			current.setNext(next);
+			current = next;
+		}
+		return root;
+	}
+
+	/**
+	 * The property path of the given length, ending with "value"
+	 */
+	public static String path(int length) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 1; i < length; i++)
+			sb.append("next.");
+		return sb.append("value").toString();
+	}
+
+	/**
+	 * The last node of a chain
+	 */
+	public Node last() {
+		Node current = this;
+		while (current.next != null)
+			current = current.next;
+		return current;
+	}
+}
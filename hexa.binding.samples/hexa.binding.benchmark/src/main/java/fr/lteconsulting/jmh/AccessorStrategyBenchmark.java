@@ -0,0 +1,117 @@
+package fr.lteconsulting.jmh;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import fr.lteconsulting.DTO1;
+import fr.lteconsulting.hexa.classinfo.ClassInfoJre;
+import fr.lteconsulting.hexa.classinfo.ClassInfoJre.AccessorStrategy;
+import fr.lteconsulting.hexa.classinfo.Clazz;
+import fr.lteconsulting.hexa.classinfo.Field;
+import fr.lteconsulting.hexa.classinfo.Method;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+
+/**
+ * Compares the reflective and method handle accessors of ClassInfoJre on the
+ * DTO1 (getters and setters) and DTO2 (package private fields) classes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AccessorStrategyBenchmark {
+	@Param({ "REFLECTION", "METHOD_HANDLES" })
+	public String strategy;
+
+	private DTO1 dto1;
+	private Method getA;
+	private Method setA;
+
+	private Object dto2;
+	private Field fieldA;
+	private Field fieldB;
+
+	private int counter;
+
+	@Setup
+	public void setup() throws Exception {
+		ClassInfoJre.get().setAccessorStrategy(AccessorStrategy.valueOf(strategy));
+
+		dto1 = new DTO1();
+		Clazz<DTO1> clazz1 = ClassInfoJre.get().Clazz(DTO1.class);
+		getA = clazz1.getMethod("getA");
+		setA = clazz1.getMethod("setA");
+
+		// DTO2 is package private
+		Class<?> dto2Class = Class.forName("fr.lteconsulting.DTO2");
+		Constructor<?> constructor = dto2Class.getDeclaredConstructor();
+		constructor.setAccessible(true);
+		dto2 = constructor.newInstance();
+
+		Clazz<?> clazz2 = ClassInfoJre.get().FindClazz(dto2Class);
+		fieldA = clazz2.getAllField("a");
+		fieldB = clazz2.getAllField("b");
+		fieldB.setValue(dto2, "b");
+	}
+
+	@Benchmark
+	public Object invokeGetter() {
+		return getA.invoke(dto1);
+	}
+
+	@Benchmark
+	public Object invokeSetter() {
+		return setA.invoke(dto1, counter++);
+	}
+
+	@Benchmark
+	public Object getPrimitiveField() {
+		return fieldA.getValue(dto2);
+	}
+
+	@Benchmark
+	public Object getObjectField() {
+		return fieldB.getValue(dto2);
+	}
+
+	@Benchmark
+	public void setPrimitiveField() {
+		fieldA.setValue(dto2, counter++);
+	}
+
+	@Benchmark
+	public Object propertiesGetValue() {
+		return Properties.getValue(dto1, "a");
+	}
+
+	@Benchmark
+	public boolean propertiesSetValue() {
+		return Properties.setValue(dto2, "b", "value");
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(AccessorStrategyBenchmark.class.getSimpleName())
+				.build();
+
+		new Runner(options).run();
+	}
+}
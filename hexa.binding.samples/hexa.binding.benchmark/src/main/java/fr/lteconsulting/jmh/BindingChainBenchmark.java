@@ -0,0 +1,97 @@
+package fr.lteconsulting.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.lteconsulting.DTO1;
+import fr.lteconsulting.hexa.databinding.Binder;
+import fr.lteconsulting.hexa.databinding.DataBinding;
+
+/**
+ * Propagation of a change through data bindings : along a chain of objects
+ * bound one to the next, and from one object mapped to many others.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BindingChainBenchmark {
+	@Param({ "1", "10", "100" })
+	public int depth;
+
+	@Param({ "10", "1000" })
+	public int fanOut;
+
+	private DTO1 first;
+	private DTO1 last;
+	private DTO1 mapped;
+
+	private final List<DataBinding> bindings = new ArrayList<>();
+
+	private int counter;
+
+	@Setup
+	public void setup() {
+		first = new DTO1();
+		DTO1 current = first;
+		for (int i = 0; i < depth; i++) {
+			DTO1 next = new DTO1();
+			bindings.add(Binder.bind(current, "a").to(next, "a"));
+			current = next;
+		}
+		last = current;
+
+		mapped = new DTO1();
+		for (int i = 0; i < fanOut; i++)
+			bindings.add(Binder.bindObject(mapped).mapTo(new DTO1()));
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (DataBinding binding : bindings)
+			binding.terminate();
+		bindings.clear();
+	}
+
+	/**
+	 * Changes the head of the chain, the change goes down to the tail
+	 */
+	@Benchmark
+	public int propagateDown() {
+		first.setA(counter++);
+		return last.getA();
+	}
+
+	/**
+	 * Changes the tail of the chain, the change goes up to the head
+	 */
+	@Benchmark
+	public int propagateUp() {
+		last.setA(counter++);
+		return first.getA();
+	}
+
+	/**
+	 * Changes the object mapped to the "fanOut" others
+	 */
+	@Benchmark
+	public void propagateToMapped() {
+		mapped.setA(counter++);
+	}
+}
@@ -0,0 +1,78 @@
+package fr.lteconsulting.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.lteconsulting.DTO1;
+import fr.lteconsulting.Node;
+import fr.lteconsulting.hexa.databinding.Binder;
+import fr.lteconsulting.hexa.databinding.DataBinding;
+import fr.lteconsulting.hexa.databinding.propertyadapters.CompositePropertyAdapter;
+
+/**
+ * Property paths like "next.next.value" of length 1 to 5, read through a new
+ * CompositePropertyAdapter and watched by a data binding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompositePathBenchmark {
+	@Param({ "1", "2", "3", "4", "5" })
+	public int length;
+
+	private Node root;
+	private Node leaf;
+	private String path;
+
+	private DTO1 destination;
+	private DataBinding binding;
+
+	private int counter;
+
+	@Setup
+	public void setup() {
+		root = Node.chain(length);
+		leaf = root.last();
+		path = Node.path(length);
+
+		destination = new DTO1();
+		binding = Binder.bind(root, path).to(destination, "a");
+	}
+
+	@TearDown
+	public void tearDown() {
+		binding.terminate();
+	}
+
+	/**
+	 * Resolves the path from scratch, as done when a binding is created
+	 */
+	@Benchmark
+	public Object readPath() {
+		return new CompositePropertyAdapter(root, path).getValue();
+	}
+
+	/**
+	 * Changes the end of a bound path
+	 */
+	@Benchmark
+	public int propagateLeafChange() {
+		leaf.setValue(counter++);
+		return destination.getA();
+	}
+}
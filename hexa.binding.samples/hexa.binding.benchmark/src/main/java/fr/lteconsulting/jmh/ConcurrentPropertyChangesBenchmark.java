@@ -0,0 +1,102 @@
+package fr.lteconsulting.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import fr.lteconsulting.DTO1;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.properties.PropertyChangedHandler;
+
+/**
+ * Stress test of the property changes registry used by several threads at
+ * the same time.
+ * 
+ * Run the main method to execute it with 1, 2, 4 and 8 threads : the
+ * throughput of the notify benchmarks should grow with the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentPropertyChangesBenchmark {
+	/**
+	 * One source object shared by all the benchmark threads
+	 */
+	@State(Scope.Benchmark)
+	public static class SharedSource {
+		DTO1 source;
+
+		@Setup
+		public void setup(Blackhole bh) {
+			source = new DTO1();
+			for (int i = 0; i < 4; i++)
+				Properties.register(source, "a", event -> bh.consume(event));
+		}
+	}
+
+	/**
+	 * One source object per benchmark thread
+	 */
+	@State(Scope.Thread)
+	public static class ThreadSource {
+		DTO1 source;
+		PropertyChangedHandler handler;
+
+		@Setup
+		public void setup(Blackhole bh) {
+			source = new DTO1();
+			handler = event -> bh.consume(event);
+			for (int i = 0; i < 4; i++)
+				Properties.register(source, "a", handler);
+		}
+	}
+
+	@Benchmark
+	public void notifySharedSource(SharedSource state) {
+		Properties.notify(state.source, "a");
+	}
+
+	@Benchmark
+	public void notifyThreadSource(ThreadSource state) {
+		Properties.notify(state.source, "a");
+	}
+
+	@Benchmark
+	public void registerAndRemoveOnSharedSource(SharedSource state, Blackhole bh) {
+		Object registration = Properties.register(state.source, "b", event -> bh.consume(event));
+		Properties.removeHandler(registration);
+	}
+
+	@Benchmark
+	public void registerAndRemoveOnThreadSource(ThreadSource state) {
+		Object registration = Properties.register(state.source, "b", state.handler);
+		Properties.removeHandler(registration);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		for (int threads : new int[] { 1, 2, 4, 8 }) {
+			Options options = new OptionsBuilder()
+					.include(ConcurrentPropertyChangesBenchmark.class.getSimpleName())
+					.threads(threads)
+					.build();
+
+			new Runner(options).run();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package fr.lteconsulting.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.lteconsulting.DTO1;
+import fr.lteconsulting.hexa.databinding.DTOMapper;
+
+/**
+ * Creation and release of a DTO mapping between two objects, and one-shot
+ * copy of their properties
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DTOMapperBenchmark {
+	private DTO1 source;
+	private DTO1 destination;
+
+	@Setup
+	public void setup() {
+		source = new DTO1();
+		source.setA(1);
+		source.setB(2);
+		source.setC("c");
+		destination = new DTO1();
+	}
+
+	@Benchmark
+	public void mapAndFree() {
+		Object mapping = DTOMapper.Map(source, destination);
+		DTOMapper.freeMapping(mapping);
+	}
+
+	@Benchmark
+	public DTO1 copy() {
+		DTOMapper.copy(source, destination);
+		return destination;
+	}
+}
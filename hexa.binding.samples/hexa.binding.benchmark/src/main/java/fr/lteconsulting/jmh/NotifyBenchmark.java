@@ -0,0 +1,56 @@
+package fr.lteconsulting.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.lteconsulting.DTO1;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.properties.PropertySlot;
+
+/**
+ * Notifying a property change to 0, 1 or several handlers. The zero handler
+ * case is the cost paid by every setter of an object nobody watches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NotifyBenchmark {
+	@Param({ "0", "1", "10" })
+	public int handlers;
+
+	private DTO1 source;
+	private PropertySlot slot;
+
+	@Setup
+	public void setup(Blackhole bh) {
+		source = new DTO1();
+		slot = Properties.slot("a");
+		for (int i = 0; i < handlers; i++)
+			Properties.register(source, "a", event -> bh.consume(event));
+	}
+
+	@Benchmark
+	public void notifyByName() {
+		Properties.notify(source, "a");
+	}
+
+	@Benchmark
+	public void notifyBySlot() {
+		Properties.notify(source, slot);
+	}
+}
@@ -0,0 +1,91 @@
+package fr.lteconsulting.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.lteconsulting.DTO1;
+import fr.lteconsulting.Node;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+
+/**
+ * Reading and writing properties through the Properties API, for the three
+ * ways a property can be stored : behind a getter and a setter, in a field,
+ * or in the dynamic property bag of the object.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropertyValuesBenchmark {
+	/**
+	 * Has "value" and "next" getters and setters
+	 */
+	private Node withAccessors;
+
+	/**
+	 * Has "a" and "b" fields without getters nor setters
+	 */
+	private FieldsOnly withFields;
+
+	/**
+	 * Has a "dynamic" dynamic property
+	 */
+	private DTO1 withDynamic;
+
+	private int counter;
+
+	public static class FieldsOnly {
+		int a;
+		String b;
+	}
+
+	@Setup
+	public void setup() {
+		withAccessors = new Node();
+		withFields = new FieldsOnly();
+		withDynamic = new DTO1();
+		Properties.setObjectDynamicProperty(withDynamic, "dynamic", "value");
+	}
+
+	@Benchmark
+	public Object getValueFromGetter() {
+		return Properties.getValue(withAccessors, "value");
+	}
+
+	@Benchmark
+	public boolean setValueWithSetter() {
+		return Properties.setValue(withAccessors, "value", counter++);
+	}
+
+	@Benchmark
+	public Object getValueFromField() {
+		return Properties.getValue(withFields, "a");
+	}
+
+	@Benchmark
+	public boolean setValueInField() {
+		return Properties.setValue(withFields, "a", counter++);
+	}
+
+	@Benchmark
+	public Object getDynamicValue() {
+		return Properties.getValue(withDynamic, "dynamic");
+	}
+
+	@Benchmark
+	public boolean setDynamicValue() {
+		return Properties.setValue(withDynamic, "dynamic", counter++);
+	}
+}
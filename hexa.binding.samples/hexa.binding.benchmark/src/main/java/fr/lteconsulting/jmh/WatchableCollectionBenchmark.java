@@ -0,0 +1,90 @@
+package fr.lteconsulting.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.lteconsulting.hexa.databinding.watchablecollection.WatchableCollection;
+
+/**
+ * Bulk operations on a watched collection, which has one callback
+ * registered
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WatchableCollectionBenchmark {
+	@Param({ "100", "10000" })
+	public int size;
+
+	private List<Integer> items;
+	private List<Integer> half;
+
+	private Blackhole bh;
+
+	@Setup
+	public void setup(Blackhole bh) {
+		this.bh = bh;
+
+		items = new ArrayList<>();
+		half = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			items.add(i);
+			if (i % 2 == 0)
+				half.add(i);
+		}
+	}
+
+	private WatchableCollection<Integer> watched() {
+		WatchableCollection<Integer> collection = new WatchableCollection<>();
+		collection.addCallback(changes -> bh.consume(changes), true);
+		return collection;
+	}
+
+	@Benchmark
+	public Object addAll() {
+		WatchableCollection<Integer> collection = watched();
+		collection.addAll(items);
+		return collection;
+	}
+
+	@Benchmark
+	public Object addOneByOne() {
+		WatchableCollection<Integer> collection = watched();
+		for (Integer item : items)
+			collection.add(item);
+		return collection;
+	}
+
+	@Benchmark
+	public Object removeAll() {
+		WatchableCollection<Integer> collection = watched();
+		collection.addAll(items);
+		collection.removeAll(half);
+		return collection;
+	}
+
+	@Benchmark
+	public Object clear() {
+		WatchableCollection<Integer> collection = watched();
+		collection.addAll(items);
+		collection.clear();
+		return collection;
+	}
+}
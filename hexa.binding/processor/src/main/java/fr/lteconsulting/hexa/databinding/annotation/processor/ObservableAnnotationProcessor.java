@@ -8,6 +8,8 @@ import java.io.IOException;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.processing.SupportedAnnotationTypes;
@@ -15,6 +17,7 @@ import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.*;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
@@ -42,6 +45,24 @@ public class ObservableAnnotationProcessor extends BaseAnnotationProcessor {
 	protected static final int FIELD_GETTER_INDEX = 3;
 	protected static final int METHOD_SETTER_INDEX = 4;
 	protected static final int FIELD_SETTER_INDEX = 5;
+	protected static final int PROPERTY_TABLE_INDEX = 6;
+	protected static final int TABLE_NEW_INSTANCE_INDEX = 7;
+
+	/**
+	 * A property of the generated class, as described in its property table
+	 */
+	protected static class TableProperty {
+		final String name;
+		String getter;
+		String getterType;
+		String setter;
+		String setterType;
+		String setterBoxedType;
+
+		TableProperty(String name) {
+			this.name = name;
+		}
+	}
 
 	@Override
 	protected String getTargetTypeName(TypeElement typeElement) {
@@ -74,9 +95,12 @@ public class ObservableAnnotationProcessor extends BaseAnnotationProcessor {
 	protected void doProcess(ProcInfo procInfo, Writer writer) throws IOException {
 		int inheritDepth = getInheritDepth(procInfo.annotation);
 
+		Map<String, TableProperty> tableProperties = new LinkedHashMap<>();
+
 		Template template = writeClassIntro(procInfo);
 		template.replace(CONSTRUCTORS, generateConstructors(procInfo, inheritDepth));
-		template.replace(FIELDS_AND_METHODS, generateFieldsAndMethods(procInfo, inheritDepth));
+		template.replace(FIELDS_AND_METHODS, generateFieldsAndMethods(procInfo, inheritDepth, tableProperties));
+		template.replace(PROPERTY_TABLE, generatesPropertyTable() ? generatePropertyTable(procInfo, tableProperties) : "");
 		writer.write(template.toString());
 	}
 
@@ -242,21 +266,22 @@ public class ObservableAnnotationProcessor extends BaseAnnotationProcessor {
 		return sb.toString();
 	}
 
-	private String generateFieldsAndMethods(ProcInfo procInfo, int inheritDepth) {
+	private String generateFieldsAndMethods(ProcInfo procInfo, int inheritDepth, Map<String, TableProperty> tableProperties) {
 		Set<String> settersDone = new HashSet<>();
 		Set<String> gettersDone = new HashSet<>();
 
 		String methodsFromMethods = generateMethodFromMethods(procInfo.typeElement,
-			settersDone, gettersDone, inheritDepth);
+			settersDone, gettersDone, inheritDepth, tableProperties);
 
 		String methodsFromFields = generateMethodFromFields(procInfo, procInfo.typeElement,
-			settersDone, gettersDone, inheritDepth);
+			settersDone, gettersDone, inheritDepth, tableProperties);
 
 		return methodsFromFields + methodsFromMethods;
 	}
 
 	private String generateMethodFromFields(ProcInfo procInfo, TypeElement typeElement, Set<String> settersDone,
-											Set<String> gettersDone, int inheritDepth) {
+											Set<String> gettersDone, int inheritDepth,
+											Map<String, TableProperty> tableProperties) {
 		StringBuilder sb = new StringBuilder();
 
 		for (VariableElement field : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
@@ -285,6 +310,7 @@ public class ObservableAnnotationProcessor extends BaseAnnotationProcessor {
 						+ " setter stub generation failed.", ex);
 				}
 				settersDone.add(fieldName);
+				recordSetter(tableProperties, fieldName, methodName, fieldType);
 			}
 
 			// Process getter field generation
@@ -304,6 +330,7 @@ public class ObservableAnnotationProcessor extends BaseAnnotationProcessor {
 						+ " getter stub generation failed.", ex);
 				}
 				gettersDone.add(fieldName);
+				recordGetter(tableProperties, fieldName, methodName, fieldType);
 			}
 		}
 
@@ -316,7 +343,7 @@ public class ObservableAnnotationProcessor extends BaseAnnotationProcessor {
 				// Don't process base java.lang.Object types
 				if(!superType.getQualifiedName().toString().equals("java.lang.Object")) {
 					sb.append(generateMethodFromFields(procInfo, superType, settersDone, gettersDone,
-						inheritDepth - 1));
+						inheritDepth - 1, tableProperties));
 				}
 			}
 		}
@@ -324,7 +351,8 @@ public class ObservableAnnotationProcessor extends BaseAnnotationProcessor {
 	}
 
 	private String generateMethodFromMethods(TypeElement typeElement, Set<String> settersDone,
-											 Set<String> gettersDone, int inheritDepth) {
+											 Set<String> gettersDone, int inheritDepth,
+											 Map<String, TableProperty> tableProperties) {
 		StringBuilder sb = new StringBuilder();
 
 		for(ExecutableElement method : ElementFilter.methodsIn(typeElement.getEnclosedElements())) {
@@ -360,6 +388,9 @@ public class ObservableAnnotationProcessor extends BaseAnnotationProcessor {
 
 				sb.append(generateMethodSetterStub(method, fieldName));
 				settersDone.add( fieldName );
+				if(method.getParameters().size() == 1) {
+					recordSetter(tableProperties, fieldName, methodName, method.getParameters().get(0).asType());
+				}
 			}
 			else {
 				for(String prefix : getterPrefixes) {
@@ -369,6 +400,10 @@ public class ObservableAnnotationProcessor extends BaseAnnotationProcessor {
 				}
 				if(fieldName != null) {
 					gettersDone.add(fieldName);
+					if(method.getParameters().isEmpty() && method.getReturnType().getKind() != TypeKind.VOID
+						&& !mods.contains(Modifier.STATIC)) {
+						recordGetter(tableProperties, fieldName, methodName, method.getReturnType());
+					}
 				}
 			}
 		}
@@ -382,13 +417,124 @@ public class ObservableAnnotationProcessor extends BaseAnnotationProcessor {
 				// Don't process base java.lang.Object types
 				if(!superType.getQualifiedName().toString().equals("java.lang.Object")) {
 					sb.append(generateMethodFromMethods(superType, settersDone, gettersDone,
-						inheritDepth - 1));
+						inheritDepth - 1, tableProperties));
 				}
 			}
 		}
 		return sb.toString();
 	}
 
+	/**
+	 * Whether the generated class registers a reflection-free runtime type
+	 * information, built from its property table
+	 */
+	protected boolean generatesPropertyTable() {
+		return true;
+	}
+
+	private String generatePropertyTable(ProcInfo procInfo, Map<String, TableProperty> tableProperties) {
+		StringBuilder names = new StringBuilder();
+		StringBuilder getterTypes = new StringBuilder();
+		StringBuilder setterTypes = new StringBuilder();
+		StringBuilder getters = new StringBuilder();
+		StringBuilder setters = new StringBuilder();
+		StringBuilder getCases = new StringBuilder();
+		StringBuilder setCases = new StringBuilder();
+
+		int index = 0;
+		for(TableProperty property : tableProperties.values()) {
+			String separator = index > 0 ? ", " : "";
+
+			names.append(separator).append('"').append(property.name).append('"');
+			getterTypes.append(separator).append(property.getter != null ? property.getterType + ".class" : "null");
+			setterTypes.append(separator).append(property.setter != null ? property.setterType + ".class" : "null");
+			getters.append(separator).append(property.getter != null ? '"' + property.getter + '"' : "null");
+			setters.append(separator).append(property.setter != null ? '"' + property.setter + '"' : "null");
+
+			if(property.getter != null) {
+				getCases.append("\t\t\t\tcase ").append(index).append(":\n")
+					.append("\t\t\t\t\treturn object.").append(property.getter).append("();\n");
+			}
+			if(property.setter != null) {
+				setCases.append("\t\t\t\tcase ").append(index).append(":\n")
+					.append("\t\t\t\t\tobject.").append(property.setter)
+					.append("( (").append(property.setterBoxedType).append(") value );\n")
+					.append("\t\t\t\t\treturn;\n");
+			}
+
+			index++;
+		}
+
+		Template table = Template.fromResource(TEMPLATE_CLASS, PROPERTY_TABLE_INDEX);
+		table.replace(TABLE_NAMES, names.toString());
+		table.replace(TABLE_GETTER_TYPES, getterTypes.toString());
+		table.replace(TABLE_SETTER_TYPES, setterTypes.toString());
+		table.replace(TABLE_GETTERS, getters.toString());
+		table.replace(TABLE_SETTERS, setters.toString());
+		table.replace(TABLE_GET_CASES, getCases.toString());
+		table.replace(TABLE_SET_CASES, setCases.toString());
+		table.replace(TABLE_NEW_INSTANCE, generateTableNewInstance(procInfo));
+		table.replace(TARGET_CLASS_NAME, procInfo.implName);
+
+		return table.toString();
+	}
+
+	/**
+	 * Without a default constructor, the table has no NEW() and the class
+	 * cannot be instantiated through its runtime type information
+	 */
+	private String generateTableNewInstance(ProcInfo procInfo) {
+		if(!hasDefaultConstructor(procInfo.typeElement)) {
+			msg.printMessage(Kind.WARNING, procInfo.typeElement.getSimpleName() + " has no default constructor, "
+				+ "ClassInfo cannot instantiate " + procInfo.implName, procInfo.typeElement);
+			return "";
+		}
+
+		Template newInstance = Template.fromResource(TEMPLATE_CLASS, TABLE_NEW_INSTANCE_INDEX);
+		newInstance.replace(TARGET_CLASS_NAME, procInfo.implName);
+		return newInstance.toString();
+	}
+
+	private void recordGetter(Map<String, TableProperty> tableProperties, String name, String methodName, TypeMirror type) {
+		TableProperty property = tableProperty(tableProperties, name);
+		if(property.getter == null) {
+			property.getter = methodName;
+			property.getterType = types.erasure(type).toString();
+		}
+	}
+
+	private void recordSetter(Map<String, TableProperty> tableProperties, String name, String methodName, TypeMirror type) {
+		TableProperty property = tableProperty(tableProperties, name);
+		if(property.setter == null) {
+			// the generated code uses the raw target class, so erased types are used
+			TypeMirror erased = types.erasure(type);
+
+			property.setter = methodName;
+			property.setterType = erased.toString();
+			property.setterBoxedType = erased.getKind().isPrimitive()
+				? types.boxedClass((PrimitiveType) erased).getQualifiedName().toString()
+				: property.setterType;
+		}
+	}
+
+	private TableProperty tableProperty(Map<String, TableProperty> tableProperties, String name) {
+		TableProperty property = tableProperties.get(name);
+		if(property == null) {
+			property = new TableProperty(name);
+			tableProperties.put(name, property);
+		}
+		return property;
+	}
+
+	private boolean hasDefaultConstructor(TypeElement typeElement) {
+		for(ExecutableElement constr : ElementFilter.constructorsIn(typeElement.getEnclosedElements())) {
+			if(!constr.getModifiers().contains(Modifier.PRIVATE) && constr.getParameters().isEmpty()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private String generateFieldSetterStub(String methodName, String fieldName, TypeMirror fieldType) {
 		Template setter = Template.fromResource(TEMPLATE_CLASS, FIELD_SETTER_INDEX);
 		setter.replace(MODIFIERS, "public");
@@ -17,4 +17,13 @@ public class Tags {
 	public static final String METHOD_NAME = "$MethodName";
 	public static final String PROPERTY_CLASS = "$PropertyClass";
 	public static final String PROPERTY = "$Property";
+	public static final String PROPERTY_TABLE = "$PropertyTable";
+	public static final String TABLE_NAMES = "$TableNames";
+	public static final String TABLE_GETTER_TYPES = "$TableGetterTypes";
+	public static final String TABLE_SETTER_TYPES = "$TableSetterTypes";
+	public static final String TABLE_GETTERS = "$TableGetters";
+	public static final String TABLE_SETTERS = "$TableSetters";
+	public static final String TABLE_GET_CASES = "$TableGetCases";
+	public static final String TABLE_SET_CASES = "$TableSetCases";
+	public static final String TABLE_NEW_INSTANCE = "$TableNewInstance";
 }
\ No newline at end of file
@@ -63,4 +63,10 @@ public class GwtObservableAnnotationProcessor extends ObservableAnnotationProces
 		}
 		return false;
 	}
+
+	@Override
+	protected boolean generatesPropertyTable() {
+		// the type information is generated by the ClazzBundle
+		return false;
+	}
 }
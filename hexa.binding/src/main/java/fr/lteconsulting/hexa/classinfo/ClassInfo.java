@@ -13,6 +13,19 @@ import java.util.Set;
 public class ClassInfo
 {
 	private static IClassInfo impl = ClassInfoProvider.get();
+
+	private static volatile int version = 0;
+
+	private static volatile ClazzChangeHandler[] changeHandlers = new ClazzChangeHandler[0];
+
+	/**
+	 * Notified when the type information of a class is registered, so that
+	 * the caches built from it can forget that class
+	 */
+	public interface ClazzChangeHandler
+	{
+		void onClazzChanged( Class<?> clazz );
+	}
 	
 	/**
 	 * Obtain a runtime type information on a class.<br><br>
@@ -35,6 +48,53 @@ public class ClassInfo
 	public static <T> void RegisterClazz( Clazz<T> clazz )
 	{
 		impl.RegisterClazz( clazz );
+		changed( clazz.getReflectedClass() );
+	}
+
+	/**
+	 * A number which changes each time the type information of all the
+	 * classes might have changed, for example when the accessor strategy
+	 * changes. The caches built from the type information should be cleared
+	 * when it changes. The registration of a single class is notified to the
+	 * {@link ClazzChangeHandler}s instead.
+	 */
+	public static int getVersion()
+	{
+		return version;
+	}
+
+	public static synchronized void addClazzChangeHandler( ClazzChangeHandler handler )
+	{
+		ClazzChangeHandler[] handlers = new ClazzChangeHandler[changeHandlers.length + 1];
+		System.arraycopy( changeHandlers, 0, handlers, 0, changeHandlers.length );
+		handlers[changeHandlers.length] = handler;
+		changeHandlers = handlers;
+	}
+
+	public static synchronized void removeClazzChangeHandler( ClazzChangeHandler handler )
+	{
+		for( int i = 0; i < changeHandlers.length; i++ )
+		{
+			if( changeHandlers[i] != handler )
+				continue;
+
+			ClazzChangeHandler[] handlers = new ClazzChangeHandler[changeHandlers.length - 1];
+			System.arraycopy( changeHandlers, 0, handlers, 0, i );
+			System.arraycopy( changeHandlers, i + 1, handlers, i, handlers.length - i );
+			changeHandlers = handlers;
+			return;
+		}
+	}
+
+	static synchronized void changed()
+	{
+		version++;
+	}
+
+	private static void changed( Class<?> clazz )
+	{
+		for( ClazzChangeHandler handler : changeHandlers )
+			handler.onClazzChanged( clazz );
 	}
 
 	/**
@@ -1,13 +1,46 @@
 package fr.lteconsulting.hexa.classinfo;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.lteconsulting.hexa.classinfo.ClassInfoJre.AccessorStrategy;
+import fr.lteconsulting.hexa.classinfo.JreAccessors.FieldAccessor;
+import fr.lteconsulting.hexa.classinfo.JreAccessors.MethodAccessor;
+import fr.lteconsulting.hexa.classinfo.internal.PropertyTableClazz;
 
 public class ClassInfoJre implements IClassInfo
 {
+	/**
+	 * How fields are accessed and methods are called by the {@link Clazz}
+	 * instances this class provides.
+	 *
+	 * The default is {@link #REFLECTION}, unless the
+	 * <code>hexa.classinfo.accessors</code> system property is set to
+	 * <code>methodhandles</code>. Run the AccessorStrategyBenchmark of the
+	 * benchmark module to choose the best one for your JVM.
+	 */
+	public enum AccessorStrategy
+	{
+		/**
+		 * Calls through java.lang.reflect.Field and Method
+		 */
+		REFLECTION,
+
+		/**
+		 * Calls through method handles created once per member, falling back
+		 * to reflection for the members which cannot be unreflected
+		 */
+		METHOD_HANDLES;
+	}
+
 	private static final ClassInfoJre instance = new ClassInfoJre();
 
 	public static ClassInfoJre get()
@@ -17,14 +50,48 @@ public class ClassInfoJre implements IClassInfo
 
 	private ClassInfoJre()
 	{
+		if( "methodhandles".equalsIgnoreCase( System.getProperty( "hexa.classinfo.accessors" ) ) )
+			accessorStrategy = AccessorStrategy.METHOD_HANDLES;
+		else
+			accessorStrategy = AccessorStrategy.REFLECTION;
+	}
+
+	private AccessorStrategy accessorStrategy;
+
+	public AccessorStrategy getAccessorStrategy()
+	{
+		return accessorStrategy;
 	}
 
-	HashMap<Class<?>, ClazzJre<?>> clazzCache = new HashMap<>();
+	/**
+	 * Changes the accessor strategy. The classes already introspected are
+	 * forgotten so that their fields and methods use the new strategy.
+	 */
+	public void setAccessorStrategy( AccessorStrategy accessorStrategy )
+	{
+		if( accessorStrategy == this.accessorStrategy )
+			return;
+
+		this.accessorStrategy = accessorStrategy;
+		clazzCache.clear();
+		ClassInfo.changed();
+	}
+
+	/**
+	 * Runtime type information registered by generated code, it has
+	 * precedence over the reflection based one
+	 */
+	private final ConcurrentHashMap<Class<?>, Clazz<?>> registeredClazz = new ConcurrentHashMap<>();
+
+	/**
+	 * Reflection based runtime type information
+	 */
+	private final ConcurrentHashMap<Class<?>, ClazzJre<?>> clazzCache = new ConcurrentHashMap<>();
 
 	@Override
 	public <T> Clazz<T> Clazz( Class<T> clazz )
 	{
-		ClazzJre<T> result = FindClazz( clazz );
+		Clazz<T> result = FindClazz( clazz );
 		if( result == null )
 			throw new RuntimeException( "Cannot find class '" + clazz.getName() + "'" );
 
@@ -34,7 +101,7 @@ public class ClassInfoJre implements IClassInfo
 	@Override
 	public <T> void RegisterClazz( Clazz<T> clazz )
 	{
-		clazzCache.put( clazz.getReflectedClass(), (ClazzJre<?>) clazz );
+		registeredClazz.put( clazz.getReflectedClass(), clazz );
 	}
 
 	@Override
@@ -51,36 +118,85 @@ public class ClassInfoJre implements IClassInfo
 	}
 
 	@Override
-	public <T> ClazzJre<T> FindClazz( Class<T> clazz )
+	public <T> Clazz<T> FindClazz( Class<T> clazz )
 	{
+		@SuppressWarnings( "unchecked" )
+		Clazz<T> registered = (Clazz<T>) registeredClazz.get( clazz );
+		if( registered != null )
+			return registered;
+
 		@SuppressWarnings( "unchecked" )
 		ClazzJre<T> result = (ClazzJre<T>) clazzCache.get( clazz );
-		if( result == null )
+		if( result != null )
+			return result;
+
+		// generated classes register their type information when they are
+		// initialized, which might not have happened yet, so their table is
+		// also searched directly
+		Clazz<T> table = findPropertyTable( clazz );
+		if( table != null )
 		{
-			result = new ClazzJre<T>( clazz );
-			clazzCache.put( clazz, result );
+			@SuppressWarnings( "unchecked" )
+			Clazz<T> previous = (Clazz<T>) registeredClazz.putIfAbsent( clazz, table );
+			return previous != null ? previous : table;
 		}
 
-		return result;
+		result = new ClazzJre<T>( clazz, accessorStrategy );
+		@SuppressWarnings( "unchecked" )
+		ClazzJre<T> previous = (ClazzJre<T>) clazzCache.putIfAbsent( clazz, result );
+
+		return previous != null ? previous : result;
 	}
 
 	@Override
 	public Set<Class<?>> GetRegisteredClazz()
 	{
-		return clazzCache.keySet();
+		Set<Class<?>> result = new HashSet<>( clazzCache.keySet() );
+		result.addAll( registeredClazz.keySet() );
+		return result;
+	}
+
+	/**
+	 * Returns the property table generated by the Observable annotation
+	 * processor for a class, or null. The class is not initialized, so that
+	 * its static initializers do not run just to be introspected.
+	 */
+	private static <T> Clazz<T> findPropertyTable( Class<T> clazz )
+	{
+		if( clazz.isPrimitive() || clazz.isArray() )
+			return null;
+
+		try
+		{
+			Class<?> tableClass = Class.forName( clazz.getName() + "$PropertyTable", false, clazz.getClassLoader() );
+			if( !PropertyTableClazz.class.isAssignableFrom( tableClass ) )
+				return null;
+
+			Constructor<?> constructor = tableClass.getDeclaredConstructor();
+			constructor.setAccessible( true );
+
+			@SuppressWarnings( "unchecked" )
+			Clazz<T> table = (Clazz<T>) constructor.newInstance();
+			return table.getReflectedClass() == clazz ? table : null;
+		}
+		catch( ReflectiveOperationException | LinkageError | SecurityException e )
+		{
+			return null;
+		}
 	}
 }
 
 class ClazzJre<T> implements Clazz<T>
 {
 	private Class<T> classs;
-	private List<Field> fields;
-	private List<Method> methods;
-	private Map<String, Method> methodsByName;
+	private AccessorStrategy accessorStrategy;
+	private volatile FieldTable fieldTable;
+	private volatile MethodTable methodTable;
 
-	public ClazzJre( Class<T> classs )
+	public ClazzJre( Class<T> classs, AccessorStrategy accessorStrategy )
 	{
 		this.classs = classs;
+		this.accessorStrategy = accessorStrategy;
 	}
 
 	@Override
@@ -104,86 +220,76 @@ class ClazzJre<T> implements Clazz<T>
 	@Override
 	public List<Field> getAllFields()
 	{
-		if( fields != null )
-			return fields;
-
-		fields = new ArrayList<>();
-
-		Class<?> cur = classs;
-		while( cur != null && cur != Object.class )
-		{
-			for( java.lang.reflect.Field f : classs.getDeclaredFields() )
-				fields.add( new FieldJre( f ) );
-
-			cur = cur.getSuperclass();
-		}
-
-		return fields;
+		return fieldTable().allFields;
 	}
 
 	@Override
 	public Field getAllField( String fieldName )
 	{
-		for( Field field : getAllFields() )
-		{
-			if( field.getName().equals( fieldName ) )
-				return field;
-		}
-		return null;
+		return fieldTable().allFieldsByName.get( fieldName );
 	}
 
 	@Override
 	public List<Field> getFields()
 	{
-		// TODO
-		return getAllFields();
+		return fieldTable().fields;
 	}
 
 	@Override
 	public Field getField( String fieldName )
 	{
-		// TODO
-		return getAllField( fieldName );
+		return fieldTable().fieldsByName.get( fieldName );
 	}
 
 	@Override
 	public List<Field> getDeclaredFields()
 	{
-		// TODO
-		return getAllFields();
+		return fieldTable().declaredFields;
 	}
 
 	@Override
 	public Field getDeclaredField( String fieldName )
 	{
-		// TODO
-		return getAllField( fieldName );
+		return fieldTable().declaredFieldsByName.get( fieldName );
 	}
 
-	@Override
-	public List<Method> getMethods()
+	private FieldTable fieldTable()
 	{
-		if( methods != null )
-			return methods;
-
-		methods = new ArrayList<>();
+		FieldTable table = fieldTable;
+		if( table == null )
+		{
+			// several threads might build the table, they will get equivalent
+			// ones. As its content is final, it is safely published
+			table = new FieldTable( classs, accessorStrategy );
+			fieldTable = table;
+		}
 
-		for( java.lang.reflect.Method m : classs.getMethods() )
-			methods.add( new MethodJre( m ) );
+		return table;
+	}
 
-		return methods;
+	@Override
+	public List<Method> getMethods()
+	{
+		return methodTable().methods;
 	}
 
 	@Override
 	public Method getMethod( String methodName )
 	{
-		if( methodsByName == null ){
-			methodsByName = new HashMap<>();
-			for( Method m : getMethods() )
-				methodsByName.put(m.getName(), m);
+		return methodTable().methodsByName.get( methodName );
+	}
+
+	private MethodTable methodTable()
+	{
+		MethodTable table = methodTable;
+		if( table == null )
+		{
+			// same as for the field table
+			table = new MethodTable( classs, accessorStrategy );
+			methodTable = table;
 		}
-		
-		return methodsByName.get(methodName);
+
+		return table;
 	}
 
 	@Override
@@ -203,15 +309,112 @@ class ClazzJre<T> implements Clazz<T>
 	}
 }
 
+/**
+ * The fields of a class, with the fields declared in the class first, then
+ * those of its superclasses, nearest first. Fields declared in a subclass
+ * shadow the superclass fields with the same name when searched by name.
+ */
+class FieldTable
+{
+	final List<Field> allFields;
+	final List<Field> declaredFields;
+	final List<Field> fields;
+
+	final Map<String, Field> allFieldsByName;
+	final Map<String, Field> declaredFieldsByName;
+	final Map<String, Field> fieldsByName;
+
+	FieldTable( Class<?> classs, AccessorStrategy accessorStrategy )
+	{
+		List<Field> allFields = new ArrayList<>();
+		List<Field> declaredFields = new ArrayList<>();
+		List<Field> fields = new ArrayList<>();
+
+		Map<String, Field> allFieldsByName = new HashMap<>();
+		Map<String, Field> declaredFieldsByName = new HashMap<>();
+		Map<String, Field> fieldsByName = new HashMap<>();
+
+		Class<?> cur = classs;
+		while( cur != null && cur != Object.class )
+		{
+			for( java.lang.reflect.Field f : cur.getDeclaredFields() )
+			{
+				if( f.isSynthetic() )
+					continue;
+
+				Field field = new FieldJre( f, accessorStrategy );
+
+				allFields.add( field );
+				putIfAbsent( allFieldsByName, field );
+
+				if( cur == classs )
+				{
+					declaredFields.add( field );
+					declaredFieldsByName.put( field.getName(), field );
+				}
+
+				if( Modifier.isPublic( f.getModifiers() ) )
+				{
+					fields.add( field );
+					putIfAbsent( fieldsByName, field );
+				}
+			}
+
+			cur = cur.getSuperclass();
+		}
+
+		this.allFields = Collections.unmodifiableList( allFields );
+		this.declaredFields = Collections.unmodifiableList( declaredFields );
+		this.fields = Collections.unmodifiableList( fields );
+
+		this.allFieldsByName = allFieldsByName;
+		this.declaredFieldsByName = declaredFieldsByName;
+		this.fieldsByName = fieldsByName;
+	}
+
+	private static void putIfAbsent( Map<String, Field> map, Field field )
+	{
+		if( !map.containsKey( field.getName() ) )
+			map.put( field.getName(), field );
+	}
+}
+
+/**
+ * The public methods of a class, including the inherited ones
+ */
+class MethodTable
+{
+	final List<Method> methods;
+	final Map<String, Method> methodsByName;
+
+	MethodTable( Class<?> classs, AccessorStrategy accessorStrategy )
+	{
+		List<Method> methods = new ArrayList<>();
+		Map<String, Method> methodsByName = new HashMap<>();
+
+		for( java.lang.reflect.Method m : classs.getMethods() )
+		{
+			Method method = new MethodJre( m, accessorStrategy );
+			methods.add( method );
+			methodsByName.put( method.getName(), method );
+		}
+
+		this.methods = Collections.unmodifiableList( methods );
+		this.methodsByName = Collections.unmodifiableMap( methodsByName );
+	}
+}
+
 class FieldJre implements Field
 {
 	private java.lang.reflect.Field field;
+	private FieldAccessor accessor;
 
-	public FieldJre( java.lang.reflect.Field field )
+	public FieldJre( java.lang.reflect.Field field, AccessorStrategy accessorStrategy )
 	{
 		this.field = field;
 		if( !field.isAccessible() )
 			field.setAccessible( true );
+		this.accessor = JreAccessors.fieldAccessor( field, accessorStrategy );
 	}
 
 	@Override
@@ -231,11 +434,11 @@ class FieldJre implements Field
 	{
 		try
 		{
-			field.set( object, value );
+			accessor.set( object, value );
 		}
-		catch( Exception e )
+		catch( Throwable e )
 		{
-			throw new RuntimeException( e );
+			throw wrap( e );
 		}
 	}
 
@@ -245,12 +448,12 @@ class FieldJre implements Field
 		try
 		{
 			@SuppressWarnings( "unchecked" )
-			OUT result = (OUT) field.get( object );
+			OUT result = (OUT) accessor.get( object );
 			return result;
 		}
-		catch( Exception e )
+		catch( Throwable e )
 		{
-			throw new RuntimeException( e );
+			throw wrap( e );
 		}
 	}
 
@@ -259,11 +462,11 @@ class FieldJre implements Field
 	{
 		try
 		{
-			field.set( destination, field.get( source ) );
+			accessor.set( destination, accessor.get( source ) );
 		}
-		catch( Exception e )
+		catch( Throwable e )
 		{
-			throw new RuntimeException( e );
+			throw wrap( e );
 		}
 	}
 
@@ -273,6 +476,13 @@ class FieldJre implements Field
 		return field.getModifiers();
 	}
 
+	static RuntimeException wrap( Throwable e )
+	{
+		if( e instanceof Error )
+			throw (Error) e;
+		return new RuntimeException( e );
+	}
+
 	@Override
 	public String toString()
 	{
@@ -283,13 +493,15 @@ class FieldJre implements Field
 class MethodJre implements Method
 {
 	private java.lang.reflect.Method method;
+	private MethodAccessor accessor;
 	private List<Class<?>> parameterTypes;
 
-	public MethodJre( java.lang.reflect.Method method )
+	public MethodJre( java.lang.reflect.Method method, AccessorStrategy accessorStrategy )
 	{
 		this.method = method;
 		if( !method.isAccessible() )
 			method.setAccessible( true );
+		this.accessor = JreAccessors.methodAccessor( method, accessorStrategy );
 	}
 
 	@Override
@@ -325,11 +537,11 @@ class MethodJre implements Method
 	{
 		try
 		{
-			return method.invoke( target, parameters );
+			return accessor.invoke( target, parameters );
 		}
-		catch( Exception e )
+		catch( Throwable e )
 		{
-			throw new RuntimeException( e );
+			throw FieldJre.wrap( e );
 		}
 	}
 
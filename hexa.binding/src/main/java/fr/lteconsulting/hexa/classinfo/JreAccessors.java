@@ -0,0 +1,174 @@
+package fr.lteconsulting.hexa.classinfo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+
+import fr.lteconsulting.hexa.classinfo.ClassInfoJre.AccessorStrategy;
+
+/**
+ * Creates the objects used by {@link FieldJre} and {@link MethodJre} to access
+ * fields and call methods, according to the {@link AccessorStrategy} in use.
+ *
+ * With the method handles strategy, the handles are adapted once to the
+ * generic (Object) signature and then called with invokeExact, which avoids
+ * the access checks and argument copies of the reflective calls. When a
+ * member cannot be unreflected, the reflective accessor is used.
+ *
+ * @author Arnaud Tournier
+ */
+final class JreAccessors
+{
+	interface FieldAccessor
+	{
+		Object get( Object object ) throws Throwable;
+
+		void set( Object object, Object value ) throws Throwable;
+	}
+
+	interface MethodAccessor
+	{
+		Object invoke( Object target, Object[] parameters ) throws Throwable;
+	}
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType( Object.class, Object.class );
+	private static final MethodType SETTER_TYPE = MethodType.methodType( void.class, Object.class, Object.class );
+	private static final MethodType INVOKER_TYPE = MethodType.methodType( Object.class, Object.class, Object[].class );
+
+	private JreAccessors()
+	{
+	}
+
+	static FieldAccessor fieldAccessor( java.lang.reflect.Field field, AccessorStrategy strategy )
+	{
+		if( strategy == AccessorStrategy.METHOD_HANDLES )
+		{
+			try
+			{
+				return new HandleFieldAccessor( field );
+			}
+			catch( IllegalAccessException e )
+			{
+				// fall back to reflection
+			}
+		}
+
+		return new ReflectiveFieldAccessor( field );
+	}
+
+	static MethodAccessor methodAccessor( java.lang.reflect.Method method, AccessorStrategy strategy )
+	{
+		if( strategy == AccessorStrategy.METHOD_HANDLES )
+		{
+			try
+			{
+				return new HandleMethodAccessor( method );
+			}
+			catch( IllegalAccessException e )
+			{
+				// fall back to reflection
+			}
+		}
+
+		return new ReflectiveMethodAccessor( method );
+	}
+
+	private static final class ReflectiveFieldAccessor implements FieldAccessor
+	{
+		private final java.lang.reflect.Field field;
+
+		ReflectiveFieldAccessor( java.lang.reflect.Field field )
+		{
+			this.field = field;
+		}
+
+		@Override
+		public Object get( Object object ) throws Throwable
+		{
+			return field.get( object );
+		}
+
+		@Override
+		public void set( Object object, Object value ) throws Throwable
+		{
+			field.set( object, value );
+		}
+	}
+
+	private static final class HandleFieldAccessor implements FieldAccessor
+	{
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		HandleFieldAccessor( java.lang.reflect.Field field ) throws IllegalAccessException
+		{
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+			MethodHandle getter = lookup.unreflectGetter( field );
+			MethodHandle setter = Modifier.isFinal( field.getModifiers() ) ? null : lookup.unreflectSetter( field );
+
+			if( Modifier.isStatic( field.getModifiers() ) )
+			{
+				getter = MethodHandles.dropArguments( getter, 0, Object.class );
+				if( setter != null )
+					setter = MethodHandles.dropArguments( setter, 0, Object.class );
+			}
+
+			this.getter = getter.asType( GETTER_TYPE );
+			this.setter = setter == null ? null : setter.asType( SETTER_TYPE );
+		}
+
+		@Override
+		public Object get( Object object ) throws Throwable
+		{
+			return (Object) getter.invokeExact( object );
+		}
+
+		@Override
+		public void set( Object object, Object value ) throws Throwable
+		{
+			if( setter == null )
+				throw new IllegalAccessException( "Cannot set a final field" );
+
+			setter.invokeExact( object, value );
+		}
+	}
+
+	private static final class ReflectiveMethodAccessor implements MethodAccessor
+	{
+		private final java.lang.reflect.Method method;
+
+		ReflectiveMethodAccessor( java.lang.reflect.Method method )
+		{
+			this.method = method;
+		}
+
+		@Override
+		public Object invoke( Object target, Object[] parameters ) throws Throwable
+		{
+			return method.invoke( target, parameters );
+		}
+	}
+
+	private static final class HandleMethodAccessor implements MethodAccessor
+	{
+		private final MethodHandle handle;
+
+		HandleMethodAccessor( java.lang.reflect.Method method ) throws IllegalAccessException
+		{
+			MethodHandle handle = MethodHandles.lookup().unreflect( method ).asFixedArity();
+
+			if( Modifier.isStatic( method.getModifiers() ) )
+				handle = MethodHandles.dropArguments( handle, 0, Object.class );
+
+			this.handle = handle.asSpreader( Object[].class, method.getParameterTypes().length ).asType( INVOKER_TYPE );
+		}
+
+		@Override
+		public Object invoke( Object target, Object[] parameters ) throws Throwable
+		{
+			return (Object) handle.invokeExact( target, parameters );
+		}
+	}
+}
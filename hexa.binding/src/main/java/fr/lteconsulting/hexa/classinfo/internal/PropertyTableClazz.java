@@ -0,0 +1,320 @@
+package fr.lteconsulting.hexa.classinfo.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.lteconsulting.hexa.classinfo.ClassInfo;
+import fr.lteconsulting.hexa.classinfo.Clazz;
+import fr.lteconsulting.hexa.classinfo.Field;
+import fr.lteconsulting.hexa.classinfo.Method;
+
+/**
+ * Base class of the runtime type information generated by the Observable
+ * annotation processor.
+ *
+ * The generated subclasses describe the properties of their class in arrays
+ * indexed by property, and read and write them with a switch on that index.
+ * Each property is exposed as its getter and setter methods, and as a field
+ * when it has both with the same type, so that the binding system accesses
+ * them without any reflection. The fields and methods which are not in the
+ * table, like the fields of the properties only read or only written, are
+ * searched in the superclass runtime type information.
+ *
+ * Classes without a default constructor have no table NEW() implementation,
+ * they cannot be instantiated through their runtime type information.
+ *
+ * @author Arnaud Tournier
+ *
+ * @param <T>
+ *            The described class
+ */
+public abstract class PropertyTableClazz<T> implements Clazz<T>
+{
+	// To implement :
+	protected abstract Object getProperty( T object, int index );
+
+	protected abstract void setProperty( T object, int index, Object value );
+
+	private final Class<T> reflectedClass;
+	private final List<Field> fields;
+	private final List<Method> methods;
+	private final List<String> notifyingProperties;
+	private final Map<String, Field> fieldsByName = new HashMap<String, Field>();
+	private final Map<String, Method> methodsByName = new HashMap<String, Method>();
+
+	// with the superclass members, built when first needed
+	private volatile List<Field> allFields;
+	private volatile List<Method> allMethods;
+
+	/**
+	 * @param reflectedClass
+	 *            the described class
+	 * @param names
+	 *            the property names
+	 * @param getterNames
+	 *            the name of each property getter, <code>null</code> if there
+	 *            is none
+	 * @param getterTypes
+	 *            the return type of each property getter
+	 * @param setterNames
+	 *            the name of each property setter, <code>null</code> if there
+	 *            is none. Setters notify the property changes.
+	 * @param setterTypes
+	 *            the parameter type of each property setter
+	 */
+	protected PropertyTableClazz( Class<T> reflectedClass, String[] names, String[] getterNames, Class<?>[] getterTypes, String[] setterNames, Class<?>[] setterTypes )
+	{
+		this.reflectedClass = reflectedClass;
+
+		List<Field> fields = new ArrayList<Field>();
+		List<Method> methods = new ArrayList<Method>();
+		List<String> notifyingProperties = new ArrayList<String>();
+
+		for( int i = 0; i < names.length; i++ )
+		{
+			if( getterNames[i] != null && setterNames[i] != null && getterTypes[i] == setterTypes[i] )
+			{
+				Field field = new PropertyField( names[i], getterTypes[i], i );
+				fields.add( field );
+				fieldsByName.put( names[i], field );
+			}
+
+			if( getterNames[i] != null )
+			{
+				Method getter = new PropertyGetter( getterNames[i], getterTypes[i], i );
+				methods.add( getter );
+				methodsByName.put( getterNames[i], getter );
+			}
+
+			if( setterNames[i] != null )
+			{
+				Method setter = new PropertySetter( setterNames[i], setterTypes[i], i );
+				methods.add( setter );
+				methodsByName.put( setterNames[i], setter );
+
+				notifyingProperties.add( names[i] );
+			}
+		}
+
+		this.fields = Collections.unmodifiableList( fields );
+		this.methods = Collections.unmodifiableList( methods );
+		this.notifyingProperties = Collections.unmodifiableList( notifyingProperties );
+	}
+
+	/**
+	 * The properties which notify their changes when they are set
+	 */
+	public List<String> getNotifyingProperties()
+	{
+		return notifyingProperties;
+	}
+
+	@Override
+	public String getClassName()
+	{
+		return reflectedClass.getName();
+	}
+
+	@Override
+	public Class<T> getReflectedClass()
+	{
+		return reflectedClass;
+	}
+
+	@Override
+	public Clazz<? super T> getSuperclass()
+	{
+		Class<? super T> superClass = reflectedClass.getSuperclass();
+		if( superClass == null )
+			return null;
+
+		return ClassInfo.Clazz( superClass );
+	}
+
+	@Override
+	public List<Field> getAllFields()
+	{
+		List<Field> result = allFields;
+		if( result == null )
+		{
+			List<Field> list = new ArrayList<Field>( fields );
+
+			// the superclass fields shadowed by a property are found by
+			// getAllField only through the property, so they are skipped
+			Clazz<? super T> superClass = getSuperclass();
+			if( superClass != null )
+			{
+				for( Field field : superClass.getAllFields() )
+				{
+					if( !fieldsByName.containsKey( field.getName() ) )
+						list.add( field );
+				}
+			}
+
+			result = Collections.unmodifiableList( list );
+			allFields = result;
+		}
+
+		return result;
+	}
+
+	@Override
+	public Field getAllField( String fieldName )
+	{
+		Field field = fieldsByName.get( fieldName );
+		if( field != null )
+			return field;
+
+		Clazz<? super T> superClass = getSuperclass();
+		return superClass != null ? superClass.getAllField( fieldName ) : null;
+	}
+
+	@Override
+	public List<Field> getFields()
+	{
+		return fields;
+	}
+
+	@Override
+	public Field getField( String fieldName )
+	{
+		return fieldsByName.get( fieldName );
+	}
+
+	@Override
+	public List<Field> getDeclaredFields()
+	{
+		return fields;
+	}
+
+	@Override
+	public Field getDeclaredField( String fieldName )
+	{
+		return fieldsByName.get( fieldName );
+	}
+
+	@Override
+	public List<Method> getMethods()
+	{
+		List<Method> result = allMethods;
+		if( result == null )
+		{
+			List<Method> list = new ArrayList<Method>( methods );
+
+			// same as for the fields, the property getters and setters
+			// replace the superclass methods with the same name
+			Clazz<? super T> superClass = getSuperclass();
+			if( superClass != null )
+			{
+				for( Method method : superClass.getMethods() )
+				{
+					if( !methodsByName.containsKey( method.getName() ) )
+						list.add( method );
+				}
+			}
+
+			result = Collections.unmodifiableList( list );
+			allMethods = result;
+		}
+
+		return result;
+	}
+
+	@Override
+	public Method getMethod( String methodName )
+	{
+		Method method = methodsByName.get( methodName );
+		if( method != null )
+			return method;
+
+		Clazz<? super T> superClass = getSuperclass();
+		return superClass != null ? superClass.getMethod( methodName ) : null;
+	}
+
+	/**
+	 * Overridden by the tables of the classes which have a default constructor
+	 */
+	@Override
+	public T NEW()
+	{
+		throw new UnsupportedOperationException( reflectedClass.getName() + " has no default constructor" );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private T cast( Object object )
+	{
+		return (T) object;
+	}
+
+	private class PropertyField extends FieldBase
+	{
+		private final int index;
+
+		PropertyField( String name, Class<?> type, int index )
+		{
+			super( type, name, /* Modifier.PUBLIC */1 );
+
+			this.index = index;
+		}
+
+		@Override
+		public void setValue( Object object, Object value )
+		{
+			setProperty( cast( object ), index, value );
+		}
+
+		@Override
+		public <OUT> OUT getValue( Object object )
+		{
+			@SuppressWarnings( "unchecked" )
+			OUT result = (OUT) getProperty( cast( object ), index );
+			return result;
+		}
+
+		@Override
+		public void copyValueTo( Object source, Object destination )
+		{
+			setValue( destination, getValue( source ) );
+		}
+	}
+
+	private class PropertyGetter extends MethodBase
+	{
+		private final int index;
+
+		PropertyGetter( String name, Class<?> type, int index )
+		{
+			super( type, name, new Class<?>[0] );
+
+			this.index = index;
+		}
+
+		@Override
+		public Object invoke( Object target, Object... parameters )
+		{
+			return getProperty( cast( target ), index );
+		}
+	}
+
+	private class PropertySetter extends MethodBase
+	{
+		private final int index;
+
+		PropertySetter( String name, Class<?> type, int index )
+		{
+			super( void.class, name, new Class<?>[] { type } );
+
+			this.index = index;
+		}
+
+		@Override
+		public Object invoke( Object target, Object... parameters )
+		{
+			setProperty( cast( target ), index, parameters[0] );
+			return null;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package fr.lteconsulting.hexa.databinding;
 
+import fr.lteconsulting.hexa.client.tools.Action;
 import fr.lteconsulting.hexa.databinding.propertyadapters.CompositePropertyAdapter;
 import fr.lteconsulting.hexa.databinding.propertyadapters.ObjectAsValuePropertyAdapter;
 import fr.lteconsulting.hexa.databinding.propertyadapters.PropertyAdapter;
@@ -96,6 +97,34 @@ public class Binder
 		return bindObject( source ).mapTo( destination );
 	}
 
+	/**
+	 * Executes an action in a batch. The data bindings triggered during the
+	 * action are not propagated immediately but queued, each binding only
+	 * once. They are propagated when the action returns, reading their last
+	 * value, and a binding is always propagated after the ones which
+	 * triggered it.
+	 * 
+	 * Batches can be nested, the propagation happens at the end of the
+	 * outermost one.
+	 * 
+	 * @param action
+	 *            The action changing the bound objects
+	 */
+	public static void batch( Action action )
+	{
+		PropagationQueue queue = PlatformSpecificProvider.get().getPropagationQueue();
+
+		queue.begin();
+		try
+		{
+			action.exec();
+		}
+		finally
+		{
+			queue.end();
+		}
+	}
+
 	private static BindingCreation createBinder( PropertyAdapter source )
 	{
 		return new BindingCreation( source );
@@ -18,6 +18,7 @@ public class BindingCreation
 	protected Mode mode = Mode.TwoWay;
 	protected Converter converter;
 	protected String logPrefix;
+	protected boolean coalesced;
 	
 	public BindingCreation( PropertyAdapter source )
 	{
@@ -70,6 +71,22 @@ public class BindingCreation
 		return this;
 	}
 
+	/**
+	 * Second step, parameters.
+	 * 
+	 * Makes the binding propagate its changes in a batch, so that the
+	 * bindings depending on its destination are propagated only once, with
+	 * their last value. See {@link Binder#batch(fr.lteconsulting.hexa.client.tools.Action)}.
+	 * 
+	 * @return The Binder to continue specifying the data binding
+	 */
+	public BindingCreation coalesced()
+	{
+		this.coalesced = true;
+
+		return this;
+	}
+
 	/**
 	 * Final step, defines the data binding destination and activates the
 	 * binding
@@ -126,7 +143,7 @@ public class BindingCreation
 	public DataBinding to( PropertyAdapter destination )
 	{
 		// create the binding according to the parameters
-		DataBinding binding = new DataBinding( source, destination, mode, converter, logPrefix );
+		DataBinding binding = new DataBinding( source, destination, mode, converter, logPrefix, coalesced );
 
 		// activate the binding
 		binding.activate();
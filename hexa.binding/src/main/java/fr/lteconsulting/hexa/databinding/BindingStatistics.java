@@ -0,0 +1,244 @@
+package fr.lteconsulting.hexa.databinding;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.properties.PropertyChangesSnapshot;
+import fr.lteconsulting.hexa.databinding.propertyadapters.PropertyAdapter;
+
+/**
+ * Statistics of the data bindings, used to find the bindings which are never
+ * terminated.
+ *
+ * All the bindings are counted until they are terminated, as are the
+ * registrations and notifications of the properties. Those counters are
+ * always collected.
+ *
+ * The costly statistics are only collected once enabled with
+ * {@link #setEnabled(boolean)} : one binding out of
+ * {@link #getStackSamplingInterval()} is then tracked with the stack of its
+ * creation, so that the code creating bindings without terminating them can
+ * be found, and the time spent to dispatch the notifications is measured.
+ * At most 1024 bindings are tracked, the oldest one is forgotten to track a
+ * new one.
+ *
+ * @author Arnaud Tournier
+ */
+public final class BindingStatistics
+{
+	/**
+	 * A tracked binding, not yet terminated
+	 */
+	public static final class TrackedBinding
+	{
+		private final String description;
+		private final long creationTime;
+		private final Throwable creationStack;
+
+		TrackedBinding( String description, long creationTime, Throwable creationStack )
+		{
+			this.description = description;
+			this.creationTime = creationTime;
+			this.creationStack = creationStack;
+		}
+
+		/**
+		 * The source and destination of the binding
+		 */
+		public String getDescription()
+		{
+			return description;
+		}
+
+		/**
+		 * The creation time of the binding, in milliseconds
+		 */
+		public long getCreationTime()
+		{
+			return creationTime;
+		}
+
+		/**
+		 * The stack of the binding creation
+		 */
+		public StackTraceElement[] getCreationStack()
+		{
+			return creationStack.getStackTrace();
+		}
+
+		@Override
+		public String toString()
+		{
+			StringBuilder sb = new StringBuilder( description );
+			for( StackTraceElement element : getCreationStack() )
+				sb.append( "\n\tat " ).append( element );
+			return sb.toString();
+		}
+	}
+
+	// the oldest tracked binding is forgotten when that many bindings are
+	// tracked, to bound the memory
+	private static final int MAX_TRACKED = 1024;
+
+	// returned for the bindings which are counted but not tracked
+	private static final Object UNTRACKED = new Object();
+
+	private static volatile boolean enabled = false;
+
+	private static final Counter liveBindings = PlatformSpecificProvider.get().createCounter();
+	private static final Counter createdBindings = PlatformSpecificProvider.get().createCounter();
+
+	private static volatile int stackSamplingInterval = 64;
+
+	// creations since the last change of the sampling interval
+	private static final AtomicInteger creations = new AtomicInteger();
+
+	// in creation order
+	private static final LinkedHashSet<TrackedBinding> tracked = new LinkedHashSet<>();
+
+	private BindingStatistics()
+	{
+	}
+
+	/**
+	 * Whether the binding creation stacks and the dispatch latencies are
+	 * collected
+	 */
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Starts or stops collecting the binding creation stacks and the dispatch
+	 * latencies
+	 */
+	public static void setEnabled( boolean enabled )
+	{
+		BindingStatistics.enabled = enabled;
+	}
+
+	/**
+	 * Returns the number of bindings created and not yet terminated
+	 */
+	public static long getLiveBindings()
+	{
+		return liveBindings.sum();
+	}
+
+	/**
+	 * Returns the number of bindings created since the start
+	 */
+	public static long getCreatedBindings()
+	{
+		return createdBindings.sum();
+	}
+
+	/**
+	 * Returns the tracked bindings which were created at least
+	 * <code>minAge</code> milliseconds ago and are not terminated, the
+	 * oldest first
+	 */
+	public static List<TrackedBinding> getUnterminatedBindings( long minAge )
+	{
+		long limit = System.currentTimeMillis() - minAge;
+
+		List<TrackedBinding> res = new ArrayList<>();
+		synchronized( tracked )
+		{
+			for( TrackedBinding binding : tracked )
+			{
+				if( binding.creationTime <= limit )
+					res.add( binding );
+			}
+		}
+
+		// insertion sort, the list is small
+		for( int i = 1; i < res.size(); i++ )
+		{
+			TrackedBinding binding = res.get( i );
+			int j = i;
+			for( ; j > 0 && res.get( j - 1 ).creationTime > binding.creationTime; j-- )
+				res.set( j, res.get( j - 1 ) );
+			res.set( j, binding );
+		}
+
+		return res;
+	}
+
+	/**
+	 * Returns the statistics of the property changes
+	 */
+	public static PropertyChangesSnapshot getPropertyChanges()
+	{
+		return Properties.getStatisticsSnapshot();
+	}
+
+	public static int getStackSamplingInterval()
+	{
+		return stackSamplingInterval;
+	}
+
+	/**
+	 * Sets how many bindings are created for one which is tracked with its
+	 * creation stack. 1 tracks all the bindings, 0 none.
+	 */
+	public static void setStackSamplingInterval( int interval )
+	{
+		stackSamplingInterval = interval;
+		creations.set( 0 );
+	}
+
+	/**
+	 * Called by a binding when created, returns the tracking information to
+	 * give back to {@link #terminated(Object)}
+	 */
+	static Object created( PropertyAdapter source, PropertyAdapter destination )
+	{
+		liveBindings.increment();
+		createdBindings.increment();
+
+		if( !enabled )
+			return UNTRACKED;
+
+		// the first creation is sampled
+		int interval = stackSamplingInterval;
+		if( interval <= 0 || (creations.getAndIncrement() & Integer.MAX_VALUE) % interval != 0 )
+			return UNTRACKED;
+
+		TrackedBinding binding = new TrackedBinding( source + " -> " + destination, System.currentTimeMillis(), new Throwable() );
+		synchronized( tracked )
+		{
+			if( tracked.size() >= MAX_TRACKED )
+			{
+				Iterator<TrackedBinding> oldest = tracked.iterator();
+				oldest.next();
+				oldest.remove();
+			}
+
+			tracked.add( binding );
+		}
+
+		return binding;
+	}
+
+	static void terminated( Object tracking )
+	{
+		if( tracking == null )
+			return;
+
+		liveBindings.decrement();
+
+		if( tracking == UNTRACKED )
+			return;
+
+		synchronized( tracked )
+		{
+			tracked.remove( tracking );
+		}
+	}
+}
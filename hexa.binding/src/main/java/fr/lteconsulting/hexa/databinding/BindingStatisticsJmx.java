@@ -0,0 +1,135 @@
+package fr.lteconsulting.hexa.databinding;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import fr.lteconsulting.hexa.databinding.properties.Histogram;
+import fr.lteconsulting.hexa.databinding.properties.PropertyChangesSnapshot;
+
+/**
+ * Exposes the {@link BindingStatistics} through JMX. Only available in the
+ * JRE.
+ *
+ * @author Arnaud Tournier
+ */
+public final class BindingStatisticsJmx implements BindingStatisticsMXBean
+{
+	public static final String OBJECT_NAME = "fr.lteconsulting.hexa:type=BindingStatistics";
+
+	/**
+	 * Registers the statistics MBean in the platform MBean server, if not
+	 * already done
+	 */
+	public static synchronized void register()
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName( OBJECT_NAME );
+			if( !server.isRegistered( name ) )
+				server.registerMBean( new BindingStatisticsJmx(), name );
+		}
+		catch( JMException e )
+		{
+			throw new IllegalStateException( "Cannot register the binding statistics MBean", e );
+		}
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return BindingStatistics.isEnabled();
+	}
+
+	@Override
+	public void setEnabled( boolean enabled )
+	{
+		BindingStatistics.setEnabled( enabled );
+	}
+
+	@Override
+	public long getRegisteredHandlers()
+	{
+		return BindingStatistics.getPropertyChanges().getRegisteredHandlers();
+	}
+
+	@Override
+	public long getNotifications()
+	{
+		return BindingStatistics.getPropertyChanges().getNotifications();
+	}
+
+	@Override
+	public long getDispatches()
+	{
+		return BindingStatistics.getPropertyChanges().getDispatches();
+	}
+
+	@Override
+	public long getLiveBindings()
+	{
+		return BindingStatistics.getLiveBindings();
+	}
+
+	@Override
+	public long getCreatedBindings()
+	{
+		return BindingStatistics.getCreatedBindings();
+	}
+
+	@Override
+	public int getStackSamplingInterval()
+	{
+		return BindingStatistics.getStackSamplingInterval();
+	}
+
+	@Override
+	public void setStackSamplingInterval( int interval )
+	{
+		BindingStatistics.setStackSamplingInterval( interval );
+	}
+
+	@Override
+	public long[] getFanOutCounts()
+	{
+		return BindingStatistics.getPropertyChanges().getFanOutCounts();
+	}
+
+	@Override
+	public long[] getDispatchLatencyCounts()
+	{
+		return BindingStatistics.getPropertyChanges().getDispatchLatencyCounts();
+	}
+
+	@Override
+	public long getDispatchLatency99thPercentile()
+	{
+		return Histogram.getPercentile( getDispatchLatencyCounts(), 0.99 );
+	}
+
+	@Override
+	public String[] getPropertyStatistics()
+	{
+		List<PropertyChangesSnapshot.Entry> entries = BindingStatistics.getPropertyChanges().getEntries();
+
+		String[] res = new String[entries.size()];
+		for( int i = 0; i < res.length; i++ )
+			res[i] = entries.get( i ).toString();
+		return res;
+	}
+
+	@Override
+	public String[] getUnterminatedBindings( long minAge )
+	{
+		List<BindingStatistics.TrackedBinding> bindings = BindingStatistics.getUnterminatedBindings( minAge );
+
+		String[] res = new String[bindings.size()];
+		for( int i = 0; i < res.length; i++ )
+			res[i] = bindings.get( i ).toString();
+		return res;
+	}
+}
@@ -0,0 +1,56 @@
+package fr.lteconsulting.hexa.databinding;
+
+/**
+ * The JMX view of the {@link BindingStatistics}, registered by
+ * {@link BindingStatisticsJmx#register()}.
+ *
+ * @author Arnaud Tournier
+ */
+public interface BindingStatisticsMXBean
+{
+	/**
+	 * Whether the binding creation stacks and the dispatch latencies are
+	 * collected
+	 */
+	boolean isEnabled();
+
+	void setEnabled( boolean enabled );
+
+	long getRegisteredHandlers();
+
+	long getNotifications();
+
+	long getDispatches();
+
+	long getLiveBindings();
+
+	long getCreatedBindings();
+
+	int getStackSamplingInterval();
+
+	void setStackSamplingInterval( int interval );
+
+	/**
+	 * Histogram of the number of handlers called by a notification
+	 */
+	long[] getFanOutCounts();
+
+	/**
+	 * Histogram of the nanoseconds spent to call the handlers of a
+	 * notification
+	 */
+	long[] getDispatchLatencyCounts();
+
+	long getDispatchLatency99thPercentile();
+
+	/**
+	 * The properties statistics, one line per property of each class
+	 */
+	String[] getPropertyStatistics();
+
+	/**
+	 * The tracked bindings created at least <code>minAge</code> milliseconds
+	 * ago and not terminated, with their creation stack
+	 */
+	String[] getUnterminatedBindings( long minAge );
+}
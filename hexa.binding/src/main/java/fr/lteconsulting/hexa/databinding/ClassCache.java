@@ -0,0 +1,31 @@
+package fr.lteconsulting.hexa.databinding;
+
+/**
+ * Values computed once per class.
+ *
+ * Instances are provided by {@link PlatformSpecific#createClassCache(Loader)}.
+ * On the JRE, the values are attached to their class, so that the cache does
+ * not prevent the class and its class loader from being collected.
+ *
+ * @author Arnaud Tournier
+ */
+public interface ClassCache<V>
+{
+	/**
+	 * Computes the value of a class the first time it is needed
+	 */
+	interface Loader<V>
+	{
+		V load( Class<?> classs );
+	}
+
+	/**
+	 * Returns the value of the class, computing it if needed
+	 */
+	V get( Class<?> classs );
+
+	/**
+	 * Forgets the value of the class, it is computed again when next needed
+	 */
+	void remove( Class<?> classs );
+}
@@ -1,5 +1,8 @@
 package fr.lteconsulting.hexa.databinding;
 
+import fr.lteconsulting.hexa.databinding.converters.ConverterRegistry;
+import fr.lteconsulting.hexa.databinding.converters.ValueParser;
+
 /**
  * A collection of implementations of standard converters.
  * 
@@ -10,7 +13,25 @@ package fr.lteconsulting.hexa.databinding;
 public enum Converters implements Converter
 {
 	/**
-	 * A String to Integer converter. Quietly catches conversion exceptions
+	 * Returns the values unchanged
+	 */
+	Identity
+	{
+		@Override
+		public Object convert( Object value )
+		{
+			return value;
+		}
+
+		@Override
+		public Object convertBack( Object value )
+		{
+			return value;
+		}
+	},
+
+	/**
+	 * A String to Integer converter. Returns null for invalid strings
 	 */
 	StringToInteger
 	{
@@ -20,14 +41,11 @@ public enum Converters implements Converter
 			if( value == null )
 				return null;
 
-			try
-			{
-				return Integer.parseInt( ((String) value) );
-			}
-			catch( Exception e )
-			{
+			String string = (String) value;
+			if( !ValueParser.isInt( string ) )
 				return null;
-			}
+
+			return Integer.valueOf( ValueParser.parseInt( string, 0 ) );
 		}
 
 		@Override
@@ -41,7 +59,8 @@ public enum Converters implements Converter
 	},
 
 	/**
-	 * An Integer to String converter. Quietly catches conversion exceptions
+	 * An Integer to String converter. Converting back returns null for
+	 * invalid strings
 	 */
 	IntegerToString
 	{
@@ -63,33 +82,13 @@ public enum Converters implements Converter
 	 * of different classes.<br/>
 	 * Returns <code>null</code> if no appropriate converter is found.
 	 * 
+	 * @see ConverterRegistry
 	 * @param from The input class type
 	 * @param to The output class type
 	 * @return
 	 */
 	public static Converter findConverter( Class<?> from, Class<?> to )
 	{
-		from = getBoxedType( from );
-		to = getBoxedType( to );
-
-		if( from == String.class && to == Integer.class )
-			return StringToInteger;
-		if( from == Integer.class && to == String.class )
-			return IntegerToString;
-
-		return null;
-	}
-	
-	private static Class<?> getBoxedType( Class<?> c )
-	{
-		if( c == int.class )
-			return Integer.class;
-		if( c == char.class )
-			return Character.class;
-		if( c == double.class )
-			return Double.class;
-		if( c == float.class )
-			return Float.class;
-		return c;
+		return ConverterRegistry.get( from, to );
 	}
 }
@@ -0,0 +1,24 @@
+package fr.lteconsulting.hexa.databinding;
+
+/**
+ * A statistics counter which can be incremented concurrently.
+ *
+ * Instances are provided by {@link PlatformSpecific#createCounter()} so that each
+ * platform can use its most efficient implementation.
+ *
+ * @author Arnaud Tournier
+ */
+public interface Counter
+{
+	void increment();
+
+	void decrement();
+
+	void add( long delta );
+
+	/**
+	 * Returns the current value. When updates are happening concurrently, the
+	 * returned value might not include the most recent ones.
+	 */
+	long sum();
+}
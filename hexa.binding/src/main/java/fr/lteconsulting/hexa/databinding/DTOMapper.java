@@ -1,14 +1,11 @@
 package fr.lteconsulting.hexa.databinding;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import fr.lteconsulting.hexa.classinfo.ClassInfo;
-import fr.lteconsulting.hexa.classinfo.Clazz;
-import fr.lteconsulting.hexa.classinfo.Field;
-import fr.lteconsulting.hexa.classinfo.Method;
+import fr.lteconsulting.hexa.databinding.DTOMappingPlan.PropertyMapping;
 import fr.lteconsulting.hexa.databinding.properties.Properties;
 import fr.lteconsulting.hexa.databinding.propertyadapters.ObjectPropertyAdapter;
 
@@ -31,85 +28,66 @@ public class DTOMapper
 
 		LOGGER.fine( "Binding object of class " + getSimpleName( source.getClass() ) + " to another of class " + getSimpleName( destination.getClass() ) );
 
-		Clazz<?> sourceClass = ClassInfo.Clazz( source.getClass() );
-		Clazz<?> destinationClass = ClassInfo.Clazz( destination.getClass() );
+		DTOMappingPlan plan = DTOMappingPlan.get( source.getClass(), destination.getClass() );
 
-		// registers all possible bindings...
-		HashSet<String> bindedNames = new HashSet<String>();
-
-		// fields wise...
-		for( Field field : sourceClass.getAllFields() )
-			bindedNames.add( field.getName() );
-		for( Field field : destinationClass.getAllFields() )
-			bindedNames.add( field.getName() );
-
-		// ... and method wise
-		for( Method method : sourceClass.getMethods() )
+		for( PropertyMapping mapping : plan.getMappings() )
 		{
-			if( !method.getName().startsWith( "get" ) && !method.getName().startsWith( "set" ) )
+			DataAdapterInfo sourceAdapterInfo = createDataAdapter( source, mapping.name, mapping.sourceType, null, mapping.checkSourceValue );
+			if( sourceAdapterInfo == null )
 				continue;
 
-			String fieldName = method.getName().substring( 3, 4 ).toLowerCase() + method.getName().substring( 4 );
-			bindedNames.add( fieldName );
-		}
-		for( Method method : destinationClass.getMethods() )
-		{
-			if( !method.getName().startsWith( "get" ) && !method.getName().startsWith( "set" ) )
+			DataAdapterInfo destinationAdapterInfo = createDataAdapter( destination, mapping.name, mapping.destinationType, sourceAdapterInfo.dataType, mapping.checkDestinationValue );
+			if( destinationAdapterInfo == null )
 				continue;
 
-			String fieldName = method.getName().substring( 3, 4 ).toLowerCase() + method.getName().substring( 4 );
-			bindedNames.add( fieldName );
-		}
+			if( LOGGER.isLoggable( Level.FINE ) )
+			{
+				// bind source, "color" <----> destination, "color.$HasValue"
+				String symbol = mapping.mode == Mode.TwoWay ? "<---->" : "----->";
+				LOGGER.fine( "[" + getSimpleName( sourceAdapterInfo.dataType ) + "] " + sourceAdapterInfo.debugString + symbol + destinationAdapterInfo.debugString );
+			}
 
-		for( String name : bindedNames )
-		{
-			boolean srcRead = Properties.hasSomethingToGetField( ClassInfo.Clazz( source.getClass() ), name );
-			boolean srcWrite = Properties.hasSomethingToSetField( ClassInfo.Clazz( source.getClass() ), name );
+			DataBinding binding = new DataBinding( sourceAdapterInfo.adapter, destinationAdapterInfo.adapter, mapping.mode, destinationAdapterInfo.converter, null );
+			binding.activate();
 
-			boolean destinationRead = Properties.hasSomethingToGetField( ClassInfo.Clazz( destination.getClass() ), name );
-			boolean destinationWrite = Properties.hasSomethingToSetField( ClassInfo.Clazz( destination.getClass() ), name );
+			res.add( binding );
+		}
 
-			// ensure both have necessary methods or field
-			if( !srcRead || !destinationWrite )
-				continue; // bypass
+		return res;
+	}
 
-			// adjust binding mode according to capabilities
-			Mode bindingMode = Mode.OneWay;
-			if( srcWrite && destinationRead )
-				bindingMode = Mode.TwoWay;
+	/**
+	 * Copies the values of the matching properties of the source object to
+	 * the destination object. Unlike {@link #Map(Object, Object)}, no data
+	 * binding is created, so later changes are not propagated.
+	 */
+	public static void copy( Object source, Object destination )
+	{
+		DTOMappingPlan plan = DTOMappingPlan.get( source.getClass(), destination.getClass() );
 
-			DataAdapterInfo sourceAdapterInfo = createDataAdapter( source, name, null );
+		for( PropertyMapping mapping : plan.getMappings() )
+		{
+			if( !mapping.checkSourceValue && !mapping.checkDestinationValue )
+			{
+				Properties.setValue( destination, mapping.name, Properties.getValue( source, mapping.name ) );
+				continue;
+			}
+
+			// one of the values may be a platform specific data adapter
+			DataAdapterInfo sourceAdapterInfo = createDataAdapter( source, mapping.name, mapping.sourceType, null, mapping.checkSourceValue );
 			if( sourceAdapterInfo == null )
 				continue;
 
-			DataAdapterInfo destinationAdapterInfo = createDataAdapter( destination, name, sourceAdapterInfo.dataType );
+			DataAdapterInfo destinationAdapterInfo = createDataAdapter( destination, mapping.name, mapping.destinationType, sourceAdapterInfo.dataType, mapping.checkDestinationValue );
 			if( destinationAdapterInfo == null )
 				continue;
 
-			// bind source, "color" <----> destination, "color.$HasValue"
-			String symbol = "";
-			switch( bindingMode )
-			{
-				case OneWay:
-					symbol = "----->";
-					break;
-				case TwoWay:
-					symbol = "<---->";
-					break;
-				case OneWayToSource:
-					symbol = "<-----";
-					break;
-			}
-
-			LOGGER.fine( "[" + getSimpleName( sourceAdapterInfo.dataType ) + "] " + sourceAdapterInfo.debugString + symbol + destinationAdapterInfo.debugString );
-
-			DataBinding binding = new DataBinding( sourceAdapterInfo.adapter, destinationAdapterInfo.adapter, bindingMode, destinationAdapterInfo.converter, null );
-			binding.activate();
+			Object value = sourceAdapterInfo.adapter.getValue();
+			if( destinationAdapterInfo.converter != null )
+				value = destinationAdapterInfo.converter.convert( value );
 
-			res.add( binding );
+			destinationAdapterInfo.adapter.setValue( value );
 		}
-
-		return res;
 	}
 
 	public static void freeMapping( Object mappingResourceHandle )
@@ -127,15 +105,15 @@ public class DTOMapper
 		return path[path.length - 1];
 	}
 
-	static DataAdapterInfo createDataAdapter( Object context, String property, Class<?> srcPptyType )
+	private static DataAdapterInfo createDataAdapter( Object context, String property, Class<?> dataType, Class<?> srcPptyType, boolean checkValue )
 	{
 		DataAdapterInfo res = new DataAdapterInfo();
-		res.dataType = Properties.getPropertyType( ClassInfo.Clazz( context.getClass() ), property );
+		res.dataType = dataType;
 		res.debugString = getSimpleName( context.getClass() ) + ", ";
 
 		// test to see if the asked property is in fact a HasValue widget
-		Object widget = Properties.getValue( context, property );
-		if( PlatformSpecificProvider.get().isSpecificDataAdapter( widget ) )
+		Object widget = checkValue ? Properties.getValue( context, property ) : null;
+		if( widget != null && PlatformSpecificProvider.get().isSpecificDataAdapter( widget ) )
 		{
 			PlatformSpecificProvider.get().fillSpecificDataAdapter( widget, context, property, srcPptyType, res );
 		}
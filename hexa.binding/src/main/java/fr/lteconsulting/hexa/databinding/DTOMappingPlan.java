@@ -0,0 +1,199 @@
+package fr.lteconsulting.hexa.databinding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import fr.lteconsulting.hexa.classinfo.ClassInfo;
+import fr.lteconsulting.hexa.classinfo.Clazz;
+import fr.lteconsulting.hexa.classinfo.Field;
+import fr.lteconsulting.hexa.classinfo.Method;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+
+/**
+ * The properties mapped by the {@link DTOMapper} between two classes.
+ *
+ * The properties of both classes are examined once per pair of classes, and
+ * the resulting plan is cached. Plans are immutable, the plans of a source
+ * class are replaced by an updated copy when a plan is added so that lookups
+ * never lock.
+ *
+ * The plans are held by a platform {@link ClassCache} on the source class,
+ * which does not prevent it from being unloaded. A plan is built again when
+ * the type information of its classes is not the one it was built from, for
+ * example after a class registration or a change of the accessor strategy.
+ *
+ * @author Arnaud Tournier
+ */
+final class DTOMappingPlan
+{
+	private static final ClassCache<SourcePlans> plans = PlatformSpecificProvider.get().createClassCache( new ClassCache.Loader<SourcePlans>()
+	{
+		@Override
+		public SourcePlans load( Class<?> classs )
+		{
+			return new SourcePlans();
+		}
+	} );
+
+	/**
+	 * The plans from a source class, by destination class
+	 */
+	private static final class SourcePlans
+	{
+		volatile HashMap<Class<?>, DTOMappingPlan> destinations = new HashMap<Class<?>, DTOMappingPlan>();
+	}
+
+	/**
+	 * Value types that cannot hold a platform specific data adapter
+	 */
+	private static final HashSet<Class<?>> plainValueTypes = new HashSet<Class<?>>();
+
+	static
+	{
+		plainValueTypes.add( String.class );
+		plainValueTypes.add( Boolean.class );
+		plainValueTypes.add( Character.class );
+		plainValueTypes.add( Byte.class );
+		plainValueTypes.add( Short.class );
+		plainValueTypes.add( Integer.class );
+		plainValueTypes.add( Long.class );
+		plainValueTypes.add( Float.class );
+		plainValueTypes.add( Double.class );
+		plainValueTypes.add( Date.class );
+	}
+
+	/**
+	 * One property mapped from the source to the destination
+	 */
+	static final class PropertyMapping
+	{
+		final String name;
+		final Mode mode;
+
+		final Class<?> sourceType;
+		final Class<?> destinationType;
+
+		/**
+		 * Whether the property values have to be checked for a platform
+		 * specific data adapter
+		 */
+		final boolean checkSourceValue;
+		final boolean checkDestinationValue;
+
+		PropertyMapping( String name, Mode mode, Class<?> sourceType, Class<?> destinationType, boolean checkSourceValue, boolean checkDestinationValue )
+		{
+			this.name = name;
+			this.mode = mode;
+			this.sourceType = sourceType;
+			this.destinationType = destinationType;
+			this.checkSourceValue = checkSourceValue;
+			this.checkDestinationValue = checkDestinationValue;
+		}
+	}
+
+	private final Clazz<?> sourceClazz;
+	private final Clazz<?> destinationClazz;
+	private final List<PropertyMapping> mappings;
+
+	/**
+	 * Returns the plan to map objects of the source class to objects of the
+	 * destination class
+	 */
+	static DTOMappingPlan get( Class<?> sourceClass, Class<?> destinationClass )
+	{
+		Clazz<?> sourceClazz = ClassInfo.Clazz( sourceClass );
+		Clazz<?> destinationClazz = ClassInfo.Clazz( destinationClass );
+
+		SourcePlans sourcePlans = plans.get( sourceClass );
+		DTOMappingPlan plan = sourcePlans.destinations.get( destinationClass );
+		if( plan != null && plan.sourceClazz == sourceClazz && plan.destinationClazz == destinationClazz )
+			return plan;
+
+		return add( sourcePlans, sourceClazz, destinationClazz );
+	}
+
+	private static DTOMappingPlan add( SourcePlans sourcePlans, Clazz<?> sourceClazz, Clazz<?> destinationClazz )
+	{
+		DTOMappingPlan plan = new DTOMappingPlan( sourceClazz, destinationClazz );
+
+		synchronized( sourcePlans )
+		{
+			HashMap<Class<?>, DTOMappingPlan> newDestinations = new HashMap<Class<?>, DTOMappingPlan>( sourcePlans.destinations );
+			newDestinations.put( destinationClazz.getReflectedClass(), plan );
+			sourcePlans.destinations = newDestinations;
+		}
+
+		return plan;
+	}
+
+	private DTOMappingPlan( Clazz<?> sourceClass, Clazz<?> destinationClass )
+	{
+		this.sourceClazz = sourceClass;
+		this.destinationClazz = destinationClass;
+
+		// all possible bindings...
+		HashSet<String> names = new HashSet<String>();
+		addPropertyNames( sourceClass, names );
+		addPropertyNames( destinationClass, names );
+
+		List<PropertyMapping> mappings = new ArrayList<PropertyMapping>();
+		for( String name : names )
+		{
+			boolean srcRead = Properties.hasSomethingToGetField( sourceClass, name );
+			boolean srcWrite = Properties.hasSomethingToSetField( sourceClass, name );
+
+			boolean destinationRead = Properties.hasSomethingToGetField( destinationClass, name );
+			boolean destinationWrite = Properties.hasSomethingToSetField( destinationClass, name );
+
+			// ensure both have necessary methods or field
+			if( !srcRead || !destinationWrite )
+				continue;
+
+			// adjust binding mode according to capabilities
+			Mode mode = Mode.OneWay;
+			if( srcWrite && destinationRead )
+				mode = Mode.TwoWay;
+
+			boolean checkSourceValue = mayHoldDataAdapter( Properties.getGetterPropertyType( sourceClass, name ) );
+			boolean checkDestinationValue = destinationRead && mayHoldDataAdapter( Properties.getGetterPropertyType( destinationClass, name ) );
+
+			mappings.add( new PropertyMapping( name, mode, Properties.getPropertyType( sourceClass, name ), Properties.getPropertyType( destinationClass, name ), checkSourceValue, checkDestinationValue ) );
+		}
+
+		this.mappings = Collections.unmodifiableList( mappings );
+	}
+
+	List<PropertyMapping> getMappings()
+	{
+		return mappings;
+	}
+
+	private static void addPropertyNames( Clazz<?> clazz, HashSet<String> names )
+	{
+		// fields wise...
+		for( Field field : clazz.getAllFields() )
+			names.add( field.getName() );
+
+		// ... and method wise
+		for( Method method : clazz.getMethods() )
+		{
+			String methodName = method.getName();
+			if( methodName.length() < 4 || (!methodName.startsWith( "get" ) && !methodName.startsWith( "set" )) )
+				continue;
+
+			names.add( methodName.substring( 3, 4 ).toLowerCase() + methodName.substring( 4 ) );
+		}
+	}
+
+	private static boolean mayHoldDataAdapter( Class<?> type )
+	{
+		if( type == null )
+			return true;
+
+		return !type.isPrimitive() && !type.isEnum() && !plainValueTypes.contains( type );
+	}
+}
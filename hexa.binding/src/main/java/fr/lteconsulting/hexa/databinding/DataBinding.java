@@ -21,6 +21,8 @@ public class DataBinding
 {
 	private static final Logger LOGGER = Logger.getLogger( DataBinding.class.getName() );
 
+	private static final PlatformSpecific platform = PlatformSpecificProvider.get();
+
 	private boolean fActivated;
 
 	private PropertyAdapter source;
@@ -35,17 +37,37 @@ public class DataBinding
 
 	private final String logPrefix;
 
+	private final boolean coalesced;
+
+	// position in the propagation order, learned by the PropagationQueue
+	int rank;
+
+	private boolean fTerminated;
+	private Object tracking;
+
 	public DataBinding( Object source, String sourceProperty, Object destination, String destinationProperty, Mode bindingMode )
 	{
 		this( new ObjectPropertyAdapter( source, sourceProperty ), new ObjectPropertyAdapter( destination, destinationProperty ), bindingMode, null, null );
 	}
 
 	public DataBinding( PropertyAdapter source, PropertyAdapter destination, Mode bindingMode, Converter converter, String logPrefix )
+	{
+		this( source, destination, bindingMode, converter, logPrefix, false );
+	}
+
+	/**
+	 * @param coalesced
+	 *            if <code>true</code>, the propagations triggered by this
+	 *            binding are done in a batch, see
+	 *            {@link Binder#batch(fr.lteconsulting.hexa.client.tools.Action)}
+	 */
+	public DataBinding( PropertyAdapter source, PropertyAdapter destination, Mode bindingMode, Converter converter, String logPrefix, boolean coalesced )
 	{
 		this.source = source;
 		this.destination = destination;
 		this.converter = converter;
 		this.logPrefix = logPrefix;
+		this.coalesced = coalesced;
 
 		switch( bindingMode )
 		{
@@ -60,6 +82,8 @@ public class DataBinding
 				destinationHandler = destination.registerPropertyChanged( onDestinationChanged, null );
 				break;
 		}
+
+		tracking = BindingStatistics.created( source, destination );
 	}
 
 	/**
@@ -97,14 +121,24 @@ public class DataBinding
 	{
 		log( "term" );
 
+		if( !fTerminated )
+		{
+			fTerminated = true;
+			BindingStatistics.terminated( tracking );
+			tracking = null;
+		}
+
 		fActivated = false;
 		converter = null;
 
-		source.removePropertyChangedHandler( sourceHandler );
+		// one way bindings only registered a handler on one side
+		if( sourceHandler != null )
+			source.removePropertyChangedHandler( sourceHandler );
 		source = null;
 		sourceHandler = null;
 
-		destination.removePropertyChangedHandler( destinationHandler );
+		if( destinationHandler != null )
+			destination.removePropertyChangedHandler( destinationHandler );
 		destination = null;
 		destinationHandler = null;
 
@@ -118,6 +152,113 @@ public class DataBinding
 		LOGGER.info( "DATABINDING " + logPrefix + " : " + text );
 	}
 
+	/**
+	 * Returns the side of the binding written by a propagation
+	 */
+	PropertyAdapter getWritten( boolean fromSource )
+	{
+		return fromSource ? destination : source;
+	}
+
+	/**
+	 * Propagates the value of one side of the binding to the other one. Called
+	 * when the binding is flushed from the {@link PropagationQueue}.
+	 */
+	void propagate( boolean fromSource )
+	{
+		if( fromSource )
+			propagateToDestination();
+		else
+			propagateToSource();
+	}
+
+	/**
+	 * Propagates the change now, or queues it if a batch is opened. Coalesced
+	 * bindings open their own batch, so that the bindings depending on their
+	 * destination are propagated once.
+	 */
+	private void onChanged( boolean fromSource )
+	{
+		PropagationQueue queue = platform.getPropagationQueue();
+		if( queue.isBatching() )
+		{
+			if( logPrefix != null )
+				log( "change queued" );
+
+			queue.enqueue( this, fromSource );
+		}
+		else if( coalesced )
+		{
+			queue.begin();
+			try
+			{
+				propagate( fromSource );
+			}
+			finally
+			{
+				queue.end();
+			}
+		}
+		else
+		{
+			propagate( fromSource );
+		}
+	}
+
+	private void propagateToDestination()
+	{
+		if( logPrefix != null )
+			log( "source changed, propagating to destination ..." );
+
+		if( !fActivated )
+			return;
+
+		Object value = source.getValue();
+		if( logPrefix != null )
+			log(" - source value : " + value);
+
+		if( converter != null )
+		{
+			if( logPrefix != null )
+				log( "... converting value ..." );
+			value = converter.convert( value );
+			if( logPrefix != null )
+				log(" - converted to : " + value);
+		}
+
+		fSettingDestination = true;
+		destination.setValue( value );
+		fSettingDestination = false;
+
+		if( logPrefix != null )
+			log( " - done propagating source" );
+	}
+
+	private void propagateToSource()
+	{
+		if( !fActivated )
+			return;
+
+		if( logPrefix != null )
+			log( "destination changed, propagating to source ..." );
+
+		Object value = destination.getValue();
+
+		if( converter != null )
+		{
+			if( logPrefix != null )
+				log( "... converting value ..." );
+			value = converter.convertBack( value );
+		}
+
+		fSettingSource = true;
+		source.setValue( value );
+		fSettingSource = false;
+
+		if( logPrefix != null )
+			log( "done setting destination to " + value );
+	}
+
 	private final Action2<PropertyAdapter, Object> onSourceChanged = new Action2<PropertyAdapter, Object>()
 	{
 		@Override
@@ -127,31 +268,10 @@ public class DataBinding
 			if( fSettingSource )
 				return;
 
-			if( logPrefix != null )
-				log( "source changed, propagating to destination ..." );
-
 			if( !fActivated )
 				return;
 
-			Object value = source.getValue();
-			if( logPrefix != null )
-				log(" - source value : " + value);
-
-			if( converter != null )
-			{
-				if( logPrefix != null )
-					log( "... converting value ..." );
-				value = converter.convert( value );
-				if( logPrefix != null )
-					log(" - converted to : " + value);
-			}
-
-			fSettingDestination = true;
-			destination.setValue( value );
-			fSettingDestination = false;
-
-			if( logPrefix != null )
-				log( " - done propagating source" );
+			onChanged( true );
 		}
 	};
 
@@ -166,22 +286,8 @@ public class DataBinding
 			
 			if( !fActivated )
 				return;
-			
-			log( "destination changed, propagating to source ..." );
-
-			Object value = destination.getValue();
-
-			if( converter != null )
-			{
-				log( "... converting value ..." );
-				value = converter.convertBack( value );
-			}
 
-			fSettingSource = true;
-			source.setValue( value );
-			fSettingSource = false;
-
-			log( "done setting destination to " + value );
+			onChanged( false );
 		}
 	};
 }
@@ -0,0 +1,61 @@
+package fr.lteconsulting.hexa.databinding;
+
+import fr.lteconsulting.hexa.databinding.properties.DynamicPropertyBag;
+
+/**
+ * Interface for objects which store the data binding metadata themselves.
+ *
+ * <p>
+ * By default, the platform associates the data binding metadata (property
+ * change handlers and dynamic properties) to objects through an external
+ * identity table. An object implementing this interface keeps those values in
+ * its own fields, so no table lookup is needed and the metadata lives exactly
+ * as long as the object.
+ *
+ * <p>
+ * The methods are intentionally not named like getters and setters, so that
+ * they are not discovered as properties by the data binding system.
+ *
+ * <p>
+ * Handlers are registered and notified from several threads, so the fields
+ * storing the values must be <code>volatile</code>. For example :
+ *
+ * <pre>
+ * private volatile Object metadata;
+ *
+ * public Object retrieveObjectMetadata()
+ * {
+ * 	return metadata;
+ * }
+ *
+ * public void storeObjectMetadata( Object metadata )
+ * {
+ * 	this.metadata = metadata;
+ * }
+ * </pre>
+ *
+ * @author Arnaud Tournier
+ */
+public interface IObjectMetadataHolder
+{
+	/**
+	 * Returns the metadata previously stored with {@link #storeObjectMetadata(Object)}
+	 */
+	Object retrieveObjectMetadata();
+
+	/**
+	 * Stores the object's metadata, <code>null</code> clears it
+	 */
+	void storeObjectMetadata( Object metadata );
+
+	/**
+	 * Returns the dynamic property bag previously stored with
+	 * {@link #storeObjectDynamicPropertyBag(DynamicPropertyBag)}
+	 */
+	DynamicPropertyBag retrieveObjectDynamicPropertyBag();
+
+	/**
+	 * Stores the object's dynamic property bag
+	 */
+	void storeObjectDynamicPropertyBag( DynamicPropertyBag bag );
+}
@@ -27,4 +27,21 @@ public interface PlatformSpecific
 	boolean isSpecificDataAdapter( Object object );
 
 	void fillSpecificDataAdapter( Object widget, Object context, String property, Class<?> srcPptyType, DataAdapterInfo res );
+
+	// Statistics
+
+	Counter createCounter();
+
+	/**
+	 * Returns a time in nanoseconds, only meaningful to measure durations
+	 */
+	long nanoTime();
+
+	// Caches
+
+	<V> ClassCache<V> createClassCache( ClassCache.Loader<V> loader );
+
+	// Batched propagation
+
+	PropagationQueue getPropagationQueue();
 }
\ No newline at end of file
@@ -1,7 +1,5 @@
 package fr.lteconsulting.hexa.databinding;
 
-import java.util.HashMap;
-
 import fr.lteconsulting.hexa.databinding.properties.DynamicPropertyBag;
 import fr.lteconsulting.hexa.databinding.propertyadapters.PropertyAdapter;
 
@@ -18,16 +16,24 @@ class PlatformSpecificJre implements PlatformSpecific
 	{
 	}
 	
-	private static HashMap<Integer, DynamicPropertyBag> propertyBags = new HashMap<>();
+	private static final WeakIdentityMap<Object, DynamicPropertyBag> propertyBags = new WeakIdentityMap<>();
 
+	@Override
 	public void setObjectDynamicPropertyBag( Object object, DynamicPropertyBag bag )
 	{
-		propertyBags.put( System.identityHashCode( object ), bag );
+		if( object instanceof IObjectMetadataHolder )
+			((IObjectMetadataHolder) object).storeObjectDynamicPropertyBag( bag );
+		else
+			propertyBags.put( object, bag );
 	}
 
+	@Override
 	public DynamicPropertyBag getObjectDynamicPropertyBag( Object object )
 	{
-		return propertyBags.get( System.identityHashCode( object ) );
+		if( object instanceof IObjectMetadataHolder )
+			return ((IObjectMetadataHolder) object).retrieveObjectDynamicPropertyBag();
+
+		return propertyBags.get( object );
 	}
 
 	@Override
@@ -56,19 +62,28 @@ class PlatformSpecificJre implements PlatformSpecific
 
 	// Metadata
 
-	private static HashMap<Integer, Object> metadatas = new HashMap<>();
+	private static final WeakIdentityMap<Object, Object> metadatas = new WeakIdentityMap<>();
 
 	@Override
 	public void setObjectMetadata( Object object, Object metadata )
 	{
-		metadatas.put( System.identityHashCode( object ), metadata );
+		if( object instanceof IObjectMetadataHolder )
+			((IObjectMetadataHolder) object).storeObjectMetadata( metadata );
+		else
+			metadatas.put( object, metadata );
 	}
 
 	@Override
 	public <T> T getObjectMetadata( Object object )
 	{
+		Object metadata;
+		if( object instanceof IObjectMetadataHolder )
+			metadata = ((IObjectMetadataHolder) object).retrieveObjectMetadata();
+		else
+			metadata = metadatas.get( object );
+
 		@SuppressWarnings( "unchecked" )
-		T result = (T) metadatas.get( System.identityHashCode( object ) );
+		T result = (T) metadata;
 		return result;
 	}
 
@@ -85,4 +100,65 @@ class PlatformSpecificJre implements PlatformSpecific
 	{
 		throw new IllegalStateException();
 	}
-}
\ No newline at end of file
+
+	// Statistics
+
+	@Override
+	public Counter createCounter()
+	{
+		return new StripedCounter();
+	}
+
+	@Override
+	public long nanoTime()
+	{
+		return System.nanoTime();
+	}
+
+	// Caches
+
+	@Override
+	public <V> ClassCache<V> createClassCache( final ClassCache.Loader<V> loader )
+	{
+		final ClassValue<V> values = new ClassValue<V>()
+		{
+			@Override
+			protected V computeValue( Class<?> type )
+			{
+				return loader.load( type );
+			}
+		};
+
+		return new ClassCache<V>()
+		{
+			@Override
+			public V get( Class<?> classs )
+			{
+				return values.get( classs );
+			}
+
+			@Override
+			public void remove( Class<?> classs )
+			{
+				values.remove( classs );
+			}
+		};
+	}
+
+	// Batched propagation
+
+	private static final ThreadLocal<PropagationQueue> propagationQueues = new ThreadLocal<PropagationQueue>()
+	{
+		@Override
+		protected PropagationQueue initialValue()
+		{
+			return new PropagationQueue();
+		}
+	};
+
+	@Override
+	public PropagationQueue getPropagationQueue()
+	{
+		return propagationQueues.get();
+	}
+}
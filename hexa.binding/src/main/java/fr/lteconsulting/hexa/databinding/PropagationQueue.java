@@ -0,0 +1,214 @@
+package fr.lteconsulting.hexa.databinding;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+import fr.lteconsulting.hexa.databinding.properties.PropertySlot;
+import fr.lteconsulting.hexa.databinding.propertyadapters.CompositePropertyAdapter;
+import fr.lteconsulting.hexa.databinding.propertyadapters.ObjectPropertyAdapter;
+import fr.lteconsulting.hexa.databinding.propertyadapters.PropertyAdapter;
+
+/**
+ * Collects the data bindings which became dirty during a batch, see
+ * {@link Binder#batch(fr.lteconsulting.hexa.client.tools.Action)}.
+ *
+ * Each binding is queued only once with the direction of its last change, and
+ * propagates the value it reads when the queue is flushed, so that only the
+ * last value is written. The last value also wins for each written property :
+ * when several bindings write the same property of the same object, only the
+ * last queued one is propagated. Properties are identified by their object
+ * and name for the {@link ObjectPropertyAdapter}s, also at the end of a
+ * {@link CompositePropertyAdapter} path, and by the adapter instance
+ * otherwise.
+ *
+ * The bindings are flushed in topological order. Their rank is learned from
+ * the propagations themselves : when a propagation dirties another binding,
+ * that binding is ranked after the propagating one. The bindings with the
+ * lowest rank are flushed first, in the order they were queued. Flushing n
+ * bindings costs O(n log n).
+ *
+ * A queue is not thread safe, instances are provided by
+ * {@link PlatformSpecific#getPropagationQueue()} for the calling thread.
+ *
+ * @author Arnaud Tournier
+ */
+public class PropagationQueue
+{
+	private static class Entry
+	{
+		final DataBinding binding;
+		final boolean fromSource;
+		final Object written;
+		final int rank;
+		final int order;
+
+		// replaced by a later entry for the same binding or written property
+		boolean isStale;
+
+		Entry( DataBinding binding, boolean fromSource, int order )
+		{
+			this.binding = binding;
+			this.fromSource = fromSource;
+			this.written = writtenKey( binding, fromSource );
+			this.rank = binding.rank;
+			this.order = order;
+		}
+	}
+
+	/**
+	 * Identifies the property of an object
+	 */
+	private static class ObjectProperty
+	{
+		final Object object;
+		final PropertySlot property;
+
+		ObjectProperty( Object object, PropertySlot property )
+		{
+			this.object = object;
+			this.property = property;
+		}
+
+		@Override
+		public boolean equals( Object o )
+		{
+			if( !(o instanceof ObjectProperty) )
+				return false;
+
+			ObjectProperty other = (ObjectProperty) o;
+			return object == other.object && property == other.property;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return System.identityHashCode( object ) * 31 + property.getIndex();
+		}
+	}
+
+	private static Object writtenKey( DataBinding binding, boolean fromSource )
+	{
+		PropertyAdapter written = binding.getWritten( fromSource );
+		if( written instanceof CompositePropertyAdapter )
+		{
+			PropertyAdapter last = ((CompositePropertyAdapter) written).getLastAdapter();
+			if( last != null )
+				written = last;
+		}
+
+		if( written instanceof ObjectPropertyAdapter )
+		{
+			ObjectPropertyAdapter adapter = (ObjectPropertyAdapter) written;
+			return new ObjectProperty( adapter.getSource(), adapter.getSourceProperty() );
+		}
+
+		return written != null ? written : binding;
+	}
+
+	private static final Comparator<Entry> RANK_ORDER = new Comparator<Entry>()
+	{
+		@Override
+		public int compare( Entry a, Entry b )
+		{
+			if( a.rank != b.rank )
+				return a.rank < b.rank ? -1 : 1;
+			return a.order < b.order ? -1 : (a.order == b.order ? 0 : 1);
+		}
+	};
+
+	private int depth;
+	private DataBinding propagating;
+	private int nextOrder;
+
+	// the current entry of each dirty binding and written property, the queue
+	// also holds the stale ones which are skipped when polled
+	private final HashMap<DataBinding, Entry> dirtyBindings = new HashMap<DataBinding, Entry>();
+	private final HashMap<Object, Entry> dirtyProperties = new HashMap<Object, Entry>();
+	private final PriorityQueue<Entry> queue = new PriorityQueue<Entry>( 16, RANK_ORDER );
+
+	/**
+	 * Whether a batch is currently opened
+	 */
+	public boolean isBatching()
+	{
+		return depth > 0;
+	}
+
+	/**
+	 * Opens a batch. Batches can be nested, the queue is flushed when the
+	 * outermost one is closed.
+	 */
+	void begin()
+	{
+		depth++;
+	}
+
+	/**
+	 * Closes a batch, flushing the queue if it was the outermost one
+	 */
+	void end()
+	{
+		depth--;
+		if( depth == 0 )
+			flush();
+	}
+
+	/**
+	 * Marks a binding as dirty
+	 *
+	 * @param binding
+	 *            the binding
+	 * @param fromSource
+	 *            <code>true</code> if the source changed, <code>false</code> if
+	 *            the destination changed
+	 */
+	void enqueue( DataBinding binding, boolean fromSource )
+	{
+		if( propagating != null && binding.rank <= propagating.rank )
+			binding.rank = propagating.rank + 1;
+
+		// re-inserting moves the binding after the ones which dirtied it
+		Entry entry = new Entry( binding, fromSource, nextOrder++ );
+		Entry previous = dirtyBindings.put( binding, entry );
+		if( previous != null )
+			previous.isStale = true;
+
+		previous = dirtyProperties.put( entry.written, entry );
+		if( previous != null )
+			previous.isStale = true;
+
+		queue.add( entry );
+	}
+
+	private void flush()
+	{
+		// propagations are done inside a batch so that the bindings they dirty
+		// are queued too
+		depth++;
+		try
+		{
+			Entry entry;
+			while( (entry = queue.poll()) != null )
+			{
+				if( entry.isStale )
+					continue;
+
+				dirtyBindings.remove( entry.binding );
+				dirtyProperties.remove( entry.written );
+
+				propagating = entry.binding;
+				entry.binding.propagate( entry.fromSource );
+			}
+		}
+		finally
+		{
+			depth--;
+			propagating = null;
+			dirtyBindings.clear();
+			dirtyProperties.clear();
+			queue.clear();
+			nextOrder = 0;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package fr.lteconsulting.hexa.databinding;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link Counter} spreading its updates over several cells, in the spirit of
+ * Java 8's LongAdder, so that threads incrementing it concurrently do not
+ * contend on the same cache line.
+ *
+ * Like LongAdder, the counter starts with a single value and allocates its
+ * cells only once concurrent updates have been detected, so that the many
+ * counters which are never contended stay small.
+ *
+ * @author Arnaud Tournier
+ */
+final class StripedCounter implements Counter
+{
+	private static final int NB_CELLS = 16;
+
+	// one cell every 16 longs (128 bytes) to avoid false sharing
+	private static final int CELL_STRIDE = 16;
+
+	private final AtomicLong base = new AtomicLong();
+
+	private volatile AtomicLongArray cells;
+
+	@Override
+	public void increment()
+	{
+		add( 1 );
+	}
+
+	@Override
+	public void decrement()
+	{
+		add( -1 );
+	}
+
+	@Override
+	public void add( long delta )
+	{
+		AtomicLongArray c = cells;
+		if( c == null )
+		{
+			long value = base.get();
+			if( base.compareAndSet( value, value + delta ) )
+				return;
+
+			c = createCells();
+		}
+
+		c.getAndAdd( cellIndex(), delta );
+	}
+
+	@Override
+	public long sum()
+	{
+		long sum = base.get();
+
+		AtomicLongArray c = cells;
+		if( c != null )
+		{
+			for( int i = 0; i < NB_CELLS; i++ )
+				sum += c.get( i * CELL_STRIDE );
+		}
+
+		return sum;
+	}
+
+	private synchronized AtomicLongArray createCells()
+	{
+		if( cells == null )
+			cells = new AtomicLongArray( NB_CELLS * CELL_STRIDE );
+		return cells;
+	}
+
+	private static int cellIndex()
+	{
+		long id = Thread.currentThread().getId();
+		int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+		return ((h >>> 16) & (NB_CELLS - 1)) * CELL_STRIDE;
+	}
+}
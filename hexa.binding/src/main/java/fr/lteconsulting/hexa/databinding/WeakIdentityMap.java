@@ -0,0 +1,239 @@
+package fr.lteconsulting.hexa.databinding;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * A concurrent map whose keys are compared by identity and weakly referenced.
+ *
+ * <p>
+ * Entries are dropped once their key has been garbage collected. Reads are
+ * lock free, writes lock only the segment the key hashes to.
+ *
+ * <p>
+ * As with {@link java.util.WeakHashMap}, a value which strongly references its
+ * own key, directly or not, keeps the entry alive forever. This is the common
+ * case of the property change handlers stored as metadata: a handler
+ * registered on an object often holds that object (a binding holds its source
+ * and its destination). Such entries are only freed when the handlers are
+ * removed, for example when the binding is terminated. Objects which cannot
+ * guarantee it should implement {@link IObjectMetadataHolder}, so that their
+ * metadata is collected with them.
+ *
+ * @author Arnaud Tournier
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+final class WeakIdentityMap<K, V>
+{
+	private static final int SEGMENT_SHIFT = 28;
+	private static final int SEGMENT_COUNT = 1 << (32 - SEGMENT_SHIFT);
+	private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+	private final Segment<K, V>[] segments;
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+	@SuppressWarnings( "unchecked" )
+	WeakIdentityMap()
+	{
+		segments = (Segment<K, V>[]) new Segment<?, ?>[SEGMENT_COUNT];
+		for( int i = 0; i < SEGMENT_COUNT; i++ )
+			segments[i] = new Segment<K, V>( queue );
+	}
+
+	V get( Object key )
+	{
+		int hash = hash( key );
+		return segments[hash >>> SEGMENT_SHIFT].get( key, hash );
+	}
+
+	/**
+	 * Associates the value to the key. A <code>null</code> value removes the
+	 * association.
+	 */
+	void put( K key, V value )
+	{
+		expungeStaleEntries();
+
+		int hash = hash( key );
+		Segment<K, V> segment = segments[hash >>> SEGMENT_SHIFT];
+		if( value == null )
+			segment.remove( key, hash );
+		else
+			segment.put( key, hash, value );
+	}
+
+	/**
+	 * Number of live entries. Entries whose key has just been collected may
+	 * still be counted.
+	 */
+	int size()
+	{
+		expungeStaleEntries();
+
+		int size = 0;
+		for( Segment<K, V> segment : segments )
+			size += segment.count;
+		return size;
+	}
+
+	private void expungeStaleEntries()
+	{
+		Reference<?> ref;
+		while( (ref = queue.poll()) != null )
+		{
+			@SuppressWarnings( "unchecked" )
+			Entry<K, V> entry = (Entry<K, V>) ref;
+			segments[entry.hash >>> SEGMENT_SHIFT].removeEntry( entry );
+		}
+	}
+
+	private static int hash( Object key )
+	{
+		int h = System.identityHashCode( key );
+		// spread the bits so that both segment and bucket indices are well distributed
+		h ^= (h >>> 20) ^ (h >>> 12);
+		return h ^ (h >>> 7) ^ (h >>> 4) ^ (h << 16);
+	}
+
+	private static final class Entry<K, V> extends WeakReference<K>
+	{
+		final int hash;
+		final Entry<K, V> next;
+		volatile V value;
+
+		Entry( K key, int hash, V value, Entry<K, V> next, ReferenceQueue<Object> queue )
+		{
+			super( key, queue );
+			this.hash = hash;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Chains are immutable (except for values) so that readers never need to
+	 * lock. Writers publish their changes through the volatile table field.
+	 */
+	private static final class Segment<K, V>
+	{
+		private final ReferenceQueue<Object> queue;
+
+		volatile Entry<K, V>[] table;
+		int count;
+
+		@SuppressWarnings( "unchecked" )
+		Segment( ReferenceQueue<Object> queue )
+		{
+			this.queue = queue;
+			table = (Entry<K, V>[]) new Entry<?, ?>[INITIAL_SEGMENT_CAPACITY];
+		}
+
+		V get( Object key, int hash )
+		{
+			Entry<K, V>[] tab = table;
+			for( Entry<K, V> e = tab[hash & (tab.length - 1)]; e != null; e = e.next )
+			{
+				if( e.hash == hash && e.get() == key )
+					return e.value;
+			}
+			return null;
+		}
+
+		synchronized void put( K key, int hash, V value )
+		{
+			Entry<K, V>[] tab = table;
+			int index = hash & (tab.length - 1);
+			for( Entry<K, V> e = tab[index]; e != null; e = e.next )
+			{
+				if( e.hash == hash && e.get() == key )
+				{
+					e.value = value;
+					return;
+				}
+			}
+
+			if( count >= (tab.length >> 1) + (tab.length >> 2) )
+			{
+				tab = rehash( tab );
+				index = hash & (tab.length - 1);
+			}
+
+			tab[index] = new Entry<K, V>( key, hash, value, tab[index], queue );
+			count++;
+			table = tab;
+		}
+
+		synchronized void remove( Object key, int hash )
+		{
+			Entry<K, V>[] tab = table;
+			int index = hash & (tab.length - 1);
+			for( Entry<K, V> e = tab[index]; e != null; e = e.next )
+			{
+				if( e.hash == hash && e.get() == key )
+				{
+					unlink( tab, index, e );
+					return;
+				}
+			}
+		}
+
+		synchronized void removeEntry( Entry<K, V> entry )
+		{
+			Entry<K, V>[] tab = table;
+			int index = entry.hash & (tab.length - 1);
+			for( Entry<K, V> e = tab[index]; e != null; e = e.next )
+			{
+				if( e == entry )
+				{
+					unlink( tab, index, e );
+					return;
+				}
+			}
+		}
+
+		private void unlink( Entry<K, V>[] tab, int index, Entry<K, V> entry )
+		{
+			// entries before the removed one are cloned, those after are shared
+			Entry<K, V> head = entry.next;
+			for( Entry<K, V> e = tab[index]; e != entry; e = e.next )
+			{
+				K key = e.get();
+				if( key != null )
+					head = new Entry<K, V>( key, e.hash, e.value, head, queue );
+				else
+					count--;
+			}
+
+			tab[index] = head;
+			count--;
+			table = tab;
+		}
+
+		private Entry<K, V>[] rehash( Entry<K, V>[] oldTable )
+		{
+			@SuppressWarnings( "unchecked" )
+			Entry<K, V>[] newTable = (Entry<K, V>[]) new Entry<?, ?>[oldTable.length << 1];
+
+			int newCount = 0;
+			for( Entry<K, V> head : oldTable )
+			{
+				for( Entry<K, V> e = head; e != null; e = e.next )
+				{
+					K key = e.get();
+					if( key == null )
+						continue;
+
+					int index = e.hash & (newTable.length - 1);
+					newTable[index] = new Entry<K, V>( key, e.hash, e.value, newTable[index], queue );
+					newCount++;
+				}
+			}
+
+			count = newCount;
+			return newTable;
+		}
+	}
+}
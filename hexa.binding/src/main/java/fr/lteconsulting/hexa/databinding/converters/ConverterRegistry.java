@@ -0,0 +1,212 @@
+package fr.lteconsulting.hexa.databinding.converters;
+
+import java.util.HashMap;
+
+import fr.lteconsulting.hexa.databinding.Converter;
+import fr.lteconsulting.hexa.databinding.Converters;
+
+/**
+ * Finds the converter to use between two types.
+ *
+ * Converters are resolved once per pair of types, and cached. Pairs without
+ * any converter are cached too. The standard converters handle the boxed
+ * primitive types, BigDecimal, BigInteger, enums and strings. Other
+ * converters can be registered with
+ * {@link #register(Class, Class, Converter)}.
+ *
+ * Like the other caches of the data binding system, the tables are replaced
+ * by updated copies when they change, so that lookups never lock.
+ *
+ * @author Arnaud Tournier
+ */
+public final class ConverterRegistry
+{
+	private static volatile HashMap<Class<?>, HashMap<Class<?>, Converter>> registered = new HashMap<>();
+	private static volatile HashMap<Class<?>, HashMap<Class<?>, Converter>> resolved = new HashMap<>();
+
+	static
+	{
+		register( String.class, Integer.class, Converters.StringToInteger );
+		register( Integer.class, String.class, Converters.IntegerToString );
+	}
+
+	private ConverterRegistry()
+	{
+	}
+
+	/**
+	 * Registers a converter between two types. The converter is also used,
+	 * reversed, to convert from the destination type to the source type
+	 * unless another converter is registered for that.
+	 *
+	 * @param from
+	 *            the type of the values given to {@link Converter#convert(Object)}
+	 * @param to
+	 *            the type of the values returned by {@link Converter#convert(Object)}
+	 * @param converter
+	 *            the converter
+	 */
+	public static synchronized void register( Class<?> from, Class<?> to, Converter converter )
+	{
+		from = getBoxedType( from );
+		to = getBoxedType( to );
+
+		HashMap<Class<?>, HashMap<Class<?>, Converter>> newRegistered = new HashMap<>( registered );
+		put( newRegistered, from, to, converter );
+
+		HashMap<Class<?>, Converter> reverse = newRegistered.get( to );
+		if( reverse == null || !reverse.containsKey( from ) || reverse.get( from ) instanceof ReverseConverter )
+			put( newRegistered, to, from, new ReverseConverter( converter ) );
+
+		registered = newRegistered;
+
+		// the resolutions made before may have changed
+		resolved = new HashMap<>();
+	}
+
+	/**
+	 * Removes the converter registered between two types, and the reversed
+	 * converter added with it
+	 */
+	public static synchronized void unregister( Class<?> from, Class<?> to )
+	{
+		from = getBoxedType( from );
+		to = getBoxedType( to );
+
+		HashMap<Class<?>, Converter> converters = registered.get( from );
+		if( converters == null || !converters.containsKey( to ) )
+			return;
+
+		HashMap<Class<?>, HashMap<Class<?>, Converter>> newRegistered = new HashMap<>( registered );
+		remove( newRegistered, from, to );
+
+		HashMap<Class<?>, Converter> reverse = newRegistered.get( to );
+		if( reverse != null && reverse.get( from ) instanceof ReverseConverter )
+			remove( newRegistered, to, from );
+
+		registered = newRegistered;
+
+		// the resolutions made before may have changed
+		resolved = new HashMap<>();
+	}
+
+	/**
+	 * Returns the converter from one type to another, or <code>null</code> if
+	 * there is none. Primitive types are considered like their boxed types.
+	 */
+	public static Converter get( Class<?> from, Class<?> to )
+	{
+		HashMap<Class<?>, Converter> converters = resolved.get( from );
+		if( converters != null )
+		{
+			Converter converter = converters.get( to );
+			if( converter != null || converters.containsKey( to ) )
+				return converter;
+		}
+
+		return resolve( from, to );
+	}
+
+	private static synchronized Converter resolve( Class<?> from, Class<?> to )
+	{
+		HashMap<Class<?>, Converter> converters = resolved.get( from );
+		if( converters != null && converters.containsKey( to ) )
+			return converters.get( to );
+
+		Converter converter = find( getBoxedType( from ), getBoxedType( to ) );
+
+		HashMap<Class<?>, HashMap<Class<?>, Converter>> newResolved = new HashMap<>( resolved );
+		put( newResolved, from, to, converter );
+		resolved = newResolved;
+
+		return converter;
+	}
+
+	private static Converter find( Class<?> from, Class<?> to )
+	{
+		HashMap<Class<?>, Converter> converters = registered.get( from );
+		if( converters != null && converters.containsKey( to ) )
+			return converters.get( to );
+
+		if( from == to )
+			return Converters.Identity;
+
+		if( from == String.class && StringConverter.supports( to ) )
+			return new StringConverter( to );
+		if( to == String.class && StringConverter.supports( from ) )
+			return new ReverseConverter( new StringConverter( from ) );
+
+		if( NumberConverter.supports( from ) && NumberConverter.supports( to ) )
+			return new NumberConverter( from, to );
+
+		if( from.isEnum() )
+		{
+			Converter converter = enumConverter( from, to );
+			if( converter != null )
+				return converter;
+		}
+
+		if( to.isEnum() )
+		{
+			Converter converter = enumConverter( to, from );
+			if( converter != null )
+				return new ReverseConverter( converter );
+		}
+
+		return null;
+	}
+
+	private static Converter enumConverter( Class<?> enumType, Class<?> other )
+	{
+		Enum<?>[] values = (Enum<?>[]) enumType.getEnumConstants();
+
+		if( other == String.class )
+			return new EnumConverter( values );
+		if( other == Integer.class )
+			return new EnumConverter( values, true );
+
+		return null;
+	}
+
+	private static void put( HashMap<Class<?>, HashMap<Class<?>, Converter>> table, Class<?> from, Class<?> to, Converter converter )
+	{
+		HashMap<Class<?>, Converter> converters = table.get( from );
+		converters = converters == null ? new HashMap<Class<?>, Converter>() : new HashMap<>( converters );
+		converters.put( to, converter );
+		table.put( from, converters );
+	}
+
+	private static void remove( HashMap<Class<?>, HashMap<Class<?>, Converter>> table, Class<?> from, Class<?> to )
+	{
+		HashMap<Class<?>, Converter> converters = new HashMap<>( table.get( from ) );
+		converters.remove( to );
+		if( converters.isEmpty() )
+			table.remove( from );
+		else
+			table.put( from, converters );
+	}
+
+	/**
+	 * Returns the boxed type of a primitive type, or the type itself
+	 */
+	public static Class<?> getBoxedType( Class<?> c )
+	{
+		if( c == int.class )
+			return Integer.class;
+		if( c == long.class )
+			return Long.class;
+		if( c == short.class )
+			return Short.class;
+		if( c == byte.class )
+			return Byte.class;
+		if( c == char.class )
+			return Character.class;
+		if( c == double.class )
+			return Double.class;
+		if( c == float.class )
+			return Float.class;
+		if( c == boolean.class )
+			return Boolean.class;
+		return c;
+	}
+}
@@ -31,6 +31,8 @@ public class EnumConverter implements Converter {
 
     @Override
     public Object convert(Object value) {
+        if(value == null)
+            return null;
         if(toOrdinal) {
             for(int i = 0; i < values.length; ++i) {
                 if(values[i].equals(value))
@@ -48,11 +50,12 @@ public class EnumConverter implements Converter {
                 e = values[(Integer) value];
             }
             else if (value instanceof String) {
-                try {
-                    // Find by ordinal value first
-                    e = values[Integer.parseInt((String)value)];
+                // Find by ordinal value first
+                int ordinal = ValueParser.parseInt((String) value, -1);
+                if(ordinal >= 0 && ordinal < values.length) {
+                    e = values[ordinal];
                 }
-                catch(NumberFormatException | IndexOutOfBoundsException ex) {
+                else {
                     // Failed to find by ordinal value
                     // Try find by enum name string
                     for(Enum<?> val : values) {
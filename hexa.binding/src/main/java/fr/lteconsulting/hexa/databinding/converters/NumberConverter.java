@@ -0,0 +1,88 @@
+package fr.lteconsulting.hexa.databinding.converters;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import fr.lteconsulting.hexa.databinding.Converter;
+
+/**
+ * Converts numbers between two of the boxed number types, BigDecimal and
+ * BigInteger. The conversion follows the Java primitive conversions, so it may
+ * lose precision.
+ *
+ * @author Arnaud Tournier
+ */
+public class NumberConverter implements Converter
+{
+	private final Class<?> from;
+	private final Class<?> to;
+
+	/**
+	 * Returns <code>true</code> if the type is one of the number types handled
+	 * by this converter
+	 */
+	public static boolean supports( Class<?> type )
+	{
+		return type == Integer.class || type == Long.class || type == Short.class || type == Byte.class || type == Double.class || type == Float.class || type == BigDecimal.class || type == BigInteger.class;
+	}
+
+	public NumberConverter( Class<?> from, Class<?> to )
+	{
+		if( !supports( from ) || !supports( to ) )
+			throw new IllegalArgumentException( "Cannot convert numbers from " + from + " to " + to );
+
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	public Object convert( Object value )
+	{
+		return toNumber( (Number) value, to );
+	}
+
+	@Override
+	public Object convertBack( Object value )
+	{
+		return toNumber( (Number) value, from );
+	}
+
+	private static Number toNumber( Number value, Class<?> type )
+	{
+		if( value == null || value.getClass() == type )
+			return value;
+
+		if( type == Integer.class )
+			return value.intValue();
+		if( type == Long.class )
+			return value.longValue();
+		if( type == Short.class )
+			return value.shortValue();
+		if( type == Byte.class )
+			return value.byteValue();
+		if( type == Double.class )
+			return value.doubleValue();
+		if( type == Float.class )
+			return value.floatValue();
+
+		if( type == BigDecimal.class )
+		{
+			if( value instanceof BigInteger )
+				return new BigDecimal( (BigInteger) value );
+			if( value instanceof Double || value instanceof Float )
+				return BigDecimal.valueOf( value.doubleValue() );
+			return BigDecimal.valueOf( value.longValue() );
+		}
+
+		if( type == BigInteger.class )
+		{
+			if( value instanceof BigDecimal )
+				return ((BigDecimal) value).toBigInteger();
+			if( value instanceof Double || value instanceof Float )
+				return BigDecimal.valueOf( value.doubleValue() ).toBigInteger();
+			return BigInteger.valueOf( value.longValue() );
+		}
+
+		return null;
+	}
+}
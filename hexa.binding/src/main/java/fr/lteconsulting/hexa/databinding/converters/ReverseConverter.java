@@ -0,0 +1,31 @@
+package fr.lteconsulting.hexa.databinding.converters;
+
+import fr.lteconsulting.hexa.databinding.Converter;
+
+/**
+ * A converter doing the conversions of another converter in the opposite
+ * direction
+ *
+ * @author Arnaud Tournier
+ */
+public class ReverseConverter implements Converter
+{
+	private final Converter converter;
+
+	public ReverseConverter( Converter converter )
+	{
+		this.converter = converter;
+	}
+
+	@Override
+	public Object convert( Object value )
+	{
+		return converter.convertBack( value );
+	}
+
+	@Override
+	public Object convertBack( Object value )
+	{
+		return converter.convert( value );
+	}
+}
@@ -0,0 +1,126 @@
+package fr.lteconsulting.hexa.databinding.converters;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import fr.lteconsulting.hexa.databinding.Converter;
+
+/**
+ * Converts strings to values of a boxed primitive type, BigDecimal or
+ * BigInteger, and back. Strings which cannot be parsed are converted to
+ * <code>null</code>, without any exception being thrown.
+ *
+ * @author Arnaud Tournier
+ */
+public class StringConverter implements Converter
+{
+	private enum Kind
+	{
+		INTEGER,
+		LONG,
+		SHORT,
+		BYTE,
+		DOUBLE,
+		FLOAT,
+		BOOLEAN,
+		CHARACTER,
+		BIG_DECIMAL,
+		BIG_INTEGER;
+	}
+
+	private final Kind kind;
+
+	/**
+	 * Returns <code>true</code> if strings can be converted to that type
+	 */
+	public static boolean supports( Class<?> type )
+	{
+		return kindOf( type ) != null;
+	}
+
+	/**
+	 * @param type
+	 *            the boxed type to which strings are converted
+	 */
+	public StringConverter( Class<?> type )
+	{
+		kind = kindOf( type );
+		if( kind == null )
+			throw new IllegalArgumentException( "Cannot convert strings to " + type );
+	}
+
+	private static Kind kindOf( Class<?> type )
+	{
+		if( type == Integer.class )
+			return Kind.INTEGER;
+		if( type == Long.class )
+			return Kind.LONG;
+		if( type == Short.class )
+			return Kind.SHORT;
+		if( type == Byte.class )
+			return Kind.BYTE;
+		if( type == Double.class )
+			return Kind.DOUBLE;
+		if( type == Float.class )
+			return Kind.FLOAT;
+		if( type == Boolean.class )
+			return Kind.BOOLEAN;
+		if( type == Character.class )
+			return Kind.CHARACTER;
+		if( type == BigDecimal.class )
+			return Kind.BIG_DECIMAL;
+		if( type == BigInteger.class )
+			return Kind.BIG_INTEGER;
+		return null;
+	}
+
+	@Override
+	public Object convert( Object value )
+	{
+		if( value == null )
+			return null;
+
+		String s = (String) value;
+		switch( kind )
+		{
+			case INTEGER:
+				return ValueParser.isInt( s ) ? Integer.valueOf( s ) : null;
+			case LONG:
+				return ValueParser.isLong( s ) ? Long.valueOf( s ) : null;
+			case SHORT:
+				return ValueParser.isInteger( s, Short.MIN_VALUE, Short.MAX_VALUE ) ? Short.valueOf( s ) : null;
+			case BYTE:
+				return ValueParser.isInteger( s, Byte.MIN_VALUE, Byte.MAX_VALUE ) ? Byte.valueOf( s ) : null;
+			case DOUBLE:
+				return ValueParser.isDouble( s ) ? Double.valueOf( s ) : null;
+			case FLOAT:
+				return ValueParser.isDouble( s ) ? Float.valueOf( s ) : null;
+			case BOOLEAN:
+				if( "true".equalsIgnoreCase( s ) )
+					return Boolean.TRUE;
+				if( "false".equalsIgnoreCase( s ) )
+					return Boolean.FALSE;
+				return null;
+			case CHARACTER:
+				return s.length() == 1 ? Character.valueOf( s.charAt( 0 ) ) : null;
+			case BIG_DECIMAL:
+				return ValueParser.isDecimal( s ) ? new BigDecimal( s ) : null;
+			case BIG_INTEGER:
+				return ValueParser.isDigits( s ) ? new BigInteger( s ) : null;
+			default:
+				return null;
+		}
+	}
+
+	@Override
+	public Object convertBack( Object value )
+	{
+		if( value == null )
+			return null;
+
+		if( value instanceof BigDecimal )
+			return ((BigDecimal) value).toPlainString();
+
+		return value.toString();
+	}
+}
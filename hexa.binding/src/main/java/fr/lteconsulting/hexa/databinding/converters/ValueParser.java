@@ -0,0 +1,176 @@
+package fr.lteconsulting.hexa.databinding.converters;
+
+/**
+ * Parsing of numbers which validates the input before parsing it.
+ *
+ * Invalid input is detected without throwing and catching a
+ * NumberFormatException, which is expensive, and the primitive methods do not
+ * allocate anything.
+ *
+ * @author Arnaud Tournier
+ */
+public final class ValueParser
+{
+	private ValueParser()
+	{
+	}
+
+	/**
+	 * Whether the string is an integer in the int range
+	 */
+	public static boolean isInt( String s )
+	{
+		return isInteger( s, Integer.MIN_VALUE, Integer.MAX_VALUE );
+	}
+
+	/**
+	 * Whether the string is an integer in the long range
+	 */
+	public static boolean isLong( String s )
+	{
+		return isInteger( s, Long.MIN_VALUE, Long.MAX_VALUE );
+	}
+
+	/**
+	 * Whether the string is an integer between min and max, inclusive
+	 */
+	public static boolean isInteger( String s, long min, long max )
+	{
+		int length = s.length();
+		if( length == 0 )
+			return false;
+
+		int i = 0;
+		boolean negative = false;
+		char first = s.charAt( 0 );
+		if( first == '-' || first == '+' )
+		{
+			if( length == 1 )
+				return false;
+
+			negative = first == '-';
+			i = 1;
+		}
+
+		// accumulates negatively, like Long.parseLong, so that the minimum
+		// value does not overflow
+		long limit = negative ? min : -max;
+		long multiplyMin = limit / 10;
+		long result = 0;
+		for( ; i < length; i++ )
+		{
+			int digit = s.charAt( i ) - '0';
+			if( digit < 0 || digit > 9 )
+				return false;
+			if( result < multiplyMin )
+				return false;
+			result *= 10;
+			if( result < limit + digit )
+				return false;
+			result -= digit;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Whether the string is a sequence of digits with an optional sign, of any
+	 * length
+	 */
+	public static boolean isDigits( String s )
+	{
+		int length = s.length();
+		int i = length > 0 && (s.charAt( 0 ) == '-' || s.charAt( 0 ) == '+') ? 1 : 0;
+		if( i == length )
+			return false;
+
+		for( ; i < length; i++ )
+		{
+			char c = s.charAt( i );
+			if( c < '0' || c > '9' )
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Whether the string is a decimal number, like "-12.5e3". This is the
+	 * syntax accepted by the BigDecimal(String) constructor.
+	 */
+	public static boolean isDecimal( String s )
+	{
+		int length = s.length();
+		int i = 0;
+		if( i < length && (s.charAt( i ) == '-' || s.charAt( i ) == '+') )
+			i++;
+
+		int digits = 0;
+		while( i < length && isDigit( s.charAt( i ) ) )
+		{
+			i++;
+			digits++;
+		}
+
+		if( i < length && s.charAt( i ) == '.' )
+		{
+			i++;
+			while( i < length && isDigit( s.charAt( i ) ) )
+			{
+				i++;
+				digits++;
+			}
+		}
+
+		if( digits == 0 )
+			return false;
+
+		if( i < length && (s.charAt( i ) == 'e' || s.charAt( i ) == 'E') )
+		{
+			i++;
+			if( i < length && (s.charAt( i ) == '-' || s.charAt( i ) == '+') )
+				i++;
+
+			int exponentDigits = 0;
+			while( i < length && isDigit( s.charAt( i ) ) )
+			{
+				i++;
+				exponentDigits++;
+			}
+
+			if( exponentDigits == 0 || exponentDigits > 9 )
+				return false;
+		}
+
+		return i == length;
+	}
+
+	/**
+	 * Whether the string is a decimal number or one of the special double
+	 * values "NaN", "Infinity" and "-Infinity"
+	 */
+	public static boolean isDouble( String s )
+	{
+		return isDecimal( s ) || "NaN".equals( s ) || "Infinity".equals( s ) || "-Infinity".equals( s ) || "+Infinity".equals( s );
+	}
+
+	public static int parseInt( String s, int defaultValue )
+	{
+		return s != null && isInt( s ) ? Integer.parseInt( s ) : defaultValue;
+	}
+
+	public static long parseLong( String s, long defaultValue )
+	{
+		return s != null && isLong( s ) ? Long.parseLong( s ) : defaultValue;
+	}
+
+	public static double parseDouble( String s, double defaultValue )
+	{
+		return s != null && isDouble( s ) ? Double.parseDouble( s ) : defaultValue;
+	}
+
+	private static boolean isDigit( char c )
+	{
+		return c >= '0' && c <= '9';
+	}
+}
@@ -0,0 +1,96 @@
+package fr.lteconsulting.hexa.databinding.properties;
+
+import fr.lteconsulting.hexa.databinding.Counter;
+import fr.lteconsulting.hexa.databinding.PlatformSpecificProvider;
+
+/**
+ * A histogram of positive values with power of two buckets. The bucket 0
+ * counts the zero values, the bucket <code>b</code> counts the values between
+ * 2^(b-1) included and 2^b excluded. The last bucket also counts all the
+ * bigger values.
+ *
+ * Values can be recorded concurrently, each bucket is a {@link Counter}.
+ *
+ * @author Arnaud Tournier
+ */
+public final class Histogram
+{
+	public static final int NB_BUCKETS = 32;
+
+	private final Counter[] buckets = new Counter[NB_BUCKETS];
+	private final Counter sum = PlatformSpecificProvider.get().createCounter();
+
+	public Histogram()
+	{
+		for( int b = 0; b < NB_BUCKETS; b++ )
+			buckets[b] = PlatformSpecificProvider.get().createCounter();
+	}
+
+	public void record( long value )
+	{
+		if( value < 0 )
+			value = 0;
+
+		buckets[bucketOf( value )].increment();
+		sum.add( value );
+	}
+
+	/**
+	 * Returns the counts of each bucket
+	 */
+	public long[] getCounts()
+	{
+		long[] counts = new long[NB_BUCKETS];
+		for( int b = 0; b < NB_BUCKETS; b++ )
+			counts[b] = buckets[b].sum();
+		return counts;
+	}
+
+	/**
+	 * Returns the sum of the recorded values
+	 */
+	public long getSum()
+	{
+		return sum.sum();
+	}
+
+	/**
+	 * Returns the bucket in which a value is counted
+	 */
+	public static int bucketOf( long value )
+	{
+		return Math.min( 64 - Long.numberOfLeadingZeros( value ), NB_BUCKETS - 1 );
+	}
+
+	/**
+	 * Returns the upper bound, excluded, of the values counted in a bucket
+	 */
+	public static long getUpperBound( int bucket )
+	{
+		return bucket >= NB_BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+	}
+
+	/**
+	 * Returns an upper estimation of the value under which a fraction of the
+	 * recorded values are, like 0.99 for the 99th percentile
+	 */
+	public static long getPercentile( long[] counts, double fraction )
+	{
+		long total = 0;
+		for( long count : counts )
+			total += count;
+		if( total == 0 )
+			return 0;
+
+		long threshold = (long) Math.ceil( total * fraction );
+		long seen = 0;
+		for( int b = 0; b < counts.length; b++ )
+		{
+			seen += counts[b];
+			if( seen >= threshold )
+				return getUpperBound( b );
+		}
+
+		return Long.MAX_VALUE;
+	}
+}
@@ -0,0 +1,195 @@
+package fr.lteconsulting.hexa.databinding.properties;
+
+/**
+ * The property changed handlers registered on one object, stored as the
+ * object's metadata.
+ *
+ * <p>
+ * Handlers are kept in a small array indexed by position, next to the array
+ * of the corresponding slot indices. Objects are generally watched on a few
+ * properties only, so finding a slot is a short scan over an int array.
+ * Handlers registered on the "*" wildcard are kept apart so that notifying
+ * them does not need a second lookup.
+ *
+ * <p>
+ * Instances are never modified once published : registering or removing a
+ * handler creates an updated copy which replaces the previous one. Notifying
+ * threads can thus iterate the handlers without locking nor copying. The
+ * tables are only reachable through final fields, so a thread reading an
+ * instance sees it fully built, even when it is stored in a field which is
+ * not volatile.
+ *
+ * @author Arnaud Tournier
+ */
+final class ObjectHandlers
+{
+	private static final int[] NO_SLOTS = new int[0];
+	private static final PropertyChangedHandler[][] NO_HANDLERS = new PropertyChangedHandler[0][];
+
+	private final int[] slots;
+	private final PropertyChangedHandler[][] handlers;
+	final PropertyChangedHandler[] wildcardHandlers;
+
+	private ObjectHandlers( int[] slots, PropertyChangedHandler[][] handlers, PropertyChangedHandler[] wildcardHandlers )
+	{
+		this.slots = slots;
+		this.handlers = handlers;
+		this.wildcardHandlers = wildcardHandlers;
+	}
+
+	/**
+	 * Returns the handlers registered for the property, or <code>null</code>.
+	 * The returned array must not be modified.
+	 */
+	PropertyChangedHandler[] get( PropertySlot slot )
+	{
+		int index = slot.getIndex();
+		int[] slots = this.slots;
+		for( int i = 0; i < slots.length; i++ )
+		{
+			if( slots[i] == index )
+				return handlers[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a copy of <i>table</i> (which can be <code>null</code>) with the
+	 * handler added
+	 */
+	static ObjectHandlers with( ObjectHandlers table, PropertySlot slot, PropertyChangedHandler handler )
+	{
+		if( table == null )
+			table = new ObjectHandlers( NO_SLOTS, NO_HANDLERS, null );
+
+		if( slot == PropertySlots.WILDCARD )
+			return new ObjectHandlers( table.slots, table.handlers, append( table.wildcardHandlers, handler ) );
+
+		int position = table.positionOf( slot );
+		if( position >= 0 )
+		{
+			PropertyChangedHandler[][] handlers = copy( table.handlers );
+			handlers[position] = append( handlers[position], handler );
+			return new ObjectHandlers( table.slots, handlers, table.wildcardHandlers );
+		}
+
+		int count = table.slots.length;
+
+		int[] slots = new int[count + 1];
+		System.arraycopy( table.slots, 0, slots, 0, count );
+		slots[count] = slot.getIndex();
+
+		PropertyChangedHandler[][] handlers = new PropertyChangedHandler[count + 1][];
+		System.arraycopy( table.handlers, 0, handlers, 0, count );
+		handlers[count] = new PropertyChangedHandler[] { handler };
+
+		return new ObjectHandlers( slots, handlers, table.wildcardHandlers );
+	}
+
+	/**
+	 * Returns a copy of <i>table</i> without the handler, or <code>null</code>
+	 * if no handler remains. If the handler is not found, <i>table</i> is
+	 * returned.
+	 */
+	static ObjectHandlers without( ObjectHandlers table, PropertySlot slot, PropertyChangedHandler handler )
+	{
+		if( slot == PropertySlots.WILDCARD )
+		{
+			PropertyChangedHandler[] wildcardHandlers = remove( table.wildcardHandlers, handler );
+			if( wildcardHandlers == table.wildcardHandlers )
+				return table;
+
+			return create( table.slots, table.handlers, wildcardHandlers );
+		}
+
+		int position = table.positionOf( slot );
+		if( position < 0 )
+			return table;
+
+		PropertyChangedHandler[] list = remove( table.handlers[position], handler );
+		if( list == table.handlers[position] )
+			return table;
+
+		if( list != null )
+		{
+			PropertyChangedHandler[][] handlers = copy( table.handlers );
+			handlers[position] = list;
+			return new ObjectHandlers( table.slots, handlers, table.wildcardHandlers );
+		}
+
+		int count = table.slots.length - 1;
+
+		int[] slots = new int[count];
+		System.arraycopy( table.slots, 0, slots, 0, position );
+		System.arraycopy( table.slots, position + 1, slots, position, count - position );
+
+		PropertyChangedHandler[][] handlers = new PropertyChangedHandler[count][];
+		System.arraycopy( table.handlers, 0, handlers, 0, position );
+		System.arraycopy( table.handlers, position + 1, handlers, position, count - position );
+
+		return create( slots, handlers, table.wildcardHandlers );
+	}
+
+	private static ObjectHandlers create( int[] slots, PropertyChangedHandler[][] handlers, PropertyChangedHandler[] wildcardHandlers )
+	{
+		if( slots.length == 0 && wildcardHandlers == null )
+			return null;
+
+		return new ObjectHandlers( slots, handlers, wildcardHandlers );
+	}
+
+	private int positionOf( PropertySlot slot )
+	{
+		int index = slot.getIndex();
+		for( int i = 0; i < slots.length; i++ )
+		{
+			if( slots[i] == index )
+				return i;
+		}
+		return -1;
+	}
+
+	private static PropertyChangedHandler[][] copy( PropertyChangedHandler[][] handlers )
+	{
+		PropertyChangedHandler[][] result = new PropertyChangedHandler[handlers.length][];
+		System.arraycopy( handlers, 0, result, 0, handlers.length );
+		return result;
+	}
+
+	private static PropertyChangedHandler[] append( PropertyChangedHandler[] list, PropertyChangedHandler handler )
+	{
+		if( list == null )
+			return new PropertyChangedHandler[] { handler };
+
+		PropertyChangedHandler[] result = new PropertyChangedHandler[list.length + 1];
+		System.arraycopy( list, 0, result, 0, list.length );
+		result[list.length] = handler;
+		return result;
+	}
+
+	/**
+	 * Returns the list without the handler (<code>null</code> if it becomes
+	 * empty), or the list itself if the handler is not found
+	 */
+	private static PropertyChangedHandler[] remove( PropertyChangedHandler[] list, PropertyChangedHandler handler )
+	{
+		if( list == null )
+			return null;
+
+		for( int i = 0; i < list.length; i++ )
+		{
+			if( list[i] != handler )
+				continue;
+
+			if( list.length == 1 )
+				return null;
+
+			PropertyChangedHandler[] result = new PropertyChangedHandler[list.length - 1];
+			System.arraycopy( list, 0, result, 0, i );
+			System.arraycopy( list, i + 1, result, i, list.length - i - 1 );
+			return result;
+		}
+
+		return list;
+	}
+}
@@ -69,6 +69,19 @@ public class Properties
 		return propertyChanges.register(source, propertyName, handler);
 	}
 
+	/**
+	 * Registers an handler for a specific property change on an object.
+	 * 
+	 * @param source The object from which one wants notifications
+	 * @param property The property subscribed, obtained with {@link #slot(String)}
+	 * @param handler
+	 * @return
+	 */
+	public static Object register( Object source, PropertySlot property, PropertyChangedHandler handler )
+	{
+		return propertyChanges.register( source, property, handler );
+	}
+
 	/**
 	 * Unregisters a handler, freeing associated resources
 	 * 
@@ -91,6 +104,30 @@ public class Properties
 		propertyChanges.notify( sender, propertyName );
 	}
 
+	/**
+	 * Notifies the Hexa event system of an object changing one of
+	 * its properties. This is the fastest way to notify a change.
+	 * 
+	 * @param sender The object whom property changed
+	 * @param property The changed property, obtained with {@link #slot(String)}
+	 */
+	public static void notify( Object sender, PropertySlot property )
+	{
+		propertyChanges.notify( sender, property );
+	}
+
+	/**
+	 * Resolves a property name into its slot. The returned value is always the
+	 * same for a given name and can be stored in a static field.
+	 * 
+	 * @param propertyName The property name
+	 * @return The property slot
+	 */
+	public static PropertySlot slot( String propertyName )
+	{
+		return PropertySlots.get( propertyName );
+	}
+
 	/**
 	 * Obtain useful information for debugging. That's useful
 	 * to detect registration leaks.
@@ -100,6 +137,15 @@ public class Properties
 		return propertyChanges.getStatistics();
 	}
 
+	/**
+	 * Returns the current statistics of the property changes, by class and
+	 * property
+	 */
+	public static PropertyChangesSnapshot getStatisticsSnapshot()
+	{
+		return propertyChanges.getStatisticsSnapshot();
+	}
+
 	/**
 	 * Whether a getter or a field is available with that name
 	 * 
@@ -0,0 +1,183 @@
+package fr.lteconsulting.hexa.databinding.properties;
+
+import fr.lteconsulting.hexa.classinfo.Clazz;
+import fr.lteconsulting.hexa.classinfo.Field;
+import fr.lteconsulting.hexa.classinfo.Method;
+import fr.lteconsulting.hexa.databinding.tools.Property;
+
+/**
+ * How one property is read and written on the instances of one class.
+ *
+ * The getter, setter and field are looked up once, when the accessor is
+ * created, so that reading or writing the property afterwards is a direct
+ * call. Accessors are obtained through {@link PropertyAccessors}.
+ *
+ * @author Arnaud Tournier
+ */
+final class PropertyAccessor
+{
+	/**
+	 * How the property value is stored in the objects
+	 */
+	enum Kind
+	{
+		/**
+		 * Read through a getter method
+		 */
+		GETTER,
+
+		/**
+		 * Read directly from a field
+		 */
+		FIELD,
+
+		/**
+		 * Stored in a {@link Property} instance, itself read through a getter
+		 * or a field
+		 */
+		PROPERTY,
+
+		/**
+		 * No getter nor field, the value can only be in the object's dynamic
+		 * property bag
+		 */
+		DYNAMIC;
+	}
+
+	private final String name;
+	private final PropertySlot slot;
+	private final Kind kind;
+
+	private final Method getter;
+	private final Field field;
+	private final Method setter;
+
+	private final Class<?> getterType;
+	private final Class<?> setterType;
+	private final Class<?> propertyType;
+
+	PropertyAccessor( Clazz<?> clazz, String name )
+	{
+		this.name = name;
+		this.slot = Properties.slot( name );
+
+		String capitalizedName = Character.toUpperCase( name.charAt( 0 ) ) + name.substring( 1 );
+
+		getter = clazz.getMethod( "get" + capitalizedName );
+		field = clazz.getAllField( name );
+		if( getter != null )
+			getterType = getter.getReturnType();
+		else if( field != null )
+			getterType = field.getType();
+		else
+			getterType = null;
+
+		setter = clazz.getMethod( "set" + capitalizedName );
+		if( setter != null && setter.getParameterTypes().size() == 1 )
+			setterType = setter.getParameterTypes().get( 0 );
+		else if( field != null )
+			setterType = field.getType();
+		else
+			setterType = null;
+
+		propertyType = getterType == setterType ? getterType : null;
+
+		if( propertyType == Property.class )
+			kind = Kind.PROPERTY;
+		else if( getter != null )
+			kind = Kind.GETTER;
+		else if( field != null )
+			kind = Kind.FIELD;
+		else
+			kind = Kind.DYNAMIC;
+	}
+
+	String getName()
+	{
+		return name;
+	}
+
+	Kind getKind()
+	{
+		return kind;
+	}
+
+	/**
+	 * The type of the property, or <code>null</code> if it cannot be both read
+	 * and written with the same type
+	 */
+	Class<?> getPropertyType()
+	{
+		return propertyType;
+	}
+
+	/**
+	 * The type returned by the getter or the field, or <code>null</code>
+	 */
+	Class<?> getGetterType()
+	{
+		return getterType;
+	}
+
+	/**
+	 * The type accepted by the setter or the field, or <code>null</code>
+	 */
+	Class<?> getSetterType()
+	{
+		return setterType;
+	}
+
+	/**
+	 * Reads the value from the getter or the field. For {@link Kind#PROPERTY}
+	 * accessors, this is the {@link Property} instance.
+	 */
+	<T> T getRawValue( Object object )
+	{
+		if( getter != null )
+		{
+			try
+			{
+				@SuppressWarnings( "unchecked" )
+				T result = (T) getter.invoke( object );
+				return result;
+			}
+			catch( Exception e )
+			{
+				throw new RuntimeException( "ObjectAdapter [object]." + object.getClass().getName() + "." + getter.getName() + "() : getter call throwed an exception. See cause.", e );
+			}
+		}
+
+		if( field != null )
+			return field.getValue( object );
+
+		return null;
+	}
+
+	/**
+	 * Writes the value through the setter or the field. Returns
+	 * <code>false</code> if there is none.
+	 */
+	boolean setRawValue( Object object, Object value )
+	{
+		if( setter != null )
+		{
+			setter.invoke( object, value );
+			return true;
+		}
+
+		if( field != null )
+		{
+			field.setValue( object, value );
+			Properties.notify( object, slot );
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "[PropertyAccessor " + name + " " + kind + "]";
+	}
+}
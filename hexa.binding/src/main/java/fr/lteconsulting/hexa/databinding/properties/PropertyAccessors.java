@@ -0,0 +1,132 @@
+package fr.lteconsulting.hexa.databinding.properties;
+
+import java.util.HashMap;
+
+import fr.lteconsulting.hexa.classinfo.ClassInfo;
+import fr.lteconsulting.hexa.classinfo.Clazz;
+import fr.lteconsulting.hexa.databinding.ClassCache;
+import fr.lteconsulting.hexa.databinding.PlatformSpecific;
+import fr.lteconsulting.hexa.databinding.PlatformSpecificProvider;
+
+/**
+ * Cache of the {@link PropertyAccessor}s, by class and property name.
+ *
+ * Like {@link PropertySlots}, the tables are replaced by updated copies when
+ * an accessor is added, so that lookups never lock. The classes are held by a
+ * platform {@link ClassCache}, which does not prevent them from being
+ * unloaded. The cache is cleared when the type information of all the classes
+ * changes (see {@link ClassInfo#getVersion()}), and a class is forgotten when
+ * its type information is registered.
+ *
+ * @author Arnaud Tournier
+ */
+final class PropertyAccessors
+{
+	private final static PlatformSpecific platform = PlatformSpecificProvider.get();
+
+	private static final ClassCache.Loader<ClassAccessors> loader = new ClassCache.Loader<ClassAccessors>()
+	{
+		@Override
+		public ClassAccessors load( Class<?> classs )
+		{
+			return new ClassAccessors( classs );
+		}
+	};
+
+	private volatile ClassCache<ClassAccessors> classes;
+	private volatile int version = -1;
+
+	PropertyAccessors()
+	{
+		ClassInfo.addClazzChangeHandler( new ClassInfo.ClazzChangeHandler()
+		{
+			@Override
+			public void onClazzChanged( Class<?> classs )
+			{
+				ClassCache<ClassAccessors> cache = classes;
+				if( cache != null )
+					cache.remove( classs );
+			}
+		} );
+	}
+
+	/**
+	 * Returns the accessor for the property on the object's class
+	 */
+	PropertyAccessor get( Object object, String name )
+	{
+		return getClassAccessors( object.getClass() ).get( null, name );
+	}
+
+	/**
+	 * Returns the accessor for the property on the class
+	 */
+	PropertyAccessor get( Clazz<?> clazz, String name )
+	{
+		return getClassAccessors( clazz.getReflectedClass() ).get( clazz, name );
+	}
+
+	private ClassAccessors getClassAccessors( Class<?> classs )
+	{
+		ClassCache<ClassAccessors> cache = classes;
+		if( cache == null || version != ClassInfo.getVersion() )
+			cache = clear();
+
+		return cache.get( classs );
+	}
+
+	private synchronized ClassCache<ClassAccessors> clear()
+	{
+		int currentVersion = ClassInfo.getVersion();
+		if( classes == null || version != currentVersion )
+		{
+			classes = platform.createClassCache( loader );
+			version = currentVersion;
+		}
+
+		return classes;
+	}
+
+	private static final class ClassAccessors
+	{
+		private final Class<?> classs;
+		private Clazz<?> clazz;
+		private volatile HashMap<String, PropertyAccessor> accessors = new HashMap<>();
+
+		ClassAccessors( Class<?> classs )
+		{
+			this.classs = classs;
+		}
+
+		/**
+		 * @param clazz
+		 *            the type information of the class, or null to look it up
+		 */
+		PropertyAccessor get( Clazz<?> clazz, String name )
+		{
+			PropertyAccessor accessor = accessors.get( name );
+			if( accessor != null )
+				return accessor;
+
+			return add( clazz, name );
+		}
+
+		private synchronized PropertyAccessor add( Clazz<?> clazz, String name )
+		{
+			PropertyAccessor accessor = accessors.get( name );
+			if( accessor != null )
+				return accessor;
+
+			if( this.clazz == null )
+				this.clazz = clazz != null ? clazz : ClassInfo.Clazz( classs );
+
+			accessor = new PropertyAccessor( this.clazz, name );
+
+			HashMap<String, PropertyAccessor> newAccessors = new HashMap<>( accessors );
+			newAccessors.put( name, accessor );
+			accessors = newAccessors;
+
+			return accessor;
+		}
+	}
+}
@@ -1,9 +1,8 @@
 package fr.lteconsulting.hexa.databinding.properties;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-
+import fr.lteconsulting.hexa.databinding.BindingStatistics;
 import fr.lteconsulting.hexa.databinding.INotifyPropertyChanged;
+import fr.lteconsulting.hexa.databinding.PlatformSpecific;
 import fr.lteconsulting.hexa.databinding.PlatformSpecificProvider;
 
 /**
@@ -13,12 +12,32 @@ import fr.lteconsulting.hexa.databinding.PlatformSpecificProvider;
  * <li>notifying when a property changes in an object
  * </ol>
  * 
+ * Registrations and notifications can happen concurrently from several threads.
+ * 
+ * The dispatch latencies are only measured when enabled, see
+ * {@link BindingStatistics#setEnabled(boolean)}.
+ * 
  * @author Arnaud Tournier
  *
  */
 public class PropertyChanges
 {
+	private static final int NB_LOCKS = 64;
+
+	private final PlatformSpecific platform = PlatformSpecificProvider.get();
 	private final PropertyChangesStatistics stats = new PropertyChangesStatistics();
+
+	/**
+	 * Registrations on objects are serialized by those striped locks, while
+	 * notifications read the handlers without locking
+	 */
+	private final Object[] locks = new Object[NB_LOCKS];
+
+	public PropertyChanges()
+	{
+		for( int i = 0; i < NB_LOCKS; i++ )
+			locks[i] = new Object();
+	}
 	
 	/**
 	 * Registers an handler for a specific property change on an object. The object
@@ -31,6 +50,19 @@ public class PropertyChanges
 	 * @return
 	 */
 	Object register( Object source, String propertyName, PropertyChangedHandler handler )
+	{
+		return register( source, PropertySlots.get( propertyName ), handler );
+	}
+
+	/**
+	 * Registers an handler for a specific property change on an object.
+	 * 
+	 * @param source The object from which one wants notifications
+	 * @param property The property subscribed
+	 * @param handler
+	 * @return
+	 */
+	Object register( Object source, PropertySlot property, PropertyChangedHandler handler )
 	{
 		assert source != null;
 		
@@ -38,30 +70,21 @@ public class PropertyChanges
 		{
 			DirectHandlerInfo info = new DirectHandlerInfo();
 			info.source = (INotifyPropertyChanged) source;
-			info.registrationObject = info.source.registerPropertyChangedEvent( propertyName, handler );
+			info.registrationObject = info.source.registerPropertyChangedEvent( property.getName(), handler );
 			
 			return info;
 		}
 		
-		HashMap<String, ArrayList<PropertyChangedHandler>> handlersMap = PlatformSpecificProvider.get().getObjectMetadata( source );
-		if( handlersMap == null )
-		{
-			handlersMap = new HashMap<>();
-			PlatformSpecificProvider.get().setObjectMetadata( source, handlersMap );
-		}
-	
-		ArrayList<PropertyChangedHandler> handlerList = handlersMap.get( propertyName );
-		if( handlerList == null )
+		synchronized( lockFor( source ) )
 		{
-			handlerList = new ArrayList<PropertyChangedHandler>();
-			handlersMap.put( propertyName, handlerList );
+			ObjectHandlers handlers = platform.getObjectMetadata( source );
+			platform.setObjectMetadata( source, ObjectHandlers.with( handlers, property, handler ) );
 		}
 	
-		handlerList.add( handler );
-	
 		HandlerInfo info = new HandlerInfo();
 		info.source = source;
-		info.propertyName = propertyName;
+		info.propertyName = property.getName();
+		info.property = property;
 		info.handler = handler;
 		
 		stats.statsAddedRegistration( info );
@@ -88,27 +111,28 @@ public class PropertyChanges
 			return;
 		
 		HandlerInfo info = (HandlerInfo) handlerRegistration;
-	
-		HashMap<String, ArrayList<PropertyChangedHandler>> handlersMap = PlatformSpecificProvider.get().getObjectMetadata( info.source );
-		if( handlersMap == null )
-			return;
-	
-		ArrayList<PropertyChangedHandler> handlerList = handlersMap.get( info.propertyName );
-		if( handlerList == null )
+		Object source = info.source;
+		if( source == null )
 			return;
 	
-		handlerList.remove( info.handler );
+		synchronized( lockFor( source ) )
+		{
+			ObjectHandlers handlers = platform.getObjectMetadata( source );
+			if( handlers == null )
+				return;
 	
-		if( handlerList.isEmpty() )
-			handlersMap.remove( info.propertyName );
+			ObjectHandlers newHandlers = ObjectHandlers.without( handlers, info.property, info.handler );
+			if( newHandlers == handlers )
+				return;
 	
-		if( handlersMap.isEmpty() )
-			PlatformSpecificProvider.get().setObjectMetadata( info.source, null );
+			platform.setObjectMetadata( source, newHandlers );
+		}
 		
 		stats.statsRemovedRegistration( info );
 	
 		info.handler = null;
 		info.propertyName = null;
+		info.property = null;
 		info.source = null;
 	}
 
@@ -116,44 +140,95 @@ public class PropertyChanges
 	 * Notifies the Hexa event system of an object changing one of
 	 * its properties.
 	 * 
+	 * The handlers are called on the calling thread. A handler registered or
+	 * removed concurrently may or may not be called.
+	 * 
 	 * @param sender The object whom property changed
 	 * @param propertyName The changed property name
 	 */
 	void notify( Object sender, String propertyName )
+	{
+		PropertySlot property = PropertySlots.find( propertyName );
+		if( property == null )
+		{
+			// no handler was ever registered on this name, only the wildcard
+			// handlers can receive the notification. The name is interned only
+			// for them, so that notifying arbitrary names does not grow the
+			// slots table
+			ObjectHandlers handlers = platform.getObjectMetadata( sender );
+			if( handlers == null || handlers.wildcardHandlers == null )
+			{
+				stats.addNotification();
+				return;
+			}
+
+			property = PropertySlots.get( propertyName );
+		}
+
+		notify( sender, property );
+	}
+
+	/**
+	 * Notifies the Hexa event system of an object changing one of
+	 * its properties.
+	 * 
+	 * No {@link PropertyChangedEvent} is created if all the handlers are
+	 * {@link PropertySlotChangedHandler}s.
+	 * 
+	 * @param sender The object whom property changed
+	 * @param property The changed property
+	 */
+	void notify( Object sender, PropertySlot property )
 	{
 		stats.addNotification();
 		
-		HashMap<String, ArrayList<PropertyChangedHandler>> handlersMap = PlatformSpecificProvider.get().getObjectMetadata( sender );
-		if( handlersMap == null )
+		ObjectHandlers handlers = platform.getObjectMetadata( sender );
+		if( handlers == null )
 			return;
 	
+		boolean measureLatency = BindingStatistics.isEnabled();
+		long startTime = measureLatency ? stats.now() : 0;
 		PropertyChangedEvent event = null;
+		int nbDispatches = 0;
 		
-		ArrayList<PropertyChangedHandler> handlerList = handlersMap.get( propertyName );
+		PropertyChangedHandler[] handlerList = handlers.get( property );
 		if( handlerList != null )
 		{
-			if( event == null )
-				event = new PropertyChangedEvent( sender, propertyName );
-	
-			for( PropertyChangedHandler handler : handlerList )
-			{
-				handler.onPropertyChanged( event );
-				stats.addDispatch();
-			}
+			event = dispatch( sender, property, handlerList, event );
+			nbDispatches += handlerList.length;
 		}
 		
-		handlerList = handlersMap.get( "*" );
+		handlerList = handlers.wildcardHandlers;
 		if( handlerList != null )
 		{
-			if( event == null )
-				event = new PropertyChangedEvent( sender, propertyName );
-	
-			for( PropertyChangedHandler handler : handlerList )
+			dispatch( sender, property, handlerList, event );
+			nbDispatches += handlerList.length;
+		}
+
+		stats.addDispatches( stats.get( sender, property ), nbDispatches );
+		if( measureLatency && nbDispatches > 0 )
+			stats.addDispatchLatency( startTime );
+	}
+
+	private PropertyChangedEvent dispatch( Object sender, PropertySlot property, PropertyChangedHandler[] handlerList, PropertyChangedEvent event )
+	{
+		for( int i = 0; i < handlerList.length; i++ )
+		{
+			PropertyChangedHandler handler = handlerList[i];
+			if( handler instanceof PropertySlotChangedHandler )
+			{
+				((PropertySlotChangedHandler) handler).onPropertyChanged( sender, property );
+			}
+			else
 			{
+				if( event == null )
+					event = new PropertyChangedEvent( sender, property.getName() );
+
 				handler.onPropertyChanged( event );
-				stats.addDispatch();
 			}
 		}
+
+		return event;
 	}
 	
 	/**
@@ -166,6 +241,16 @@ public class PropertyChanges
 		return stats.getStatistics();
 	}
 
+	PropertyChangesSnapshot getStatisticsSnapshot()
+	{
+		return stats.getSnapshot();
+	}
+
+	private Object lockFor( Object source )
+	{
+		return locks[System.identityHashCode( source ) & (NB_LOCKS - 1)];
+	}
+
 	private static class DirectHandlerInfo
 	{
 		INotifyPropertyChanged source;
@@ -177,5 +262,7 @@ public class PropertyChanges
 		public Object source;
 		public String propertyName;
 		public PropertyChangedHandler handler;
+		PropertySlot property;
+		PropertyChangesStatistics.PropertyStatistics stats;
 	}
 }
@@ -0,0 +1,162 @@
+package fr.lteconsulting.hexa.databinding.properties;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The statistics of the property changes system at a given time, see
+ * {@link Properties#getStatisticsSnapshot()}.
+ *
+ * @author Arnaud Tournier
+ */
+public final class PropertyChangesSnapshot
+{
+	/**
+	 * The statistics of a property of a class
+	 */
+	public static final class Entry
+	{
+		private final String className;
+		private final String propertyName;
+		private final long registeredHandlers;
+		private final long registrations;
+		private final long notifications;
+		private final long dispatches;
+
+		Entry( String className, String propertyName, long registeredHandlers, long registrations, long notifications, long dispatches )
+		{
+			this.className = className;
+			this.propertyName = propertyName;
+			this.registeredHandlers = registeredHandlers;
+			this.registrations = registrations;
+			this.notifications = notifications;
+			this.dispatches = dispatches;
+		}
+
+		public String getClassName()
+		{
+			return className;
+		}
+
+		/**
+		 * The property name, "*" for the handlers registered to all the
+		 * properties
+		 */
+		public String getPropertyName()
+		{
+			return propertyName;
+		}
+
+		/**
+		 * The number of handlers currently registered
+		 */
+		public long getRegisteredHandlers()
+		{
+			return registeredHandlers;
+		}
+
+		/**
+		 * The number of registrations since the start
+		 */
+		public long getRegistrations()
+		{
+			return registrations;
+		}
+
+		/**
+		 * The number of notifications of objects having handlers
+		 */
+		public long getNotifications()
+		{
+			return notifications;
+		}
+
+		/**
+		 * The number of handler calls
+		 */
+		public long getDispatches()
+		{
+			return dispatches;
+		}
+
+		@Override
+		public String toString()
+		{
+			return propertyName + "@" + className + " handlers:" + registeredHandlers + " registrations:" + registrations + " notifications:" + notifications + " dispatches:" + dispatches;
+		}
+	}
+
+	private final long registeredHandlers;
+	private final long notifications;
+	private final long dispatches;
+	private final List<Entry> entries;
+	private final long[] fanOutCounts;
+	private final long[] dispatchLatencyCounts;
+
+	PropertyChangesSnapshot( long registeredHandlers, long notifications, long dispatches, List<Entry> entries, long[] fanOutCounts, long[] dispatchLatencyCounts )
+	{
+		this.registeredHandlers = registeredHandlers;
+		this.notifications = notifications;
+		this.dispatches = dispatches;
+		this.entries = Collections.unmodifiableList( entries );
+		this.fanOutCounts = fanOutCounts;
+		this.dispatchLatencyCounts = dispatchLatencyCounts;
+	}
+
+	public long getRegisteredHandlers()
+	{
+		return registeredHandlers;
+	}
+
+	public long getNotifications()
+	{
+		return notifications;
+	}
+
+	public long getDispatches()
+	{
+		return dispatches;
+	}
+
+	/**
+	 * Returns the statistics of each property of each class having had
+	 * handlers
+	 */
+	public List<Entry> getEntries()
+	{
+		return entries;
+	}
+
+	/**
+	 * Returns the statistics of a property of a class, or <code>null</code>
+	 */
+	public Entry getEntry( Class<?> clazz, String propertyName )
+	{
+		for( Entry entry : entries )
+		{
+			if( entry.className.equals( clazz.getName() ) && entry.propertyName.equals( propertyName ) )
+				return entry;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the histogram of the number of handlers called by the
+	 * notifications of objects having handlers, see {@link Histogram} for the
+	 * buckets
+	 */
+	public long[] getFanOutCounts()
+	{
+		return fanOutCounts.clone();
+	}
+
+	/**
+	 * Returns the histogram of the time, in nanoseconds, spent to call the
+	 * handlers of a notification, see {@link Histogram} for the buckets
+	 */
+	public long[] getDispatchLatencyCounts()
+	{
+		return dispatchLatencyCounts.clone();
+	}
+}
@@ -1,74 +1,236 @@
 package fr.lteconsulting.hexa.databinding.properties;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.List;
 
+import fr.lteconsulting.hexa.databinding.Counter;
+import fr.lteconsulting.hexa.databinding.PlatformSpecific;
+import fr.lteconsulting.hexa.databinding.PlatformSpecificProvider;
 import fr.lteconsulting.hexa.databinding.properties.PropertyChanges.HandlerInfo;
 
+/**
+ * Counts the registrations, notifications and dispatches of the
+ * {@link PropertyChanges}, globally and for each property of each class.
+ *
+ * The statistics of a property are resolved once for the class and then
+ * found by the index of the property slot, they are kept in the
+ * {@link HandlerInfo} of the registrations. The tables are replaced by
+ * updated copies when they grow, so that the lookups never lock.
+ */
 class PropertyChangesStatistics
 {
-	private static int nbRegisteredHandlers = 0;
-	private static int nbNotifications = 0;
-	private static int nbDispatches = 0;
-	private static HashMap<String, Integer> counts = new HashMap<>();
-	private static HashMap<String, Integer> oldCounts = new HashMap<>();
-	
-	/**
-	 * Show an alert containing useful information for debugging. It also
-	 * shows how many registrations happened since last call ; that's useful
-	 * to detect registration leaks.
-	 */
-	String getStatistics()
+	private static final PlatformSpecific platform = PlatformSpecificProvider.get();
+
+	private final Counter nbRegisteredHandlers = platform.createCounter();
+	private final Counter nbNotifications = platform.createCounter();
+	private final Counter nbDispatches = platform.createCounter();
+
+	// number of handlers called by a notification
+	private final Histogram fanOut = new Histogram();
+
+	// nanoseconds spent to call the handlers of a notification
+	private final Histogram dispatchLatency = new Histogram();
+
+	private volatile HashMap<Class<?>, ClassStatistics> classes = new HashMap<>();
+
+	// registered handlers counts at the time of the last report
+	private HashMap<PropertyStatistics, Long> oldCounts = new HashMap<>();
+
+	static class ClassStatistics
 	{
-		String msg = "PropertyChanges stats :\r\n"
-				+ "# registered handlers : " + nbRegisteredHandlers + "\r\n"
-				+ "# notifications       : " + nbNotifications + "\r\n"
-				+ "# dispatches          : " + nbDispatches + "\r\n";
-		
-		StringBuilder details = new StringBuilder();
-		for( Entry<String, Integer> e : counts.entrySet() )
+		final Class<?> clazz;
+
+		// indexed by the property slot index
+		volatile PropertyStatistics[] properties = new PropertyStatistics[0];
+
+		ClassStatistics( Class<?> clazz )
 		{
-			details.append( e.getKey() + " => " + e.getValue() );
-			
-			Integer oldCount = oldCounts.get( e.getKey() );
-			if( oldCount!=null )
-				details.append( " (diff: " + (e.getValue()-oldCount) + ")" );
-			
-			details.append( "\n" );
+			this.clazz = clazz;
 		}
-		
-		oldCounts = new HashMap<>( counts );
-		
-		return msg + details.toString();
+
+		PropertyStatistics get( PropertySlot property )
+		{
+			PropertyStatistics[] p = properties;
+			int index = property.getIndex();
+			if( index < p.length && p[index] != null )
+				return p[index];
+
+			return add( property );
+		}
+
+		private synchronized PropertyStatistics add( PropertySlot property )
+		{
+			int index = property.getIndex();
+			if( index < properties.length && properties[index] != null )
+				return properties[index];
+
+			PropertyStatistics[] p = new PropertyStatistics[Math.max( properties.length, index + 1 )];
+			System.arraycopy( properties, 0, p, 0, properties.length );
+			p[index] = new PropertyStatistics( this, property );
+			properties = p;
+
+			return p[index];
+		}
+	}
+
+	static class PropertyStatistics
+	{
+		final ClassStatistics owner;
+		final PropertySlot property;
+
+		final Counter registeredHandlers = platform.createCounter();
+		final Counter registrations = platform.createCounter();
+		final Counter notifications = platform.createCounter();
+		final Counter dispatches = platform.createCounter();
+
+		PropertyStatistics( ClassStatistics owner, PropertySlot property )
+		{
+			this.owner = owner;
+			this.property = property;
+		}
+	}
+
+	PropertyStatistics get( Object source, PropertySlot property )
+	{
+		return get( source.getClass() ).get( property );
 	}
-	
+
+	private ClassStatistics get( Class<?> clazz )
+	{
+		ClassStatistics stats = classes.get( clazz );
+		if( stats != null )
+			return stats;
+
+		return add( clazz );
+	}
+
+	private synchronized ClassStatistics add( Class<?> clazz )
+	{
+		ClassStatistics stats = classes.get( clazz );
+		if( stats != null )
+			return stats;
+
+		stats = new ClassStatistics( clazz );
+
+		HashMap<Class<?>, ClassStatistics> newClasses = new HashMap<>( classes );
+		newClasses.put( clazz, stats );
+		classes = newClasses;
+
+		return stats;
+	}
+
+	long now()
+	{
+		return platform.nanoTime();
+	}
+
 	void addNotification()
 	{
-		nbNotifications++;
+		nbNotifications.increment();
 	}
-	
-	void addDispatch()
+
+	/**
+	 * Records the dispatch of a notification to its handlers
+	 */
+	void addDispatches( PropertyStatistics stats, int nb )
 	{
-		nbDispatches++;
+		stats.notifications.increment();
+		fanOut.record( nb );
+
+		if( nb == 0 )
+			return;
+
+		stats.dispatches.add( nb );
+		nbDispatches.add( nb );
 	}
-	
+
+	/**
+	 * Records the time spent to dispatch a notification started at
+	 * <code>startTime</code>, see {@link #now()}
+	 */
+	void addDispatchLatency( long startTime )
+	{
+		dispatchLatency.record( platform.nanoTime() - startTime );
+	}
+
 	void statsAddedRegistration( HandlerInfo info )
 	{
-		nbRegisteredHandlers++;
-		
-		String key = info.propertyName + "@" + info.source.getClass().getSimpleName();
-		Integer count = counts.get( key );
-		if( count == null )
-			count = 0;
-		count++;
-		counts.put( key, count );
+		nbRegisteredHandlers.increment();
+
+		info.stats = get( info.source, info.property );
+		info.stats.registeredHandlers.increment();
+		info.stats.registrations.increment();
 	}
 
 	void statsRemovedRegistration( HandlerInfo info )
 	{
-		nbRegisteredHandlers--;
-		
-		String key = info.propertyName + "@" + info.source.getClass().getSimpleName();
-		counts.put( key, counts.get( key ) - 1 );
+		nbRegisteredHandlers.decrement();
+
+		info.stats.registeredHandlers.decrement();
+		info.stats = null;
+	}
+
+	PropertyChangesSnapshot getSnapshot()
+	{
+		List<PropertyChangesSnapshot.Entry> entries = new ArrayList<>();
+		for( ClassStatistics clazz : classes.values() )
+		{
+			for( PropertyStatistics stats : clazz.properties )
+			{
+				if( stats == null )
+					continue;
+
+				entries.add( new PropertyChangesSnapshot.Entry( clazz.clazz.getName(), stats.property.getName(), stats.registeredHandlers.sum(), stats.registrations.sum(), stats.notifications.sum(), stats.dispatches.sum() ) );
+			}
+		}
+
+		return new PropertyChangesSnapshot( nbRegisteredHandlers.sum(), nbNotifications.sum(), nbDispatches.sum(), entries, fanOut.getCounts(), dispatchLatency.getCounts() );
+	}
+
+	/**
+	 * Show an alert containing useful information for debugging. It also
+	 * shows how many registrations happened since last call ; that's useful
+	 * to detect registration leaks.
+	 */
+	String getStatistics()
+	{
+		long[] latencies = dispatchLatency.getCounts();
+
+		String msg = "PropertyChanges stats :\r\n"
+				+ "# registered handlers : " + nbRegisteredHandlers.sum() + "\r\n"
+				+ "# notifications       : " + nbNotifications.sum() + "\r\n"
+				+ "# dispatches          : " + nbDispatches.sum() + "\r\n"
+				+ "# dispatch p99 (ns)   : " + Histogram.getPercentile( latencies, 0.99 ) + "\r\n";
+
+		StringBuilder details = new StringBuilder();
+		synchronized( this )
+		{
+			HashMap<PropertyStatistics, Long> newCounts = new HashMap<>();
+
+			for( ClassStatistics clazz : classes.values() )
+			{
+				for( PropertyStatistics stats : clazz.properties )
+				{
+					if( stats == null )
+						continue;
+
+					long count = stats.registeredHandlers.sum();
+					newCounts.put( stats, count );
+
+					details.append( stats.property.getName() + "@" + clazz.clazz.getSimpleName() + " => " + count );
+
+					Long oldCount = oldCounts.get( stats );
+					if( oldCount != null )
+						details.append( " (diff: " + (count - oldCount) + ")" );
+
+					details.append( "\n" );
+				}
+			}
+
+			oldCounts = newCounts;
+		}
+
+		return msg + details.toString();
 	}
 }
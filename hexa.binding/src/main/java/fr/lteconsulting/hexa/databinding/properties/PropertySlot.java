@@ -0,0 +1,48 @@
+package fr.lteconsulting.hexa.databinding.properties;
+
+/**
+ * A property name resolved once and for all by the Property system.
+ * 
+ * Code notifying property changes very often (like setters) should obtain the
+ * slot of the property with {@link Properties#slot(String)}, keep it in a
+ * static field and use {@link Properties#notify(Object, PropertySlot)}. This
+ * avoids any string hashing during the notification.
+ * 
+ * There is only one instance per property name, so slots can be compared with
+ * <code>==</code>.
+ * 
+ * @author Arnaud Tournier
+ */
+public final class PropertySlot
+{
+	private final String name;
+	private final int index;
+
+	PropertySlot( String name, int index )
+	{
+		this.name = name;
+		this.index = index;
+	}
+
+	/**
+	 * Returns the name of the property
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Returns the unique index attributed to this property name
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	@Override
+	public String toString()
+	{
+		return name;
+	}
+}
@@ -0,0 +1,22 @@
+package fr.lteconsulting.hexa.databinding.properties;
+
+/**
+ * A {@link PropertyChangedHandler} which does not need a
+ * {@link PropertyChangedEvent}.
+ * 
+ * When notifying such a handler, the Property system calls
+ * {@link #onPropertyChanged(Object, PropertySlot)} directly, so no event
+ * object is allocated if no other handler needs one.
+ * 
+ * @author Arnaud Tournier
+ */
+public interface PropertySlotChangedHandler extends PropertyChangedHandler
+{
+	/**
+	 * Called when the property of the sender object changed
+	 * 
+	 * @param sender The object whom property changed
+	 * @param property The changed property
+	 */
+	void onPropertyChanged( Object sender, PropertySlot property );
+}
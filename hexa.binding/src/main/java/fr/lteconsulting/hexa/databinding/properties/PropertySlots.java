@@ -0,0 +1,65 @@
+package fr.lteconsulting.hexa.databinding.properties;
+
+import java.util.HashMap;
+
+/**
+ * Interns property names into {@link PropertySlot}s.
+ * 
+ * The lookup table is replaced by an updated copy each time a new name is
+ * interned, so that lookups never lock.
+ * 
+ * @author Arnaud Tournier
+ */
+final class PropertySlots
+{
+	static final String WILDCARD_NAME = "*";
+
+	static final PropertySlot WILDCARD = new PropertySlot( WILDCARD_NAME, 0 );
+
+	private static volatile HashMap<String, PropertySlot> slots;
+
+	static
+	{
+		HashMap<String, PropertySlot> initial = new HashMap<>();
+		initial.put( WILDCARD_NAME, WILDCARD );
+		slots = initial;
+	}
+
+	private PropertySlots()
+	{
+	}
+
+	/**
+	 * Returns the slot of a name, or null if it was never interned
+	 */
+	static PropertySlot find( String name )
+	{
+		return slots.get( name );
+	}
+
+	/**
+	 * Returns the slot of a name, interning it if needed
+	 */
+	static PropertySlot get( String name )
+	{
+		PropertySlot slot = slots.get( name );
+		if( slot != null )
+			return slot;
+
+		return intern( name );
+	}
+
+	private static synchronized PropertySlot intern( String name )
+	{
+		PropertySlot slot = slots.get( name );
+		if( slot != null )
+			return slot;
+
+		HashMap<String, PropertySlot> newSlots = new HashMap<>( slots );
+		slot = new PropertySlot( name, newSlots.size() );
+		newSlots.put( name, slot );
+		slots = newSlots;
+
+		return slot;
+	}
+}
@@ -1,13 +1,8 @@
 package fr.lteconsulting.hexa.databinding.properties;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.logging.Logger;
 
-import fr.lteconsulting.hexa.classinfo.ClassInfo;
 import fr.lteconsulting.hexa.classinfo.Clazz;
-import fr.lteconsulting.hexa.classinfo.Field;
-import fr.lteconsulting.hexa.classinfo.Method;
 import fr.lteconsulting.hexa.databinding.PlatformSpecific;
 import fr.lteconsulting.hexa.databinding.PlatformSpecificProvider;
 import fr.lteconsulting.hexa.databinding.propertyadapters.CompositePropertyAdapter;
@@ -17,33 +12,16 @@ class PropertyValues
 {
 	private final static Logger LOGGER = Logger.getLogger( PropertyValues.class.getName() );
 
-	private final static PlatformSpecific propertyBagAccess = PlatformSpecificProvider.get();
+	private final static PlatformSpecific platform = PlatformSpecificProvider.get();
+
+	private final PropertyAccessors accessors = new PropertyAccessors();
 
 	/**
 	 * Returns the class of the property
 	 */
 	Class<?> getPropertyType( Clazz<?> clazz, String name )
 	{
-		ClassInfoCache cache = retrieveCache( clazz );
-
-		Class<?> res = cache.getPropertyType( name );
-		if( res != null )
-			return res;
-
-		Class<?> getterType = getGetterPropertyType( clazz, name );
-		if( getterType == null )
-			return null;
-
-		Class<?> setterType = getSetterPropertyType( clazz, name );
-		if( setterType == null )
-			return null;
-
-		if( getterType != setterType )
-			return null;
-
-		cache.setPropertyType( name, getterType );
-
-		return getterType;
+		return accessors.get( clazz, name ).getPropertyType();
 	}
 
 	/**
@@ -59,17 +37,7 @@ class PropertyValues
 	 */
 	Class<?> getGetterPropertyType( Clazz<?> clazz, String name )
 	{
-		String getterName = "get" + capitalizeFirstLetter( name );
-		Method getter = clazz.getMethod( getterName );
-		if( getter != null )
-			return getter.getReturnType();
-
-		// try direct field access
-		Field field = clazz.getAllField( name );
-		if( field != null )
-			return field.getType();
-
-		return null;
+		return accessors.get( clazz, name ).getGetterType();
 	}
 
 	/**
@@ -101,77 +69,13 @@ class PropertyValues
 		return getSetterPropertyType( clazz, name ) != null;
 	}
 
-	private final static Map<Integer, ClassInfoCache> classInfoCache = new HashMap<>();
-
-	private ClassInfoCache retrieveCache( Clazz<?> clazz )
-	{
-		Integer key = System.identityHashCode( clazz );
-
-		ClassInfoCache res = classInfoCache.get( key );
-
-		if( res == null )
-		{
-			res = new ClassInfoCache();
-			classInfoCache.put( key, res );
-		}
-
-		return res;
-	}
-
-	private static class ClassInfoCache
-	{
-		Map<String, Class<?>> propertyTypes = new HashMap<>();
-		Map<String, Class<?>> setterTypes = new HashMap<>();
-
-		public Class<?> getSetterType( String name )
-		{
-			return setterTypes.get( name );
-		}
-
-		public void setSetterType( String name, Class<?> res )
-		{
-			setterTypes.put( name, res );
-		}
-
-		public Class<?> getPropertyType( String name )
-		{
-			return propertyTypes.get( name );
-		}
-
-		public void setPropertyType( String name, Class<?> classs )
-		{
-			propertyTypes.put( name, classs );
-		}
-	}
-
 	/**
 	 * Returns the class of the setter property. It can be this of the setter or
 	 * of the field
 	 */
 	Class<?> getSetterPropertyType( Clazz<?> clazz, String name )
 	{
-		ClassInfoCache cache = retrieveCache( clazz );
-		Class<?> res = cache.getSetterType( name );
-		if( res != null )
-			return res;
-
-		String setterName = "set" + capitalizeFirstLetter( name );
-		Method setter = clazz.getMethod( setterName );
-		if( setter != null && setter.getParameterTypes().size() == 1 )
-		{
-			res = setter.getParameterTypes().get( 0 );
-		}
-		else
-		{
-			Field field = clazz.getAllField( name );
-			if( field != null )
-				res = field.getType();
-		}
-
-		if( res != null )
-			cache.setSetterType( name, res );
-
-		return res;
+		return accessors.get( clazz, name ).getSetterType();
 	}
 
 	/**
@@ -186,9 +90,12 @@ class PropertyValues
 	 */
 	boolean setValue( Object object, String propertyName, Object value )
 	{
-		Clazz<?> s = ClassInfo.Clazz( object.getClass() );
+		if( platform.isBindingToken( propertyName ) )
+			return platform.setBindingValue( object, propertyName, value );
 
-		if( Property.class == getPropertyType( s, propertyName ) )
+		PropertyAccessor accessor = accessors.get( object, propertyName );
+
+		if( accessor.getKind() == PropertyAccessor.Kind.PROPERTY )
 		{
 			Property<Object> property = getPropertyImpl( object, propertyName );
 			if( property != null )
@@ -200,7 +107,7 @@ class PropertyValues
 			return false;
 		}
 
-		return setPropertyImpl( s, object, propertyName, value );
+		return setPropertyImpl( accessor, object, propertyName, value );
 	}
 
 	/**
@@ -213,7 +120,7 @@ class PropertyValues
 	 */
 	<T> T getObjectDynamicProperty( Object object, String propertyName )
 	{
-		DynamicPropertyBag bag = propertyBagAccess.getObjectDynamicPropertyBag( object );
+		DynamicPropertyBag bag = platform.getObjectDynamicPropertyBag( object );
 		if( bag == null )
 			return null;
 
@@ -228,7 +135,7 @@ class PropertyValues
 	 */
 	boolean hasObjectDynamicProperty( Object object, String propertyName )
 	{
-		DynamicPropertyBag bag = propertyBagAccess.getObjectDynamicPropertyBag( object );
+		DynamicPropertyBag bag = platform.getObjectDynamicPropertyBag( object );
 		return bag != null && bag.contains( propertyName );
 	}
 
@@ -237,11 +144,11 @@ class PropertyValues
 	 */
 	void setObjectDynamicProperty( Object object, String propertyName, Object value )
 	{
-		DynamicPropertyBag bag = propertyBagAccess.getObjectDynamicPropertyBag( object );
+		DynamicPropertyBag bag = platform.getObjectDynamicPropertyBag( object );
 		if( bag == null )
 		{
 			bag = new DynamicPropertyBag();
-			propertyBagAccess.setObjectDynamicPropertyBag( object, bag );
+			platform.setObjectDynamicPropertyBag( object, bag );
 		}
 
 		bag.set( propertyName, value );
@@ -251,43 +158,27 @@ class PropertyValues
 
 	private <T> T getPropertyImpl( Object object, String name )
 	{
-		if( PlatformSpecificProvider.get().isBindingToken( name ) )
+		if( platform.isBindingToken( name ) )
 		{
-			return PlatformSpecificProvider.get().getBindingValue( object, name );
+			return platform.getBindingValue( object, name );
 		}
 
 		if( name.equals( CompositePropertyAdapter.DTOMAP_TOKEN ) )
 			throw new RuntimeException( "Property of type $DTOMap cannot be readden !" );
 
 		// if has dynamic-property, return it !
-		if( hasObjectDynamicProperty( object, name ) )
+		DynamicPropertyBag bag = platform.getObjectDynamicPropertyBag( object );
+		if( bag != null && bag.contains( name ) )
 		{
 			LOGGER.fine( "'" + name + "' read dynamic property on object " + object );
-			return getObjectDynamicProperty( object, name );
-		}
-
-		Clazz<?> s = ClassInfo.Clazz( object.getClass() );
-
-		String getterName = "get" + capitalizeFirstLetter( name );
-		Method getter = s.getMethod( getterName );
-		if( getter != null )
-		{
-			try
-			{
-				@SuppressWarnings( "unchecked" )
-				T result = (T) getter.invoke( object );
-				return result;
-			}
-			catch( Exception e )
-			{
-				throw new RuntimeException( "ObjectAdapter [object]." + object.getClass().getName() + "." + getterName + "() : getter call throwed an exception. See cause.", e );
-			}
+			@SuppressWarnings( "unchecked" )
+			T result = (T) bag.get( name );
+			return result;
 		}
 
-		// try direct field access
-		Field field = s.getAllField( name );
-		if( field != null )
-			return field.getValue( object );
+		PropertyAccessor accessor = accessors.get( object, name );
+		if( accessor.getKind() != PropertyAccessor.Kind.DYNAMIC )
+			return accessor.getRawValue( object );
 
 		// Maybe a dynamic property will be set later on
 		LOGGER.warning( "DataBinding: Warning: assuming that the object would " + "in the future have a dynamic property set / Maybe have an opt-in " + "option on the Binding to clarify things" );
@@ -295,26 +186,10 @@ class PropertyValues
 		return null;
 	}
 
-	private boolean setPropertyImpl( Clazz<?> s, Object object, String name, Object value )
+	private boolean setPropertyImpl( PropertyAccessor accessor, Object object, String name, Object value )
 	{
-		if( PlatformSpecificProvider.get().isBindingToken( name ) )
-			return PlatformSpecificProvider.get().setBindingValue( object, name, value );
-
-		String setterName = "set" + capitalizeFirstLetter( name );
-		Method setter = s.getMethod( setterName );
-		if( setter != null )
-		{
-			setter.invoke( object, value );
-			return true;
-		}
-
-		Field field = s.getAllField( name );
-		if( field != null )
-		{
-			field.setValue( object, value );
-			Properties.notify( object, name );
+		if( accessor.setRawValue( object, value ) )
 			return true;
-		}
 
 		if( !hasObjectDynamicProperty( object, name ) )
 			LOGGER.warning( "'" + name + "' write dynamic property on object " + object.getClass().getName() + " with value " + value + " WARNING : THAT MEANS THERE IS NO GETTER/SETTER/FIELD FOR THAT CLASS ! PLEASE CHECK THAT IT IS REALLY INTENTIONAL !" );
@@ -323,18 +198,4 @@ class PropertyValues
 
 		return false;
 	}
-
-	private final static HashMap<String, String> caps = new HashMap<>();
-
-	private String capitalizeFirstLetter( String s )
-	{
-		String res = caps.get( s );
-		if( res == null )
-		{
-			res = Character.toUpperCase( s.charAt( 0 ) ) + s.substring( 1 );
-			caps.put( s, res );
-		}
-
-		return res;
-	}
 }
@@ -3,28 +3,45 @@ package fr.lteconsulting.hexa.databinding.propertyadapters;
 import java.util.ArrayList;
 
 import fr.lteconsulting.hexa.client.tools.Action2;
-import fr.lteconsulting.hexa.databinding.PlatformSpecificProvider;
 
+/**
+ * A PropertyAdapter following a '.' separated property path from a context
+ * object, like "company.address.city".
+ *
+ * One adapter is created for each segment of the path, and the values of the
+ * intermediate segments are kept. They are read again only when the
+ * corresponding adapter notifies a change, and the adapters of the following
+ * segments are recreated only if the value is a different object.
+ */
 public class CompositePropertyAdapter implements PropertyAdapter
 {
 	public final static String HASVALUE_TOKEN = "$HasValue";
 	public final static String DTOMAP_TOKEN = "$DTOMap";
 
-	Object context;
-	String[] path;
+	private final Object context;
+	private final PropertyPath path;
 
-	PropertyAdapter[] adapters;
-	Object[] adapterHandlerRegistrations;
+	private final PropertyAdapter[] adapters;
+	private final Object[] adapterHandlerRegistrations;
+
+	// values[p] is the value of the adapter p, used as the context of the
+	// adapter p + 1
+	private final Object[] values;
+
+	// the adapters and values of the segments before this index are up to date
+	private int resolved;
 
 	private ArrayList<ClientInfo> clients;
 
 	public CompositePropertyAdapter( Object context, String path )
 	{
 		this.context = context;
-		this.path = path.split( "\\." );
+		this.path = PropertyPath.get( path );
 
-		adapters = new PropertyAdapter[this.path.length];
-		adapterHandlerRegistrations = new Object[this.path.length];
+		int length = this.path.length();
+		adapters = new PropertyAdapter[length];
+		adapterHandlerRegistrations = new Object[length];
+		values = new Object[length - 1];
 	}
 
 	private Action2<PropertyAdapter, Object> onPropertyChanged = new Action2<PropertyAdapter, Object>()
@@ -34,15 +51,16 @@ public class CompositePropertyAdapter implements PropertyAdapter
 		{
 			int adapterNo = (Integer) p2;
 
-			// unregister all adapters with a position > adapterNo
-			for( int p = adapterNo + 1; p < path.length; p++ )
+			// an intermediate value changed, the following segments are
+			// resolved again if it is another object
+			if( adapterNo < values.length && adapterNo < resolved )
 			{
-				if( adapters[p] == null || adapterHandlerRegistrations[p] == null )
-					continue;
-
-				adapters[p].removePropertyChangedHandler( adapterHandlerRegistrations[p] );
-				adapters[p] = null;
-				adapterHandlerRegistrations[p] = null;
+				Object value = adapters[adapterNo].getValue();
+				if( value != values[adapterNo] )
+				{
+					releaseAdapters( adapterNo + 1 );
+					values[adapterNo] = value;
+				}
 			}
 
 			// signal callbacks that a change occured
@@ -59,10 +77,8 @@ public class CompositePropertyAdapter implements PropertyAdapter
 	{
 		tryCreateAdapters();
 
-		if( adapters[path.length - 1] != null )
-		{
-			return adapters[path.length - 1].getValue();
-		}
+		if( resolved == adapters.length )
+			return adapters[adapters.length - 1].getValue();
 
 		return null;
 	}
@@ -72,8 +88,28 @@ public class CompositePropertyAdapter implements PropertyAdapter
 	{
 		tryCreateAdapters();
 
-		if( adapters[path.length - 1] != null )
-			adapters[path.length - 1].setValue( object );
+		if( resolved == adapters.length )
+			adapters[adapters.length - 1].setValue( object );
+	}
+
+	/**
+	 * Returns the adapter of the last segment of the path, which reads and
+	 * writes the value, or null if the path cannot be resolved
+	 */
+	public PropertyAdapter getLastAdapter()
+	{
+		tryCreateAdapters();
+
+		if( resolved == adapters.length )
+			return adapters[adapters.length - 1];
+
+		return null;
+	}
+
+	@Override
+	public String toString()
+	{
+		return (context == null ? "null" : context.getClass().getName()) + "." + path;
 	}
 
 	class ClientInfo
@@ -110,58 +146,70 @@ public class CompositePropertyAdapter implements PropertyAdapter
 
 		clients.remove( client );
 		if( clients.isEmpty() )
-			clients = null;
-		
-		// remove adapters
-		for( int i=0; i<adapters.length; i++ )
 		{
-			if( adapters[i] == null )
-				continue;
-			adapters[i].removePropertyChangedHandler( adapterHandlerRegistrations[i] );
+			clients = null;
+
+			// remove adapters
+			releaseAdapters( 0 );
 		}
 	}
 
-	// create adapaters from the root context object to the end of the path, if
-	// possible...
+	// create adapters from the last up to date segment to the end of the
+	// path, if possible...
 	private void tryCreateAdapters()
 	{
-		Object object = context;
-	
-		for( int p = 0; p < path.length; p++ )
+		if( resolved == adapters.length )
+			return;
+
+		Object object = resolved == 0 ? context : values[resolved - 1];
+
+		for( int p = resolved; p < adapters.length; p++ )
 		{
 			if( object == null )
 				return;
-	
+
 			// if no adapter has yet been created for this pathItem
 			if( adapters[p] == null )
 			{
-				String pathItem = path[p];
-	
-				// try to find an adapter, otherwise create one or return null
 				// to create an adapter, we need a context and a path item
 				// context is the 'object' value (ie the value of the previous
 				// pathItem or the root context)
-				// path item is path[p]
-				if(pathItem.charAt(0)=='$')
-				{
-					if( PlatformSpecificProvider.get().isBindingToken( pathItem ) )
-						adapters[p] = PlatformSpecificProvider.get().createPropertyAdapter(object);
-					else if( CompositePropertyAdapter.DTOMAP_TOKEN.equals( pathItem ) )
-						adapters[p] = new DTOMapperPropertyAdapter( object );
-				}
-				else
-				{
-					adapters[p] = new ObjectPropertyAdapter( object, pathItem );
-				}
-	
+				adapters[p] = path.createAdapter( p, object );
+				if( adapters[p] == null )
+					return;
+
 				// we should subscribe to the value changes so that we can
-				// subscribe to
-				// new values when anything on the path changes
+				// subscribe to new values when anything on the path changes
 				adapterHandlerRegistrations[p] = adapters[p].registerPropertyChanged( onPropertyChanged, p );
 			}
-	
-			if( p < path.length - 1 )
+
+			if( p < values.length )
+			{
 				object = adapters[p].getValue();
+				values[p] = object;
+			}
+
+			resolved = p + 1;
 		}
 	}
+
+	// unregister all adapters with a position >= from
+	private void releaseAdapters( int from )
+	{
+		for( int p = from; p < adapters.length; p++ )
+		{
+			if( adapters[p] != null )
+			{
+				adapters[p].removePropertyChangedHandler( adapterHandlerRegistrations[p] );
+				adapters[p] = null;
+				adapterHandlerRegistrations[p] = null;
+			}
+
+			if( p < values.length )
+				values[p] = null;
+		}
+
+		if( resolved > from )
+			resolved = from;
+	}
 }
@@ -3,7 +3,8 @@ package fr.lteconsulting.hexa.databinding.propertyadapters;
 import fr.lteconsulting.hexa.client.tools.Action2;
 import fr.lteconsulting.hexa.databinding.properties.Properties;
 import fr.lteconsulting.hexa.databinding.properties.PropertyChangedEvent;
-import fr.lteconsulting.hexa.databinding.properties.PropertyChangedHandler;
+import fr.lteconsulting.hexa.databinding.properties.PropertySlot;
+import fr.lteconsulting.hexa.databinding.properties.PropertySlotChangedHandler;
 
 /**
  * A PropertyAdapter implementation which is able to work with an object's field or property
@@ -14,18 +15,25 @@ import fr.lteconsulting.hexa.databinding.properties.PropertyChangedHandler;
  * @author Arnaud
  *
  */
-public class ObjectPropertyAdapter implements PropertyAdapter, PropertyChangedHandler
+public class ObjectPropertyAdapter implements PropertyAdapter, PropertySlotChangedHandler
 {
 	private final Object source;
 	private final String sourceProperty;
+	private final PropertySlot sourceSlot;
 
 	private Action2<PropertyAdapter, Object> callback;
 	private Object cookie;
 
 	public ObjectPropertyAdapter( Object source, String sourceProperty )
+	{
+		this( source, Properties.slot( sourceProperty ) );
+	}
+
+	public ObjectPropertyAdapter( Object source, PropertySlot sourceProperty )
 	{
 		this.source = source;
-		this.sourceProperty = sourceProperty;
+		this.sourceProperty = sourceProperty.getName();
+		this.sourceSlot = sourceProperty;
 	}
 
 	@Override
@@ -37,7 +45,7 @@ public class ObjectPropertyAdapter implements PropertyAdapter, PropertyChangedHa
 		this.callback = callback;
 		this.cookie = cookie;
 		
-		return Properties.register( source, sourceProperty, this );
+		return Properties.register( source, sourceSlot, this );
 	}
 
 	@Override
@@ -46,6 +54,28 @@ public class ObjectPropertyAdapter implements PropertyAdapter, PropertyChangedHa
 		Properties.removeHandler( registration );
 	}
 
+	/**
+	 * Returns the object whose property is adapted
+	 */
+	public Object getSource()
+	{
+		return source;
+	}
+
+	/**
+	 * Returns the adapted property
+	 */
+	public PropertySlot getSourceProperty()
+	{
+		return sourceSlot;
+	}
+
+	@Override
+	public String toString()
+	{
+		return (source == null ? "null" : source.getClass().getName()) + "." + sourceProperty;
+	}
+
 	@Override
 	public Object getValue()
 	{
@@ -59,11 +89,17 @@ public class ObjectPropertyAdapter implements PropertyAdapter, PropertyChangedHa
 	}
 
 	@Override
-	public void onPropertyChanged( PropertyChangedEvent event )
+	public void onPropertyChanged( Object sender, PropertySlot property )
 	{
 		if( callback == null )
 			return;
 
 		callback.exec( this, cookie );
 	}
+
+	@Override
+	public void onPropertyChanged( PropertyChangedEvent event )
+	{
+		onPropertyChanged( event.getSender(), sourceSlot );
+	}
 }
\ No newline at end of file
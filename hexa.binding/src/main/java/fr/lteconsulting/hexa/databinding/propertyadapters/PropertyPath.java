@@ -0,0 +1,132 @@
+package fr.lteconsulting.hexa.databinding.propertyadapters;
+
+import java.util.HashMap;
+
+import fr.lteconsulting.hexa.databinding.PlatformSpecificProvider;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.properties.PropertySlot;
+
+/**
+ * A '.' separated property path, split and analyzed once.
+ * 
+ * Paths are shared by all the {@link CompositePropertyAdapter}s using the
+ * same path string. The cache is replaced by an updated copy when a path is
+ * added, so that lookups never lock.
+ * 
+ * @author Arnaud Tournier
+ */
+final class PropertyPath
+{
+	private static volatile HashMap<String, PropertyPath> paths = new HashMap<>();
+
+	private enum SegmentKind
+	{
+		PROPERTY,
+		BINDING_TOKEN,
+		DTOMAP,
+		UNKNOWN_TOKEN;
+	}
+
+	private final String path;
+	private final PropertySlot[] slots;
+	private final SegmentKind[] kinds;
+
+	/**
+	 * Returns the compiled form of the path
+	 */
+	static PropertyPath get( String path )
+	{
+		PropertyPath result = paths.get( path );
+		if( result != null )
+			return result;
+
+		return add( path );
+	}
+
+	private static synchronized PropertyPath add( String path )
+	{
+		PropertyPath result = paths.get( path );
+		if( result != null )
+			return result;
+
+		result = new PropertyPath( path );
+
+		HashMap<String, PropertyPath> newPaths = new HashMap<>( paths );
+		newPaths.put( path, result );
+		paths = newPaths;
+
+		return result;
+	}
+
+	private PropertyPath( String path )
+	{
+		this.path = path;
+
+		int count = 1;
+		for( int i = path.indexOf( '.' ); i >= 0; i = path.indexOf( '.', i + 1 ) )
+			count++;
+
+		slots = new PropertySlot[count];
+		kinds = new SegmentKind[count];
+
+		int start = 0;
+		for( int p = 0; p < count; p++ )
+		{
+			int end = path.indexOf( '.', start );
+			if( end < 0 )
+				end = path.length();
+
+			String name = path.substring( start, end );
+			slots[p] = Properties.slot( name );
+
+			if( name.isEmpty() || name.charAt( 0 ) != '$' )
+				kinds[p] = SegmentKind.PROPERTY;
+			else if( PlatformSpecificProvider.get().isBindingToken( name ) )
+				kinds[p] = SegmentKind.BINDING_TOKEN;
+			else if( CompositePropertyAdapter.DTOMAP_TOKEN.equals( name ) )
+				kinds[p] = SegmentKind.DTOMAP;
+			else
+				kinds[p] = SegmentKind.UNKNOWN_TOKEN;
+
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * Number of segments of the path
+	 */
+	int length()
+	{
+		return slots.length;
+	}
+
+	/**
+	 * Creates the adapter for one segment of the path, or returns
+	 * <code>null</code> if the segment is an unknown token
+	 * 
+	 * @param segment
+	 *            the segment index
+	 * @param object
+	 *            the value of the previous segment, or the path context
+	 */
+	PropertyAdapter createAdapter( int segment, Object object )
+	{
+		switch( kinds[segment] )
+		{
+			case PROPERTY:
+				return new ObjectPropertyAdapter( object, slots[segment] );
+			case BINDING_TOKEN:
+				return PlatformSpecificProvider.get().createPropertyAdapter( object );
+			case DTOMAP:
+				return new DTOMapperPropertyAdapter( object );
+			default:
+				return null;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return path;
+	}
+}
@@ -4,6 +4,7 @@ import fr.lteconsulting.hexa.client.tools.Action2;
 import fr.lteconsulting.hexa.databinding.properties.Properties;
 import fr.lteconsulting.hexa.databinding.properties.PropertyChangedEvent;
 import fr.lteconsulting.hexa.databinding.properties.PropertyChangedHandler;
+import fr.lteconsulting.hexa.databinding.properties.PropertySlot;
 import fr.lteconsulting.hexa.databinding.propertyadapters.PropertyAdapter;
 
 /**
@@ -19,13 +20,13 @@ import fr.lteconsulting.hexa.databinding.propertyadapters.PropertyAdapter;
 public class Property<T> implements PropertyAdapter
 {
 	private Object owner;
-	private String name;
+	private PropertySlot slot;
 	private T value;
 
 	public Property( Object owner, String name, T value )
 	{
 		this.owner = owner;
-		this.name = name;
+		this.slot = Properties.slot( name );
 		this.value = value;
 	}
 	
@@ -42,12 +43,12 @@ public class Property<T> implements PropertyAdapter
 
 		this.value = (T) value;
 
-		Properties.notify( owner, name );
+		Properties.notify( owner, slot );
 	}
 	
 	public Object register( PropertyChangedHandler handler )
 	{
-		return Properties.register( owner, name, handler );
+		return Properties.register( owner, slot, handler );
 	}
 	
 	public void removeRegistration( Object handlerRegistration )
@@ -2,19 +2,71 @@ package fr.lteconsulting.hexa.databinding.watchablecollection;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * A change of a {@link WatchableCollection}.
+ *
+ * A change concerns either one item, or a range of consecutive items for the
+ * bulk operations. Only the callbacks registered as accepting ranges receive
+ * range changes. Range changes reference the list of their items instead of
+ * copying them, this list is only valid during the callback call.
+ */
 public class Change
 {
 	final ChangeType type;
 	final Object item;
 	final int index;
+	final int fromIndex;
+	final int count;
+	final List<?> items;
 
 	public Change( ChangeType type, Object item, int index )
+	{
+		this( type, item, index, index, 1, null );
+	}
+
+	/**
+	 * A change of a range of items
+	 *
+	 * @param type
+	 *            ADD or REMOVE
+	 * @param index
+	 *            the index of the first item of the range
+	 * @param count
+	 *            the number of items
+	 * @param items
+	 *            the items of the range
+	 */
+	public Change( ChangeType type, int index, int count, List<?> items )
+	{
+		this( type, null, index, index, count, items );
+	}
+
+	private Change( ChangeType type, Object item, int index, int fromIndex, int count, List<?> items )
 	{
 		this.type = type;
 		this.item = item;
 		this.index = index;
+		this.fromIndex = fromIndex;
+		this.count = count;
+		this.items = items;
+	}
+
+	/**
+	 * A change moving an item in the list
+	 *
+	 * @param item
+	 *            the moved item
+	 * @param fromIndex
+	 *            the index from which the item is removed
+	 * @param toIndex
+	 *            the index at which the item is inserted, once removed
+	 */
+	public static Change Move( Object item, int fromIndex, int toIndex )
+	{
+		return new Change( ChangeType.MOVE, item, toIndex, fromIndex, 1, null );
 	}
 
 	public static <T> List<Change> ForItems( ChangeType type, Collection<T> items, int startIndex )
@@ -31,14 +83,63 @@ public class Change
 		return type;
 	}
 
+	/**
+	 * The item concerned by the change. For range changes, use
+	 * {@link #getItems()}: this method fails when the range has several items.
+	 */
 	@SuppressWarnings( "unchecked" )
 	public <T> T getItem()
 	{
+		if( items != null )
+		{
+			if( count != 1 )
+				throw new IllegalStateException( "Range change of " + count + " items, use getItems()" );
+
+			return (T) items.get( 0 );
+		}
+
 		return (T) item;
 	}
-	
+
+	/**
+	 * Whether the change concerns a range of items
+	 */
+	public boolean isRange()
+	{
+		return items != null;
+	}
+
+	/**
+	 * The number of items concerned by the change
+	 */
+	public int getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * The items concerned by the change, in list order
+	 */
+	@SuppressWarnings( "unchecked" )
+	public <T> List<T> getItems()
+	{
+		if( items != null )
+			return (List<T>) items;
+
+		return (List<T>) Collections.singletonList( item );
+	}
+
 	public int getIndex()
 	{
 		return index;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * For {@link ChangeType#MOVE} changes, the index the item was removed from.
+	 * For the other changes, the same as {@link #getIndex()}.
+	 */
+	public int getFromIndex()
+	{
+		return fromIndex;
+	}
+}
@@ -3,5 +3,11 @@ package fr.lteconsulting.hexa.databinding.watchablecollection;
 public enum ChangeType
 {
 	ADD,
-	REMOVE;
-}
\ No newline at end of file
+	REMOVE,
+
+	/**
+	 * The item was removed from {@link Change#getFromIndex()} and inserted at
+	 * {@link Change#getIndex()}
+	 */
+	MOVE;
+}
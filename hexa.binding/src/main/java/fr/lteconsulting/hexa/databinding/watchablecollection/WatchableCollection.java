@@ -1,17 +1,32 @@
 package fr.lteconsulting.hexa.databinding.watchablecollection;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Set;
 
 import fr.lteconsulting.hexa.client.tools.Action1;
 
 /**
- * A Watchable List. Notifications are grouped and are deferred through
- * Scheduler.scheduleDeferred() method.
- * 
+ * A Watchable List. The callbacks receive the list of the changes made by each
+ * operation on the list.
+ *
+ * Several operations can be grouped in a batch, with {@link #beginBatch()} and
+ * {@link #endBatch()} or with {@link #mutate(Action1)}. The callbacks are then
+ * called once at the end of the batch, consecutive changes of the same item
+ * being merged together.
+ *
+ * Bulk operations send range changes to the callbacks which accept them, and
+ * one change per item to the others. Outside of a batch, the items of a range
+ * change are a view of the list, so they must not be kept after the callback
+ * returns.
+ *
  * @author Arnaud
  *
  * @param <T> Data type
@@ -22,7 +37,21 @@ public class WatchableCollection<T> implements List<T>
 
 	private List<Change> scheduledChanges = new ArrayList<>();
 
-	private List<Action1<List<Change>>> callbacks = new ArrayList<>();
+	private int batchDepth;
+
+	private List<Registration> callbacks = new ArrayList<>();
+
+	private static class Registration
+	{
+		final Action1<List<Change>> callback;
+		final boolean acceptsRanges;
+
+		Registration( Action1<List<Change>> callback, boolean acceptsRanges )
+		{
+			this.callback = callback;
+			this.acceptsRanges = acceptsRanges;
+		}
+	}
 
 	public WatchableCollection()
 	{
@@ -34,40 +63,243 @@ public class WatchableCollection<T> implements List<T>
 		this.list = list;
 	}
 
+	/**
+	 * Adds a callback receiving one change per item
+	 */
 	public void addCallback( Action1<List<Change>> callback )
 	{
-		callbacks.add( callback );
+		addCallback( callback, false );
 	}
 
+	/**
+	 * Adds a callback
+	 *
+	 * @param acceptsRanges
+	 *            whether the callback receives the range changes of the bulk
+	 *            operations, or one change per item
+	 */
+	public void addCallback( Action1<List<Change>> callback, boolean acceptsRanges )
+	{
+		callbacks.add( new Registration( callback, acceptsRanges ) );
+	}
+
+	/**
+	 * Adds a callback receiving one change per item, and sends it the items
+	 * already in the list
+	 */
 	public void addCallbackAndSendAll( Action1<List<Change>> callback )
 	{
-		callbacks.add( callback );
-		callback.exec( Change.ForItems( ChangeType.ADD, list, 0 ) );
+		addCallbackAndSendAll( callback, false );
+	}
+
+	/**
+	 * Adds a callback, and sends it the items already in the list
+	 *
+	 * @param acceptsRanges
+	 *            whether the callback receives the range changes of the bulk
+	 *            operations, or one change per item
+	 */
+	public void addCallbackAndSendAll( Action1<List<Change>> callback, boolean acceptsRanges )
+	{
+		callbacks.add( new Registration( callback, acceptsRanges ) );
+
+		List<Change> changes;
+		if( list.isEmpty() )
+			changes = Collections.<Change> emptyList();
+		else
+			changes = Collections.singletonList( new Change( ChangeType.ADD, 0, list.size(), Collections.unmodifiableList( list ) ) );
+
+		callback.exec( acceptsRanges ? changes : itemChanges( changes ) );
 	}
 
 	public void removeCallback( Action1<List<Change>> callback )
 	{
-		callbacks.remove( callback );
+		for( int i = 0; i < callbacks.size(); i++ )
+		{
+			if( callbacks.get( i ).callback.equals( callback ) )
+			{
+				callbacks.remove( i );
+				return;
+			}
+		}
 	}
 
-	private void scheduleChange( Change change )
+	/**
+	 * Starts a batch. The changes are sent to the callbacks when the outermost
+	 * batch ends.
+	 */
+	public void beginBatch()
+	{
+		batchDepth++;
+	}
+
+	/**
+	 * Ends a batch, and sends the changes made during the batch if it was the
+	 * outermost one
+	 */
+	public void endBatch()
 	{
-		scheduledChanges.add( change );
+		if( batchDepth == 0 )
+			throw new IllegalStateException( "endBatch() called without beginBatch()" );
 
-		for( Action1<List<Change>> callback : callbacks )
-			callback.exec( scheduledChanges );
+		batchDepth--;
+		if( batchDepth == 0 )
+			sendChanges();
+	}
 
-		scheduledChanges.clear();
+	/**
+	 * Executes the mutation in a batch
+	 *
+	 * @param mutation
+	 *            receives this list to modify it
+	 */
+	public void mutate( Action1<List<T>> mutation )
+	{
+		beginBatch();
+		try
+		{
+			mutation.exec( this );
+		}
+		finally
+		{
+			endBatch();
+		}
 	}
 
-	private void scheduleChanges( Collection<Change> changes )
+	private void scheduleChange( Change change )
 	{
-		scheduledChanges.addAll( changes );
+		mergeChange( change );
 
-		for( Action1<List<Change>> callback : callbacks )
-			callback.exec( scheduledChanges );
+		if( batchDepth == 0 )
+			sendChanges();
+	}
 
-		scheduledChanges.clear();
+	private void scheduleChanges( Collection<Change> changes )
+	{
+		for( Change change : changes )
+			mergeChange( change );
+
+		if( batchDepth == 0 )
+			sendChanges();
+	}
+
+	private void sendChanges()
+	{
+		if( scheduledChanges.isEmpty() )
+			return;
+
+		List<Change> changes = Collections.unmodifiableList( scheduledChanges );
+		scheduledChanges = new ArrayList<>();
+
+		List<Change> itemChanges = null;
+		for( Registration registration : callbacks )
+		{
+			if( registration.acceptsRanges )
+			{
+				registration.callback.exec( changes );
+			}
+			else
+			{
+				if( itemChanges == null )
+					itemChanges = itemChanges( changes );
+				registration.callback.exec( itemChanges );
+			}
+		}
+	}
+
+	/**
+	 * Replaces the range changes by one change per item. The items of a
+	 * removed range are removed one after the other, all at the index of the
+	 * range.
+	 */
+	private static List<Change> itemChanges( List<Change> changes )
+	{
+		boolean hasRange = false;
+		for( Change change : changes )
+			hasRange |= change.isRange();
+		if( !hasRange )
+			return changes;
+
+		List<Change> res = new ArrayList<>();
+		for( Change change : changes )
+		{
+			if( !change.isRange() )
+			{
+				res.add( change );
+				continue;
+			}
+
+			int index = change.index;
+			for( Object item : change.items )
+			{
+				res.add( new Change( change.type, item, index ) );
+				if( change.type == ChangeType.ADD )
+					index++;
+			}
+		}
+
+		return Collections.unmodifiableList( res );
+	}
+
+	/**
+	 * Adds the change to the scheduled ones, merging it with the previous
+	 * change if both concern the same item
+	 */
+	private void mergeChange( Change change )
+	{
+		int last = scheduledChanges.size() - 1;
+		Change previous = last >= 0 ? scheduledChanges.get( last ) : null;
+		if( previous == null || previous.isRange() || change.isRange() || previous.item != change.item )
+		{
+			scheduledChanges.add( change );
+			return;
+		}
+
+		Change merged = null;
+		boolean cancelled = false;
+		switch( previous.type )
+		{
+			case ADD:
+				// added then removed
+				if( change.type == ChangeType.REMOVE && change.index == previous.index )
+					cancelled = true;
+				// added then moved
+				else if( change.type == ChangeType.MOVE && change.fromIndex == previous.index )
+					merged = new Change( ChangeType.ADD, change.item, change.index );
+				break;
+
+			case REMOVE:
+				// removed then added back
+				if( change.type == ChangeType.ADD )
+				{
+					if( change.index == previous.index )
+						cancelled = true;
+					else
+						merged = Change.Move( change.item, previous.index, change.index );
+				}
+				break;
+
+			case MOVE:
+				if( change.type == ChangeType.MOVE && change.fromIndex == previous.index )
+				{
+					if( change.index == previous.fromIndex )
+						cancelled = true;
+					else
+						merged = Change.Move( change.item, previous.fromIndex, change.index );
+				}
+				else if( change.type == ChangeType.REMOVE && change.index == previous.index )
+				{
+					merged = new Change( ChangeType.REMOVE, change.item, previous.fromIndex );
+				}
+				break;
+		}
+
+		if( cancelled )
+			scheduledChanges.remove( last );
+		else if( merged != null )
+			scheduledChanges.set( last, merged );
+		else
+			scheduledChanges.add( change );
 	}
 
 	public void add( int arg0, T arg1 )
@@ -88,24 +320,52 @@ public class WatchableCollection<T> implements List<T>
 
 	public boolean addAll( Collection<? extends T> arg0 )
 	{
-		int startIndex = list.size();
-		boolean res = list.addAll( arg0 );
-		scheduleChanges( Change.ForItems( ChangeType.ADD, arg0, startIndex ) );
-		return res;
+		return addAll( list.size(), arg0 );
 	}
 
 	public boolean addAll( int arg0, Collection<? extends T> arg1 )
 	{
-		boolean res = list.addAll( arg0, arg1 );
-		scheduleChanges( Change.ForItems( ChangeType.ADD, arg1, arg0 ) );
-		return res;
+		int count = arg1.size();
+		if( !list.addAll( arg0, arg1 ) )
+			return false;
+
+		scheduleChange( new Change( ChangeType.ADD, arg0, count, rangeItems( arg0, arg0 + count ) ) );
+		return true;
 	}
 
 	public void clear()
 	{
-		Collection<Change> changes = Change.ForItems( ChangeType.REMOVE, list, 0 );
-		list.clear();
-		scheduleChanges( changes );
+		removeRange( 0, list.size() );
+	}
+
+	/**
+	 * Removes the items from fromIndex, inclusive, to toIndex, exclusive
+	 */
+	public void removeRange( int fromIndex, int toIndex )
+	{
+		if( fromIndex == toIndex )
+			return;
+
+		List<T> range = list.subList( fromIndex, toIndex );
+		List<Object> items = Arrays.asList( range.toArray() );
+		range.clear();
+
+		scheduleChange( new Change( ChangeType.REMOVE, fromIndex, items.size(), items ) );
+	}
+
+	/**
+	 * The items of a range change. When the changes are sent immediately to a
+	 * single callback, this is a view of the list. Otherwise it is a copy,
+	 * because the list can change before the end of the batch, or be changed
+	 * by a callback before the next ones are called.
+	 */
+	private List<?> rangeItems( int fromIndex, int toIndex )
+	{
+		List<T> range = list.subList( fromIndex, toIndex );
+		if( batchDepth == 0 && callbacks.size() <= 1 )
+			return Collections.unmodifiableList( range );
+
+		return Arrays.asList( range.toArray() );
 	}
 
 	public boolean contains( Object arg0 )
@@ -145,7 +405,7 @@ public class WatchableCollection<T> implements List<T>
 
 	public Iterator<T> iterator()
 	{
-		return list.iterator();
+		return listIterator();
 	}
 
 	public int lastIndexOf( Object arg0 )
@@ -155,12 +415,33 @@ public class WatchableCollection<T> implements List<T>
 
 	public ListIterator<T> listIterator()
 	{
-		return list.listIterator();
+		return listIterator( 0 );
 	}
 
+	/**
+	 * The modifications made through the returned iterator are notified
+	 */
 	public ListIterator<T> listIterator( int arg0 )
 	{
-		return list.listIterator( arg0 );
+		return new WatchingListIterator( list.listIterator( arg0 ) );
+	}
+
+	/**
+	 * Moves an item in the list
+	 *
+	 * @param fromIndex
+	 *            the index of the item to move
+	 * @param toIndex
+	 *            the index at which the item is inserted, once removed from
+	 *            the list
+	 */
+	public void move( int fromIndex, int toIndex )
+	{
+		T item = list.remove( fromIndex );
+		list.add( toIndex, item );
+
+		if( fromIndex != toIndex )
+			scheduleChange( Change.Move( item, fromIndex, toIndex ) );
 	}
 
 	public T remove( int arg0 )
@@ -173,31 +454,230 @@ public class WatchableCollection<T> implements List<T>
 	public boolean remove( Object arg0 )
 	{
 		int index = list.indexOf( arg0 );
-		boolean res = list.remove( arg0 );
-		scheduleChange( new Change( ChangeType.REMOVE, arg0, index ) );
-		return res;
+		if( index < 0 )
+			return false;
+
+		T res = list.remove( index );
+		scheduleChange( new Change( ChangeType.REMOVE, res, index ) );
+		return true;
 	}
 
 	public boolean removeAll( Collection<?> arg0 )
 	{
-		assert false : "This implementation is bugged !";
-		boolean res = list.removeAll( arg0 );
-		scheduleChanges( Change.ForItems( ChangeType.REMOVE, arg0, 0 ) );
-		return res;
+		return removeMatching( toSet( arg0 ), true );
 	}
 
 	public boolean retainAll( Collection<?> c )
 	{
-		throw new RuntimeException();
+		return removeMatching( toSet( c ), false );
+	}
+
+	/**
+	 * Removes in one pass the items which are (or are not) in the collection.
+	 * Each run of consecutive removed items is sent as one REMOVE change. The
+	 * changes are in list order, each index taking the previous removals into
+	 * account.
+	 */
+	private boolean removeMatching( Collection<?> items, boolean removeContained )
+	{
+		int size = list.size();
+		List<Change> changes = new ArrayList<>();
+		List<Object> removed = null;
+
+		int write = 0;
+		for( int read = 0; read < size; read++ )
+		{
+			T item = list.get( read );
+			if( items.contains( item ) == removeContained )
+			{
+				if( removed == null )
+					removed = new ArrayList<>();
+				removed.add( item );
+				continue;
+			}
+
+			if( removed != null )
+			{
+				changes.add( removedRun( write, removed ) );
+				removed = null;
+			}
+
+			if( write != read )
+				list.set( write, item );
+			write++;
+		}
+
+		if( removed != null )
+			changes.add( removedRun( write, removed ) );
+
+		if( write == size )
+			return false;
+
+		list.subList( write, size ).clear();
+		scheduleChanges( changes );
+
+		return true;
+	}
+
+	private static Change removedRun( int index, List<Object> removed )
+	{
+		if( removed.size() == 1 )
+			return new Change( ChangeType.REMOVE, removed.get( 0 ), index );
+
+		return new Change( ChangeType.REMOVE, index, removed.size(), removed );
+	}
+
+	private static Collection<?> toSet( Collection<?> items )
+	{
+		if( items instanceof Set )
+			return items;
+
+		return new HashSet<Object>( items );
 	}
 
 	public T set( int index, T element )
 	{
-		if( list.size() > index )
-			scheduleChange( new Change( ChangeType.REMOVE, list.get( index ), index ) );
-		scheduleChange( new Change( ChangeType.ADD, element, index ) );
+		T res = list.set( index, element );
 
-		return list.set( index, element );
+		scheduleChanges( Arrays.asList( new Change( ChangeType.REMOVE, res, index ), new Change( ChangeType.ADD, element, index ) ) );
+
+		return res;
+	}
+
+	/**
+	 * Sorts the list. The items are moved with the minimum number of
+	 * {@link ChangeType#MOVE} changes : the items forming the longest already
+	 * sorted sequence stay in place.
+	 */
+	public void sort( final Comparator<? super T> comparator )
+	{
+		int size = list.size();
+		if( size < 2 )
+			return;
+
+		final List<T> items = new ArrayList<>( list );
+
+		// original indexes, in sorted order
+		Integer[] order = new Integer[size];
+		for( int i = 0; i < size; i++ )
+			order[i] = i;
+		Arrays.sort( order, new Comparator<Integer>()
+		{
+			@Override
+			public int compare( Integer a, Integer b )
+			{
+				return comparator.compare( items.get( a ), items.get( b ) );
+			}
+		} );
+
+		boolean[] staying = longestIncreasingSequence( order );
+
+		// Each item is attached to a slot : slot i + 1 is the original
+		// position of the item i, slot 0 is the head of the list. Moved items
+		// are attached after their predecessor in the sorted order, so the
+		// current index of an item is the count of items attached to the
+		// previous slots.
+		SlotCounts slots = new SlotCounts( size + 1 );
+		int[] slotOf = new int[size];
+		for( int i = 0; i < size; i++ )
+		{
+			slots.add( i + 1, 1 );
+			slotOf[i] = i + 1;
+		}
+
+		List<Change> changes = new ArrayList<>();
+		for( int j = 0; j < size; j++ )
+		{
+			if( staying[j] )
+				continue;
+
+			int original = order[j];
+
+			int fromIndex = slots.countBefore( slotOf[original] );
+			slots.add( slotOf[original], -1 );
+
+			int slot = j == 0 ? 0 : slotOf[order[j - 1]];
+			int toIndex = slots.countBefore( slot + 1 );
+			slots.add( slot, 1 );
+			slotOf[original] = slot;
+
+			if( fromIndex != toIndex )
+				changes.add( Change.Move( items.get( original ), fromIndex, toIndex ) );
+		}
+
+		for( int i = 0; i < size; i++ )
+			list.set( i, items.get( order[i] ) );
+
+		scheduleChanges( changes );
+	}
+
+	/**
+	 * Marks the positions of one of the longest increasing sequences of values
+	 */
+	private static boolean[] longestIncreasingSequence( Integer[] values )
+	{
+		int size = values.length;
+
+		// tails[k] is the position of the smallest tail of an increasing
+		// sequence of length k + 1
+		int[] tails = new int[size];
+		int[] previous = new int[size];
+		int length = 0;
+
+		for( int i = 0; i < size; i++ )
+		{
+			int low = 0;
+			int high = length;
+			while( low < high )
+			{
+				int middle = (low + high) >>> 1;
+				if( values[tails[middle]] < values[i] )
+					low = middle + 1;
+				else
+					high = middle;
+			}
+
+			previous[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if( low == length )
+				length++;
+		}
+
+		boolean[] res = new boolean[size];
+		for( int i = tails[length - 1]; i >= 0; i = previous[i] )
+			res[i] = true;
+
+		return res;
+	}
+
+	/**
+	 * Counts of items per slot, with prefix sums in logarithmic time
+	 */
+	private static final class SlotCounts
+	{
+		private final int[] tree;
+
+		SlotCounts( int size )
+		{
+			tree = new int[size + 1];
+		}
+
+		void add( int slot, int delta )
+		{
+			for( int i = slot + 1; i < tree.length; i += i & -i )
+				tree[i] += delta;
+		}
+
+		/**
+		 * Number of items in the slots before this one
+		 */
+		int countBefore( int slot )
+		{
+			int res = 0;
+			for( int i = slot; i > 0; i -= i & -i )
+				res += tree[i];
+			return res;
+		}
 	}
 
 	public int size()
@@ -220,4 +700,84 @@ public class WatchableCollection<T> implements List<T>
 	{
 		return list.toArray( a );
 	}
+
+	/**
+	 * Notifies the modifications made through a list iterator
+	 */
+	private class WatchingListIterator implements ListIterator<T>
+	{
+		private final ListIterator<T> iterator;
+		private int lastIndex = -1;
+		private T lastItem;
+
+		WatchingListIterator( ListIterator<T> iterator )
+		{
+			this.iterator = iterator;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return iterator.hasNext();
+		}
+
+		@Override
+		public T next()
+		{
+			lastIndex = iterator.nextIndex();
+			lastItem = iterator.next();
+			return lastItem;
+		}
+
+		@Override
+		public boolean hasPrevious()
+		{
+			return iterator.hasPrevious();
+		}
+
+		@Override
+		public T previous()
+		{
+			lastIndex = iterator.previousIndex();
+			lastItem = iterator.previous();
+			return lastItem;
+		}
+
+		@Override
+		public int nextIndex()
+		{
+			return iterator.nextIndex();
+		}
+
+		@Override
+		public int previousIndex()
+		{
+			return iterator.previousIndex();
+		}
+
+		@Override
+		public void remove()
+		{
+			iterator.remove();
+			scheduleChange( new Change( ChangeType.REMOVE, lastItem, lastIndex ) );
+			lastIndex = -1;
+		}
+
+		@Override
+		public void set( T e )
+		{
+			iterator.set( e );
+			scheduleChanges( Arrays.asList( new Change( ChangeType.REMOVE, lastItem, lastIndex ), new Change( ChangeType.ADD, e, lastIndex ) ) );
+			lastItem = e;
+		}
+
+		@Override
+		public void add( T e )
+		{
+			int index = iterator.nextIndex();
+			iterator.add( e );
+			scheduleChange( new Change( ChangeType.ADD, e, index ) );
+			lastIndex = -1;
+		}
+	}
 }
@@ -0,0 +1,93 @@
+package fr.lteconsulting.hexa.classinfo.test;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.classinfo.ClassInfoJre;
+import fr.lteconsulting.hexa.classinfo.ClassInfoJre.AccessorStrategy;
+import fr.lteconsulting.hexa.classinfo.Clazz;
+
+/**
+ * Fields and methods behave the same whatever the accessor strategy
+ */
+public class AccessorStrategyTest extends TestCase
+{
+	static class Bean
+	{
+		private int count;
+		private String name;
+
+		public int getCount()
+		{
+			return count;
+		}
+
+		public void rename( String prefix, int suffix )
+		{
+			name = prefix + suffix;
+		}
+
+		public static String describe( String value )
+		{
+			return "[" + value + "]";
+		}
+
+		public void fail()
+		{
+			throw new IllegalStateException( "failed" );
+		}
+	}
+
+	private AccessorStrategy initialStrategy;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		initialStrategy = ClassInfoJre.get().getAccessorStrategy();
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		ClassInfoJre.get().setAccessorStrategy( initialStrategy );
+	}
+
+	public void testReflection()
+	{
+		checkStrategy( AccessorStrategy.REFLECTION );
+	}
+
+	public void testMethodHandles()
+	{
+		checkStrategy( AccessorStrategy.METHOD_HANDLES );
+	}
+
+	private void checkStrategy( AccessorStrategy strategy )
+	{
+		ClassInfoJre.get().setAccessorStrategy( strategy );
+		Clazz<Bean> clazz = ClassInfoJre.get().Clazz( Bean.class );
+
+		Bean bean = new Bean();
+		clazz.getAllField( "count" ).setValue( bean, 42 );
+		assertEquals( 42, bean.count );
+		assertEquals( Integer.valueOf( 42 ), clazz.getAllField( "count" ).<Integer> getValue( bean ) );
+		assertEquals( 42, clazz.getMethod( "getCount" ).invoke( bean ) );
+
+		clazz.getMethod( "rename" ).invoke( bean, "x", 3 );
+		assertEquals( "x3", clazz.getAllField( "name" ).getValue( bean ) );
+
+		Bean copy = new Bean();
+		clazz.getAllField( "name" ).copyValueTo( bean, copy );
+		assertEquals( "x3", copy.name );
+
+		assertEquals( "[v]", clazz.getMethod( "describe" ).invoke( null, "v" ) );
+
+		try
+		{
+			clazz.getMethod( "fail" ).invoke( bean );
+			fail( "Exception expected" );
+		}
+		catch( RuntimeException e )
+		{
+			// expected
+		}
+	}
+}
@@ -17,6 +17,30 @@ public class ClassInfoTest extends TestCase
 		Clazz<?> clz = ClassInfo.FindClazz( A.class );
 		assertEquals( clz.getAllFields().size(), 2 );
 	}
+
+	public void testInheritedFields()
+	{
+		Clazz<?> clz = ClassInfo.FindClazz( C.class );
+
+		assertEquals( 4, clz.getAllFields().size() );
+		assertEquals( 2, clz.getDeclaredFields().size() );
+		assertEquals( 2, clz.getFields().size() );
+
+		assertEquals( int.class, clz.getAllField( "a" ).getType() );
+		assertEquals( String.class, clz.getAllField( "b" ).getType() );
+		assertNull( clz.getDeclaredField( "a" ) );
+		assertNotNull( clz.getDeclaredField( "b" ) );
+		assertEquals( String.class, clz.getField( "b" ).getType() );
+		assertNull( clz.getField( "a" ) );
+		assertNotNull( clz.getField( "c" ) );
+
+		C c = new C();
+		clz.getAllField( "a" ).setValue( c, 5 );
+		clz.getAllField( "b" ).setValue( c, "x" );
+		assertEquals( Integer.valueOf( 5 ), clz.getAllField( "a" ).<Integer> getValue( c ) );
+		assertEquals( "x", c.b );
+		assertEquals( 0, ((A) c).b );
+	}
 }
 
 class A
@@ -25,4 +49,10 @@ class A
 	private int a;
 	
 	int b;
-}
\ No newline at end of file
+}
+class C extends A
+{
+	public String b;
+
+	public double c;
+}
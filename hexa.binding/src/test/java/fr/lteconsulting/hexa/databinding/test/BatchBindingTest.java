@@ -0,0 +1,195 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.client.tools.Action;
+import fr.lteconsulting.hexa.databinding.Binder;
+import fr.lteconsulting.hexa.databinding.Mode;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+
+/**
+ * Inside a batch, the data bindings are propagated once, with their last
+ * value, after the bindings which triggered them.
+ */
+public class BatchBindingTest extends TestCase
+{
+	public static class Counted
+	{
+		private String value;
+		int sets;
+
+		public String getValue()
+		{
+			return value;
+		}
+
+		public void setValue( String value )
+		{
+			this.value = value;
+			sets++;
+			Properties.notify( this, "value" );
+		}
+	}
+
+	public void testLastValueWins()
+	{
+		final Counted a = new Counted();
+		Counted b = new Counted();
+		Binder.bind( a, "value" ).mode( Mode.OneWay ).to( b, "value" );
+		b.sets = 0;
+
+		Binder.batch( new Action()
+		{
+			@Override
+			public void exec()
+			{
+				a.setValue( "1" );
+				a.setValue( "2" );
+				a.setValue( "3" );
+			}
+		} );
+
+		assertEquals( "3", b.getValue() );
+		assertEquals( 1, b.sets );
+
+		// outside of a batch, every change is propagated
+		a.setValue( "4" );
+		a.setValue( "5" );
+		assertEquals( "5", b.getValue() );
+		assertEquals( 3, b.sets );
+	}
+
+	public void testChainIsPropagatedInOrder()
+	{
+		final Counted a = new Counted();
+		final Counted b = new Counted();
+		Counted c = new Counted();
+
+		// the downstream binding is created first so that it is queued before
+		// its source
+		Binder.bind( b, "value" ).mode( Mode.OneWay ).to( c, "value" );
+		Binder.bind( a, "value" ).mode( Mode.OneWay ).to( b, "value" );
+
+		Action changes = new Action()
+		{
+			@Override
+			public void exec()
+			{
+				b.setValue( "direct" );
+				a.setValue( "from a" );
+			}
+		};
+
+		// the first batch learns that b -> c depends on a -> b
+		Binder.batch( changes );
+		assertEquals( "from a", c.getValue() );
+
+		c.sets = 0;
+		Binder.batch( changes );
+
+		assertEquals( "from a", b.getValue() );
+		assertEquals( "from a", c.getValue() );
+		assertEquals( 1, c.sets );
+	}
+
+	public void testLastValueWinsPerDestination()
+	{
+		final Counted first = new Counted();
+		final Counted second = new Counted();
+		Counted destination = new Counted();
+		Binder.bind( first, "value" ).mode( Mode.OneWay ).to( destination, "value" );
+		Binder.bind( second, "value" ).mode( Mode.OneWay ).to( destination, "value" );
+		destination.sets = 0;
+
+		Binder.batch( new Action()
+		{
+			@Override
+			public void exec()
+			{
+				second.setValue( "second" );
+				first.setValue( "first" );
+			}
+		} );
+
+		assertEquals( "first", destination.getValue() );
+		assertEquals( 1, destination.sets );
+
+		Binder.batch( new Action()
+		{
+			@Override
+			public void exec()
+			{
+				first.setValue( "first again" );
+				second.setValue( "second again" );
+			}
+		} );
+
+		assertEquals( "second again", destination.getValue() );
+		assertEquals( 2, destination.sets );
+	}
+
+	public void testTwoWayLastDirectionWins()
+	{
+		final Counted a = new Counted();
+		final Counted b = new Counted();
+		Binder.bind( a, "value" ).to( b, "value" );
+
+		Binder.batch( new Action()
+		{
+			@Override
+			public void exec()
+			{
+				a.setValue( "source" );
+				b.setValue( "destination" );
+			}
+		} );
+
+		assertEquals( "destination", a.getValue() );
+		assertEquals( "destination", b.getValue() );
+	}
+
+	public void testNestedBatches()
+	{
+		final Counted a = new Counted();
+		final Counted b = new Counted();
+		Binder.bind( a, "value" ).mode( Mode.OneWay ).to( b, "value" );
+		b.sets = 0;
+
+		Binder.batch( new Action()
+		{
+			@Override
+			public void exec()
+			{
+				Binder.batch( new Action()
+				{
+					@Override
+					public void exec()
+					{
+						a.setValue( "inner" );
+					}
+				} );
+
+				assertEquals( 0, b.sets );
+				a.setValue( "outer" );
+			}
+		} );
+
+		assertEquals( "outer", b.getValue() );
+		assertEquals( 1, b.sets );
+	}
+
+	public void testCoalescedBinding()
+	{
+		Counted a = new Counted();
+		Counted b = new Counted();
+		Counted c = new Counted();
+
+		Binder.bind( b, "value" ).mode( Mode.OneWay ).to( c, "value" );
+		Binder.bind( a, "value" ).mode( Mode.OneWay ).coalesced().to( b, "value" );
+		c.sets = 0;
+
+		a.setValue( "x" );
+		assertEquals( "x", b.getValue() );
+		assertEquals( "x", c.getValue() );
+		assertEquals( 1, c.sets );
+	}
+}
@@ -0,0 +1,159 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.databinding.Binder;
+import fr.lteconsulting.hexa.databinding.BindingStatistics;
+import fr.lteconsulting.hexa.databinding.DataBinding;
+import fr.lteconsulting.hexa.databinding.Mode;
+import fr.lteconsulting.hexa.databinding.properties.Histogram;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.properties.PropertyChangesSnapshot;
+import fr.lteconsulting.hexa.databinding.propertyadapters.ObjectPropertyAdapter;
+
+/**
+ * The statistics count the registrations and dispatches of each property, and
+ * track the bindings which are not terminated
+ */
+public class BindingStatisticsTest extends TestCase
+{
+	public static class Measured
+	{
+		private String value;
+
+		public String getValue()
+		{
+			return value;
+		}
+
+		public void setValue( String value )
+		{
+			this.value = value;
+			Properties.notify( this, "value" );
+		}
+	}
+
+	@Override
+	protected void setUp()
+	{
+		BindingStatistics.setEnabled( true );
+	}
+
+	@Override
+	protected void tearDown()
+	{
+		BindingStatistics.setEnabled( false );
+		BindingStatistics.setStackSamplingInterval( 64 );
+	}
+
+	public void testPropertyStatistics()
+	{
+		PropertyChangesSnapshot before = Properties.getStatisticsSnapshot();
+
+		Measured source = new Measured();
+		DataBinding first = Binder.bind( source, "value" ).mode( Mode.OneWay ).to( new ObjectPropertyAdapter( new Measured(), "value" ) );
+		DataBinding second = Binder.bind( source, "value" ).mode( Mode.OneWay ).to( new ObjectPropertyAdapter( new Measured(), "value" ) );
+
+		source.setValue( "a" );
+		source.setValue( "b" );
+
+		PropertyChangesSnapshot after = Properties.getStatisticsSnapshot();
+		PropertyChangesSnapshot.Entry entry = after.getEntry( Measured.class, "value" );
+		assertNotNull( entry );
+		assertEquals( 2, entry.getRegisteredHandlers() - registeredHandlers( before ) );
+		assertTrue( entry.getDispatches() >= 4 );
+		assertTrue( after.getFanOutCounts()[Histogram.bucketOf( 2 )] >= 2 );
+
+		first.terminate();
+		second.terminate();
+
+		assertEquals( registeredHandlers( before ), Properties.getStatisticsSnapshot().getEntry( Measured.class, "value" ).getRegisteredHandlers() );
+	}
+
+	public void testCountersWhenDisabled()
+	{
+		BindingStatistics.setEnabled( false );
+		PropertyChangesSnapshot before = Properties.getStatisticsSnapshot();
+		long live = BindingStatistics.getLiveBindings();
+
+		Measured source = new Measured();
+		DataBinding binding = Binder.bind( source, "value" ).mode( Mode.OneWay ).to( new ObjectPropertyAdapter( new Measured(), "value" ) );
+		source.setValue( "a" );
+
+		assertEquals( live + 1, BindingStatistics.getLiveBindings() );
+		assertEquals( registeredHandlers( before ) + 1, registeredHandlers( Properties.getStatisticsSnapshot() ) );
+		assertTrue( Properties.getStatisticsSnapshot().getNotifications() > before.getNotifications() );
+
+		binding.terminate();
+		assertEquals( live, BindingStatistics.getLiveBindings() );
+		assertEquals( registeredHandlers( before ), registeredHandlers( Properties.getStatisticsSnapshot() ) );
+	}
+
+	public void testUnterminatedBindings()
+	{
+		BindingStatistics.setStackSamplingInterval( 1 );
+		long live = BindingStatistics.getLiveBindings();
+
+		Measured source = new Measured();
+		DataBinding binding = Binder.bind( source, "value" ).mode( Mode.OneWay ).to( new ObjectPropertyAdapter( new Measured(), "value" ) );
+		assertEquals( live + 1, BindingStatistics.getLiveBindings() );
+
+		List<BindingStatistics.TrackedBinding> tracked = BindingStatistics.getUnterminatedBindings( 0 );
+		BindingStatistics.TrackedBinding found = null;
+		for( BindingStatistics.TrackedBinding t : tracked )
+		{
+			if( t.getDescription().startsWith( Measured.class.getName() ) )
+				found = t;
+		}
+		assertNotNull( found );
+		assertTrue( found.toString().contains( "testUnterminatedBindings" ) );
+
+		binding.terminate();
+		binding.terminate();
+		assertEquals( live, BindingStatistics.getLiveBindings() );
+		assertFalse( BindingStatistics.getUnterminatedBindings( 0 ).contains( found ) );
+	}
+
+	public void testOldestTrackedBindingIsForgotten()
+	{
+		BindingStatistics.setStackSamplingInterval( 1 );
+
+		List<DataBinding> bindings = new ArrayList<>();
+		for( int i = 0; i < 1100; i++ )
+			bindings.add( Binder.bind( new Measured(), "value" ).mode( Mode.OneWay ).to( new ObjectPropertyAdapter( new Measured(), "value" ) ) );
+
+		List<BindingStatistics.TrackedBinding> tracked = BindingStatistics.getUnterminatedBindings( 0 );
+		assertTrue( tracked.size() <= 1024 );
+		assertTrue( tracked.get( tracked.size() - 1 ).toString().contains( "testOldestTrackedBindingIsForgotten" ) );
+
+		for( DataBinding binding : bindings )
+			binding.terminate();
+		for( BindingStatistics.TrackedBinding t : BindingStatistics.getUnterminatedBindings( 0 ) )
+			assertFalse( t.toString().contains( "testOldestTrackedBindingIsForgotten" ) );
+	}
+
+	public void testStackSampling()
+	{
+		BindingStatistics.setStackSamplingInterval( 3 );
+		int before = BindingStatistics.getUnterminatedBindings( 0 ).size();
+
+		List<DataBinding> bindings = new ArrayList<>();
+		for( int i = 0; i < 7; i++ )
+			bindings.add( Binder.bind( new Measured(), "value" ).mode( Mode.OneWay ).to( new ObjectPropertyAdapter( new Measured(), "value" ) ) );
+
+		// the 1st, 4th and 7th creations
+		assertEquals( before + 3, BindingStatistics.getUnterminatedBindings( 0 ).size() );
+
+		for( DataBinding binding : bindings )
+			binding.terminate();
+		assertEquals( before, BindingStatistics.getUnterminatedBindings( 0 ).size() );
+	}
+
+	private static long registeredHandlers( PropertyChangesSnapshot snapshot )
+	{
+		PropertyChangesSnapshot.Entry entry = snapshot.getEntry( Measured.class, "value" );
+		return entry == null ? 0 : entry.getRegisteredHandlers();
+	}
+}
@@ -0,0 +1,100 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.databinding.Binder;
+import fr.lteconsulting.hexa.databinding.Mode;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.propertyadapters.CompositePropertyAdapter;
+
+/**
+ * The intermediate values of a property path are read again only when they
+ * change
+ */
+public class CompositePathTest extends TestCase
+{
+	public static class Link
+	{
+		private Link next;
+		private String value;
+		int nextReads;
+
+		public Link getNext()
+		{
+			nextReads++;
+			return next;
+		}
+
+		public void setNext( Link next )
+		{
+			this.next = next;
+			Properties.notify( this, "next" );
+		}
+
+		public String getValue()
+		{
+			return value;
+		}
+
+		public void setValue( String value )
+		{
+			this.value = value;
+			Properties.notify( this, "value" );
+		}
+	}
+
+	private static Link link( String value, Link next )
+	{
+		Link link = new Link();
+		link.setValue( value );
+		link.setNext( next );
+		return link;
+	}
+
+	public void testIntermediateValuesAreCached()
+	{
+		Link root = link( "root", link( "middle", link( "leaf", null ) ) );
+		CompositePropertyAdapter adapter = new CompositePropertyAdapter( root, "next.next.value" );
+
+		assertEquals( "leaf", adapter.getValue() );
+		assertEquals( "leaf", adapter.getValue() );
+		assertEquals( 1, root.nextReads );
+
+		adapter.setValue( "changed" );
+		assertEquals( "changed", root.getNext().getNext().getValue() );
+	}
+
+	public void testPathChanges()
+	{
+		Link leaf = link( "leaf", null );
+		Link middle = link( "middle", leaf );
+		Link root = link( "root", middle );
+
+		Link destination = new Link();
+		Binder.bind( root, "next.next.value" ).mode( Mode.OneWay ).to( destination, "value" );
+		assertEquals( "leaf", destination.getValue() );
+
+		leaf.setValue( "leaf 2" );
+		assertEquals( "leaf 2", destination.getValue() );
+
+		// the leaf is replaced
+		Link otherLeaf = link( "other leaf", null );
+		middle.setNext( otherLeaf );
+		assertEquals( "other leaf", destination.getValue() );
+
+		// the old leaf is not watched anymore
+		leaf.setValue( "ignored" );
+		assertEquals( "other leaf", destination.getValue() );
+
+		// the path is broken, then restored
+		root.setNext( null );
+		assertNull( destination.getValue() );
+		root.setNext( link( "new middle", link( "new leaf", null ) ) );
+		assertEquals( "new leaf", destination.getValue() );
+
+		// setting the same object keeps the following segments
+		int reads = root.getNext().nextReads;
+		root.setNext( root.getNext() );
+		assertEquals( "new leaf", destination.getValue() );
+		assertEquals( reads, root.getNext().nextReads );
+	}
+}
@@ -0,0 +1,89 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.databinding.PlatformSpecificProvider;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.properties.PropertyChangedEvent;
+import fr.lteconsulting.hexa.databinding.properties.PropertyChangedHandler;
+
+/**
+ * Several threads registering, notifying and unregistering on the same object
+ * must neither lose nor mix up handlers.
+ */
+public class ConcurrentPropertyChangesTest extends TestCase
+{
+	private static final int NB_THREADS = 8;
+	private static final int NB_HANDLERS = 200;
+
+	public void testConcurrentRegistrations() throws Exception
+	{
+		final Object source = new Object();
+		final CountDownLatch start = new CountDownLatch( 1 );
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		List<Thread> threads = new ArrayList<>();
+		for( int t = 0; t < NB_THREADS; t++ )
+		{
+			final String property = "p" + t;
+			Thread thread = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+
+						final AtomicInteger calls = new AtomicInteger();
+						PropertyChangedHandler handler = new PropertyChangedHandler()
+						{
+							@Override
+							public void onPropertyChanged( PropertyChangedEvent event )
+							{
+								if( !property.equals( event.getPropertyName() ) )
+									throw new IllegalStateException( "Wrong property notified" );
+								calls.incrementAndGet();
+							}
+						};
+
+						List<Object> registrations = new ArrayList<>();
+						for( int i = 0; i < NB_HANDLERS; i++ )
+							registrations.add( Properties.register( source, property, handler ) );
+
+						Properties.notify( source, property );
+						if( calls.get() != NB_HANDLERS )
+							throw new IllegalStateException( "Expected " + NB_HANDLERS + " calls, got " + calls.get() );
+
+						for( Object registration : registrations )
+							Properties.removeHandler( registration );
+
+						Properties.notify( source, property );
+						if( calls.get() != NB_HANDLERS )
+							throw new IllegalStateException( "Handler called after removal" );
+					}
+					catch( Throwable e )
+					{
+						failure.compareAndSet( null, e );
+					}
+				}
+			};
+			thread.start();
+			threads.add( thread );
+		}
+
+		start.countDown();
+		for( Thread thread : threads )
+			thread.join();
+
+		if( failure.get() != null )
+			fail( failure.get().toString() );
+
+		assertNull( PlatformSpecificProvider.get().getObjectMetadata( source ) );
+	}
+}
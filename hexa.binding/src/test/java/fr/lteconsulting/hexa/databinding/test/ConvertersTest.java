@@ -0,0 +1,119 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.databinding.Converter;
+import fr.lteconsulting.hexa.databinding.Converters;
+import fr.lteconsulting.hexa.databinding.converters.ConverterRegistry;
+import fr.lteconsulting.hexa.databinding.converters.ValueParser;
+
+/**
+ * The converter registry finds converters for the standard types, and the
+ * conversions of invalid strings give null
+ */
+public class ConvertersTest extends TestCase
+{
+	enum Color
+	{
+		RED, GREEN, BLUE
+	}
+
+	public void testValueParser()
+	{
+		assertTrue( ValueParser.isInt( "-2147483648" ) );
+		assertFalse( ValueParser.isInt( "2147483648" ) );
+		assertFalse( ValueParser.isInt( "" ) );
+		assertFalse( ValueParser.isInt( "-" ) );
+		assertFalse( ValueParser.isInt( "12a" ) );
+		assertTrue( ValueParser.isLong( "9223372036854775807" ) );
+		assertFalse( ValueParser.isLong( "9223372036854775808" ) );
+
+		assertTrue( ValueParser.isDecimal( "-1.5e3" ) );
+		assertTrue( ValueParser.isDecimal( ".5" ) );
+		assertFalse( ValueParser.isDecimal( "." ) );
+		assertFalse( ValueParser.isDecimal( "1e" ) );
+		assertTrue( ValueParser.isDouble( "NaN" ) );
+
+		assertEquals( 42, ValueParser.parseInt( "42", -1 ) );
+		assertEquals( -1, ValueParser.parseInt( "forty two", -1 ) );
+	}
+
+	public void testStringConversions()
+	{
+		Converter converter = ConverterRegistry.get( String.class, int.class );
+		assertSame( Converters.StringToInteger, converter );
+		assertEquals( 12, converter.convert( "12" ) );
+		assertNull( converter.convert( "twelve" ) );
+		assertEquals( "12", converter.convertBack( 12 ) );
+
+		converter = ConverterRegistry.get( String.class, double.class );
+		assertEquals( 1.5, converter.convert( "1.5" ) );
+		assertNull( converter.convert( "1,5" ) );
+
+		converter = ConverterRegistry.get( BigDecimal.class, String.class );
+		assertEquals( "1000", converter.convert( new BigDecimal( "1E+3" ) ) );
+		assertEquals( new BigDecimal( "0.25" ), converter.convertBack( "0.25" ) );
+
+		converter = ConverterRegistry.get( String.class, Boolean.class );
+		assertEquals( Boolean.TRUE, converter.convert( "true" ) );
+	}
+
+	public void testNumberConversions()
+	{
+		Converter converter = ConverterRegistry.get( Integer.class, Long.class );
+		assertEquals( 3L, converter.convert( 3 ) );
+		assertEquals( 3, converter.convertBack( 3L ) );
+
+		converter = ConverterRegistry.get( BigInteger.class, double.class );
+		assertEquals( 7.0, converter.convert( BigInteger.valueOf( 7 ) ) );
+
+		assertSame( Converters.Identity, ConverterRegistry.get( int.class, Integer.class ) );
+	}
+
+	public void testEnumConversions()
+	{
+		Converter converter = ConverterRegistry.get( String.class, Color.class );
+		assertEquals( Color.GREEN, converter.convert( "GREEN" ) );
+		assertEquals( Color.BLUE, converter.convert( "2" ) );
+		assertEquals( "RED", converter.convertBack( Color.RED ) );
+		assertNull( converter.convertBack( null ) );
+
+		converter = ConverterRegistry.get( Color.class, Integer.class );
+		assertEquals( 1, converter.convert( Color.GREEN ) );
+		assertEquals( Color.BLUE, converter.convertBack( 2 ) );
+	}
+
+	public void testRegisteredConverter()
+	{
+		assertNull( ConverterRegistry.get( String.class, StringBuilder.class ) );
+
+		Converter converter = new Converter()
+		{
+			@Override
+			public Object convert( Object value )
+			{
+				return new StringBuilder( (String) value );
+			}
+
+			@Override
+			public Object convertBack( Object value )
+			{
+				return value.toString();
+			}
+		};
+		ConverterRegistry.register( String.class, StringBuilder.class, converter );
+		try
+		{
+			assertSame( converter, ConverterRegistry.get( String.class, StringBuilder.class ) );
+			assertEquals( "abc", ConverterRegistry.get( StringBuilder.class, String.class ).convert( new StringBuilder( "abc" ) ) );
+		}
+		finally
+		{
+			ConverterRegistry.unregister( String.class, StringBuilder.class );
+		}
+
+		assertNull( ConverterRegistry.get( String.class, StringBuilder.class ) );
+	}
+}
@@ -0,0 +1,79 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.classinfo.ClassInfoJre;
+import fr.lteconsulting.hexa.classinfo.ClassInfoJre.AccessorStrategy;
+import fr.lteconsulting.hexa.databinding.DTOMapper;
+import fr.lteconsulting.hexa.databinding.test.dto.A;
+import fr.lteconsulting.hexa.databinding.test.dto.ANotif;
+import fr.lteconsulting.hexa.databinding.test.dto.BNotif;
+
+public class DTOMapperTest extends TestCase
+{
+	public void testMapIsLive()
+	{
+		for( int i = 0; i < 3; i++ )
+		{
+			ANotif source = new ANotif();
+			BNotif destination = new BNotif();
+			source.setFirstName( "first" + i );
+
+			Object mapping = DTOMapper.Map( source, destination );
+			assertEquals( "first" + i, destination.getFirstName() );
+
+			source.setLastName( "last" + i );
+			assertEquals( "last" + i, destination.getLastName() );
+
+			destination.setFirstName( "back" + i );
+			assertEquals( "back" + i, source.getFirstName() );
+
+			DTOMapper.freeMapping( mapping );
+			source.setFirstName( "free" );
+			assertEquals( "back" + i, destination.getFirstName() );
+		}
+	}
+
+	public void testCopy()
+	{
+		ANotif source = new ANotif();
+		source.setFirstName( "John" );
+		source.setLastName( "Doe" );
+
+		BNotif destination = new BNotif();
+		DTOMapper.copy( source, destination );
+		assertEquals( "John", destination.getFirstName() );
+		assertEquals( "Doe", destination.getLastName() );
+
+		// no binding remains
+		source.setFirstName( "Jane" );
+		assertEquals( "John", destination.getFirstName() );
+
+		// fields and getters are mapped together
+		A a = new A();
+		DTOMapper.copy( source, a );
+		assertEquals( "Jane", a.firstName );
+	}
+
+	public void testAccessorStrategyChange()
+	{
+		ANotif source = new ANotif();
+		source.setFirstName( "John" );
+		DTOMapper.copy( source, new BNotif() );
+
+		ClassInfoJre classInfo = ClassInfoJre.get();
+		AccessorStrategy strategy = classInfo.getAccessorStrategy();
+		try
+		{
+			classInfo.setAccessorStrategy( strategy == AccessorStrategy.REFLECTION ? AccessorStrategy.METHOD_HANDLES : AccessorStrategy.REFLECTION );
+
+			// the plan is built again from the new type information
+			BNotif destination = new BNotif();
+			DTOMapper.copy( source, destination );
+			assertEquals( "John", destination.getFirstName() );
+		}
+		finally
+		{
+			classInfo.setAccessorStrategy( strategy );
+		}
+	}
+}
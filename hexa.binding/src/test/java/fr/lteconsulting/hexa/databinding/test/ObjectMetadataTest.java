@@ -0,0 +1,109 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import java.lang.ref.WeakReference;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.databinding.IObjectMetadataHolder;
+import fr.lteconsulting.hexa.databinding.PlatformSpecificProvider;
+import fr.lteconsulting.hexa.databinding.properties.DynamicPropertyBag;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.properties.PropertyChangedEvent;
+import fr.lteconsulting.hexa.databinding.properties.PropertyChangedHandler;
+
+/**
+ * The binding metadata (handlers, dynamic properties) is attached to objects by
+ * identity and does not prevent them from being garbage collected.
+ */
+public class ObjectMetadataTest extends TestCase
+{
+	static class Counter implements PropertyChangedHandler
+	{
+		int count;
+
+		@Override
+		public void onPropertyChanged( PropertyChangedEvent event )
+		{
+			count++;
+		}
+	}
+
+	static class Holder implements IObjectMetadataHolder
+	{
+		volatile Object metadata;
+		volatile DynamicPropertyBag bag;
+
+		@Override
+		public Object retrieveObjectMetadata()
+		{
+			return metadata;
+		}
+
+		@Override
+		public void storeObjectMetadata( Object metadata )
+		{
+			this.metadata = metadata;
+		}
+
+		@Override
+		public DynamicPropertyBag retrieveObjectDynamicPropertyBag()
+		{
+			return bag;
+		}
+
+		@Override
+		public void storeObjectDynamicPropertyBag( DynamicPropertyBag bag )
+		{
+			this.bag = bag;
+		}
+	}
+
+	public void testHandlersAreAttachedByIdentity()
+	{
+		Object a = new Object();
+		Object b = new Object();
+
+		Counter ca = new Counter();
+		Counter cb = new Counter();
+		Properties.register( a, "x", ca );
+		Properties.register( b, "x", cb );
+
+		Properties.notify( a, "x" );
+		assertEquals( 1, ca.count );
+		assertEquals( 0, cb.count );
+	}
+
+	public void testHolderStoresItsOwnMetadata()
+	{
+		Holder holder = new Holder();
+
+		Counter counter = new Counter();
+		Object registration = Properties.register( holder, "x", counter );
+		assertNotNull( holder.metadata );
+
+		Properties.setObjectDynamicProperty( holder, "x", "value" );
+		assertNotNull( holder.bag );
+		assertEquals( "value", Properties.getObjectDynamicProperty( holder, "x" ) );
+		assertEquals( 1, counter.count );
+
+		Properties.removeHandler( registration );
+		assertNull( holder.metadata );
+	}
+
+	public void testMetadataDoesNotRetainObjects() throws InterruptedException
+	{
+		Object object = new Object();
+		PlatformSpecificProvider.get().setObjectMetadata( object, "metadata" );
+		assertEquals( "metadata", PlatformSpecificProvider.get().getObjectMetadata( object ) );
+
+		WeakReference<Object> ref = new WeakReference<Object>( object );
+		object = null;
+
+		for( int i = 0; i < 50 && ref.get() != null; i++ )
+		{
+			System.gc();
+			Thread.sleep( 10 );
+		}
+
+		assertNull( ref.get() );
+	}
+}
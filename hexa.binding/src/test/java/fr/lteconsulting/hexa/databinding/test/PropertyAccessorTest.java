@@ -0,0 +1,126 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.classinfo.ClassInfo;
+import fr.lteconsulting.hexa.classinfo.ClassInfoJre;
+import fr.lteconsulting.hexa.classinfo.ClassInfoJre.AccessorStrategy;
+import fr.lteconsulting.hexa.classinfo.Clazz;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.tools.Property;
+
+/**
+ * Properties are read and written the same way whether they are backed by
+ * getters and setters, fields, {@link Property} wrappers or dynamic
+ * properties.
+ */
+public class PropertyAccessorTest extends TestCase
+{
+	public static class Bean
+	{
+		private String withAccessors;
+		int withField;
+		final Property<String> wrapped = new Property<String>( this, "wrapped", "initial" );
+
+		public String getWithAccessors()
+		{
+			return withAccessors;
+		}
+
+		public void setWithAccessors( String withAccessors )
+		{
+			this.withAccessors = "set:" + withAccessors;
+		}
+	}
+
+	public void testKinds()
+	{
+		Bean bean = new Bean();
+
+		assertTrue( Properties.setValue( bean, "withAccessors", "a" ) );
+		assertEquals( "set:a", Properties.getValue( bean, "withAccessors" ) );
+
+		assertTrue( Properties.setValue( bean, "withField", 12 ) );
+		assertEquals( Integer.valueOf( 12 ), Properties.getValue( bean, "withField" ) );
+
+		assertEquals( "initial", Properties.getValue( bean, "wrapped" ) );
+		assertTrue( Properties.setValue( bean, "wrapped", "changed" ) );
+		assertEquals( "changed", bean.wrapped.getValue() );
+
+		assertFalse( Properties.setValue( bean, "dynamic", "d" ) );
+		assertEquals( "d", Properties.getValue( bean, "dynamic" ) );
+		assertNull( Properties.getValue( new Bean(), "dynamic" ) );
+	}
+
+	public void testTypes()
+	{
+		Clazz<Bean> clazz = ClassInfo.Clazz( Bean.class );
+
+		assertEquals( String.class, Properties.getPropertyType( clazz, "withAccessors" ) );
+		assertEquals( int.class, Properties.getPropertyType( clazz, "withField" ) );
+		assertEquals( Property.class, Properties.getPropertyType( clazz, "wrapped" ) );
+		assertNull( Properties.getPropertyType( clazz, "dynamic" ) );
+
+		assertTrue( Properties.hasSomethingToGetField( clazz, "withField" ) );
+		assertFalse( Properties.hasSomethingToSetField( clazz, "dynamic" ) );
+	}
+
+	public void testAccessorStrategyChange()
+	{
+		Bean bean = new Bean();
+		assertTrue( Properties.setValue( bean, "withAccessors", "a" ) );
+
+		ClassInfoJre classInfo = ClassInfoJre.get();
+		AccessorStrategy strategy = classInfo.getAccessorStrategy();
+		int version = ClassInfo.getVersion();
+		try
+		{
+			classInfo.setAccessorStrategy( strategy == AccessorStrategy.REFLECTION ? AccessorStrategy.METHOD_HANDLES : AccessorStrategy.REFLECTION );
+			assertTrue( version != ClassInfo.getVersion() );
+
+			// the accessors are built again with the new strategy
+			assertTrue( Properties.setValue( bean, "withAccessors", "b" ) );
+			assertEquals( "set:b", Properties.getValue( bean, "withAccessors" ) );
+			assertTrue( Properties.setValue( bean, "withField", 3 ) );
+			assertEquals( Integer.valueOf( 3 ), Properties.getValue( bean, "withField" ) );
+		}
+		finally
+		{
+			classInfo.setAccessorStrategy( strategy );
+		}
+	}
+
+	public void testRegistrationOnlyChangesItsClass()
+	{
+		final List<Class<?>> changed = new ArrayList<>();
+		ClassInfo.ClazzChangeHandler handler = new ClassInfo.ClazzChangeHandler()
+		{
+			@Override
+			public void onClazzChanged( Class<?> clazz )
+			{
+				changed.add( clazz );
+			}
+		};
+
+		int version = ClassInfo.getVersion();
+		ClassInfo.addClazzChangeHandler( handler );
+		try
+		{
+			ClassInfo.RegisterClazz( ClassInfo.Clazz( Bean.class ) );
+
+			assertEquals( version, ClassInfo.getVersion() );
+			assertEquals( 1, changed.size() );
+			assertEquals( Bean.class, changed.get( 0 ) );
+
+			Bean bean = new Bean();
+			assertTrue( Properties.setValue( bean, "withAccessors", "a" ) );
+			assertEquals( "set:a", Properties.getValue( bean, "withAccessors" ) );
+		}
+		finally
+		{
+			ClassInfo.removeClazzChangeHandler( handler );
+		}
+	}
+}
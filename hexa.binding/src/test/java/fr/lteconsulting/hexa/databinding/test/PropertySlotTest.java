@@ -0,0 +1,84 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.properties.PropertyChangedEvent;
+import fr.lteconsulting.hexa.databinding.properties.PropertySlot;
+import fr.lteconsulting.hexa.databinding.properties.PropertySlotChangedHandler;
+
+/**
+ * Property slots are interned by name, and slot handlers receive the
+ * notifications without any event being created.
+ */
+public class PropertySlotTest extends TestCase
+{
+	static class SlotCounter implements PropertySlotChangedHandler
+	{
+		int slotCalls;
+		int eventCalls;
+		PropertySlot last;
+
+		@Override
+		public void onPropertyChanged( Object sender, PropertySlot property )
+		{
+			slotCalls++;
+			last = property;
+		}
+
+		@Override
+		public void onPropertyChanged( PropertyChangedEvent event )
+		{
+			eventCalls++;
+		}
+	}
+
+	public void testSlotsAreInterned()
+	{
+		PropertySlot a = Properties.slot( "name" );
+		assertSame( a, Properties.slot( "name" ) );
+		assertEquals( "name", a.getName() );
+		assertTrue( a != Properties.slot( "other" ) );
+		assertTrue( a.getIndex() != Properties.slot( "other" ).getIndex() );
+	}
+
+	public void testNotifyByNameAndBySlot()
+	{
+		Object source = new Object();
+		PropertySlot slot = Properties.slot( "value" );
+
+		SlotCounter byName = new SlotCounter();
+		SlotCounter bySlot = new SlotCounter();
+		SlotCounter wildcard = new SlotCounter();
+		Properties.register( source, "value", byName );
+		Object registration = Properties.register( source, slot, bySlot );
+		Properties.register( source, "*", wildcard );
+
+		Properties.notify( source, "value" );
+		Properties.notify( source, slot );
+		Properties.notify( source, "unwatched" );
+
+		assertEquals( 2, byName.slotCalls );
+		assertEquals( 2, bySlot.slotCalls );
+		assertEquals( 3, wildcard.slotCalls );
+		assertEquals( 0, byName.eventCalls + bySlot.eventCalls + wildcard.eventCalls );
+		assertSame( Properties.slot( "unwatched" ), wildcard.last );
+
+		Properties.removeHandler( registration );
+		Properties.notify( source, slot );
+		assertEquals( 2, bySlot.slotCalls );
+		assertEquals( 3, byName.slotCalls );
+	}
+
+	public void testNotifyWithoutHandlerDoesNotIntern()
+	{
+		Object source = new Object();
+		Properties.register( source, "watched", new SlotCounter() );
+
+		PropertySlot before = Properties.slot( "beforeUnknownNotifications" );
+		Properties.notify( source, "unknownNotification1" );
+		Properties.notify( new Object(), "unknownNotification2" );
+		PropertySlot after = Properties.slot( "afterUnknownNotifications" );
+
+		assertEquals( before.getIndex() + 1, after.getIndex() );
+	}
+}
@@ -0,0 +1,136 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.classinfo.ClassInfo;
+import fr.lteconsulting.hexa.classinfo.Clazz;
+import fr.lteconsulting.hexa.classinfo.Field;
+import fr.lteconsulting.hexa.classinfo.Method;
+import fr.lteconsulting.hexa.classinfo.internal.PropertyTableClazz;
+import fr.lteconsulting.hexa.databinding.Binder;
+import fr.lteconsulting.hexa.databinding.DTOMapper;
+import fr.lteconsulting.hexa.databinding.properties.Properties;
+import fr.lteconsulting.hexa.databinding.test.dto.Car;
+import fr.lteconsulting.hexa.databinding.test.dto.Gauge;
+import fr.lteconsulting.hexa.databinding.test.dto.Label;
+import fr.lteconsulting.hexa.databinding.test.dto.Truck;
+import fr.lteconsulting.hexa.databinding.test.dto.VehicleBase;
+import fr.lteconsulting.hexa.databinding.test.objects.ObservableNoDefaultConstructor;
+
+/**
+ * Classes generated from @Observable register a property table as their
+ * runtime type information
+ */
+public class PropertyTableTest extends TestCase
+{
+	public void testGeneratedClazzIsRegistered()
+	{
+		Clazz<Car> clazz = ClassInfo.Clazz( Car.class );
+		assertTrue( clazz instanceof PropertyTableClazz );
+
+		assertEquals( 1, clazz.getAllFields().size() );
+		assertEquals( String.class, clazz.getAllField( "name" ).getType() );
+		assertEquals( String.class, Properties.getPropertyType( clazz, "name" ) );
+		assertEquals( "name", ((PropertyTableClazz<Car>) clazz).getNotifyingProperties().get( 0 ) );
+
+		assertNotNull( clazz.NEW() );
+	}
+
+	public void testPropertiesAndBindings()
+	{
+		Car a = new Car();
+		Car b = new Car();
+
+		assertTrue( Properties.setValue( a, "name", "clio" ) );
+		assertEquals( "clio", a.getName() );
+		assertEquals( "clio", Properties.getValue( a, "name" ) );
+
+		Binder.bind( a, "name" ).to( b, "name" );
+		a.setName( "twingo" );
+		assertEquals( "twingo", b.getName() );
+
+		Car c = new Car();
+		DTOMapper.Map( b, c );
+		assertEquals( "twingo", c.getName() );
+	}
+
+	public void testInheritedMembers()
+	{
+		Clazz<Truck> clazz = ClassInfo.Clazz( Truck.class );
+		assertTrue( clazz instanceof PropertyTableClazz );
+
+		// the table is found without initializing the class
+		assertFalse( VehicleBase.truckInitialized );
+
+		boolean hasModel = false;
+		boolean hasWheels = false;
+		for( Field field : clazz.getAllFields() )
+		{
+			hasModel |= field.getName().equals( "model" );
+			hasWheels |= field.getName().equals( "wheels" );
+		}
+		assertTrue( hasModel );
+		assertTrue( hasWheels );
+
+		boolean hasDescribe = false;
+		int nbGetModel = 0;
+		for( Method method : clazz.getMethods() )
+		{
+			hasDescribe |= method.getName().equals( "describe" );
+			if( method.getName().equals( "getModel" ) )
+				nbGetModel++;
+		}
+		assertTrue( hasDescribe );
+		assertEquals( 1, nbGetModel );
+
+		Truck truck = new Truck();
+		truck.wheels = 6;
+		Truck copy = new Truck();
+		DTOMapper.Map( truck, copy );
+		assertEquals( 6, copy.wheels );
+	}
+
+	public void testPropertiesWithOnlyOneAccessor()
+	{
+		Clazz<Gauge> clazz = ClassInfo.Clazz( Gauge.class );
+		assertTrue( clazz instanceof PropertyTableClazz );
+
+		// the setter only and getter only properties are read and written
+		// through their fields, as without the table
+		Gauge gauge = new Gauge();
+		gauge.setLevel( 3 );
+		assertEquals( Integer.valueOf( 3 ), Properties.getValue( gauge, "level" ) );
+
+		assertTrue( Properties.setValue( gauge, "serial", "G2" ) );
+		assertEquals( "G2", gauge.getSerial() );
+	}
+
+	public void testGetterAndSetterTypes()
+	{
+		Clazz<Label> clazz = ClassInfo.Clazz( Label.class );
+		assertTrue( clazz instanceof PropertyTableClazz );
+
+		assertEquals( CharSequence.class, clazz.getMethod( "getText" ).getReturnType() );
+		assertEquals( String.class, clazz.getMethod( "setText" ).getParameterTypes().get( 0 ) );
+		// no field would have a type valid for both accessors
+		assertNull( clazz.getField( "text" ) );
+
+		Label label = new Label();
+		clazz.getMethod( "setText" ).invoke( label, "hello" );
+		assertEquals( "hello", clazz.getMethod( "getText" ).invoke( label ) );
+	}
+
+	public void testNoDefaultConstructor()
+	{
+		Clazz<ObservableNoDefaultConstructor> clazz = ClassInfo.Clazz( ObservableNoDefaultConstructor.class );
+		assertTrue( clazz instanceof PropertyTableClazz );
+
+		try
+		{
+			clazz.NEW();
+			fail();
+		}
+		catch( UnsupportedOperationException e )
+		{
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package fr.lteconsulting.hexa.databinding.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import fr.lteconsulting.hexa.client.tools.Action1;
+import fr.lteconsulting.hexa.databinding.watchablecollection.Change;
+import fr.lteconsulting.hexa.databinding.watchablecollection.ChangeType;
+import fr.lteconsulting.hexa.databinding.watchablecollection.WatchableCollection;
+
+/**
+ * Replaying the changes sent by a {@link WatchableCollection} on a copy of the
+ * list gives the same list
+ */
+public class WatchableCollectionTest extends TestCase
+{
+	static class Replica implements Action1<List<Change>>
+	{
+		final List<Object> items = new ArrayList<>();
+		int notifications;
+		int changes;
+
+		@Override
+		public void exec( List<Change> param )
+		{
+			notifications++;
+			changes += param.size();
+
+			for( Change change : param )
+			{
+				switch( change.getType() )
+				{
+					case ADD:
+						items.addAll( change.getIndex(), change.getItems() );
+						break;
+					case REMOVE:
+						for( Object item : change.getItems() )
+							assertSame( item, items.remove( change.getIndex() ) );
+						break;
+					case MOVE:
+						assertSame( change.getItem(), items.remove( change.getFromIndex() ) );
+						items.add( change.getIndex(), change.getItem() );
+						break;
+				}
+			}
+		}
+	}
+
+	private WatchableCollection<Integer> collection;
+	private Replica replica;
+
+	@Override
+	protected void setUp()
+	{
+		collection = new WatchableCollection<>();
+		replica = new Replica();
+		collection.addCallbackAndSendAll( replica, true );
+	}
+
+	private void fill( Integer... values )
+	{
+		collection.addAll( Arrays.asList( values ) );
+		replica.notifications = 0;
+		replica.changes = 0;
+	}
+
+	public void testSetIsOneNotification()
+	{
+		fill( 1, 2, 3 );
+
+		collection.set( 1, 20 );
+		assertEquals( replica.items, collection );
+		assertEquals( 1, replica.notifications );
+	}
+
+	public void testRemoveAllAndRetainAll()
+	{
+		fill( 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 );
+
+		assertTrue( collection.removeAll( Arrays.asList( 1, 2, 5, 9 ) ) );
+		assertEquals( Arrays.asList( 0, 3, 4, 6, 7, 8 ), collection );
+		assertEquals( replica.items, collection );
+		assertEquals( 1, replica.notifications );
+
+		assertTrue( collection.retainAll( Arrays.asList( 0, 4, 8 ) ) );
+		assertEquals( Arrays.asList( 0, 4, 8 ), collection );
+		assertEquals( replica.items, collection );
+
+		assertFalse( collection.removeAll( Arrays.asList( 42 ) ) );
+		assertFalse( collection.remove( (Object) 42 ) );
+		assertEquals( 2, replica.notifications );
+	}
+
+	public void testBatch()
+	{
+		fill( 1, 2, 3 );
+
+		collection.mutate( new Action1<List<Integer>>()
+		{
+			@Override
+			public void exec( List<Integer> list )
+			{
+				list.add( 4 );
+				list.remove( 3 );
+				list.add( 0, 5 );
+				list.remove( 1 );
+			}
+		} );
+
+		assertEquals( Arrays.asList( 5, 2, 3 ), collection );
+		assertEquals( replica.items, collection );
+		assertEquals( 1, replica.notifications );
+		// the added then removed item is not notified
+		assertEquals( 2, replica.changes );
+	}
+
+	public void testRemoveAndAddBackIsAMove()
+	{
+		fill( 1, 2, 3 );
+
+		collection.beginBatch();
+		Integer item = collection.remove( 0 );
+		collection.add( item );
+		collection.endBatch();
+
+		assertEquals( replica.items, collection );
+		assertEquals( 1, replica.changes );
+
+		collection.move( 2, 0 );
+		assertEquals( Arrays.asList( 1, 2, 3 ), collection );
+		assertEquals( replica.items, collection );
+	}
+
+	public void testIterator()
+	{
+		fill( 1, 2, 3, 4 );
+
+		collection.beginBatch();
+		for( ListIterator<Integer> it = collection.listIterator(); it.hasNext(); )
+		{
+			int value = it.next();
+			if( value % 2 == 0 )
+				it.remove();
+			else
+				it.set( value * 10 );
+		}
+		collection.endBatch();
+
+		assertEquals( Arrays.asList( 10, 30 ), collection );
+		assertEquals( replica.items, collection );
+		assertEquals( 1, replica.notifications );
+	}
+
+	public void testSortMovesFewItems()
+	{
+		fill( 1, 2, 3, 4, 5, 0 );
+
+		collection.sort( naturalOrder() );
+		assertEquals( Arrays.asList( 0, 1, 2, 3, 4, 5 ), collection );
+		assertEquals( replica.items, collection );
+		assertEquals( 1, replica.changes );
+	}
+
+	public void testSortRandom()
+	{
+		Random random = new Random( 42 );
+		for( int run = 0; run < 50; run++ )
+		{
+			collection = new WatchableCollection<>();
+			replica = new Replica();
+			collection.addCallbackAndSendAll( replica, true );
+
+			int size = random.nextInt( 40 );
+			for( int i = 0; i < size; i++ )
+				collection.add( random.nextInt( 10 ) );
+
+			List<Integer> expected = new ArrayList<>( collection );
+			Collections.sort( expected );
+
+			collection.sort( naturalOrder() );
+			assertEquals( expected, collection );
+			assertEquals( replica.items, collection );
+		}
+	}
+
+	public void testRangeChanges()
+	{
+		fill( 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 );
+
+		collection.addAll( 2, Arrays.asList( 20, 21, 22 ) );
+		collection.removeRange( 5, 8 );
+		collection.removeAll( Arrays.asList( 0, 21, 22, 6, 8 ) );
+		assertEquals( Arrays.asList( 1, 20, 5, 7, 9 ), collection );
+		assertEquals( replica.items, collection );
+		// one change per operation, and per run of removed items
+		assertEquals( 6, replica.changes );
+
+		Replica late = new Replica();
+		collection.addCallbackAndSendAll( late, true );
+		assertEquals( 1, late.changes );
+		assertEquals( collection, late.items );
+
+		collection.clear();
+		assertTrue( replica.items.isEmpty() );
+		assertTrue( late.items.isEmpty() );
+		assertEquals( 2, late.changes );
+	}
+
+	public void testItemChangesWithoutRanges()
+	{
+		fill( 0, 1, 2 );
+
+		final List<Change> received = new ArrayList<>();
+		collection.addCallbackAndSendAll( new Action1<List<Change>>()
+		{
+			@Override
+			public void exec( List<Change> param )
+			{
+				received.addAll( param );
+			}
+		} );
+
+		assertEquals( 3, received.size() );
+		for( int i = 0; i < 3; i++ )
+		{
+			assertFalse( received.get( i ).isRange() );
+			assertEquals( i, received.get( i ).getIndex() );
+			assertEquals( Integer.valueOf( i ), received.get( i ).getItem() );
+		}
+
+		received.clear();
+		collection.addAll( 1, Arrays.asList( 10, 11 ) );
+		collection.removeRange( 0, 3 );
+		assertEquals( Arrays.asList( 1, 2 ), collection );
+		assertEquals( replica.items, collection );
+
+		assertEquals( 5, received.size() );
+		assertChange( received.get( 0 ), ChangeType.ADD, 1, 10 );
+		assertChange( received.get( 1 ), ChangeType.ADD, 2, 11 );
+		assertChange( received.get( 2 ), ChangeType.REMOVE, 0, 0 );
+		assertChange( received.get( 3 ), ChangeType.REMOVE, 0, 10 );
+		assertChange( received.get( 4 ), ChangeType.REMOVE, 0, 11 );
+	}
+
+	private static void assertChange( Change change, ChangeType type, int index, Integer item )
+	{
+		assertFalse( change.isRange() );
+		assertEquals( type, change.getType() );
+		assertEquals( index, change.getIndex() );
+		assertEquals( item, change.getItem() );
+	}
+
+	private static Comparator<Integer> naturalOrder()
+	{
+		return new Comparator<Integer>()
+		{
+			@Override
+			public int compare( Integer a, Integer b )
+			{
+				return a.compareTo( b );
+			}
+		};
+	}
+}
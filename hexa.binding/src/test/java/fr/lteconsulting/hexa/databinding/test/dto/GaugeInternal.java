@@ -0,0 +1,20 @@
+package fr.lteconsulting.hexa.databinding.test.dto;
+
+import fr.lteconsulting.hexa.databinding.annotation.Observable;
+
+@Observable
+public class GaugeInternal
+{
+	private int level;
+	private String serial = "G1";
+
+	public void setLevel( int level )
+	{
+		this.level = level;
+	}
+
+	public String getSerial()
+	{
+		return serial;
+	}
+}
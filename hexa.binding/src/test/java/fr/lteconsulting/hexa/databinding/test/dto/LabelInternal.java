@@ -0,0 +1,19 @@
+package fr.lteconsulting.hexa.databinding.test.dto;
+
+import fr.lteconsulting.hexa.databinding.annotation.Observable;
+
+@Observable
+public class LabelInternal
+{
+	private String text;
+
+	public CharSequence getText()
+	{
+		return text;
+	}
+
+	public void setText( String text )
+	{
+		this.text = text;
+	}
+}
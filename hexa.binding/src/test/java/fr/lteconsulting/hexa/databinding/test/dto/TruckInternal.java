@@ -0,0 +1,14 @@
+package fr.lteconsulting.hexa.databinding.test.dto;
+
+import fr.lteconsulting.hexa.databinding.annotation.Observable;
+
+@Observable
+public class TruckInternal extends VehicleBase
+{
+	static
+	{
+		VehicleBase.truckInitialized = true;
+	}
+
+	String model;
+}
@@ -0,0 +1,13 @@
+package fr.lteconsulting.hexa.databinding.test.dto;
+
+public class VehicleBase
+{
+	public static boolean truckInitialized;
+
+	public int wheels;
+
+	public String describe()
+	{
+		return wheels + " wheels";
+	}
+}
@@ -0,0 +1,111 @@
+package fr.lteconsulting.hexa.client.common;
+
+import fr.lteconsulting.hexa.databinding.Converter;
+import fr.lteconsulting.hexa.databinding.converters.ConverterRegistry;
+
+/**
+ * Converters between the hexa date types and their string representation,
+ * "YYYY-MM-DD" for {@link HexaDate} and "YYYY-MM-DD HH:MM:SS" for
+ * {@link HexaDateTime}. Strings which are not in that format are converted
+ * to null.
+ * 
+ * They are not registered by default. An application which binds strings to
+ * those types calls {@link #register()} when it starts, in the onModuleLoad()
+ * of its entry point for example.
+ */
+public class HexaDateConverters
+{
+	public static final Converter StringToHexaDate = new Converter()
+	{
+		@Override
+		public Object convert( Object value )
+		{
+			if( value == null || !isDate( (String) value ) )
+				return null;
+
+			return new HexaDate( (String) value );
+		}
+
+		@Override
+		public Object convertBack( Object value )
+		{
+			if( value == null )
+				return null;
+
+			return ((HexaDate) value).getString();
+		}
+	};
+
+	public static final Converter StringToHexaDateTime = new Converter()
+	{
+		@Override
+		public Object convert( Object value )
+		{
+			if( value == null || !isDateTime( (String) value ) )
+				return null;
+
+			return new HexaDateTime( (String) value );
+		}
+
+		@Override
+		public Object convertBack( Object value )
+		{
+			if( value == null )
+				return null;
+
+			return ((HexaDateTime) value).getString();
+		}
+	};
+
+	private static boolean registered;
+
+	/**
+	 * Registers the converters to the data binding, if not already done
+	 */
+	public static synchronized void register()
+	{
+		if( registered )
+			return;
+		registered = true;
+
+		ConverterRegistry.register( String.class, HexaDate.class, StringToHexaDate );
+		ConverterRegistry.register( String.class, HexaDateTime.class, StringToHexaDateTime );
+	}
+
+	/**
+	 * Whether the string is "YYYY-MM-DD"
+	 */
+	private static boolean isDate( String s )
+	{
+		return s.length() == 10 && isDatePart( s );
+	}
+
+	/**
+	 * Whether the string is "YYYY-MM-DD HH:MM:SS"
+	 */
+	private static boolean isDateTime( String s )
+	{
+		return s.length() == 19 && isDatePart( s ) && s.charAt( 10 ) == ' '
+				&& isNumber( s, 11, 13 ) && s.charAt( 13 ) == ':'
+				&& isNumber( s, 14, 16 ) && s.charAt( 16 ) == ':'
+				&& isNumber( s, 17, 19 );
+	}
+
+	private static boolean isDatePart( String s )
+	{
+		return isNumber( s, 0, 4 ) && s.charAt( 4 ) == '-'
+				&& isNumber( s, 5, 7 ) && s.charAt( 7 ) == '-'
+				&& isNumber( s, 8, 10 );
+	}
+
+	/**
+	 * Whether the characters in [start, end) are all digits, without a sign
+	 */
+	private static boolean isNumber( String s, int start, int end )
+	{
+		for( int i = start; i < end; i++ )
+			if( !Character.isDigit( s.charAt( i ) ) )
+				return false;
+		return true;
+	}
+}
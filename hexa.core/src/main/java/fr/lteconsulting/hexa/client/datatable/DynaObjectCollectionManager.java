@@ -126,7 +126,7 @@ public class DynaObjectCollectionManager<T> extends ObjectCollectionManager<T>
 	public void setDataSource( WatchableCollection<T> source )
 	{
 		source.removeCallback( sourceCallback );
-		source.addCallbackAndSendAll( sourceCallback );
+		source.addCallbackAndSendAll( sourceCallback, true );
 	}
 
 	Action1<List<Change>> sourceCallback = new Action1<List<Change>>()
@@ -136,14 +136,16 @@ public class DynaObjectCollectionManager<T> extends ObjectCollectionManager<T>
 		{
 			for( Change c : param )
 			{
-				T record = c.getItem();
+				List<T> records = c.getItems();
 				switch( c.getType() )
 				{
 					case ADD:
-						dataPlug.updated( record );
+						for( T record : records )
+							dataPlug.updated( record );
 						break;
 					case REMOVE:
-						dataPlug.deleted( record );
+						for( T record : records )
+							dataPlug.deleted( record );
 						break;
 				}
 			}
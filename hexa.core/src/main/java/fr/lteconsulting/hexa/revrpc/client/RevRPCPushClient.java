@@ -0,0 +1,233 @@
+package fr.lteconsulting.hexa.revrpc.client;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.http.client.URL;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONParser;
+import com.google.gwt.json.client.JSONValue;
+import com.google.gwt.user.client.Random;
+import com.google.gwt.user.client.Timer;
+
+/**
+ * Receives the calls pushed by the server through a RevRPCPushServlet and
+ * gives them to the registered {@link ICallDeserializer}s.
+ *
+ * The client polls continuously, each answer being followed by a new poll.
+ * After an error, it waits before polling again, twice longer at each
+ * consecutive error.
+ */
+public class RevRPCPushClient
+{
+	private final String url;
+	private final RevRPCServices services;
+	private final String clientId;
+
+	private String serviceNames = "";
+
+	private boolean isRunning = false;
+	private Request pendingRequest = null;
+	private int nbErrors = 0;
+
+	private int minRetryDelay = 1000;
+	private int maxRetryDelay = 30000;
+
+	private int nbReceivedCalls = 0;
+	private int nbFailedCalls = 0;
+
+	public RevRPCPushClient( String url, RevRPCServices services )
+	{
+		this.url = url;
+		this.services = services;
+		this.clientId = Integer.toHexString( Random.nextInt() ) + Long.toHexString( (long) Duration.currentTimeMillis() );
+	}
+
+	public String getClientId()
+	{
+		return clientId;
+	}
+
+	public void setRetryDelays( int minRetryDelay, int maxRetryDelay )
+	{
+		this.minRetryDelay = minRetryDelay;
+		this.maxRetryDelay = maxRetryDelay;
+	}
+
+	public int getNbReceivedCalls()
+	{
+		return nbReceivedCalls;
+	}
+
+	/**
+	 * The number of received calls which could not be processed, for example
+	 * because no deserializer is registered for their interface
+	 */
+	public int getNbFailedCalls()
+	{
+		return nbFailedCalls;
+	}
+
+	/**
+	 * Starts receiving the calls of some services
+	 */
+	public void start( String... serviceNames )
+	{
+		StringBuilder b = new StringBuilder();
+		for( String serviceName : serviceNames )
+		{
+			if( b.length() > 0 )
+				b.append( "," );
+			b.append( serviceName );
+		}
+		this.serviceNames = b.toString();
+
+		if( isRunning )
+			return;
+
+		isRunning = true;
+		poll();
+	}
+
+	/**
+	 * Stops receiving the calls and tells the server to forget this client
+	 */
+	public void stop()
+	{
+		if( !isRunning )
+			return;
+
+		isRunning = false;
+		retryTimer.cancel();
+
+		if( pendingRequest != null )
+		{
+			pendingRequest.cancel();
+			pendingRequest = null;
+		}
+
+		RequestBuilder builder = new RequestBuilder( RequestBuilder.POST, url );
+		builder.setHeader( "Content-Type", "application/x-www-form-urlencoded" );
+		try
+		{
+			builder.sendRequest( "client=" + URL.encodeQueryString( clientId ) + "&disconnect=true", new RequestCallback()
+			{
+				@Override
+				public void onResponseReceived( Request request, Response response )
+				{
+				}
+
+				@Override
+				public void onError( Request request, Throwable exception )
+				{
+				}
+			} );
+		}
+		catch( RequestException e )
+		{
+			// the server will forget the client anyway
+		}
+	}
+
+	private void poll()
+	{
+		RequestBuilder builder = new RequestBuilder( RequestBuilder.GET, url + "?client=" + URL.encodeQueryString( clientId ) + "&services=" + URL.encodeQueryString( serviceNames ) );
+		try
+		{
+			pendingRequest = builder.sendRequest( null, pollCallback );
+		}
+		catch( RequestException e )
+		{
+			pendingRequest = null;
+			retry();
+		}
+	}
+
+	private final RequestCallback pollCallback = new RequestCallback()
+	{
+		@Override
+		public void onResponseReceived( Request request, Response response )
+		{
+			pendingRequest = null;
+			if( !isRunning )
+				return;
+
+			if( response.getStatusCode() != Response.SC_OK )
+			{
+				retry();
+				return;
+			}
+
+			JSONArray calls;
+			try
+			{
+				JSONValue value = JSONParser.parseStrict( response.getText() );
+				calls = value.isArray();
+			}
+			catch( Exception e )
+			{
+				calls = null;
+			}
+
+			if( calls == null )
+			{
+				retry();
+				return;
+			}
+
+			nbErrors = 0;
+
+			// polls again before processing, so that the server can queue the
+			// next calls in the meantime
+			poll();
+
+			for( int i = 0; i < calls.size(); i++ )
+			{
+				nbReceivedCalls++;
+
+				// a failing call does not prevent the others from being
+				// processed
+				try
+				{
+					services.newServiceCall( calls.get( i ).isObject() );
+				}
+				catch( Exception e )
+				{
+					nbFailedCalls++;
+					GWT.log( "RevRPCPushClient : cannot process a pushed call", e );
+				}
+			}
+		}
+
+		@Override
+		public void onError( Request request, Throwable exception )
+		{
+			pendingRequest = null;
+			if( isRunning )
+				retry();
+		}
+	};
+
+	private void retry()
+	{
+		// in long, so that the shift cannot overflow
+		long delay = Math.min( (long) minRetryDelay << Math.min( nbErrors, 16 ), maxRetryDelay );
+		nbErrors++;
+
+		retryTimer.schedule( (int) delay );
+	}
+
+	private final Timer retryTimer = new Timer()
+	{
+		@Override
+		public void run()
+		{
+			if( isRunning )
+				poll();
+		}
+	};
+}
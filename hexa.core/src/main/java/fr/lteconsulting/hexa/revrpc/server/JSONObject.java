@@ -13,6 +13,11 @@ public class JSONObject
 		map.put( key, value );
 	}
 
+	public Object get( String key )
+	{
+		return map.get( key );
+	}
+
 	@Override
 	public String toString()
 	{
@@ -32,7 +37,7 @@ public class JSONObject
 				b.append( ", " );
 			addComa = true;
 
-			b.append( "\"" + e.getKey() + "\" : " );
+			b.append( JSONUtils.quote( e.getKey() ) + " : " );
 			b.append( JSONUtils.toJSONString( e.getValue() ) );
 		}
 
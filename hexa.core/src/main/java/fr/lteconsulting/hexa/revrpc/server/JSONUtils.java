@@ -9,7 +9,7 @@ public class JSONUtils
 		if( obj instanceof JSONObject )
 			return ((JSONObject) obj).toJSONString();
 		if( obj instanceof String )
-			return "\"" + (String) obj + "\"";
+			return quote( (String) obj );
 		if( obj instanceof Boolean )
 			return ((Boolean) obj) ? "true" : "false";
 		if( obj instanceof Integer )
@@ -19,4 +19,42 @@ public class JSONUtils
 
 		return "\"invalid entry type\"";
 	}
+
+	/**
+	 * Writes a string as a json string literal
+	 */
+	public static String quote( String s )
+	{
+		StringBuilder b = new StringBuilder( s.length() + 2 );
+		b.append( '"' );
+		for( int i = 0; i < s.length(); i++ )
+		{
+			char c = s.charAt( i );
+			switch( c )
+			{
+				case '"':
+					b.append( "\\\"" );
+					break;
+				case '\\':
+					b.append( "\\\\" );
+					break;
+				case '\n':
+					b.append( "\\n" );
+					break;
+				case '\r':
+					b.append( "\\r" );
+					break;
+				case '\t':
+					b.append( "\\t" );
+					break;
+				default:
+					if( c < 0x20 || c == '\u2028' || c == '\u2029' )
+						b.append( String.format( "\\u%04x", (int) c ) );
+					else
+						b.append( c );
+			}
+		}
+		b.append( '"' );
+		return b.toString();
+	}
 }
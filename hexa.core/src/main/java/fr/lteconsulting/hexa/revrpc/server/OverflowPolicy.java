@@ -0,0 +1,26 @@
+package fr.lteconsulting.hexa.revrpc.server;
+
+/**
+ * What a {@link PushHub} does with a call when the queue of a client is full
+ */
+public enum OverflowPolicy
+{
+	/**
+	 * The oldest queued call is dropped to make room
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * The new call is dropped
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * A queued call to the same method of the same service replaces its
+	 * arguments with the new ones, even if the queue is not full. This suits
+	 * the interfaces whose calls carry a state, where only the last one
+	 * matters. When there is no such call and the queue is full, the oldest
+	 * call is dropped.
+	 */
+	MERGE;
+}
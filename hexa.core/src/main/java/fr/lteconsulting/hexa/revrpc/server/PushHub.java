@@ -0,0 +1,269 @@
+package fr.lteconsulting.hexa.revrpc.server;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the calls of the {@link RevRPCServices} to the connected clients.
+ *
+ * Each client has a session with the services it subscribed to and a bounded
+ * queue of calls, that the client empties by polling (see
+ * {@link RevRPCPushServlet}). A call is serialized once and queued in the
+ * sessions subscribed to its service. When a queue is full, the
+ * {@link OverflowPolicy} of the call's interface decides what is dropped, so
+ * that a slow client does not slow down the others nor make the server run
+ * out of memory.
+ *
+ * The sessions not polled during the session timeout are removed. They are
+ * looked for at most twice per session timeout, when a client connects or
+ * polls and when a call is published.
+ */
+public class PushHub implements RevRPCServices.Callback
+{
+	private final ConcurrentHashMap<String, PushSession> sessions = new ConcurrentHashMap<String, PushSession>();
+	private final ConcurrentHashMap<String, OverflowPolicy> policies = new ConcurrentHashMap<String, OverflowPolicy>();
+
+	private int queueCapacity = 256;
+	private int maxMessagesPerPoll = 256;
+	private long pollLingerTime = 0;
+	private long sessionTimeout = 60000;
+	private OverflowPolicy defaultPolicy = OverflowPolicy.DROP_OLDEST;
+
+	private final AtomicLong lastExpiration = new AtomicLong( System.currentTimeMillis() );
+
+	private final AtomicLong nbPublished = new AtomicLong();
+	private final AtomicLong nbQueued = new AtomicLong();
+	private final AtomicLong nbDropped = new AtomicLong();
+
+	/**
+	 * Sets the maximum number of calls waiting for a client, at least 1. It
+	 * applies to the sessions created afterwards.
+	 */
+	public void setQueueCapacity( int queueCapacity )
+	{
+		if( queueCapacity < 1 )
+			throw new IllegalArgumentException( "The queue capacity must be at least 1, got " + queueCapacity );
+
+		this.queueCapacity = queueCapacity;
+	}
+
+	public void setMaxMessagesPerPoll( int maxMessagesPerPoll )
+	{
+		this.maxMessagesPerPoll = maxMessagesPerPoll;
+	}
+
+	/**
+	 * Sets the time in milliseconds a poll waits for more calls once one is
+	 * queued. With many clients, answering a few calls at once saves many
+	 * requests, at the cost of this delay.
+	 */
+	public void setPollLingerTime( long pollLingerTime )
+	{
+		this.pollLingerTime = pollLingerTime;
+	}
+
+	/**
+	 * Sets the time in milliseconds after which a session which is not polled
+	 * is removed. It must be longer than the poll timeout of the clients.
+	 */
+	public void setSessionTimeout( long sessionTimeout )
+	{
+		this.sessionTimeout = sessionTimeout;
+	}
+
+	public void setDefaultOverflowPolicy( OverflowPolicy defaultPolicy )
+	{
+		this.defaultPolicy = defaultPolicy;
+	}
+
+	public void setOverflowPolicy( Class<?> serviceInterface, OverflowPolicy policy )
+	{
+		setOverflowPolicy( serviceInterface.getCanonicalName(), policy );
+	}
+
+	public void setOverflowPolicy( String interfaceName, OverflowPolicy policy )
+	{
+		policies.put( interfaceName, policy );
+	}
+
+	public OverflowPolicy getOverflowPolicy( String interfaceName )
+	{
+		OverflowPolicy policy = policies.get( interfaceName );
+		return policy != null ? policy : defaultPolicy;
+	}
+
+	/**
+	 * Creates the session of a client if needed, and sets the services it is
+	 * subscribed to
+	 */
+	public PushSession connect( String clientId, Collection<String> services )
+	{
+		expireIdleSessions();
+
+		PushSession session = sessions.get( clientId );
+		if( session == null )
+		{
+			PushSession newSession = new PushSession( clientId, queueCapacity, nbDropped );
+			session = sessions.putIfAbsent( clientId, newSession );
+			if( session == null )
+				session = newSession;
+		}
+
+		session.setServices( services );
+
+		return session;
+	}
+
+	public void disconnect( String clientId )
+	{
+		PushSession session = sessions.remove( clientId );
+		if( session != null )
+			session.close();
+	}
+
+	public PushSession getSession( String clientId )
+	{
+		return sessions.get( clientId );
+	}
+
+	public int getNbSessions()
+	{
+		return sessions.size();
+	}
+
+	/**
+	 * Waits for the calls of a client
+	 *
+	 * @param timeout
+	 *            the maximum waiting time in milliseconds
+	 * @return the serialized calls, possibly none, or null if the client has
+	 *         no session
+	 */
+	public List<String> poll( String clientId, long timeout ) throws InterruptedException
+	{
+		expireIdleSessions();
+
+		PushSession session = sessions.get( clientId );
+		if( session == null )
+			return null;
+
+		return session.poll( timeout, pollLingerTime, maxMessagesPerPoll );
+	}
+
+	/**
+	 * Queues a call, as built by the {@link RevRPCServices}, for the sessions
+	 * subscribed to its service
+	 */
+	@Override
+	public void newCall( JSONObject serviceCall )
+	{
+		String service = (String) serviceCall.get( "service" );
+		String interfaceName = (String) serviceCall.get( "interface" );
+
+		OverflowPolicy policy = getOverflowPolicy( interfaceName );
+
+		String mergeKey = null;
+		if( policy == OverflowPolicy.MERGE )
+		{
+			JSONObject call = (JSONObject) serviceCall.get( "value" );
+			mergeKey = service + "-" + interfaceName + "-" + call.get( "method" );
+		}
+
+		publish( service, serviceCall.toJSONString(), mergeKey, policy );
+	}
+
+	private void publish( String service, String json, String mergeKey, OverflowPolicy policy )
+	{
+		nbPublished.incrementAndGet();
+
+		for( PushSession session : sessions.values() )
+		{
+			if( !session.isSubscribed( service ) )
+				continue;
+
+			// each session has its own message since a merge modifies it,
+			// the dropped calls are counted by the session
+			if( session.offer( new PushSession.Message( json, mergeKey ), policy ) )
+				nbQueued.incrementAndGet();
+		}
+
+		expireIdleSessions();
+	}
+
+	// removes the idle sessions if not done during the last half session
+	// timeout, by one thread at a time
+	private void expireIdleSessions()
+	{
+		long now = System.currentTimeMillis();
+		long last = lastExpiration.get();
+		if( now - last > sessionTimeout / 2 && lastExpiration.compareAndSet( last, now ) )
+			removeIdleSessions();
+	}
+
+	/**
+	 * Removes the sessions not polled during the session timeout
+	 */
+	public void removeIdleSessions()
+	{
+		long limit = System.currentTimeMillis() - sessionTimeout;
+
+		for( Iterator<PushSession> it = sessions.values().iterator(); it.hasNext(); )
+		{
+			PushSession session = it.next();
+			if( session.isIdleSince( limit ) )
+			{
+				it.remove();
+				session.close();
+			}
+		}
+	}
+
+	/**
+	 * The number of calls published to the hub
+	 */
+	public long getNbPublished()
+	{
+		return nbPublished.get();
+	}
+
+	/**
+	 * The number of calls queued for a session, a merged call counts as
+	 * queued
+	 */
+	public long getNbQueued()
+	{
+		return nbQueued.get();
+	}
+
+	/**
+	 * The number of calls dropped because a queue was full or a session
+	 * closed. A call queued by dropping the oldest one counts as queued, and
+	 * the oldest one as dropped.
+	 */
+	public long getNbDropped()
+	{
+		return nbDropped.get();
+	}
+
+	/**
+	 * Writes serialized calls as a json array
+	 */
+	public static String toJSONArray( List<String> calls )
+	{
+		StringBuilder b = new StringBuilder();
+
+		b.append( "[" );
+		for( int i = 0; i < calls.size(); i++ )
+		{
+			if( i > 0 )
+				b.append( ", " );
+			b.append( calls.get( i ) );
+		}
+		b.append( "]" );
+
+		return b.toString();
+	}
+}
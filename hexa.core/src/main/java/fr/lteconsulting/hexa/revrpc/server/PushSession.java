@@ -0,0 +1,228 @@
+package fr.lteconsulting.hexa.revrpc.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A client connected to a {@link PushHub}: the services it subscribed to and
+ * the bounded queue of the calls waiting to be polled.
+ */
+public class PushSession
+{
+	static class Message
+	{
+		// the serialized call, shared between the sessions
+		String json;
+
+		// identifies the calls which can merge, null if the call does not
+		final String mergeKey;
+
+		Message( String json, String mergeKey )
+		{
+			this.json = json;
+			this.mergeKey = mergeKey;
+		}
+	}
+
+	private final String clientId;
+	private final int capacity;
+
+	// the dropped calls counter of the hub
+	private final AtomicLong hubDropped;
+
+	private volatile Set<String> services = Collections.emptySet();
+
+	private final ArrayDeque<Message> queue = new ArrayDeque<Message>();
+	private final HashMap<String, Message> mergeableMessages = new HashMap<String, Message>();
+
+	private volatile long lastPollTime = System.currentTimeMillis();
+	private int nbPolls = 0;
+	private boolean isClosed = false;
+
+	private long nbDropped = 0;
+	private long nbMerged = 0;
+
+	PushSession( String clientId, int capacity, AtomicLong hubDropped )
+	{
+		this.clientId = clientId;
+		this.capacity = capacity;
+		this.hubDropped = hubDropped;
+	}
+
+	public String getClientId()
+	{
+		return clientId;
+	}
+
+	public Set<String> getServices()
+	{
+		return services;
+	}
+
+	void setServices( Collection<String> services )
+	{
+		this.services = Collections.unmodifiableSet( new HashSet<String>( services ) );
+	}
+
+	boolean isSubscribed( String service )
+	{
+		return services.contains( service );
+	}
+
+	/**
+	 * Whether no poll happened since a time, which means the client is gone
+	 */
+	synchronized boolean isIdleSince( long time )
+	{
+		return nbPolls == 0 && lastPollTime < time;
+	}
+
+	public synchronized int getQueueSize()
+	{
+		return queue.size();
+	}
+
+	public synchronized long getNbDropped()
+	{
+		return nbDropped;
+	}
+
+	public synchronized long getNbMerged()
+	{
+		return nbMerged;
+	}
+
+	/**
+	 * Queues a call, applying the policy if needed. The dropped call, this
+	 * one or a queued one, is counted by the session and the hub.
+	 *
+	 * @return true if the call was queued or merged
+	 */
+	synchronized boolean offer( Message message, OverflowPolicy policy )
+	{
+		if( isClosed )
+		{
+			hubDropped.incrementAndGet();
+			return false;
+		}
+
+		if( policy == OverflowPolicy.MERGE )
+		{
+			Message queued = mergeableMessages.get( message.mergeKey );
+			if( queued != null )
+			{
+				// keeps the place of the queued call
+				queued.json = message.json;
+				nbMerged++;
+				return true;
+			}
+		}
+
+		if( queue.size() >= capacity )
+		{
+			nbDropped++;
+			hubDropped.incrementAndGet();
+
+			if( policy == OverflowPolicy.DROP_NEWEST )
+				return false;
+
+			Message oldest = queue.poll();
+			if( oldest.mergeKey != null )
+				mergeableMessages.remove( oldest.mergeKey );
+		}
+
+		queue.add( message );
+		if( policy == OverflowPolicy.MERGE )
+			mergeableMessages.put( message.mergeKey, message );
+
+		// a lingering poll waits for its end anyway
+		if( queue.size() == 1 )
+			notifyAll();
+
+		return true;
+	}
+
+	/**
+	 * Waits for calls and takes them out of the queue
+	 *
+	 * @param timeout
+	 *            the maximum waiting time in milliseconds
+	 * @param lingerTime
+	 *            the time in milliseconds to wait for more calls once one is
+	 *            queued
+	 * @return the serialized calls, an empty list if none came before the
+	 *         timeout or if the session was closed
+	 */
+	synchronized List<String> poll( long timeout, long lingerTime, int maxMessages ) throws InterruptedException
+	{
+		lastPollTime = System.currentTimeMillis();
+
+		long end = lastPollTime + timeout;
+		nbPolls++;
+		try
+		{
+			while( queue.isEmpty() && !isClosed )
+			{
+				long remaining = end - System.currentTimeMillis();
+				if( remaining <= 0 )
+					break;
+
+				wait( remaining );
+			}
+
+			// lets the following calls join the answer
+			if( lingerTime > 0 && !queue.isEmpty() )
+			{
+				long lingerEnd = System.currentTimeMillis() + lingerTime;
+				while( queue.size() < maxMessages && !isClosed )
+				{
+					long remaining = lingerEnd - System.currentTimeMillis();
+					if( remaining <= 0 )
+						break;
+
+					wait( remaining );
+				}
+			}
+		}
+		finally
+		{
+			nbPolls--;
+		}
+
+		List<String> result = new ArrayList<String>( Math.min( queue.size(), maxMessages ) );
+		while( !queue.isEmpty() && result.size() < maxMessages )
+		{
+			Message message = queue.poll();
+			if( message.mergeKey != null )
+				mergeableMessages.remove( message.mergeKey );
+			result.add( message.json );
+		}
+
+		// the poll may have lasted long
+		lastPollTime = System.currentTimeMillis();
+
+		return result;
+	}
+
+	/**
+	 * Closes the session, the calls still queued are counted as dropped by
+	 * the hub
+	 */
+	synchronized void close()
+	{
+		if( !isClosed )
+			hubDropped.addAndGet( queue.size() );
+
+		isClosed = true;
+		queue.clear();
+		mergeableMessages.clear();
+		notifyAll();
+	}
+}
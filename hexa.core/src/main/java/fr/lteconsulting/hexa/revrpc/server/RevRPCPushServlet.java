@@ -0,0 +1,124 @@
+package fr.lteconsulting.hexa.revrpc.server;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Long polling endpoint of a {@link PushHub}, used by the
+ * RevRPCPushClient.
+ *
+ * A poll is a GET request with the 'client' parameter, the id of the client,
+ * and the 'services' parameter, the comma separated names of the services it
+ * subscribes to. The request waits until calls are queued for the client or
+ * the poll timeout is elapsed, and is answered with the json array of the
+ * calls. A POST request with the 'client' and 'disconnect' parameters removes
+ * the session of the client.
+ *
+ * The client id only distinguishes the clients of a same http session : the
+ * hub session is bound to the http session of the caller (see
+ * {@link #getSessionId(HttpServletRequest, String)}), so that a caller cannot
+ * poll or disconnect the clients of another one. The subscribed services are
+ * filtered by {@link #authorizeServices(HttpServletRequest, List)}.
+ *
+ * The waiting request holds a container thread, so the container must have
+ * enough threads for the connected clients.
+ */
+public abstract class RevRPCPushServlet extends HttpServlet
+{
+	private static final long serialVersionUID = -2650917405462245124L;
+
+	/**
+	 * Returns the hub whose calls are delivered by this servlet
+	 */
+	protected abstract PushHub getPushHub();
+
+	/**
+	 * The maximum time in milliseconds a poll waits for calls, which must be
+	 * shorter than the timeouts of the proxies between the clients and the
+	 * server
+	 */
+	protected long getPollTimeout()
+	{
+		return 25000;
+	}
+
+	/**
+	 * Returns the id of the hub session of a client, issued by the server. By
+	 * default it is made of the http session id and the client id, so that
+	 * only the callers of that http session reach it.
+	 */
+	protected String getSessionId( HttpServletRequest req, String clientId )
+	{
+		return req.getSession( true ).getId() + "/" + clientId;
+	}
+
+	/**
+	 * Returns the services the caller is allowed to subscribe to, among the
+	 * requested ones. Allows all of them by default.
+	 */
+	protected List<String> authorizeServices( HttpServletRequest req, List<String> services )
+	{
+		return services;
+	}
+
+	@Override
+	protected void doGet( HttpServletRequest req, HttpServletResponse resp ) throws ServletException, IOException
+	{
+		resp.addHeader( "Pragma", "no-cache" );
+		resp.addHeader( "Cache-Control", "no-cache" );
+
+		String clientId = req.getParameter( "client" );
+		if( clientId == null || clientId.isEmpty() )
+		{
+			resp.sendError( HttpServletResponse.SC_BAD_REQUEST, "Missing client parameter" );
+			return;
+		}
+
+		PushHub hub = getPushHub();
+		String sessionId = getSessionId( req, clientId );
+
+		String services = req.getParameter( "services" );
+		List<String> requestedServices = services == null || services.isEmpty() ? Collections.<String> emptyList() : Arrays.asList( services.split( "," ) );
+		hub.connect( sessionId, authorizeServices( req, requestedServices ) );
+
+		List<String> calls;
+		try
+		{
+			calls = hub.poll( sessionId, getPollTimeout() );
+		}
+		catch( InterruptedException e )
+		{
+			// the container is stopping
+			Thread.currentThread().interrupt();
+			calls = null;
+		}
+
+		resp.setContentType( "application/json" );
+		resp.setCharacterEncoding( "UTF-8" );
+		resp.getWriter().write( calls == null ? "[]" : PushHub.toJSONArray( calls ) );
+	}
+
+	@Override
+	protected void doPost( HttpServletRequest req, HttpServletResponse resp ) throws ServletException, IOException
+	{
+		String clientId = req.getParameter( "client" );
+		if( clientId == null || clientId.isEmpty() || req.getParameter( "disconnect" ) == null )
+		{
+			resp.sendError( HttpServletResponse.SC_BAD_REQUEST, "Missing client or disconnect parameter" );
+			return;
+		}
+
+		// an existing http session only, a new one cannot own a hub session
+		HttpSession session = req.getSession( false );
+		if( session != null )
+			getPushHub().disconnect( getSessionId( req, clientId ) );
+	}
+}
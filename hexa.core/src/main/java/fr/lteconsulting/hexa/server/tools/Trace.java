@@ -1,23 +1,23 @@
 package fr.lteconsulting.hexa.server.tools;
 
-import java.util.Stack;
+import java.util.ArrayDeque;
 
 public class Trace
 {
-	private static final ThreadLocal<Stack<Trace>> instances = new ThreadLocal<Stack<Trace>>();
+	private static final ThreadLocal<ArrayDeque<Trace>> instances = new ThreadLocal<ArrayDeque<Trace>>();
 
 	private final StringBuilder sb = new StringBuilder();
 
 	public static void push()
 	{
-		Stack<Trace> traces = ensureInstances();
+		ArrayDeque<Trace> traces = ensureInstances();
 
 		traces.push( new Trace() );
 	}
 
 	public static String pop()
 	{
-		Stack<Trace> traces = instances.get();
+		ArrayDeque<Trace> traces = instances.get();
 		if( traces == null || traces.isEmpty() )
 			return "(empty)";
 		Trace trace = traces.pop();
@@ -42,7 +42,7 @@ public class Trace
 
 	private final static Trace getInstance()
 	{
-		Stack<Trace> traces = ensureInstances();
+		ArrayDeque<Trace> traces = ensureInstances();
 
 		if( traces.isEmpty() )
 			traces.push( new Trace() );
@@ -52,12 +52,12 @@ public class Trace
 		return trace;
 	}
 
-	private static Stack<Trace> ensureInstances()
+	private static ArrayDeque<Trace> ensureInstances()
 	{
-		Stack<Trace> traces = instances.get();
+		ArrayDeque<Trace> traces = instances.get();
 		if( traces == null )
 		{
-			traces = new Stack<Trace>();
+			traces = new ArrayDeque<Trace>();
 			instances.set( traces );
 		}
 
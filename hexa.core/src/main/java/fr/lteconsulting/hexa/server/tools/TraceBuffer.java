@@ -0,0 +1,214 @@
+package fr.lteconsulting.hexa.server.tools;
+
+/**
+ * The trace of one request, obtained from {@link Tracing#startRequest(String)}.
+ * 
+ * The events are kept in a ring buffer, so that only the most recent ones are
+ * kept for long requests. Their messages are templates where each "{}" is
+ * replaced by an argument, the formatting only happens when the trace is
+ * exported. Like with slf4j, the placeholders without argument are kept and
+ * the arguments without placeholder are ignored.
+ * 
+ * A buffer can be used by several threads, like the ones running the calls of
+ * a request concurrently.
+ */
+public final class TraceBuffer
+{
+	public enum Level
+	{
+		OFF, ERROR, INFO, DEBUG
+	}
+
+	private static class Event
+	{
+		long time;
+		Level level;
+		String template;
+		int nbArgs;
+		Object arg1;
+		Object arg2;
+		Object arg3;
+		Throwable throwable;
+	}
+
+	private final String name;
+	private final Level level;
+	private final long startTime;
+	private final Event[] events;
+
+	// number of events recorded since the start, the last ones are in the
+	// ring
+	private int nbEvents;
+	private boolean hasErrors;
+
+	TraceBuffer( String name, Level level, int capacity )
+	{
+		this.name = name;
+		this.level = level;
+		this.startTime = System.nanoTime();
+		this.events = new Event[capacity];
+	}
+
+	public boolean isEnabled( Level level )
+	{
+		return level.ordinal() <= this.level.ordinal();
+	}
+
+	public void info( String template )
+	{
+		add( Level.INFO, template, 0, null, null, null, null );
+	}
+
+	public void info( String template, Object arg )
+	{
+		add( Level.INFO, template, 1, arg, null, null, null );
+	}
+
+	public void info( String template, Object arg1, Object arg2 )
+	{
+		add( Level.INFO, template, 2, arg1, arg2, null, null );
+	}
+
+	public void info( String template, Object arg1, Object arg2, Object arg3 )
+	{
+		add( Level.INFO, template, 3, arg1, arg2, arg3, null );
+	}
+
+	public void debug( String template )
+	{
+		add( Level.DEBUG, template, 0, null, null, null, null );
+	}
+
+	public void debug( String template, Object arg )
+	{
+		add( Level.DEBUG, template, 1, arg, null, null, null );
+	}
+
+	public void debug( String template, Object arg1, Object arg2 )
+	{
+		add( Level.DEBUG, template, 2, arg1, arg2, null, null );
+	}
+
+	public void debug( String template, Object arg1, Object arg2, Object arg3 )
+	{
+		add( Level.DEBUG, template, 3, arg1, arg2, arg3, null );
+	}
+
+	public void error( String template, Object arg, Throwable throwable )
+	{
+		add( Level.ERROR, template, 1, arg, null, null, throwable );
+	}
+
+	/**
+	 * Whether an error has been recorded
+	 */
+	public synchronized boolean hasErrors()
+	{
+		return hasErrors;
+	}
+
+	/**
+	 * Returns the nanoseconds elapsed since the start of the trace
+	 */
+	public long getElapsedTime()
+	{
+		return System.nanoTime() - startTime;
+	}
+
+	private void add( Level level, String template, int nbArgs, Object arg1, Object arg2, Object arg3, Throwable throwable )
+	{
+		if( !isEnabled( level ) )
+			return;
+
+		long time = System.nanoTime();
+
+		synchronized( this )
+		{
+			int index = nbEvents++ % events.length;
+			Event event = events[index];
+			if( event == null )
+				event = events[index] = new Event();
+
+			event.time = time;
+			event.level = level;
+			event.template = template;
+			event.nbArgs = nbArgs;
+			event.arg1 = arg1;
+			event.arg2 = arg2;
+			event.arg3 = arg3;
+			event.throwable = throwable;
+
+			if( level == Level.ERROR )
+				hasErrors = true;
+		}
+	}
+
+	/**
+	 * Formats the trace, one line per event with its time in microseconds
+	 * since the start
+	 */
+	public synchronized String format()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append( name ).append( " (" ).append( getElapsedTime() / 1000 ).append( " us)\r\n" );
+
+		int first = Math.max( 0, nbEvents - events.length );
+		if( first > 0 )
+			sb.append( "  ... " ).append( first ).append( " events dropped\r\n" );
+
+		for( int i = first; i < nbEvents; i++ )
+		{
+			Event event = events[i % events.length];
+
+			sb.append( "  +" ).append( (event.time - startTime) / 1000 ).append( "us " ).append( event.level ).append( ' ' );
+			format( sb, event.template, event.nbArgs, event.arg1, event.arg2, event.arg3 );
+			sb.append( "\r\n" );
+
+			if( event.throwable != null )
+				sb.append( describe( event.throwable ) );
+		}
+
+		return sb.toString();
+	}
+
+	@Override
+	public String toString()
+	{
+		return format();
+	}
+
+	private static void format( StringBuilder sb, String template, int nbArgs, Object arg1, Object arg2, Object arg3 )
+	{
+		int argNo = 0;
+		int start = 0;
+		int index;
+		while( argNo < nbArgs && (index = template.indexOf( "{}", start )) >= 0 )
+		{
+			sb.append( template, start, index );
+			sb.append( argNo == 0 ? arg1 : argNo == 1 ? arg2 : arg3 );
+			argNo++;
+			start = index + 2;
+		}
+		sb.append( template, start, template.length() );
+	}
+
+	/**
+	 * Describes an exception, its message and its stack trace
+	 */
+	public static String describe( Throwable exception )
+	{
+		StringBuilder sb = new StringBuilder();
+
+		for( Throwable t = exception; t != null; t = t.getCause() == t ? null : t.getCause() )
+		{
+			sb.append( "Throwable " + t.getClass().getName() + "\r\n" );
+			sb.append( "   message: " + t.getMessage() + "\r\n" );
+			sb.append( "   stack trace:" + "\r\n" );
+
+			for( StackTraceElement trace : t.getStackTrace() )
+				sb.append( "       - " + trace.getFileName() + ", line " + trace.getLineNumber() + " in " + trace.getClassName() + "." + trace.getMethodName() + "\r\n" );
+		}
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,110 @@
+package fr.lteconsulting.hexa.server.tools;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+/**
+ * Configuration of the request tracing.
+ * 
+ * Tracing is off by default. When it is on, one request out of
+ * {@link #setSampling(int)} is traced with a {@link TraceBuffer}, the other
+ * ones get a <code>null</code> trace and cost nothing. The traces of the
+ * requests slower than {@link #setSlowThreshold(long)}, or which recorded
+ * errors, are given to the exporter. By default, they are logged.
+ */
+public final class Tracing
+{
+	/**
+	 * Receives the traces selected for export
+	 */
+	public interface Exporter
+	{
+		void export( TraceBuffer trace );
+	}
+
+	private static final Logger log = LoggerFactory.getLogger();
+
+	private static volatile TraceBuffer.Level level = TraceBuffer.Level.OFF;
+	private static volatile int sampling = 1;
+	private static volatile int capacity = 256;
+	private static volatile long slowThreshold = 1000L * 1000 * 1000;
+	private static volatile Exporter exporter = new Exporter()
+	{
+		@Override
+		public void export( TraceBuffer trace )
+		{
+			log.info( trace.format() );
+		}
+	};
+
+	private static final AtomicLong nbRequests = new AtomicLong();
+
+	private Tracing()
+	{
+	}
+
+	/**
+	 * Returns the trace of a new request, or <code>null</code> if it should
+	 * not be traced
+	 */
+	public static TraceBuffer startRequest( String name )
+	{
+		TraceBuffer.Level l = level;
+		if( l == TraceBuffer.Level.OFF )
+			return null;
+
+		int s = sampling;
+		if( s > 1 && nbRequests.getAndIncrement() % s != 0 )
+			return null;
+
+		return new TraceBuffer( name, l, capacity );
+	}
+
+	/**
+	 * Ends the trace of a request, exporting it if it was slow or had errors
+	 */
+	public static void endRequest( TraceBuffer trace )
+	{
+		if( trace == null )
+			return;
+
+		if( trace.hasErrors() || trace.getElapsedTime() >= slowThreshold )
+			exporter.export( trace );
+	}
+
+	public static void setLevel( TraceBuffer.Level level )
+	{
+		Tracing.level = level;
+	}
+
+	/**
+	 * Traces one request out of <code>sampling</code>
+	 */
+	public static void setSampling( int sampling )
+	{
+		Tracing.sampling = Math.max( 1, sampling );
+	}
+
+	/**
+	 * Sets the maximum number of events kept by a trace
+	 */
+	public static void setCapacity( int capacity )
+	{
+		Tracing.capacity = Math.max( 1, capacity );
+	}
+
+	/**
+	 * Sets the duration, in nanoseconds, from which a request trace is
+	 * exported
+	 */
+	public static void setSlowThreshold( long nanos )
+	{
+		Tracing.slowThreshold = nanos;
+	}
+
+	public static void setExporter( Exporter exporter )
+	{
+		Tracing.exporter = exporter;
+	}
+}
@@ -0,0 +1,125 @@
+package fr.lteconsulting.hexa.revrpc.server;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * The hub queues the calls of the services for the subscribed sessions,
+ * with the overflow policy of their interface
+ */
+public class PushHubTest extends TestCase
+{
+	public interface Status
+	{
+		void setLoad( Integer load );
+	}
+
+	public interface News
+	{
+		void publish( String text );
+	}
+
+	private PushHub hub;
+	private Status status;
+	private News news;
+
+	@Override
+	protected void setUp()
+	{
+		hub = new PushHub();
+
+		RevRPCServices services = new RevRPCServices( hub );
+		status = services.queryInterface( "feed", Status.class );
+		news = services.queryInterface( "feed", News.class );
+	}
+
+	public void testCallsGoToTheSubscribedSessions() throws InterruptedException
+	{
+		hub.connect( "subscribed", Arrays.asList( "feed" ) );
+		hub.connect( "other", Arrays.asList( "other" ) );
+
+		news.publish( "hello" );
+
+		assertEquals( 1, hub.getNbPublished() );
+		assertEquals( 1, hub.getNbQueued() );
+		assertEquals( 1, hub.poll( "subscribed", 0 ).size() );
+		assertTrue( hub.poll( "other", 0 ).isEmpty() );
+	}
+
+	public void testUnknownClientPollsNull() throws InterruptedException
+	{
+		assertNull( hub.poll( "unknown", 0 ) );
+	}
+
+	public void testInterfacePolicyApplies() throws InterruptedException
+	{
+		hub.setOverflowPolicy( Status.class, OverflowPolicy.MERGE );
+		hub.connect( "c", Arrays.asList( "feed" ) );
+
+		status.setLoad( 1 );
+		news.publish( "hello" );
+		status.setLoad( 2 );
+
+		assertEquals( 1, hub.getSession( "c" ).getNbMerged() );
+		List<String> calls = hub.poll( "c", 0 );
+		assertEquals( 2, calls.size() );
+		assertTrue( calls.get( 0 ).contains( "setLoad" ) );
+		assertTrue( calls.get( 0 ).contains( "2" ) );
+		assertTrue( calls.get( 1 ).contains( "hello" ) );
+	}
+
+	public void testFullQueueDropsWithTheDefaultPolicy() throws InterruptedException
+	{
+		hub.setQueueCapacity( 2 );
+		hub.connect( "c", Arrays.asList( "feed" ) );
+
+		news.publish( "first" );
+		news.publish( "second" );
+		news.publish( "third" );
+
+		assertEquals( 3, hub.getNbQueued() );
+		assertEquals( 1, hub.getNbDropped() );
+		List<String> calls = hub.poll( "c", 0 );
+		assertEquals( 2, calls.size() );
+		assertTrue( calls.get( 0 ).contains( "second" ) );
+		assertTrue( calls.get( 1 ).contains( "third" ) );
+	}
+
+	public void testDisconnectCountsTheQueuedCallsAsDropped()
+	{
+		hub.connect( "c", Arrays.asList( "feed" ) );
+
+		news.publish( "first" );
+		news.publish( "second" );
+		hub.disconnect( "c" );
+
+		assertEquals( 2, hub.getNbDropped() );
+		assertEquals( 0, hub.getNbSessions() );
+	}
+
+	public void testIdleSessionsAreRemoved() throws InterruptedException
+	{
+		hub.setSessionTimeout( 50 );
+		hub.connect( "c", Collections.<String> emptyList() );
+
+		Thread.sleep( 100 );
+		hub.removeIdleSessions();
+
+		assertEquals( 0, hub.getNbSessions() );
+	}
+
+	public void testQueueCapacityMustBePositive()
+	{
+		try
+		{
+			hub.setQueueCapacity( 0 );
+			fail();
+		}
+		catch( IllegalArgumentException e )
+		{
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package fr.lteconsulting.hexa.revrpc.server;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.TestCase;
+
+/**
+ * The queue of a session applies the overflow policies and counts what it
+ * drops
+ */
+public class PushSessionTest extends TestCase
+{
+	private AtomicLong hubDropped = new AtomicLong();
+
+	public void testDropNewestKeepsTheQueuedCalls() throws InterruptedException
+	{
+		PushSession session = new PushSession( "c", 2, hubDropped );
+
+		assertTrue( session.offer( new PushSession.Message( "a", null ), OverflowPolicy.DROP_NEWEST ) );
+		assertTrue( session.offer( new PushSession.Message( "b", null ), OverflowPolicy.DROP_NEWEST ) );
+		assertFalse( session.offer( new PushSession.Message( "c", null ), OverflowPolicy.DROP_NEWEST ) );
+
+		assertEquals( 1, session.getNbDropped() );
+		assertEquals( 1, hubDropped.get() );
+		assertEquals( Arrays.asList( "a", "b" ), session.poll( 0, 0, 10 ) );
+	}
+
+	public void testDropOldestMakesRoom() throws InterruptedException
+	{
+		PushSession session = new PushSession( "c", 2, hubDropped );
+
+		assertTrue( session.offer( new PushSession.Message( "a", null ), OverflowPolicy.DROP_OLDEST ) );
+		assertTrue( session.offer( new PushSession.Message( "b", null ), OverflowPolicy.DROP_OLDEST ) );
+		assertTrue( session.offer( new PushSession.Message( "c", null ), OverflowPolicy.DROP_OLDEST ) );
+
+		assertEquals( 1, session.getNbDropped() );
+		assertEquals( 1, hubDropped.get() );
+		assertEquals( Arrays.asList( "b", "c" ), session.poll( 0, 0, 10 ) );
+	}
+
+	public void testMergeReplacesTheQueuedCallInPlace() throws InterruptedException
+	{
+		PushSession session = new PushSession( "c", 10, hubDropped );
+
+		session.offer( new PushSession.Message( "load 1", "load" ), OverflowPolicy.MERGE );
+		session.offer( new PushSession.Message( "news", null ), OverflowPolicy.DROP_OLDEST );
+		assertTrue( session.offer( new PushSession.Message( "load 2", "load" ), OverflowPolicy.MERGE ) );
+
+		assertEquals( 1, session.getNbMerged() );
+		assertEquals( 0, session.getNbDropped() );
+		assertEquals( Arrays.asList( "load 2", "news" ), session.poll( 0, 0, 10 ) );
+	}
+
+	public void testMergeDropsTheOldestWhenFull() throws InterruptedException
+	{
+		PushSession session = new PushSession( "c", 2, hubDropped );
+
+		session.offer( new PushSession.Message( "a", "a" ), OverflowPolicy.MERGE );
+		session.offer( new PushSession.Message( "b", "b" ), OverflowPolicy.MERGE );
+		session.offer( new PushSession.Message( "c", "c" ), OverflowPolicy.MERGE );
+
+		// the dropped call cannot be merged anymore
+		session.offer( new PushSession.Message( "a2", "a" ), OverflowPolicy.MERGE );
+
+		assertEquals( 0, session.getNbMerged() );
+		assertEquals( 2, session.getNbDropped() );
+		assertEquals( Arrays.asList( "c", "a2" ), session.poll( 0, 0, 10 ) );
+	}
+
+	public void testPolledCallCannotBeMerged() throws InterruptedException
+	{
+		PushSession session = new PushSession( "c", 10, hubDropped );
+
+		session.offer( new PushSession.Message( "load 1", "load" ), OverflowPolicy.MERGE );
+		assertEquals( Arrays.asList( "load 1" ), session.poll( 0, 0, 10 ) );
+
+		session.offer( new PushSession.Message( "load 2", "load" ), OverflowPolicy.MERGE );
+		assertEquals( 0, session.getNbMerged() );
+		assertEquals( Arrays.asList( "load 2" ), session.poll( 0, 0, 10 ) );
+	}
+
+	public void testCloseCountsTheQueuedCallsAsDropped() throws InterruptedException
+	{
+		PushSession session = new PushSession( "c", 10, hubDropped );
+
+		session.offer( new PushSession.Message( "a", null ), OverflowPolicy.DROP_OLDEST );
+		session.offer( new PushSession.Message( "b", null ), OverflowPolicy.DROP_OLDEST );
+		session.close();
+		assertEquals( 2, hubDropped.get() );
+
+		// closing again changes nothing
+		session.close();
+		assertEquals( 2, hubDropped.get() );
+
+		assertFalse( session.offer( new PushSession.Message( "c", null ), OverflowPolicy.DROP_OLDEST ) );
+		assertEquals( 3, hubDropped.get() );
+
+		long start = System.currentTimeMillis();
+		assertTrue( session.poll( 5000, 0, 10 ).isEmpty() );
+		assertTrue( System.currentTimeMillis() - start < 1000 );
+	}
+
+	public void testPollTimesOut() throws InterruptedException
+	{
+		PushSession session = new PushSession( "c", 10, hubDropped );
+
+		long start = System.currentTimeMillis();
+		List<String> calls = session.poll( 100, 0, 10 );
+
+		assertTrue( calls.isEmpty() );
+		assertTrue( System.currentTimeMillis() - start >= 100 );
+	}
+
+	public void testPollReturnsWhenACallIsQueued() throws InterruptedException
+	{
+		final PushSession session = new PushSession( "c", 10, hubDropped );
+
+		Thread publisher = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					Thread.sleep( 50 );
+				}
+				catch( InterruptedException e )
+				{
+				}
+				session.offer( new PushSession.Message( "a", null ), OverflowPolicy.DROP_OLDEST );
+			}
+		};
+		publisher.start();
+
+		long start = System.currentTimeMillis();
+		assertEquals( Arrays.asList( "a" ), session.poll( 5000, 0, 10 ) );
+		assertTrue( System.currentTimeMillis() - start < 5000 );
+
+		publisher.join();
+	}
+
+	public void testPollReturnsAtMostMaxMessages() throws InterruptedException
+	{
+		PushSession session = new PushSession( "c", 10, hubDropped );
+
+		for( String json : Arrays.asList( "a", "b", "c" ) )
+			session.offer( new PushSession.Message( json, null ), OverflowPolicy.DROP_OLDEST );
+
+		assertEquals( Arrays.asList( "a", "b" ), session.poll( 0, 0, 2 ) );
+		assertEquals( 1, session.getQueueSize() );
+		assertEquals( Arrays.asList( "c" ), session.poll( 0, 0, 2 ) );
+	}
+}
@@ -0,0 +1,95 @@
+package fr.lteconsulting.hexa.server.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TraceBufferTest extends TestCase
+{
+	// the events of a formatted trace, without their time
+	static List<String> events( TraceBuffer trace )
+	{
+		List<String> events = new ArrayList<String>();
+		for( String line : trace.format().split( "\r\n" ) )
+		{
+			if( line.startsWith( "  +" ) )
+				events.add( line.substring( line.indexOf( ' ', 3 ) + 1 ) );
+		}
+		return events;
+	}
+
+	public void testLevelGate()
+	{
+		TraceBuffer trace = new TraceBuffer( "request", TraceBuffer.Level.INFO, 10 );
+		assertTrue( trace.isEnabled( TraceBuffer.Level.ERROR ) );
+		assertTrue( trace.isEnabled( TraceBuffer.Level.INFO ) );
+		assertFalse( trace.isEnabled( TraceBuffer.Level.DEBUG ) );
+
+		trace.debug( "hidden {}", 1 );
+		trace.info( "shown {}", 2 );
+		trace.error( "failed {}", 3, new IllegalStateException( "boom" ) );
+
+		List<String> events = events( trace );
+		assertEquals( 2, events.size() );
+		assertEquals( "INFO shown 2", events.get( 0 ) );
+		assertEquals( "ERROR failed 3", events.get( 1 ) );
+		assertTrue( trace.hasErrors() );
+		assertTrue( trace.format().contains( "message: boom" ) );
+	}
+
+	public void testNoErrors()
+	{
+		TraceBuffer trace = new TraceBuffer( "request", TraceBuffer.Level.DEBUG, 10 );
+		trace.info( "a" );
+		trace.debug( "b" );
+		assertFalse( trace.hasErrors() );
+		assertEquals( 2, events( trace ).size() );
+	}
+
+	public void testWraparound()
+	{
+		TraceBuffer trace = new TraceBuffer( "request", TraceBuffer.Level.INFO, 3 );
+		for( int i = 0; i < 3; i++ )
+			trace.info( "event {}", i );
+		assertFalse( trace.format().contains( "dropped" ) );
+
+		for( int i = 3; i < 8; i++ )
+			trace.info( "event {}", i );
+
+		// the most recent events, oldest first
+		List<String> events = events( trace );
+		assertEquals( 3, events.size() );
+		assertEquals( "INFO event 5", events.get( 0 ) );
+		assertEquals( "INFO event 6", events.get( 1 ) );
+		assertEquals( "INFO event 7", events.get( 2 ) );
+		assertTrue( trace.format().contains( "... 5 events dropped" ) );
+	}
+
+	public void testFormatting()
+	{
+		TraceBuffer trace = new TraceBuffer( "request", TraceBuffer.Level.DEBUG, 10 );
+		trace.info( "no placeholder" );
+		trace.info( "{} and {} and {}", "a", "b", "c" );
+		trace.info( "null {}", (Object) null );
+
+		// fewer arguments than placeholders
+		trace.info( "{} and {} and {}", "a" );
+		trace.debug( "{}, {}, {}, {}", 1, 2, 3 );
+		trace.info( "{}" );
+
+		// more arguments than placeholders
+		trace.info( "only {}", "a", "b" );
+		trace.debug( "none", 1, 2, 3 );
+
+		List<String> events = events( trace );
+		assertEquals( "INFO no placeholder", events.get( 0 ) );
+		assertEquals( "INFO a and b and c", events.get( 1 ) );
+		assertEquals( "INFO null null", events.get( 2 ) );
+		assertEquals( "INFO a and {} and {}", events.get( 3 ) );
+		assertEquals( "DEBUG 1, 2, 3, {}", events.get( 4 ) );
+		assertEquals( "INFO {}", events.get( 5 ) );
+		assertEquals( "INFO only a", events.get( 6 ) );
+		assertEquals( "DEBUG none", events.get( 7 ) );
+	}
+}
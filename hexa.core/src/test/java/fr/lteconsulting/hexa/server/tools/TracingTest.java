@@ -0,0 +1,113 @@
+package fr.lteconsulting.hexa.server.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TracingTest extends TestCase
+{
+	private final List<TraceBuffer> exported = new ArrayList<TraceBuffer>();
+
+	@Override
+	protected void setUp()
+	{
+		Tracing.setExporter( new Tracing.Exporter()
+		{
+			@Override
+			public void export( TraceBuffer trace )
+			{
+				exported.add( trace );
+			}
+		} );
+		Tracing.setLevel( TraceBuffer.Level.INFO );
+		Tracing.setSampling( 1 );
+		Tracing.setCapacity( 256 );
+		Tracing.setSlowThreshold( 60L * 1000 * 1000 * 1000 );
+	}
+
+	@Override
+	protected void tearDown()
+	{
+		Tracing.setLevel( TraceBuffer.Level.OFF );
+		Tracing.setSampling( 1 );
+		Tracing.setCapacity( 256 );
+		Tracing.setSlowThreshold( 1000L * 1000 * 1000 );
+	}
+
+	public void testOff()
+	{
+		Tracing.setLevel( TraceBuffer.Level.OFF );
+		assertNull( Tracing.startRequest( "request" ) );
+
+		// a request without trace is ignored
+		Tracing.endRequest( null );
+		assertTrue( exported.isEmpty() );
+	}
+
+	public void testLevel()
+	{
+		Tracing.setLevel( TraceBuffer.Level.ERROR );
+		TraceBuffer trace = Tracing.startRequest( "request" );
+		assertTrue( trace.isEnabled( TraceBuffer.Level.ERROR ) );
+		assertFalse( trace.isEnabled( TraceBuffer.Level.INFO ) );
+	}
+
+	public void testSampling()
+	{
+		Tracing.setSampling( 3 );
+
+		int nbTraced = 0;
+		for( int i = 0; i < 30; i++ )
+		{
+			if( Tracing.startRequest( "request " + i ) != null )
+				nbTraced++;
+		}
+		assertEquals( 10, nbTraced );
+
+		Tracing.setSampling( 0 );
+		for( int i = 0; i < 5; i++ )
+			assertNotNull( Tracing.startRequest( "request " + i ) );
+	}
+
+	public void testCapacity()
+	{
+		Tracing.setCapacity( 2 );
+		TraceBuffer trace = Tracing.startRequest( "request" );
+		for( int i = 0; i < 5; i++ )
+			trace.info( "event {}", i );
+		assertEquals( 2, TraceBufferTest.events( trace ).size() );
+	}
+
+	public void testFastRequestsAreNotExported()
+	{
+		TraceBuffer trace = Tracing.startRequest( "request" );
+		trace.info( "fine" );
+		Tracing.endRequest( trace );
+		assertTrue( exported.isEmpty() );
+	}
+
+	public void testErrorExport()
+	{
+		TraceBuffer trace = Tracing.startRequest( "request" );
+		trace.error( "failed {}", 1, new RuntimeException() );
+		Tracing.endRequest( trace );
+		assertEquals( 1, exported.size() );
+		assertSame( trace, exported.get( 0 ) );
+	}
+
+	public void testSlowExport() throws InterruptedException
+	{
+		Tracing.setSlowThreshold( 20L * 1000 * 1000 );
+
+		TraceBuffer fast = Tracing.startRequest( "fast" );
+		Tracing.endRequest( fast );
+
+		TraceBuffer slow = Tracing.startRequest( "slow" );
+		Thread.sleep( 30 );
+		Tracing.endRequest( slow );
+
+		assertEquals( 1, exported.size() );
+		assertSame( slow, exported.get( 0 ) );
+	}
+}
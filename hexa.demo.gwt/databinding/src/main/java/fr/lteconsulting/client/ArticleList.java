@@ -7,6 +7,7 @@ import com.google.gwt.dom.client.AnchorElement;
 import com.google.gwt.dom.client.DivElement;
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Node;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.uibinder.client.UiBinder;
@@ -81,20 +82,40 @@ public class ArticleList extends Composite {
 		articles.addCallbackAndSendAll(new Action1<List<Change>>() {
 			@Override
 			public void exec(List<Change> param) {
+				boolean moved = false;
 				for (Change c : param) {
 					// Each change has a type and conveys the item that was
 					// concerned
 					switch (c.getType()) {
 					case ADD:
-						listBox.addItem(c.<Article> getItem().getName(), c.<Article> getItem());
+						for (Article article : c.<Article> getItems())
+							listBox.addItem(article.getName(), article);
 						break;
 					case REMOVE:
-						listBox.removeItem(c.<Article> getItem());
+						for (Article article : c.<Article> getItems())
+							listBox.removeItem(article);
 						break;
+					case MOVE:
+						moved = true;
+						break;
+					}
+				}
+
+				/**
+				 * The list box cannot insert an item at an index, so after a
+				 * move (a sort for example) its items are added again in the
+				 * order of the list
+				 */
+				if (moved) {
+					Article selected = listBox.getValue();
+					for (Article article : articles) {
+						listBox.removeItem(article);
+						listBox.addItem(article.getName(), article);
 					}
+					listBox.setValue(selected, false);
 				}
 			}
-		});
+		}, true);
 
 		/**
 		 * Bind the selected article to the list box.
@@ -117,22 +138,35 @@ public class ArticleList extends Composite {
 					// concerned
 					switch (c.getType()) {
 					case ADD:
-						AnchorElement anchor = Document.get().createAnchorElement();
-						anchor.setHref("#");
-						anchor.addClassName(BootstrapHexaCss.CSS.listGroupItem());
-						Binder.bind(c.getItem(), "name").mode(Mode.OneWay).to(anchor, "innerText");
-						listDiv.appendChild(anchor);
+						for (Article article : c.<Article> getItems()) {
+							AnchorElement anchor = Document.get().createAnchorElement();
+							anchor.setHref("#");
+							anchor.addClassName(BootstrapHexaCss.CSS.listGroupItem());
+							Binder.bind(article, "name").mode(Mode.OneWay).to(anchor, "innerText");
+							listDiv.appendChild(anchor);
+						}
 
 						break;
 
 					case REMOVE:
-						listDiv.getChild(c.getIndex()).removeFromParent();
+						for (int i = 0; i < c.getCount(); i++)
+							listDiv.getChild(c.getIndex()).removeFromParent();
+
+						break;
+
+					case MOVE:
+						Node moved = listDiv.getChild(c.getFromIndex());
+						moved.removeFromParent();
+						if (c.getIndex() < listDiv.getChildCount())
+							listDiv.insertBefore(moved, listDiv.getChild(c.getIndex()));
+						else
+							listDiv.appendChild(moved);
 
 						break;
 					}
 				}
 			}
-		});
+		}, true);
 	}
 
 	private void registerSelectArticleClickAction() {
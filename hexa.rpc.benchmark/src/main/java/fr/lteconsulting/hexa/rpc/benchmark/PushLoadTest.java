@@ -0,0 +1,311 @@
+package fr.lteconsulting.hexa.rpc.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import fr.lteconsulting.hexa.revrpc.server.OverflowPolicy;
+import fr.lteconsulting.hexa.revrpc.server.PushHub;
+import fr.lteconsulting.hexa.revrpc.server.PushSession;
+import fr.lteconsulting.hexa.revrpc.server.RevRPCServices;
+
+/**
+ * Load test of the revrpc push channel: thousands of simulated clients long
+ * poll a {@link PushHub} over local sockets while calls are published at a
+ * fixed rate.
+ *
+ * The hub is served like the RevRPCPushServlet does, one blocked thread per
+ * waiting poll. A tenth of the clients are slow and pause between their
+ * polls, so that their queues fill up and the overflow policies apply: the
+ * Status calls merge and the News calls drop the oldest ones.
+ *
+ * Arguments: number of clients (2000), duration in seconds (10), published
+ * calls per second (200), queue capacity (32), poll linger time in
+ * milliseconds (0).
+ */
+public class PushLoadTest
+{
+	private static final String SERVICE = "feed";
+
+	public interface Status
+	{
+		void setLoad( Integer load, String sentAt );
+	}
+
+	public interface News
+	{
+		void publish( String text, String sentAt );
+	}
+
+	// latency buckets of one millisecond, the last one counts the others
+	private static final int NB_BUCKETS = 2000;
+
+	private static final AtomicLong nbPolls = new AtomicLong();
+	private static final AtomicLong nbReceived = new AtomicLong();
+	private static final AtomicLong nbErrors = new AtomicLong();
+	private static final long[] latencies = new long[NB_BUCKETS];
+
+	private static volatile boolean running = true;
+
+	public static void main( String[] args ) throws Exception
+	{
+		int nbClients = args.length > 0 ? Integer.parseInt( args[0] ) : 2000;
+		int duration = args.length > 1 ? Integer.parseInt( args[1] ) : 10;
+		int rate = args.length > 2 ? Integer.parseInt( args[2] ) : 200;
+		int capacity = args.length > 3 ? Integer.parseInt( args[3] ) : 32;
+		int lingerTime = args.length > 4 ? Integer.parseInt( args[4] ) : 0;
+
+		// keeps a connection per client between the polls
+		System.setProperty( "http.maxConnections", String.valueOf( nbClients ) );
+
+		final PushHub hub = new PushHub();
+		hub.setQueueCapacity( capacity );
+		hub.setPollLingerTime( lingerTime );
+		hub.setOverflowPolicy( Status.class, OverflowPolicy.MERGE );
+		hub.setOverflowPolicy( News.class, OverflowPolicy.DROP_OLDEST );
+
+		HttpServer server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0 ), 4096 );
+		ExecutorService serverThreads = Executors.newCachedThreadPool();
+		server.setExecutor( serverThreads );
+		server.createContext( "/push", new HttpHandler()
+		{
+			@Override
+			public void handle( HttpExchange exchange ) throws IOException
+			{
+				handlePoll( hub, exchange );
+			}
+		} );
+		server.start();
+
+		String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/push";
+		System.out.println( "Serving on " + url + ", starting " + nbClients + " clients" );
+
+		List<Thread> clients = new ArrayList<>();
+		for( int i = 0; i < nbClients; i++ )
+		{
+			final boolean slow = i % 10 == 0;
+			final String clientUrl = url + "?client=c" + i + "&services=" + SERVICE;
+			Thread client = new Thread( null, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					runClient( clientUrl, slow );
+				}
+			}, "client-" + i, 256 * 1024 );
+			client.setDaemon( true );
+			client.start();
+			clients.add( client );
+		}
+
+		// lets the clients connect
+		while( hub.getNbSessions() < nbClients )
+			Thread.sleep( 10 );
+
+		RevRPCServices services = new RevRPCServices( hub );
+		Status status = services.queryInterface( SERVICE, Status.class );
+		News news = services.queryInterface( SERVICE, News.class );
+
+		long start = System.nanoTime();
+		long end = start + duration * 1000000000L;
+		long nbPublished = 0;
+		while( System.nanoTime() < end )
+		{
+			long due = start + nbPublished * 1000000000L / rate;
+			long wait = due - System.nanoTime();
+			if( wait > 0 )
+				Thread.sleep( wait / 1000000, (int) (wait % 1000000) );
+
+			String sentAt = String.valueOf( System.nanoTime() );
+			if( nbPublished % 2 == 0 )
+				status.setLoad( (int) (nbPublished % 100), sentAt );
+			else
+				news.publish( "News \"" + nbPublished + "\"", sentAt );
+			nbPublished++;
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		// lets the clients receive the last calls
+		Thread.sleep( 1000 );
+		running = false;
+
+		// the clients add their latencies when they stop, after their last poll
+		long deadline = System.currentTimeMillis() + 10000;
+		for( Thread client : clients )
+			client.join( Math.max( 1, deadline - System.currentTimeMillis() ) );
+
+		long nbMerged = 0;
+		long maxQueueSize = 0;
+		for( int i = 0; i < nbClients; i++ )
+		{
+			PushSession session = hub.getSession( "c" + i );
+			if( session != null )
+			{
+				nbMerged += session.getNbMerged();
+				maxQueueSize = Math.max( maxQueueSize, session.getQueueSize() );
+			}
+		}
+
+		System.out.println();
+		System.out.println( "published      " + hub.getNbPublished() + " calls in " + format( elapsed ) + " s (" + perSecond( hub.getNbPublished(), elapsed ) + "/s)" );
+		System.out.println( "fan-out        " + hub.getNbQueued() + " queued, " + nbMerged + " merged, " + hub.getNbDropped() + " dropped" );
+		System.out.println( "received       " + nbReceived.get() + " calls (" + perSecond( nbReceived.get(), elapsed ) + "/s) in " + nbPolls.get() + " polls, " + nbErrors.get() + " errors" );
+		System.out.println( "left in queues max " + maxQueueSize );
+		System.out.println( "latency        p50 " + percentile( 0.5 ) + " ms, p99 " + percentile( 0.99 ) + " ms, p99.9 " + percentile( 0.999 ) + " ms, max " + maxLatency() + " ms" );
+
+		server.stop( 0 );
+		serverThreads.shutdownNow();
+	}
+
+	// the same as RevRPCPushServlet.doGet
+	private static void handlePoll( PushHub hub, HttpExchange exchange ) throws IOException
+	{
+		Map<String, String> params = new HashMap<>();
+		for( String param : exchange.getRequestURI().getRawQuery().split( "&" ) )
+		{
+			int eq = param.indexOf( '=' );
+			params.put( param.substring( 0, eq ), URLDecoder.decode( param.substring( eq + 1 ), "UTF-8" ) );
+		}
+
+		String clientId = params.get( "client" );
+		hub.connect( clientId, Arrays.asList( params.get( "services" ).split( "," ) ) );
+
+		List<String> calls;
+		try
+		{
+			calls = hub.poll( clientId, 5000 );
+		}
+		catch( InterruptedException e )
+		{
+			calls = null;
+		}
+
+		byte[] body = (calls == null ? "[]" : PushHub.toJSONArray( calls )).getBytes( StandardCharsets.UTF_8 );
+		exchange.getResponseHeaders().add( "Content-Type", "application/json" );
+		exchange.sendResponseHeaders( 200, body.length );
+		try( OutputStream output = exchange.getResponseBody() )
+		{
+			output.write( body );
+		}
+	}
+
+	private static void runClient( String url, boolean slow )
+	{
+		int[] clientLatencies = new int[NB_BUCKETS];
+		JsonParser parser = new JsonParser();
+
+		while( running )
+		{
+			try
+			{
+				HttpURLConnection connection = (HttpURLConnection) new URL( url ).openConnection();
+				connection.setReadTimeout( 30000 );
+				String text;
+				try( InputStream input = connection.getInputStream() )
+				{
+					text = read( input );
+				}
+				nbPolls.incrementAndGet();
+
+				long now = System.nanoTime();
+				for( JsonElement call : parser.parse( new JsonReader( new StringReader( text ) ) ).getAsJsonArray() )
+				{
+					JsonObject value = call.getAsJsonObject().getAsJsonObject( "value" );
+					// both methods have the sending time as second argument
+					JsonObject sentAt = value.getAsJsonArray( "args" ).get( 1 ).getAsJsonObject();
+					long latency = (now - Long.parseLong( sentAt.get( "value" ).getAsString() )) / 1000000;
+					clientLatencies[(int) Math.min( latency, NB_BUCKETS - 1 )]++;
+					nbReceived.incrementAndGet();
+				}
+
+				if( slow )
+					Thread.sleep( 500 );
+			}
+			catch( Exception e )
+			{
+				if( running )
+					nbErrors.incrementAndGet();
+			}
+		}
+
+		synchronized( latencies )
+		{
+			for( int i = 0; i < NB_BUCKETS; i++ )
+				latencies[i] += clientLatencies[i];
+		}
+	}
+
+	private static String read( InputStream input ) throws IOException
+	{
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int n;
+		while( (n = input.read( buffer )) > 0 )
+			output.write( buffer, 0, n );
+		return new String( output.toByteArray(), StandardCharsets.UTF_8 );
+	}
+
+	// one decimal
+	private static String format( double value )
+	{
+		return String.valueOf( Math.round( value * 10 ) / 10.0 );
+	}
+
+	private static long perSecond( long count, double elapsed )
+	{
+		return Math.round( count / elapsed );
+	}
+
+	private static long percentile( double p )
+	{
+		synchronized( latencies )
+		{
+			long total = 0;
+			for( long count : latencies )
+				total += count;
+
+			long seen = 0;
+			for( int i = 0; i < NB_BUCKETS; i++ )
+			{
+				seen += latencies[i];
+				if( seen > 0 && seen >= p * total )
+					return i;
+			}
+			return 0;
+		}
+	}
+
+	private static String maxLatency()
+	{
+		synchronized( latencies )
+		{
+			for( int i = NB_BUCKETS - 1; i >= 0; i-- )
+				if( latencies[i] > 0 )
+					return i == NB_BUCKETS - 1 ? ">" + i : String.valueOf( i );
+			return "0";
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package fr.lteconsulting.hexa.rpc.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import fr.lteconsulting.hexa.client.comm.DataProxy;
+import fr.lteconsulting.hexa.client.comm.FieldName;
+import fr.lteconsulting.hexa.client.comm.GenericJSO;
+import fr.lteconsulting.hexa.server.rpc.CompactResponseWriter;
+import fr.lteconsulting.hexa.server.rpc.HexaGWTServlet;
+
+/**
+ * Encoding of a 10k rows RPC result with the json and the compact encodings,
+ * and round trip through a parser. The compact decoding mirrors the
+ * javascript of the CompactResponseDecoder.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class RpcEncodingBenchmark
+{
+	private static final String[] CATEGORIES = { "Food", "Books", "Games", "Music", "Garden", "Tools", "Toys", "Sport" };
+	private static final String[] COUNTRIES = { "France", "Germany", "Italy", "Spain", "Portugal" };
+
+	public static class Row implements DataProxy
+	{
+		private final int id;
+
+		Row( int id )
+		{
+			this.id = id;
+		}
+
+		@Override
+		public void init( GenericJSO jso )
+		{
+		}
+
+		@FieldName( fieldName = "id" )
+		public int getId()
+		{
+			return id;
+		}
+
+		@FieldName( fieldName = "name" )
+		public String getName()
+		{
+			return "Product " + id;
+		}
+
+		@FieldName( fieldName = "category" )
+		public String getCategory()
+		{
+			return CATEGORIES[id % CATEGORIES.length];
+		}
+
+		@FieldName( fieldName = "country" )
+		public String getCountry()
+		{
+			return COUNTRIES[id % COUNTRIES.length];
+		}
+
+		@FieldName( fieldName = "price" )
+		public double getPrice()
+		{
+			return id * 0.25;
+		}
+	}
+
+	private List<Row> rows;
+	private String json;
+	private String compact;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		rows = new ArrayList<>();
+		for( int i = 0; i < 10000; i++ )
+			rows.add( new Row( i ) );
+
+		json = encodeJson();
+		compact = encodeCompact();
+	}
+
+	@Benchmark
+	public String encodeJson() throws IOException
+	{
+		StringWriter output = new StringWriter();
+		JsonWriter writer = new JsonWriter( output );
+		HexaGWTServlet.writeResponse( writer, rows );
+		writer.flush();
+		return output.toString();
+	}
+
+	@Benchmark
+	public String encodeCompact() throws IOException
+	{
+		StringWriter output = new StringWriter();
+		JsonWriter writer = new JsonWriter( output );
+		new CompactResponseWriter().write( writer, rows );
+		writer.flush();
+		return output.toString();
+	}
+
+	@Benchmark
+	public JsonElement decodeJson()
+	{
+		return parse( json );
+	}
+
+	@Benchmark
+	public JsonElement decodeCompact()
+	{
+		return new Decoder().decode( parse( compact ) );
+	}
+
+	@Benchmark
+	public JsonElement roundTripJson() throws IOException
+	{
+		return parse( encodeJson() );
+	}
+
+	@Benchmark
+	public JsonElement roundTripCompact() throws IOException
+	{
+		return new Decoder().decode( parse( encodeCompact() ) );
+	}
+
+	private static JsonElement parse( String text )
+	{
+		return new JsonParser().parse( new JsonReader( new StringReader( text ) ) );
+	}
+
+	private static class Decoder
+	{
+		final List<JsonArray> schemas = new ArrayList<>();
+		final List<JsonElement> strings = new ArrayList<>();
+
+		JsonElement decode( JsonElement value )
+		{
+			if( value.isJsonArray() )
+			{
+				JsonArray result = new JsonArray();
+				for( JsonElement e : value.getAsJsonArray() )
+					result.add( decode( e ) );
+				return result;
+			}
+
+			if( !value.isJsonObject() || !value.getAsJsonObject().has( "$t" ) )
+				return value;
+
+			JsonObject object = value.getAsJsonObject();
+			JsonElement t = object.get( "$t" );
+			JsonArray schema;
+			if( t.isJsonPrimitive() )
+			{
+				schema = schemas.get( t.getAsInt() );
+			}
+			else
+			{
+				schema = t.getAsJsonArray();
+				schemas.add( schema );
+			}
+
+			if( !object.has( "$r" ) )
+				return decodeRow( schema, object.getAsJsonArray( "$o" ) );
+
+			JsonArray result = new JsonArray();
+			for( JsonElement row : object.getAsJsonArray( "$r" ) )
+				result.add( decodeRow( schema, row.getAsJsonArray() ) );
+			return result;
+		}
+
+		JsonObject decodeRow( JsonArray schema, JsonArray row )
+		{
+			JsonArray names = schema.get( 0 ).getAsJsonArray();
+			JsonArray stringFields = schema.get( 1 ).getAsJsonArray();
+
+			JsonObject object = new JsonObject();
+			for( int c = 0; c < names.size(); c++ )
+			{
+				JsonElement v = row.get( c );
+				if( stringFields.get( c ).getAsInt() == 1 )
+				{
+					if( v.isJsonPrimitive() && v.getAsJsonPrimitive().isNumber() )
+						v = strings.get( v.getAsInt() );
+					else if( v.isJsonPrimitive() )
+						strings.add( v );
+					else if( v.isJsonArray() )
+						v = v.getAsJsonArray().get( 0 );
+				}
+				else
+				{
+					v = decode( v );
+				}
+				object.add( names.get( c ).getAsString(), v );
+			}
+			return object;
+		}
+	}
+}
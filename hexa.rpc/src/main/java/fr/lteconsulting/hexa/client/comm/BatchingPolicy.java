@@ -0,0 +1,119 @@
+package fr.lteconsulting.hexa.client.comm;
+
+/**
+ * Limits of the batches of calls sent by the {@link RPCProxy}.
+ *
+ * A batch is sent when it reaches the maximum number of calls or of bytes,
+ * or when the linger time is elapsed. The linger time adapts to the observed
+ * round trips: grouping the calls saves the network part of a round trip (the
+ * round trip time minus the processing time reported by the server), so the
+ * calls are kept a tenth of this time, up to the maximum linger time.
+ *
+ * With the default maximum linger time of 0, the calls made during the same
+ * event loop are sent together, without waiting.
+ */
+public class BatchingPolicy
+{
+	private int maxCalls = 20;
+	private int maxBytes = 64 * 1024;
+	private int maxLingerTime = 0;
+
+	// smoothed times in milliseconds, negative until measured
+	private double roundTripTime = -1;
+	private double serverTime = -1;
+
+	public int getMaxCalls()
+	{
+		return maxCalls;
+	}
+
+	public void setMaxCalls( int maxCalls )
+	{
+		this.maxCalls = maxCalls;
+	}
+
+	/**
+	 * The maximum size of the serialized calls of a batch. The call which
+	 * crosses this size is still added, so a big call is sent alone.
+	 */
+	public int getMaxBytes()
+	{
+		return maxBytes;
+	}
+
+	public void setMaxBytes( int maxBytes )
+	{
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * The maximum time in milliseconds a call waits for other calls to be
+	 * added to its batch
+	 */
+	public int getMaxLingerTime()
+	{
+		return maxLingerTime;
+	}
+
+	public void setMaxLingerTime( int maxLingerTime )
+	{
+		this.maxLingerTime = maxLingerTime;
+	}
+
+	/**
+	 * Records the times of a batch
+	 *
+	 * @param roundTripTime
+	 *            the time between the sending and the answer, in milliseconds
+	 * @param serverTime
+	 *            the processing time reported by the server, or a negative
+	 *            value if it is unknown
+	 */
+	public void recordRoundTrip( double roundTripTime, double serverTime )
+	{
+		this.roundTripTime = smooth( this.roundTripTime, roundTripTime );
+		if( serverTime >= 0 )
+			this.serverTime = smooth( this.serverTime, serverTime );
+	}
+
+	/**
+	 * The smoothed round trip time, or a negative value if none was recorded
+	 */
+	public double getRoundTripTime()
+	{
+		return roundTripTime;
+	}
+
+	/**
+	 * The smoothed server processing time, or a negative value if the server
+	 * does not report it
+	 */
+	public double getServerTime()
+	{
+		return serverTime;
+	}
+
+	/**
+	 * The time in milliseconds to wait for other calls before sending a batch
+	 */
+	public int getLingerTime()
+	{
+		if( maxLingerTime <= 0 )
+			return 0;
+
+		if( roundTripTime < 0 )
+			return maxLingerTime;
+
+		double networkTime = roundTripTime - Math.max( serverTime, 0 );
+
+		return (int) Math.max( 0, Math.min( maxLingerTime, networkTime / 10 ) );
+	}
+
+	private static double smooth( double average, double value )
+	{
+		if( average < 0 )
+			return value;
+
+		return average + 0.2 * (value - average);
+	}
+}
@@ -1,10 +1,29 @@
 package fr.lteconsulting.hexa.client.comm;
 
+/**
+ * Cache behavior of a service method, read when the service proxy is
+ * generated.
+ */
 public @interface Cache
 {
+	/**
+	 * Whether the call invalidates the cached results. Only the results
+	 * depending on the tables of {@link #paramTable()} are invalidated, or all
+	 * of them if no table is given.
+	 */
 	boolean inv() default false;
 
 	boolean useCache() default true;
 
+	/**
+	 * Comma separated names of the tables the result depends on, or the call
+	 * modifies if it invalidates the cache
+	 */
 	String paramTable() default "";
+
+	/**
+	 * Time in milliseconds the result stays in the cache, 0 to use the default
+	 * of the {@link ResponseCache}
+	 */
+	int ttl() default 0;
 }
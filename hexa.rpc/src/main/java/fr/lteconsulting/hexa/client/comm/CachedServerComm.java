@@ -2,6 +2,7 @@ package fr.lteconsulting.hexa.client.comm;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
@@ -30,8 +31,14 @@ public class CachedServerComm implements XRPCRequest, AcceptsRPCRequests
 		return srv;
 	}
 
-	private final ArrayList<PendingRequestInfo> pendingRequests = new ArrayList<PendingRequestInfo>();
-	private final HashMap<String, ResponseJSO> cache = new HashMap<String, ResponseJSO>();
+	public ResponseCache getCache()
+	{
+		return cache;
+	}
+
+	// the pending requests whose answer can be shared, by request key
+	private final HashMap<String, PendingRequestInfo> pendingRequests = new HashMap<String, PendingRequestInfo>();
+	private final ResponseCache cache = new ResponseCache();
 
 	// requests as received by the sendRequest method
 	private ArrayList<RequestCallInfo> requestStack = new ArrayList<RequestCallInfo>();
@@ -43,6 +50,7 @@ public class CachedServerComm implements XRPCRequest, AcceptsRPCRequests
 		boolean fStoreResultInCache;
 
 		String requestKey;
+		RequestDesc request;
 
 		ArrayList<RequestCallInfo> subscriptions = new ArrayList<RequestCallInfo>();
 
@@ -50,7 +58,8 @@ public class CachedServerComm implements XRPCRequest, AcceptsRPCRequests
 		{
 			this.fStoreResultInCache = fStoreResultInCache;
 
-			requestKey = requestCallInfo.request.getUniqueKey();
+			request = requestCallInfo.request;
+			requestKey = request.getUniqueKey();
 			addSubscription( requestCallInfo );
 		}
 
@@ -63,20 +72,15 @@ public class CachedServerComm implements XRPCRequest, AcceptsRPCRequests
 	@Override
 	public void sendRequest( boolean fUseCache, boolean fInvalidate, RequestDesc request, Object cookie, XRPCRequest callback )
 	{
-		// destroys the data cache if specified so
+		// destroys the cached data depending on the modified tables
 		if( fInvalidate )
-		{
-			//GWT.log( "CACHE-CLEAR for request " + request.getUniqueKey() + " / " + request.getExtraInfo() );
-			cache.clear();
-		}
+			invalidate( request.cacheTables );
 
 		RequestCallInfo requestCallInfo = new RequestCallInfo( request, callback, cookie );
 		requestStack.add( requestCallInfo );
 
 		if( fUseCache )
 		{
-			//GWT.log( "CACHE-STATE for request " + request.getUniqueKey() + " / " + request.getExtraInfo() + " size:" + cache.size() + " hasResponse:" + cache.containsKey( request.getUniqueKey() ) );
-
 			// is the result already in cache ?
 			ResponseJSO cached = cache.get( request.getUniqueKey() );
 			if( cached != null )
@@ -87,11 +91,9 @@ public class CachedServerComm implements XRPCRequest, AcceptsRPCRequests
 			}
 
 			// is the same request already pending ?
-			for( PendingRequestInfo pending : pendingRequests )
+			PendingRequestInfo pending = pendingRequests.get( request.getUniqueKey() );
+			if( pending != null )
 			{
-				if( !pending.requestKey.equals( request.getUniqueKey() ) )
-					continue;
-
 				pending.addSubscription( requestCallInfo );
 				return;
 			}
@@ -99,28 +101,48 @@ public class CachedServerComm implements XRPCRequest, AcceptsRPCRequests
 
 		// create a pending request
 		PendingRequestInfo pending = new PendingRequestInfo( fUseCache && (!fInvalidate), requestCallInfo );
-		pendingRequests.add( pending );
+		if( pending.fStoreResultInCache )
+			pendingRequests.put( pending.requestKey, pending );
 
 		// send the request to the server
 		srv.sendRequest( request, pending, this );
 	}
 
+	// the pending requests depending on the modified tables may give
+	// outdated results: they are not cached, and not shared with the next
+	// identical requests
+	private void invalidate( String[] modifiedTables )
+	{
+		cache.invalidate( modifiedTables );
+
+		for( Iterator<PendingRequestInfo> it = pendingRequests.values().iterator(); it.hasNext(); )
+		{
+			PendingRequestInfo pending = it.next();
+			if( ResponseCache.dependsOn( pending.request.cacheTables, modifiedTables ) )
+			{
+				pending.fStoreResultInCache = false;
+				it.remove();
+			}
+		}
+	}
+
 	// receives the answer from the ServerComm object
 	@Override
 	public void onResponse( Object cookie, ResponseJSO response, int msgLevel, String msg )
 	{
 		PendingRequestInfo info = (PendingRequestInfo) cookie;
 
-		// Store answer in cache
-		if( info.fStoreResultInCache )
-			cache.put( info.requestKey, response );
+		// Store answer in cache, unless it is an error
+		if( info.fStoreResultInCache && msgLevel == 0 )
+			cache.put( info.requestKey, response, info.request.cacheTables, info.request.cacheTimeToLive );
 
 		// give the result to all the subscribees
 		for( RequestCallInfo call : info.subscriptions )
 			call.setResult( msgLevel, msg, null, response );
 
 		// forget this request
-		pendingRequests.remove( info );
+		if( pendingRequests.get( info.requestKey ) == info )
+			pendingRequests.remove( info.requestKey );
 
 		// calls back the clients
 		checkAnswersToGive();
@@ -132,7 +154,13 @@ public class CachedServerComm implements XRPCRequest, AcceptsRPCRequests
 			return;
 
 		fCallbackingScheduled = true;
-		Scheduler.get().scheduleFinally( checkResults );
+		scheduleFinally( checkResults );
+	}
+
+	// replaced by the tests which run out of a browser
+	void scheduleFinally( ScheduledCommand command )
+	{
+		Scheduler.get().scheduleFinally( command );
 	}
 
 	ScheduledCommand checkResults = new ScheduledCommand()
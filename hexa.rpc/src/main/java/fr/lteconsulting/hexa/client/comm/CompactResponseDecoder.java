@@ -0,0 +1,92 @@
+package fr.lteconsulting.hexa.client.comm;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * Decodes the answers written by the server with the compact encoding.
+ *
+ * The data proxies are written as rows of values described by the schema of
+ * their class, and the repeated strings are replaced by their number in a
+ * string table. The strings which are not in the table are written in a one
+ * element array. The decoder gives back the objects the json encoding would
+ * have given, so the {@link ResponseJSO} and the generated data proxies read
+ * them the same way.
+ *
+ * The encoding is asked by the client with the {@link #HEADER} request
+ * header, and the server tells it is used with the same response header.
+ */
+public class CompactResponseDecoder
+{
+	public static final String HEADER = "X-Hexa-Encoding";
+	public static final String COMPACT = "compact";
+
+	/**
+	 * Decodes in place the return values of all the answers of a response.
+	 * The answers must be decoded together and in order, since the schemas
+	 * and the strings are numbered across the whole response.
+	 */
+	public static native void decode( JavaScriptObject answers )
+	/*-{
+		var schemas = [];
+		var strings = [];
+
+		var decodeRow = function( schema, row ) {
+			var names = schema[0];
+			var stringFields = schema[1];
+			var object = {};
+			for( var c = 0; c < names.length; c++ ) {
+				var v = row[c];
+				if( stringFields[c] ) {
+					if( typeof v === "number" )
+						v = strings[v];
+					else if( typeof v === "string" )
+						strings.push( v );
+					else if( v !== null )
+						v = v[0];
+				} else {
+					v = decodeValue( v );
+				}
+				object[names[c]] = v;
+			}
+			return object;
+		};
+
+		var decodeValue = function( v ) {
+			if( v === null || typeof v !== "object" )
+				return v;
+
+			var t = v.$t;
+			if( t === undefined ) {
+				// an array, or an object of the json encoding
+				if( v.length !== undefined ) {
+					for( var i = 0; i < v.length; i++ )
+						v[i] = decodeValue( v[i] );
+				}
+				return v;
+			}
+
+			var schema;
+			if( typeof t === "number" ) {
+				schema = schemas[t];
+			} else {
+				schema = t;
+				schemas.push( t );
+			}
+
+			if( v.$r !== undefined ) {
+				var rows = v.$r;
+				for( var r = 0; r < rows.length; r++ )
+					rows[r] = decodeRow( schema, rows[r] );
+				return rows;
+			}
+
+			return decodeRow( schema, v.$o );
+		};
+
+		for( var a = 0; a < answers.length; a++ ) {
+			var answer = answers[a];
+			if( answer[3] )
+				answer[3] = decodeValue( answer[3] );
+		}
+	}-*/;
+}
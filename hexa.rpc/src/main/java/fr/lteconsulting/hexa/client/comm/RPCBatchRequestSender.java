@@ -5,6 +5,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsonUtils;
 import com.google.gwt.http.client.Request;
@@ -14,7 +15,6 @@ import com.google.gwt.http.client.RequestException;
 import com.google.gwt.http.client.Response;
 import com.google.gwt.i18n.client.LocaleInfo;
 import com.google.gwt.json.client.JSONArray;
-import com.google.gwt.json.client.JSONNumber;
 import com.google.gwt.json.client.JSONString;
 
 /*
@@ -24,6 +24,12 @@ import com.google.gwt.json.client.JSONString;
  */
 public class RPCBatchRequestSender
 {
+	/**
+	 * The response header in which the server reports its processing time in
+	 * milliseconds
+	 */
+	public static final String SERVER_TIME_HEADER = "X-Hexa-Server-Time";
+
 	public interface XRPCBatchRequestSender
 	{
 		void sent( RPCBatchRequestSender request );
@@ -37,18 +43,33 @@ public class RPCBatchRequestSender
 		List<AfterNetworkRequestHandler> getAfterNetworkRequestHandlers();
 	}
 
-	private final int MAX_NB_REQUESTS = 20;
-
 	XRPCBatchRequestSender callback = null;
 
 	String url = null;
 
+	// asks the server for the compact encoding of the answers
+	boolean compactEncoding = false;
+
+	// sends the payload as the json body of the request instead of a
+	// multipart form
+	boolean plainPost = false;
+
+	BatchingPolicy batchingPolicy = new BatchingPolicy();
+
 	HashMap<String, ServiceInfo> usedServices = new HashMap<String, ServiceInfo>();
 	ArrayList<RequestCallInfo> requestsToSend = new ArrayList<RequestCallInfo>();
 	ArrayList<RequestCallInfo> sentRequests = null;
 
+	// estimated size of the calls to send
+	int nbPendingBytes = 0;
+
 	int nbSentBytes = 0;
 	Request sentRequest = null;
+	double sentTime = 0;
+
+	// round trip and server processing times, in milliseconds
+	double roundTripTime = -1;
+	double serverTime = -1;
 
 	String receivedTxt = null;
 
@@ -59,12 +80,27 @@ public class RPCBatchRequestSender
 		this.callback = callback;
 	}
 
+	public void setCompactEncoding( boolean compactEncoding )
+	{
+		this.compactEncoding = compactEncoding;
+	}
+
+	public void setPlainPost( boolean plainPost )
+	{
+		this.plainPost = plainPost;
+	}
+
+	public void setBatchingPolicy( BatchingPolicy batchingPolicy )
+	{
+		this.batchingPolicy = batchingPolicy;
+	}
+
 	// returns true if this instance can send another RPC in this batch
 	// basically, once the request batch is prepared and sent, no more calls can
 	// be added
 	public boolean canAddRequest()
 	{
-		return sentRequest == null && requestsToSend.size() < MAX_NB_REQUESTS;
+		return sentRequest == null && requestsToSend.size() < batchingPolicy.getMaxCalls() && nbPendingBytes < batchingPolicy.getMaxBytes();
 	}
 
 	public boolean isReadyToSend()
@@ -83,6 +119,12 @@ public class RPCBatchRequestSender
 		checkCallService( info );
 
 		requestsToSend.add( info );
+		nbPendingBytes += info.getSerializedParams().length() + info.request.method.length() + 16;
+	}
+
+	public int getNbCalls()
+	{
+		return sentRequests != null ? sentRequests.size() : requestsToSend.size();
 	}
 
 	public String getReceivedText()
@@ -108,6 +150,24 @@ public class RPCBatchRequestSender
 		return receivedTxt.length();
 	}
 
+	/**
+	 * The time between the sending and the answer in milliseconds, or a
+	 * negative value if there is no answer yet
+	 */
+	public double getRoundTripTime()
+	{
+		return roundTripTime;
+	}
+
+	/**
+	 * The processing time reported by the server in milliseconds, or a
+	 * negative value if it was not reported
+	 */
+	public double getServerTime()
+	{
+		return serverTime;
+	}
+
 	// necessary to be sure that call's service is referenced
 	private void checkCallService( RequestCallInfo info )
 	{
@@ -147,14 +207,15 @@ public class RPCBatchRequestSender
 		addAppendedRequests( sentRequests );
 
 		// prepare payload
-		JSONArray payload = createPayload();
+		String payload = createPayload();
 
-		RequestBuilder builderPost = buildMultipart( "payload", payload.toString() );
+		RequestBuilder builderPost = plainPost ? buildPost( payload ) : buildMultipart( "payload", payload );
 
 		nbSentBytes += builderPost.getRequestData().length();
 
 		try
 		{
+			sentTime = Duration.currentTimeMillis();
 			sentRequest = builderPost.send();
 		}
 		catch( RequestException e )
@@ -175,6 +236,9 @@ public class RPCBatchRequestSender
 		{
 			int statusCode = response.getStatusCode();
 
+			roundTripTime = Duration.currentTimeMillis() - sentTime;
+			serverTime = parseServerTime( response.getHeader( SERVER_TIME_HEADER ) );
+
 			if( statusCode == 500 || statusCode == 0 )
 			{
 				callback.error( RPCErrorCodes.ERROR_REQUEST_RESPONSE_STATUS, null, RPCBatchRequestSender.this );
@@ -197,6 +261,10 @@ public class RPCBatchRequestSender
 				// native : JSON.parse(jsonString);
 				// eval('(' + jsonString + ')');
 				jso = JsonUtils.unsafeEval( receivedTxt ).cast();
+
+				// the server may not support the compact encoding
+				if( CompactResponseDecoder.COMPACT.equals( response.getHeader( CompactResponseDecoder.HEADER ) ) )
+					CompactResponseDecoder.decode( jso );
 			}
 			catch( Exception exception )
 			{
@@ -236,30 +304,49 @@ public class RPCBatchRequestSender
 		}
 	};
 
+	// prepare a json http request
+	private RequestBuilder buildPost( String payload )
+	{
+		RequestBuilder builderPost = createRequestBuilder();
+		builderPost.setHeader( "Content-Type", "application/json; charset=utf-8" );
+		builderPost.setRequestData( payload );
+
+		return builderPost;
+	}
+
 	// prepare a multipart form http request
 	private RequestBuilder buildMultipart( String name, String value )
 	{
 		String boundary = "AJAX------" + Math.random() + "" + new Date().getTime();
 
-		RequestBuilder builderPost = new RequestBuilder( RequestBuilder.POST, url );
+		RequestBuilder builderPost = createRequestBuilder();
 		builderPost.setHeader( "Content-Type", "multipart/form-data; charset=utf-8; boundary=" + boundary );
-		builderPost.setCallback( requestCallback );
 
 		String CRLF = "\r\n";
-		String data = "--" + boundary + CRLF;
-		data += "--" + boundary + CRLF;
+		StringBuilder data = new StringBuilder( value.length() + 2 * boundary.length() + 64 );
+		data.append( "--" ).append( boundary ).append( CRLF );
 
-		data += "Content-Disposition: form-data; ";
-		data += "name=\"" + name + "\"" + CRLF + CRLF;
-		data += value + CRLF;
-		data += "--" + boundary + "--" + CRLF;
+		data.append( "Content-Disposition: form-data; " );
+		data.append( "name=\"" ).append( name ).append( "\"" ).append( CRLF ).append( CRLF );
+		data.append( value ).append( CRLF );
+		data.append( "--" ).append( boundary ).append( "--" ).append( CRLF );
 
-		builderPost.setRequestData( data );
+		builderPost.setRequestData( data.toString() );
 
 		return builderPost;
 	}
 
-	private JSONArray createPayload()
+	private RequestBuilder createRequestBuilder()
+	{
+		RequestBuilder builderPost = new RequestBuilder( RequestBuilder.POST, url );
+		builderPost.setCallback( requestCallback );
+		if( compactEncoding )
+			builderPost.setHeader( CompactResponseDecoder.HEADER, CompactResponseDecoder.COMPACT );
+
+		return builderPost;
+	}
+
+	private String createPayload()
 	{
 		// services
 		JSONArray servicesUsed = new JSONArray();
@@ -269,28 +356,44 @@ public class RPCBatchRequestSender
 			servicesUsed.set( service.id, service.getJson() );
 		}
 
-		// API Calls part of the url
-		JSONArray calls = new JSONArray();
+		// final payload, with the API calls
+		StringBuilder payload = new StringBuilder( nbPendingBytes + 256 );
+		payload.append( "[" ).append( servicesUsed.toString() ).append( ",[" );
 
-		for( RequestCallInfo info : sentRequests )
-			calls.set( calls.size(), serializeCall( info ) );
+		for( int i = 0; i < sentRequests.size(); i++ )
+		{
+			if( i > 0 )
+				payload.append( "," );
+			serializeCall( sentRequests.get( i ), payload );
+		}
 
-		// final payload
-		JSONArray payload = new JSONArray();
-		payload.set( 0, servicesUsed );
-		payload.set( 1, calls );
+		payload.append( "]]" );
 
-		return payload;
+		return payload.toString();
 	}
 
-	private JSONArray serializeCall( RequestCallInfo info )
+	private void serializeCall( RequestCallInfo info, StringBuilder payload )
 	{
 		ServiceInfo serviceInfo = usedServices.get( getServiceKey( info ) );
 
-		JSONArray json = info.request.getJson();
-		json.set( 2, new JSONNumber( serviceInfo.id ) );
+		payload.append( "[" ).append( JsonUtils.escapeValue( info.request.method ) );
+		payload.append( "," ).append( info.getSerializedParams() );
+		payload.append( "," ).append( serviceInfo.id ).append( "]" );
+	}
+
+	private static double parseServerTime( String header )
+	{
+		if( header == null || header.length() == 0 )
+			return -1;
 
-		return json;
+		try
+		{
+			return Double.parseDouble( header );
+		}
+		catch( NumberFormatException e )
+		{
+			return -1;
+		}
 	}
 
 	private void addPrependedRequests( final List<RequestCallInfo> requestsList )
@@ -6,6 +6,7 @@ import java.util.List;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONNumber;
@@ -28,9 +29,23 @@ public class RPCProxy
 
 	boolean isSendScheduled = false;
 
+	// waiting for more calls before scheduling the send
+	boolean isLingering = false;
+
+	private BatchingPolicy batchingPolicy = new BatchingPolicy();
+
+	boolean compactEncoding = false;
+	boolean plainPost = false;
+
 	int nbSentBytes = 0;
 	int nbReceivedBytes = 0;
 
+	int nbSentBatches = 0;
+	int maxBatchBytes = 0;
+
+	// number of sent batches by number of calls, see getBatchSizeDistribution
+	private final int[] batchSizes = new int[16];
+
 	public RPCProxy()
 	{
 		batchRequestSenders = new ArrayList<RPCBatchRequestSender>();
@@ -43,6 +58,82 @@ public class RPCProxy
 		this.callback = serverCommMessageCb;
 	}
 
+	/**
+	 * Asks the server to write the answers with the compact encoding, see
+	 * {@link CompactResponseDecoder}. The server may still answer with the json
+	 * encoding.
+	 * 
+	 * The request then has a custom header, which needs a CORS preflight if
+	 * the server is on another origin.
+	 */
+	public void setCompactEncoding( boolean compactEncoding )
+	{
+		this.compactEncoding = compactEncoding;
+	}
+
+	/**
+	 * Sends the calls as the json body of the requests instead of a
+	 * multipart form, which the server reads without parsing the form.
+	 * 
+	 * Like {@link #setCompactEncoding(boolean)}, it needs a CORS preflight if
+	 * the server is on another origin.
+	 */
+	public void setPlainPost( boolean plainPost )
+	{
+		this.plainPost = plainPost;
+	}
+
+	public BatchingPolicy getBatchingPolicy()
+	{
+		return batchingPolicy;
+	}
+
+	public void setBatchingPolicy( BatchingPolicy batchingPolicy )
+	{
+		this.batchingPolicy = batchingPolicy;
+	}
+
+	public int getNbSentBytes()
+	{
+		return nbSentBytes;
+	}
+
+	public int getNbReceivedBytes()
+	{
+		return nbReceivedBytes;
+	}
+
+	public int getNbSentBatches()
+	{
+		return nbSentBatches;
+	}
+
+	/**
+	 * The mean number of bytes sent per batch
+	 */
+	public int getAverageBatchBytes()
+	{
+		return nbSentBatches == 0 ? 0 : nbSentBytes / nbSentBatches;
+	}
+
+	public int getMaxBatchBytes()
+	{
+		return maxBatchBytes;
+	}
+
+	/**
+	 * The number of sent batches by size: the element i counts the batches
+	 * of 2^i to 2^(i+1)-1 calls
+	 */
+	public int[] getBatchSizeDistribution()
+	{
+		int[] result = new int[batchSizes.length];
+		for( int i = 0; i < result.length; i++ )
+			result[i] = batchSizes[i];
+
+		return result;
+	}
+
 	public Object addBeforeNetworkRequestHandler( BeforeNetworkRequestHandler handler )
 	{
 		if( beforeNetworkRequestHandlers == null )
@@ -84,24 +175,74 @@ public class RPCProxy
 
 		sender.addRequest( new RequestCallInfo( request, callback, cookie ) );
 
-		scheduleSend();
+		// a full batch does not wait for other calls
+		scheduleSend( !sender.canAddRequest() );
 	}
 
-	private void scheduleSend()
+	private void scheduleSend( boolean immediately )
 	{
+		if( !immediately )
+		{
+			int lingerTime = batchingPolicy.getLingerTime();
+			if( lingerTime > 0 )
+			{
+				if( !isLingering && !isSendScheduled )
+				{
+					isLingering = true;
+					scheduleFixedDelay( lingerCommand, lingerTime );
+				}
+				return;
+			}
+		}
+
 		if( isSendScheduled )
 			return;
 
 		isSendScheduled = true;
-		Scheduler.get().scheduleDeferred( sendCommand );
+		scheduleDeferred( sendCommand );
+	}
+
+	// the scheduling and the batch creation are overridden by the tests,
+	// which run without a browser
+
+	void scheduleDeferred( ScheduledCommand command )
+	{
+		Scheduler.get().scheduleDeferred( command );
 	}
 
+	void scheduleFixedDelay( RepeatingCommand command, int delay )
+	{
+		Scheduler.get().scheduleFixedDelay( command, delay );
+	}
+
+	RPCBatchRequestSender createBatchRequestSender()
+	{
+		return new RPCBatchRequestSender();
+	}
+
+	private RepeatingCommand lingerCommand = new RepeatingCommand()
+	{
+		@Override
+		public boolean execute()
+		{
+			// the calls may already have been sent
+			if( isLingering )
+			{
+				isLingering = false;
+				scheduleSend( true );
+			}
+
+			return false;
+		}
+	};
+
 	private ScheduledCommand sendCommand = new ScheduledCommand()
 	{
 		@Override
 		public void execute()
 		{
 			isSendScheduled = false;
+			isLingering = false;
 
 			// something to send ?
 			if( batchRequestSenders.isEmpty() )
@@ -160,7 +301,7 @@ public class RPCProxy
 			}
 
 			statusRefresh();
-			scheduleSend();
+			scheduleSend( true );
 		}
 
 		@Override
@@ -168,6 +309,8 @@ public class RPCProxy
 		{
 			nbReceivedBytes += sender.getNbReceivedBytes();
 
+			batchingPolicy.recordRoundTrip( sender.getRoundTripTime(), sender.getServerTime() );
+
 			// TODO : I removed that because the assert was to often not
 			// verified
 			// TODO : reordering answers is then needed !
@@ -198,7 +341,7 @@ public class RPCProxy
 			}
 
 			statusRefresh();
-			scheduleSend();
+			scheduleSend( true );
 		}
 
 		@Override
@@ -206,6 +349,14 @@ public class RPCProxy
 		{
 			nbSentBytes += request.getNbSentBytes();
 
+			nbSentBatches++;
+			maxBatchBytes = Math.max( maxBatchBytes, request.getNbSentBytes() );
+
+			int bucket = 0;
+			for( int nbCalls = request.getNbCalls(); nbCalls > 1 && bucket < batchSizes.length - 1; nbCalls >>= 1 )
+				bucket++;
+			batchSizes[bucket]++;
+
 			statusRefresh();
 		}
 	};
@@ -254,8 +405,11 @@ public class RPCProxy
 		}
 
 		// otherwise, create a new one
-		sender = new RPCBatchRequestSender();
+		sender = createBatchRequestSender();
 		sender.init( baseUrl, batchSenderCallback );
+		sender.setCompactEncoding( compactEncoding );
+		sender.setPlainPost( plainPost );
+		sender.setBatchingPolicy( batchingPolicy );
 		batchRequestSenders.add( sender );
 
 		return sender;
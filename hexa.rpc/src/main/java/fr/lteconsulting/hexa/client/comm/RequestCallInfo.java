@@ -10,6 +10,10 @@ public class RequestCallInfo
 	XRPCRequest callback = null;
 	Object cookie = null;
 
+	// json of the request parameters, kept since it is used to estimate the
+	// size of the batch and to serialize it
+	private String serializedParams = null;
+
 	// data, when received
 	boolean fResultReceived = false;
 	ResponseJSO retValue = null;
@@ -24,6 +28,14 @@ public class RequestCallInfo
 		this.cookie = cookie;
 	}
 
+	String getSerializedParams()
+	{
+		if( serializedParams == null )
+			serializedParams = request.params == null ? "null" : request.params.toString();
+
+		return serializedParams;
+	}
+
 	public void setResult( int msgLevel, String msg, GenericJSO hangOut, ResponseJSO retValue )
 	{
 		fResultReceived = true;
@@ -14,6 +14,10 @@ public class RequestDesc
 
 	String extraInfo = null;
 
+	// see Cache
+	String[] cacheTables = null;
+	int cacheTimeToLive = 0;
+
 	public RequestDesc( String service, String interfaceChecksum, int method, JSONArray params )
 	{
 		this( service, interfaceChecksum, String.valueOf( method ), params );
@@ -37,6 +41,16 @@ public class RequestDesc
 		return extraInfo;
 	}
 
+	/**
+	 * Sets the tables the result depends on, or the call modifies, and the
+	 * time the result stays in the cache. See {@link Cache}
+	 */
+	public void setCacheInfo( String[] cacheTables, int cacheTimeToLive )
+	{
+		this.cacheTables = cacheTables;
+		this.cacheTimeToLive = cacheTimeToLive;
+	}
+
 	public String getUniqueKey()
 	{
 		if( key == null )
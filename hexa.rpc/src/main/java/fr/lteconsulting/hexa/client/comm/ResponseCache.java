@@ -0,0 +1,229 @@
+package fr.lteconsulting.hexa.client.comm;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import com.google.gwt.core.client.Duration;
+
+/**
+ * The cached responses of a {@link CachedServerComm}.
+ *
+ * The cache is bounded by a number of entries and a total weight (see
+ * {@link ResponseJSO#getWeight()}), the least recently used entries are
+ * evicted first. Each entry is tagged with the tables its result depends on,
+ * so that a call modifying a table only invalidates the results depending on
+ * it. The entries without table are invalidated by any call modifying a
+ * table.
+ */
+public class ResponseCache
+{
+	private static class Entry
+	{
+		final ResponseJSO response;
+		final String[] tables;
+		final int weight;
+
+		// expiration time, 0 if the entry does not expire
+		final double expiration;
+
+		Entry( ResponseJSO response, String[] tables, int weight, double expiration )
+		{
+			this.response = response;
+			this.tables = tables;
+			this.weight = weight;
+			this.expiration = expiration;
+		}
+	}
+
+	// in access order, the eldest is the least recently used
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true );
+
+	private int maxEntries = 1000;
+	private int maxWeight = 100000;
+	private int defaultTimeToLive = 0;
+
+	private int weight = 0;
+
+	private int nbHits = 0;
+	private int nbMisses = 0;
+	private int nbEvictions = 0;
+
+	public void setMaxEntries( int maxEntries )
+	{
+		this.maxEntries = maxEntries;
+		evict();
+	}
+
+	/**
+	 * Sets the maximum total weight of the cached responses, see
+	 * {@link ResponseJSO#getWeight()}
+	 */
+	public void setMaxWeight( int maxWeight )
+	{
+		this.maxWeight = maxWeight;
+		evict();
+	}
+
+	/**
+	 * Sets the time in milliseconds a response stays in the cache when its
+	 * method does not specify one, 0 for no expiration
+	 */
+	public void setDefaultTimeToLive( int defaultTimeToLive )
+	{
+		this.defaultTimeToLive = defaultTimeToLive;
+	}
+
+	/**
+	 * Returns the cached response for a request key, or null
+	 */
+	public ResponseJSO get( String key )
+	{
+		Entry entry = entries.get( key );
+		if( entry == null )
+		{
+			nbMisses++;
+			return null;
+		}
+
+		if( entry.expiration > 0 && entry.expiration <= now() )
+		{
+			remove( key );
+			nbMisses++;
+			return null;
+		}
+
+		nbHits++;
+		return entry.response;
+	}
+
+	/**
+	 * Caches a response
+	 *
+	 * @param tables
+	 *            the tables the response depends on, null if unknown
+	 * @param timeToLive
+	 *            the time in milliseconds the response stays in the cache, 0
+	 *            for the default time to live
+	 */
+	public void put( String key, ResponseJSO response, String[] tables, int timeToLive )
+	{
+		put( key, response, tables, response == null ? 1 : response.getWeight(), timeToLive );
+	}
+
+	// a response heavier than the whole cache is not cached, it would evict
+	// all the other responses and then itself
+	void put( String key, ResponseJSO response, String[] tables, int responseWeight, int timeToLive )
+	{
+		remove( key );
+
+		if( responseWeight > maxWeight )
+			return;
+
+		if( timeToLive <= 0 )
+			timeToLive = defaultTimeToLive;
+
+		Entry entry = new Entry( response, tables, responseWeight, timeToLive > 0 ? now() + timeToLive : 0 );
+		entries.put( key, entry );
+		weight += entry.weight;
+
+		evict();
+	}
+
+	/**
+	 * Removes the responses depending on the modified tables, or all of them
+	 * if no table is given
+	 */
+	public void invalidate( String[] modifiedTables )
+	{
+		if( modifiedTables == null || modifiedTables.length == 0 )
+		{
+			clear();
+			return;
+		}
+
+		for( Iterator<Entry> it = entries.values().iterator(); it.hasNext(); )
+		{
+			Entry entry = it.next();
+			if( dependsOn( entry.tables, modifiedTables ) )
+			{
+				it.remove();
+				weight -= entry.weight;
+			}
+		}
+	}
+
+	public void clear()
+	{
+		entries.clear();
+		weight = 0;
+	}
+
+	public int size()
+	{
+		return entries.size();
+	}
+
+	public int getWeight()
+	{
+		return weight;
+	}
+
+	public int getNbHits()
+	{
+		return nbHits;
+	}
+
+	public int getNbMisses()
+	{
+		return nbMisses;
+	}
+
+	public int getNbEvictions()
+	{
+		return nbEvictions;
+	}
+
+	/**
+	 * Whether a result depending on some tables is invalidated by a call
+	 * modifying other tables. A result without tables depends on all of them,
+	 * and a call without tables modifies all of them.
+	 */
+	static boolean dependsOn( String[] tables, String[] modifiedTables )
+	{
+		if( tables == null || tables.length == 0 || modifiedTables == null || modifiedTables.length == 0 )
+			return true;
+
+		for( String table : tables )
+			for( String modifiedTable : modifiedTables )
+				if( table.equals( modifiedTable ) )
+					return true;
+
+		return false;
+	}
+
+	// the current time in milliseconds, replaced by the tests which run out
+	// of a browser
+	double now()
+	{
+		return Duration.currentTimeMillis();
+	}
+
+	private void remove( String key )
+	{
+		Entry entry = entries.remove( key );
+		if( entry != null )
+			weight -= entry.weight;
+	}
+
+	private void evict()
+	{
+		Iterator<Entry> it = entries.values().iterator();
+		while( (entries.size() > maxEntries || weight > maxWeight) && it.hasNext() )
+		{
+			Entry entry = it.next();
+			it.remove();
+			weight -= entry.weight;
+			nbEvictions++;
+		}
+	}
+}
@@ -23,4 +23,21 @@ public class ResponseJSO extends JavaScriptObject
 	public native final JsArray<GenericJSO> getArray( int i ) /*-{ return this[i]; }-*/;
 
 	public native final GenericJSO getJSO( int i ) /*-{ return this[i]; }-*/;
+
+	/**
+	 * An estimation of the size of the response: the number of its values,
+	 * counting the items of the arrays
+	 */
+	public native final int getWeight()
+	/*-{
+		var weight = 1;
+		for( var i = 0; i < this.length; i++ ) {
+			var v = this[i];
+			if( v !== null && typeof v === "object" && v.length !== undefined )
+				weight += v.length;
+			else
+				weight++;
+		}
+		return weight;
+	}-*/;
 }
@@ -528,6 +528,22 @@ public class ServiceGenerator extends Generator
 		sw.println( "RequestDesc desc = new RequestDesc( \"" + service + "\", \"" + interfaceChecksum + "\", " + methodOrdinal + ", call_params );" );
 		sw.println( "desc.setExtraInfo( \"" + method.getName() + "\" );" );
 
+		// the tables and time to live used by the cache
+		if( cacheAnnotation != null && (cacheAnnotation.paramTable().trim().length() > 0 || cacheAnnotation.ttl() > 0) )
+		{
+			StringBuilder tables = new StringBuilder();
+			for( String table : cacheAnnotation.paramTable().split( "," ) )
+			{
+				if( table.trim().length() == 0 )
+					continue;
+				if( tables.length() > 0 )
+					tables.append( ", " );
+				tables.append( "\"" + Generator.escape( table.trim() ) + "\"" );
+			}
+
+			sw.println( "desc.setCacheInfo( " + (tables.length() > 0 ? "new String[] { " + tables + " }" : "null") + ", " + cacheAnnotation.ttl() + " );" );
+		}
+
 		// register and get the name of the callback to use
 		String onResponseCallback = registerOnResponseCallback( params[params.length - 1].getType() );
 
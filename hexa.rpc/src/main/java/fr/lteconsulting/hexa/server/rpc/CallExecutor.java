@@ -0,0 +1,66 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the independent calls of the RPC batches, with at most a given number
+ * of calls running at the same time.
+ *
+ * The calls wait in a bounded queue for a thread of the pool. When the queue
+ * is full, the call is run by the submitting request thread, which slows down
+ * the requests instead of queuing calls without limit. So is a call submitted
+ * after the shutdown, so that the future of a call always completes.
+ */
+class CallExecutor
+{
+	private final ThreadPoolExecutor executor;
+
+	CallExecutor( int maxConcurrentCalls, int maxQueuedCalls )
+	{
+		executor = new ThreadPoolExecutor( maxConcurrentCalls, maxConcurrentCalls, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>( maxQueuedCalls ), new DaemonThreadFactory(), new RunInCallerPolicy() );
+
+		// the threads are only kept while the calls come
+		executor.allowCoreThreadTimeOut( true );
+	}
+
+	<T> Future<T> submit( Callable<T> task )
+	{
+		return executor.submit( task );
+	}
+
+	void shutdown()
+	{
+		executor.shutdown();
+	}
+
+	// unlike the CallerRunsPolicy, also runs the calls rejected after the
+	// shutdown, which would otherwise be discarded with their future never done
+	private static class RunInCallerPolicy implements RejectedExecutionHandler
+	{
+		@Override
+		public void rejectedExecution( Runnable runnable, ThreadPoolExecutor executor )
+		{
+			runnable.run();
+		}
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory
+	{
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread( Runnable runnable )
+		{
+			Thread thread = new Thread( runnable, "hexa-rpc-call-" + count.incrementAndGet() );
+			thread.setDaemon( true );
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import fr.lteconsulting.hexa.client.comm.DataProxy;
+
+/**
+ * Marks a service method whose returned collections of {@link DataProxy}
+ * objects of the same class are encoded as an array of arrays : the first
+ * array holds the field names, and each following array the field values of
+ * one object, in the same order.
+ * 
+ * The field names are then sent once instead of once per object, but the
+ * client has to decode the result itself, the generated data proxies expect
+ * the default encoding. The collections which are empty or hold objects of
+ * different classes are encoded as usual.
+ */
+@Retention( RetentionPolicy.RUNTIME )
+@Target( ElementType.METHOD )
+public @interface ColumnarResult
+{
+}
@@ -0,0 +1,228 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+import com.google.gson.stream.JsonWriter;
+
+import fr.lteconsulting.hexa.client.comm.CompactResponseDecoder;
+import fr.lteconsulting.hexa.client.comm.DataProxy;
+import fr.lteconsulting.hexa.client.common.HexaDateTime;
+
+/**
+ * Writes the response values with the compact encoding, decoded on the client
+ * by {@link CompactResponseDecoder}.
+ *
+ * The {@link DataProxy} objects are written as rows of values, described by
+ * the schema of their class: <code>{"$t":schema,"$o":row}</code> for an
+ * object and <code>{"$t":schema,"$r":[row, ...]}</code> for a collection of
+ * objects of the same class. The schema is written as
+ * <code>[[field names], [1 for the String fields, 0 otherwise]]</code> the
+ * first time the class is encountered, and replaced by its number afterwards.
+ *
+ * The values of the String fields are written the first time they are
+ * encountered, and replaced by their number in the string table afterwards.
+ * The long strings, which seldom repeat, and the strings found once the table
+ * is full are not numbered, they are written in a one element array.
+ * Likewise, once the schema table is full the objects of new classes are
+ * written with the json encoding. This bounds the memory used by the tables
+ * of a big response.
+ *
+ * The numbers are given in the order the values are written, so one writer
+ * must be used for all the answers of a response, in the order they are
+ * written.
+ */
+public final class CompactResponseWriter
+{
+	private static final int MAX_SCHEMAS = 256;
+	private static final int MAX_STRINGS = 4096;
+	private static final int MAX_STRING_LENGTH = 64;
+
+	private final int maxSchemas;
+	private final int maxStrings;
+	private final int maxStringLength;
+
+	private final IdentityHashMap<DataProxyEncoder, Integer> schemas = new IdentityHashMap<DataProxyEncoder, Integer>();
+	private final HashMap<String, Integer> strings = new HashMap<String, Integer>();
+
+	// the sizes of the tables at the last mark()
+	private int markedSchemas;
+	private int markedStrings;
+
+	public CompactResponseWriter()
+	{
+		this( MAX_SCHEMAS, MAX_STRINGS, MAX_STRING_LENGTH );
+	}
+
+	CompactResponseWriter( int maxSchemas, int maxStrings, int maxStringLength )
+	{
+		this.maxSchemas = maxSchemas;
+		this.maxStrings = maxStrings;
+		this.maxStringLength = maxStringLength;
+	}
+
+	/**
+	 * Writes a response value
+	 */
+	public void write( JsonWriter writer, Object response ) throws IOException
+	{
+		if( response instanceof Iterable<?> )
+		{
+			DataProxyEncoder encoder = HexaGWTServlet.getCommonEncoder( response );
+			if( encoder != null && !hasSchema( encoder ) )
+			{
+				HexaGWTServlet.writeResponse( writer, response );
+				return;
+			}
+
+			if( encoder != null )
+			{
+				writer.beginObject();
+				writeSchema( writer, encoder );
+				writer.name( "$r" );
+				writer.beginArray();
+				for( Object e : (Collection<?>) response )
+					writeRow( writer, encoder, e );
+				writer.endArray();
+				writer.endObject();
+				return;
+			}
+
+			writer.beginArray();
+			for( Object e : (Iterable<?>) response )
+				write( writer, e );
+			writer.endArray();
+		}
+		else if( response instanceof DataProxy )
+		{
+			DataProxyEncoder encoder = DataProxyEncoder.get( response.getClass() );
+			if( !hasSchema( encoder ) )
+			{
+				encoder.writeObject( writer, response );
+				return;
+			}
+
+			writer.beginObject();
+			writeSchema( writer, encoder );
+			writer.name( "$o" );
+			writeRow( writer, encoder, response );
+			writer.endObject();
+		}
+		else if( response instanceof String )
+		{
+			writer.value( (String) response );
+		}
+		else if( response instanceof Number )
+		{
+			writer.value( (Number) response );
+		}
+		else if( response instanceof HexaDateTime )
+		{
+			writer.value( ((HexaDateTime) response).getString() );
+		}
+		else
+		{
+			writer.nullValue();
+		}
+	}
+
+	/**
+	 * Remembers the numbers given so far, see {@link #rollback()}
+	 */
+	void mark()
+	{
+		markedSchemas = schemas.size();
+		markedStrings = strings.size();
+	}
+
+	/**
+	 * Forgets the schemas and strings numbered since the last {@link #mark()},
+	 * when what was written since then is discarded
+	 */
+	void rollback()
+	{
+		for( Iterator<Integer> it = schemas.values().iterator(); it.hasNext(); )
+		{
+			if( it.next() >= markedSchemas )
+				it.remove();
+		}
+
+		for( Iterator<Integer> it = strings.values().iterator(); it.hasNext(); )
+		{
+			if( it.next() >= markedStrings )
+				it.remove();
+		}
+	}
+
+	// whether the class has a schema, or can have one
+	private boolean hasSchema( DataProxyEncoder encoder )
+	{
+		return schemas.size() < maxSchemas || schemas.containsKey( encoder );
+	}
+
+	private void writeSchema( JsonWriter writer, DataProxyEncoder encoder ) throws IOException
+	{
+		writer.name( "$t" );
+
+		Integer schema = schemas.get( encoder );
+		if( schema != null )
+		{
+			writer.value( schema );
+			return;
+		}
+
+		schemas.put( encoder, schemas.size() );
+
+		writer.beginArray();
+		encoder.writeFieldNames( writer );
+		writer.beginArray();
+		for( boolean stringField : encoder.stringFields )
+			writer.value( stringField ? 1 : 0 );
+		writer.endArray();
+		writer.endArray();
+	}
+
+	private void writeRow( JsonWriter writer, DataProxyEncoder encoder, Object object ) throws IOException
+	{
+		writer.beginArray();
+		for( int i = 0; i < encoder.fieldNames.length; i++ )
+		{
+			Object value = encoder.getValue( object, i );
+			if( encoder.stringFields[i] )
+				writeString( writer, (String) value );
+			else
+				write( writer, value );
+		}
+		writer.endArray();
+	}
+
+	private void writeString( JsonWriter writer, String value ) throws IOException
+	{
+		if( value == null )
+		{
+			writer.nullValue();
+			return;
+		}
+
+		Integer index = strings.get( value );
+		if( index != null )
+		{
+			writer.value( index );
+			return;
+		}
+
+		if( value.length() > maxStringLength || strings.size() >= maxStrings )
+		{
+			writer.beginArray();
+			writer.value( value );
+			writer.endArray();
+			return;
+		}
+
+		strings.put( value, strings.size() );
+		writer.value( value );
+	}
+}
@@ -0,0 +1,179 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+import com.google.gson.stream.JsonWriter;
+
+import fr.lteconsulting.hexa.client.comm.DataProxy;
+import fr.lteconsulting.hexa.client.comm.FieldName;
+
+/**
+ * Encodes the {@link DataProxy} objects of a class. The {@link FieldName}
+ * annotated getters of the class, its super classes and interfaces are found
+ * once per class, and called through method handles.
+ *
+ * The encoders are kept in a {@link ClassValue}, which does not prevent the
+ * classes, and the class loader of a redeployed application, from being
+ * unloaded.
+ *
+ * A getter which cannot be called makes the encoding fail with an
+ * {@link IllegalStateException}, which fails the call and is logged by the
+ * {@link HexaGWTServlet}.
+ */
+class DataProxyEncoder
+{
+	private static final MethodType GETTER_TYPE = MethodType.methodType( Object.class, Object.class );
+
+	private static final ClassValue<DataProxyEncoder> encoders = new ClassValue<DataProxyEncoder>()
+	{
+		@Override
+		protected DataProxyEncoder computeValue( Class<?> type )
+		{
+			return new DataProxyEncoder( type );
+		}
+	};
+
+	final Class<?> type;
+	final String[] fieldNames;
+	private final MethodHandle[] getters;
+
+	// the fields returning a String
+	final boolean[] stringFields;
+
+	/**
+	 * Returns the encoder of a class
+	 */
+	static DataProxyEncoder get( Class<?> clazz )
+	{
+		return encoders.get( clazz );
+	}
+
+	private DataProxyEncoder( Class<?> type )
+	{
+		this.type = type;
+
+		// the first getter found for a field name is used
+		LinkedHashMap<String, Method> methods = new LinkedHashMap<String, Method>();
+		getDataProxyMethods( type, methods );
+
+		List<String> names = new ArrayList<String>();
+		List<MethodHandle> handles = new ArrayList<MethodHandle>();
+		List<Boolean> strings = new ArrayList<Boolean>();
+		for( Entry<String, Method> e : methods.entrySet() )
+		{
+			Method method = e.getValue();
+			try
+			{
+				method.setAccessible( true );
+				handles.add( MethodHandles.lookup().unreflect( method ).asType( GETTER_TYPE ) );
+				names.add( e.getKey() );
+				strings.add( method.getReturnType() == String.class );
+			}
+			catch( IllegalAccessException | SecurityException ex )
+			{
+				throw new IllegalStateException( "Cannot access the getter " + method + " of the data proxy " + type.getName(), ex );
+			}
+		}
+
+		fieldNames = names.toArray( new String[names.size()] );
+		getters = handles.toArray( new MethodHandle[handles.size()] );
+
+		stringFields = new boolean[strings.size()];
+		for( int i = 0; i < stringFields.length; i++ )
+			stringFields[i] = strings.get( i );
+	}
+
+	/**
+	 * Returns the value of a field of an object
+	 *
+	 * @throws IllegalStateException
+	 *             if the getter threw an exception
+	 */
+	Object getValue( Object object, int field )
+	{
+		try
+		{
+			return (Object) getters[field].invokeExact( object );
+		}
+		catch( Error e )
+		{
+			throw e;
+		}
+		catch( Throwable e )
+		{
+			throw new IllegalStateException( "Cannot get the field " + fieldNames[field] + " of the data proxy " + type.getName(), e );
+		}
+	}
+
+	/**
+	 * Writes an object as a json object
+	 */
+	void writeObject( JsonWriter writer, Object object ) throws IOException
+	{
+		writer.beginObject();
+		for( int i = 0; i < getters.length; i++ )
+		{
+			writer.name( fieldNames[i] );
+			HexaGWTServlet.writeResponse( writer, getValue( object, i ) );
+		}
+		writer.endObject();
+	}
+
+	/**
+	 * Writes the field names, as the header of a columnar encoding
+	 */
+	void writeFieldNames( JsonWriter writer ) throws IOException
+	{
+		writer.beginArray();
+		for( String fieldName : fieldNames )
+			writer.value( fieldName );
+		writer.endArray();
+	}
+
+	/**
+	 * Writes the field values of an object, in the order of the field names
+	 */
+	void writeRow( JsonWriter writer, Object object ) throws IOException
+	{
+		writer.beginArray();
+		for( int i = 0; i < getters.length; i++ )
+			HexaGWTServlet.writeResponse( writer, getValue( object, i ) );
+		writer.endArray();
+	}
+
+	private static void getDataProxyMethods( Class<?> clazz, LinkedHashMap<String, Method> result )
+	{
+		if( clazz == null || clazz == Object.class )
+			return;
+
+		// find annotated methods within the super class
+		getDataProxyMethods( clazz.getSuperclass(), result );
+
+		// find annotated methods within the implemented interfaces
+		Class<?>[] implementedInterfaces = clazz.getInterfaces();
+		for( int i = 0; i < implementedInterfaces.length; i++ )
+			getDataProxyMethods( implementedInterfaces[i], result );
+
+		// find annoted methods in the class
+		Method[] methods = clazz.getDeclaredMethods();
+		for( int i = 0; i < methods.length; i++ )
+		{
+			Method m = methods[i];
+
+			FieldName fieldNameAnnotation = m.getAnnotation( FieldName.class );
+			if( fieldNameAnnotation == null )
+				continue;
+
+			if( !result.containsKey( fieldNameAnnotation.fieldName() ) )
+				result.put( fieldNameAnnotation.fieldName(), m );
+		}
+	}
+}
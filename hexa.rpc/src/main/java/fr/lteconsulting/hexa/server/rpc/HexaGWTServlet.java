@@ -1,13 +1,28 @@
 package fr.lteconsulting.hexa.server.rpc;
 
-import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.lang.reflect.Method;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -16,20 +31,26 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.fileupload.FileItemIterator;
 import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.slf4j.Logger;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import fr.lteconsulting.hexa.client.comm.CompactResponseDecoder;
 import fr.lteconsulting.hexa.client.comm.DataProxy;
-import fr.lteconsulting.hexa.client.comm.FieldName;
+import fr.lteconsulting.hexa.client.comm.RPCBatchRequestSender;
 import fr.lteconsulting.hexa.client.common.HexaDateTime;
 import fr.lteconsulting.hexa.server.tools.LoggerFactory;
-import fr.lteconsulting.hexa.server.tools.Trace;
+import fr.lteconsulting.hexa.server.tools.TraceBuffer;
+import fr.lteconsulting.hexa.server.tools.Tracing;
 
 public abstract class HexaGWTServlet extends HttpServlet
 {
@@ -39,26 +60,118 @@ public abstract class HexaGWTServlet extends HttpServlet
 
 	HashMap<String, ServiceDescription> services = new HashMap<String, ServiceDescription>();
 
+	private final RpcMetrics metrics = new RpcMetrics();
+
 	abstract protected void onInit(); // opportunity to configure implemented
 										// services
 
+	// runs the independent calls, created on first use
+	private CallExecutor callExecutor;
+
 	@Override
 	public void init()
 	{
 		onInit();
 	}
 
+	@Override
+	public void destroy()
+	{
+		synchronized( this )
+		{
+			if( callExecutor != null )
+				callExecutor.shutdown();
+			callExecutor = null;
+		}
+
+		super.destroy();
+	}
+
+	/**
+	 * Returns the maximum number of independent calls running at the same
+	 * time, see {@link IndependentCall}
+	 */
+	protected int getMaxConcurrentCalls()
+	{
+		return 2 * Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Returns the maximum number of independent calls waiting for a thread.
+	 * Past that, the calls are run by the request threads.
+	 */
+	protected int getMaxQueuedCalls()
+	{
+		return 16 * getMaxConcurrentCalls();
+	}
+
+	/**
+	 * Returns the time in milliseconds, from the start of a request, its
+	 * independent calls are waited for before being cancelled and answered
+	 * with an error. The calls run by the request thread, because the queue
+	 * was full, are not limited.
+	 */
+	protected long getCallTimeout()
+	{
+		return 60000;
+	}
+
+	/**
+	 * Whether the answers can be written with the compact encoding, when the
+	 * client asks for it. See {@link CompactResponseWriter}
+	 */
+	protected boolean isCompactEncodingEnabled()
+	{
+		return true;
+	}
+
+	/**
+	 * Called on a thread of the pool before it runs an {@link IndependentCall}
+	 * of the given request. The thread bound context of the request (current
+	 * request, database context...) is not available there, an implementation
+	 * can install it here.
+	 */
+	protected void beforeIndependentCall( HttpServletRequest request )
+	{
+	}
+
+	/**
+	 * Called on a thread of the pool after it has run an
+	 * {@link IndependentCall}, even if the call failed. Releases what
+	 * {@link #beforeIndependentCall(HttpServletRequest)} and the call have
+	 * bound to the thread.
+	 */
+	protected void afterIndependentCall()
+	{
+	}
+
+	private synchronized CallExecutor getCallExecutor()
+	{
+		if( callExecutor == null )
+			callExecutor = new CallExecutor( getMaxConcurrentCalls(), getMaxQueuedCalls() );
+		return callExecutor;
+	}
+
 	protected void addService( String serviceName, String serviceChecksum, Object delegate, String[] methodShortcuts )
 	{
-		services.put( serviceName, new ServiceDescription( serviceName, serviceChecksum, delegate, methodShortcuts ) );
+		services.put( serviceName, new ServiceDescription( serviceName, serviceChecksum, delegate, methodShortcuts, metrics ) );
 	}
 
-	private ServiceDescription getServiceDelegate( String serviceName, String serviceChecksum )
+	/**
+	 * Returns the statistics of the requests and service calls
+	 */
+	public RpcMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	private ServiceDescription getServiceDelegate( String serviceName, String serviceChecksum, TraceBuffer trace )
 	{
 		ServiceDescription desc = services.get( serviceName );
 		if( desc != null && !desc.checksum.equals( serviceChecksum ) )
 		{
-			Trace.it( "Service not available with this checksum: " + serviceName + ":" + serviceChecksum + " (we have " + desc.checksum + ")" );
+			if( trace != null )
+				trace.info( "Service not available with this checksum: {}:{} (we have {})", serviceName, serviceChecksum, desc.checksum );
 			return null;
 		}
 		return desc;
@@ -74,117 +187,262 @@ public abstract class HexaGWTServlet extends HttpServlet
 
 		// TODO create a logger
 
-		ServletFileUpload upload = new ServletFileUpload();
+		// the client asks for the compact encoding, and is told if it is used
+		boolean compact = isCompactEncodingEnabled() && CompactResponseDecoder.COMPACT.equals( req.getHeader( CompactResponseDecoder.HEADER ) );
+		if( compact )
+			resp.addHeader( CompactResponseDecoder.HEADER, CompactResponseDecoder.COMPACT );
 
+		CountingWriter output = null;
 		try
 		{
-			FileItemIterator iterator = upload.getItemIterator( req );
-
-			while( iterator.hasNext() )
+			InputStream payload = getPayloadStream( req );
+			if( payload == null )
 			{
-				FileItemStream stream = iterator.next();
-				if( stream.getFieldName().equals( "payload" ) )
-				{
-					String response = processPayload( stream.openStream() );
-					resp.getWriter().write( response );
-					return;
-				}
+				resp.getWriter().write( "INSUFICIENT PAYLOAD" );
+				return;
 			}
+
+			output = new CountingWriter( getResponseWriter( req, resp ) );
+			processPayload( payload, output, compact, req, resp );
 		}
 		catch( Exception e )
 		{
-			resp.getWriter().write( "Exception during POST processing : " + e.getMessage() );
-			e.printStackTrace();
-			return;
+			log.error( "Exception during POST processing", e );
+
+			// once the answers are started, the errors of the calls are
+			// written in their answers and the remaining ones come from the
+			// output itself
+			if( output == null )
+				resp.getWriter().write( "Exception during POST processing : " + e.getMessage() );
+			else if( output.count == 0 )
+				output.write( "Exception during POST processing : " + e.getMessage() );
+		}
+		finally
+		{
+			// ends the compressed stream, if any
+			if( output != null )
+				output.close();
 		}
-
-		resp.getWriter().write( "INSUFICIENT PAYLOAD" );
 	}
 
-	private String processPayload( InputStream payloadStream ) throws IOException, HexaGWTRPCException
+	/**
+	 * Whether the answers are compressed when the client accepts it
+	 */
+	protected boolean isResponseCompressionEnabled()
 	{
-		Trace.push();
+		return true;
+	}
 
-		// read the rpc payload
-		String payloadString = readPayloadStream( payloadStream );
-		if( payloadString == null )
-			throw new HexaGWTRPCException( "Unreadable payload : " + Trace.pop() );
+	// the json payload is either the body of the request, or the 'payload'
+	// field of a multipart form
+	private InputStream getPayloadStream( HttpServletRequest req ) throws IOException, FileUploadException, HexaGWTRPCException
+	{
+		String contentType = req.getContentType();
+		if( contentType != null && contentType.toLowerCase().startsWith( "application/json" ) )
+		{
+			InputStream input = req.getInputStream();
 
-		Trace.it( "Processing payload :" );
-		Trace.it( "Payload size: " + payloadString.length() );
-		Trace.it( "Json content: " + payloadString );
+			String contentEncoding = req.getHeader( "Content-Encoding" );
+			if( contentEncoding == null || contentEncoding.equalsIgnoreCase( "identity" ) )
+				return input;
+			if( contentEncoding.equalsIgnoreCase( "gzip" ) )
+				return new GZIPInputStream( input );
+			if( contentEncoding.equalsIgnoreCase( "deflate" ) )
+				return new InflaterInputStream( input );
 
-		// parse the payload
-		JsonArray payload = parsePayload( payloadString );
-		if( payload == null )
-			throw new HexaGWTRPCException( "Unparsable payload : " + Trace.pop() );
+			throw new HexaGWTRPCException( "Unsupported content encoding : " + contentEncoding );
+		}
 
-		JsonArray serviceDescriptions = payload.get( 0 ).getAsJsonArray();
-		JsonArray calls = payload.get( 1 ).getAsJsonArray();
+		FileItemIterator iterator = new ServletFileUpload().getItemIterator( req );
+		while( iterator.hasNext() )
+		{
+			FileItemStream stream = iterator.next();
+			if( stream.getFieldName().equals( "payload" ) )
+				return stream.openStream();
+		}
 
-		// Service object bindings
-		ServiceDescription[] services = prepareUsedServices( serviceDescriptions );
-		if( services == null )
-			throw new HexaGWTRPCException( "Unavailable service(s) : " + Trace.pop() );
+		return null;
+	}
 
-		// prepare answer
-		JsonArray result = new JsonArray();
+	private Writer getResponseWriter( HttpServletRequest req, HttpServletResponse resp ) throws IOException
+	{
+		String encoding = isResponseCompressionEnabled() ? getAcceptedEncoding( req.getHeader( "Accept-Encoding" ) ) : null;
+		if( encoding == null )
+			return resp.getWriter();
 
-		Trace.it( "Preparing " + calls.size() + " call(s)" );
+		resp.addHeader( "Content-Encoding", encoding );
+		resp.addHeader( "Vary", "Accept-Encoding" );
 
-		// calls to the services
-		for( int i = 0; i < calls.size(); i++ )
-		{
-			Trace.push();
-			Trace.it( "Call " + i );
+		OutputStream output = resp.getOutputStream();
+		output = encoding.equals( "gzip" ) ? new GZIPOutputStream( output, 8192 ) : new DeflaterOutputStream( output, new Deflater(), 8192 );
 
-			JsonArray call = calls.get( i ).getAsJsonArray();
-			JsonArray responseSerialized = processCall( call, services );
+		return new OutputStreamWriter( output, resp.getCharacterEncoding() );
+	}
 
-			// appending the answer
-			result.add( responseSerialized );
+	// gzip or deflate if accepted by the client, null otherwise
+	private static String getAcceptedEncoding( String acceptEncoding )
+	{
+		if( acceptEncoding == null )
+			return null;
 
-			Trace.pop();
-		}
+		boolean deflate = false;
+		for( String accepted : acceptEncoding.split( "," ) )
+		{
+			String[] parts = accepted.split( ";" );
+			String coding = parts[0].trim().toLowerCase();
 
-		// log.log(Level.INFO, Trace.peek());
+			// an encoding refused with a zero quality
+			if( parts.length > 1 && parts[1].trim().matches( "q=0(\\.0*)?" ) )
+				continue;
 
-		Trace.pop();
+			if( coding.equals( "gzip" ) )
+				return "gzip";
+			if( coding.equals( "deflate" ) )
+				deflate = true;
+		}
 
-		return result.toString();
+		return deflate ? "deflate" : null;
 	}
 
-	private String readPayloadStream( InputStream payloadStream ) throws IOException
+	/**
+	 * Reads the calls from the payload and writes their answers one at a
+	 * time, so that only one call and its answer are in memory.
+	 * 
+	 * Nothing is written before the used services are found, so that an
+	 * unavailable service is reported instead of an answer. Afterwards, a
+	 * call which cannot be read or whose answer cannot be encoded gets an
+	 * error answer, so that the response stays a valid array.
+	 * 
+	 * The consecutive {@link IndependentCall}s are run concurrently, their
+	 * answers are kept until they can be written in the calls order.
+	 */
+	private void processPayload( InputStream payloadStream, CountingWriter output, boolean compact, HttpServletRequest request, HttpServletResponse response ) throws IOException, HexaGWTRPCException
 	{
-		BufferedReader in = new BufferedReader( new InputStreamReader( payloadStream, "utf-8" ) );
-
-		StringBuilder sb = new StringBuilder();
-		int readden = 1024;
-		char[] buf = new char[readden];
-		do
+		TraceBuffer trace = Tracing.startRequest( "RPC payload" );
+		try
 		{
-			readden = in.read( buf );
-			sb.append( buf, 0, readden );
+			CountingInputStream countingStream = new CountingInputStream( payloadStream );
+			ResponseOutput responseOutput = new ResponseOutput( output, compact ? new CompactResponseWriter() : null, response );
+			processPayload( countingStream, responseOutput, request, trace );
+			metrics.recordRequest( countingStream.count );
+		}
+		finally
+		{
+			Tracing.endRequest( trace );
 		}
-		while( readden == buf.length );
-
-		return sb.toString();
 	}
 
-	private JsonArray parsePayload( String payload )
+	private void processPayload( InputStream payloadStream, ResponseOutput output, final HttpServletRequest request, final TraceBuffer trace ) throws IOException, HexaGWTRPCException
 	{
+		JsonReader reader = new JsonReader( new InputStreamReader( payloadStream, "utf-8" ) );
 		JsonParser parser = new JsonParser();
 
-		JsonElement element = parser.parse( payload );
-		if( element == null )
-			return null;
+		// the service descriptions come first
+		JsonArray serviceDescriptions;
+		try
+		{
+			reader.beginArray();
+			serviceDescriptions = parser.parse( reader ).getAsJsonArray();
+			reader.beginArray();
+		}
+		catch( IOException | JsonParseException | IllegalStateException e )
+		{
+			if( trace != null )
+				trace.error( "Unparsable payload", null, e );
+			throw new HexaGWTRPCException( "Unparsable payload : " + e.getMessage() );
+		}
+
+		// Service object bindings
+		final ServiceDescription[] services = prepareUsedServices( serviceDescriptions, trace );
+		if( services == null )
+			throw new HexaGWTRPCException( "Unavailable service(s) : " + serviceDescriptions );
+
+		// the answer is written as the calls are read
+		output.counter.write( '[' );
+
+		// the independent calls of the request share the call timeout
+		long startTime = System.nanoTime();
+
+		// calls to the services
+		int nbCalls = 0;
+		final Thread requestThread = Thread.currentThread();
+		List<Future<CallAnswer>> pendingCalls = new ArrayList<Future<CallAnswer>>();
+		try
+		{
+			while( true )
+			{
+				final int callNo = nbCalls;
+				final JsonArray call;
+				try
+				{
+					if( !reader.hasNext() )
+						break;
+					call = parser.parse( reader ).getAsJsonArray();
+				}
+				catch( IOException | JsonParseException | IllegalStateException e )
+				{
+					// the following calls cannot be read either
+					if( trace != null )
+						trace.error( "Unparsable call {}", callNo, e );
+
+					writePendingAnswers( pendingCalls, output, startTime );
+					writeAnswer( output, CallAnswer.error( "Unparsable call " + callNo + " : " + e.getMessage() ) );
+					break;
+				}
+				nbCalls++;
+
+				if( isIndependent( call, services ) )
+				{
+					pendingCalls.add( getCallExecutor().submit( new Callable<CallAnswer>()
+					{
+						@Override
+						public CallAnswer call()
+						{
+							// run by the request thread when the queue is full,
+							// its context is already there
+							if( Thread.currentThread() == requestThread )
+								return processCall( callNo, call, services, trace );
+
+							beforeIndependentCall( request );
+							try
+							{
+								return processCall( callNo, call, services, trace );
+							}
+							finally
+							{
+								afterIndependentCall();
+							}
+						}
+					} ) );
+				}
+				else
+				{
+					// ordered call, the previous calls must be finished
+					writePendingAnswers( pendingCalls, output, startTime );
+					writeAnswer( output, processCall( callNo, call, services, trace ) );
+				}
+			}
 
-		JsonArray result = element.getAsJsonArray();
+			writePendingAnswers( pendingCalls, output, startTime );
+		}
+		finally
+		{
+			// the calls not answered because of an exception are not needed
+			// anymore
+			for( Future<CallAnswer> pendingCall : pendingCalls )
+				pendingCall.cancel( true );
+		}
+
+		output.counter.write( ']' );
 
-		return result;
+		output.reportServerTime();
+		output.counter.flush();
+
+		if( trace != null )
+			trace.info( "Processed {} call(s)", nbCalls );
 	}
 
-	private ServiceDescription[] prepareUsedServices( JsonArray serviceDescriptions )
+	private ServiceDescription[] prepareUsedServices( JsonArray serviceDescriptions, TraceBuffer trace )
 	{
 		boolean ok = true;
 
@@ -198,10 +456,11 @@ public abstract class HexaGWTServlet extends HttpServlet
 			String serviceChecksum = serviceDescription.get( 1 ).getAsString(); // service
 																				// checksum
 
-			services[i] = getServiceDelegate( serviceName, serviceChecksum );
+			services[i] = getServiceDelegate( serviceName, serviceChecksum, trace );
 			if( services[i] == null )
 			{
-				Trace.it( "Service not available : " + serviceName + ":" + serviceChecksum );
+				if( trace != null )
+					trace.info( "Service not available : {}:{}", serviceName, serviceChecksum );
 				ok = false;
 			}
 		}
@@ -209,59 +468,313 @@ public abstract class HexaGWTServlet extends HttpServlet
 		return ok ? services : null;
 	}
 
-	private JsonArray processCall( JsonArray call, ServiceDescription[] services )
+	private boolean isIndependent( JsonArray call, ServiceDescription[] services )
+	{
+		try
+		{
+			ServiceDescription.MethodInvoker invoker = services[call.get( 2 ).getAsInt()].findMethod( call.get( 0 ).getAsString(), call.get( 1 ).getAsJsonArray().size() );
+			return invoker != null && invoker.independent;
+		}
+		catch( RuntimeException e )
+		{
+			// the call is malformed, processCall will report it
+			return false;
+		}
+	}
+
+	/**
+	 * The result of a call, written by
+	 * {@link HexaGWTServlet#writeAnswer(ResponseOutput, CallAnswer)}
+	 */
+	private static class CallAnswer
 	{
-		String method = call.get( 0 ).getAsString();
-		JsonArray parameters = call.get( 1 ).getAsJsonArray();
-		int serviceIdx = call.get( 2 ).getAsInt();
+		static CallAnswer error( String errorMessage )
+		{
+			CallAnswer answer = new CallAnswer();
+			answer.errorMessage = errorMessage;
+			return answer;
+		}
+
+		// the returned values, null if the call failed
+		Object[] values;
 
-		Trace.it( "Service:" + services[serviceIdx].name + ", method: " + method + ", params:" + parameters );
+		// see ColumnarResult
+		boolean columnar;
 
-		// call to the method
-		JsonArray responseSerialized = new JsonArray();
-		Object response = null;
+		String errorMessage;
+
+		// null if the method was not found
+		MethodMetrics metrics;
+	}
+
+	private CallAnswer processCall( int callNo, JsonArray call, ServiceDescription[] services, TraceBuffer trace )
+	{
+		CallAnswer answer = new CallAnswer();
+		String callName = null;
+		long startTime = System.nanoTime();
 		try
 		{
-			response = services[serviceIdx].call( method, parameters );
-			Trace.it( "Call made Ok." );
+			String method = call.get( 0 ).getAsString();
+			JsonArray parameters = call.get( 1 ).getAsJsonArray();
+			ServiceDescription service = services[call.get( 2 ).getAsInt()];
+
+			ServiceDescription.MethodInvoker invoker = service.findMethod( method, parameters.size() );
+			if( invoker == null )
+				throw new RuntimeException( "Called method " + method + " not found in delegate of class " + service.delegate.getClass().getName() );
+
+			callName = service.name + "." + invoker.name;
+			if( trace != null )
+				trace.info( "Call {} : {}", callNo, callName );
+
+			answer.metrics = invoker.metrics;
+			answer.columnar = invoker.columnar;
+
+			// call to the method
+			Object response = service.call( invoker, parameters, trace );
 
-			// encode the response
-			JsonArray encodedResponse = new JsonArray();
 			if( response != null && response.getClass().isArray() )
 			{
-				Trace.it( "Multi-valued return value." );
-
 				// multiple return values
-				Object[] responses = (Object[]) response;
-				for( int r = 0; r < responses.length; r++ )
-					encodedResponse.add( encodeResponse( responses[r] ) );
+				answer.values = (Object[]) response;
 			}
 			else
 			{
-				encodedResponse.add( encodeResponse( response ) );
+				answer.values = new Object[] { response };
 			}
-
-			// serialization of the returned value
-			responseSerialized.add( new JsonPrimitive( 0 ) ); // ServerState/Level
-			responseSerialized.add( new JsonPrimitive( "" ) ); // ServerState/Message
-			responseSerialized.add( null ); // Hang_Out_Code
-			responseSerialized.add( encodedResponse ); // Encoded_response
 		}
 		catch( Exception e )
 		{
-			Trace.throwable( e );
-			Trace.it( "Call impossible, exception during call !!!" );
+			if( trace != null )
+				trace.error( "Call {} failed", callNo, e );
+
+			answer.values = null;
+			answer.errorMessage = "Exception during call " + callNo + (callName != null ? " to " + callName : "") + " : " + TraceBuffer.describe( e );
+
+			log.info( answer.errorMessage );
+		}
+
+		long duration = System.nanoTime() - startTime;
+		if( answer.metrics != null )
+			answer.metrics.recordCall( duration, answer.values == null );
+		if( trace != null )
+			trace.debug( "Call {} done in {} us", callNo, duration / 1000 );
+
+		return answer;
+	}
+
+	private void writePendingAnswers( List<Future<CallAnswer>> pendingCalls, ResponseOutput output, long startTime ) throws IOException
+	{
+		long timeout = getCallTimeout();
+		for( Future<CallAnswer> pendingCall : pendingCalls )
+		{
+			CallAnswer answer;
+			try
+			{
+				long remaining = timeout - (System.nanoTime() - startTime) / 1000000;
+				answer = pendingCall.get( Math.max( remaining, 0 ), TimeUnit.MILLISECONDS );
+			}
+			catch( TimeoutException e )
+			{
+				pendingCall.cancel( true );
+
+				answer = CallAnswer.error( "Call not finished " + timeout + " ms after the start of the request" );
+			}
+			catch( ExecutionException e )
+			{
+				answer = CallAnswer.error( "Exception during call : " + e.getCause() );
+			}
+			catch( InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+
+				answer = CallAnswer.error( "Interrupted while waiting for the call" );
+			}
+
+			writeAnswer( output, answer );
+		}
+
+		pendingCalls.clear();
+	}
+
+	/**
+	 * Writes the answer of a call in the answers array. The answer is encoded
+	 * apart first, so that a failing encoding is written as the error of the
+	 * call instead of leaving a partial answer in the response.
+	 */
+	private void writeAnswer( ResponseOutput output, CallAnswer answer ) throws IOException
+	{
+		StringWriter encoded = new StringWriter();
+		if( answer.values != null )
+		{
+			if( output.compact != null )
+				output.compact.mark();
+
+			try
+			{
+				writeAnswer( createJsonWriter( encoded ), output, answer );
+			}
+			catch( IOException | RuntimeException e )
+			{
+				log.error( "Cannot encode an answer", e );
 
-			log.info( Trace.peek() );
+				// the tables of the discarded encoding are not known by the
+				// client
+				if( output.compact != null )
+					output.compact.rollback();
 
-			// serialization of the returned value
-			responseSerialized.add( new JsonPrimitive( 3 ) ); // ServerState/Level
-			responseSerialized.add( new JsonPrimitive( "Exception during call : " + Trace.peek() ) ); // ServerState/Message
-			responseSerialized.add( null ); // Hang_Out_Code
-			responseSerialized.add( null ); // Encoded_response
+				answer.values = null;
+				answer.errorMessage = "Exception while encoding the answer : " + TraceBuffer.describe( e );
+				encoded = new StringWriter();
+			}
 		}
 
-		return responseSerialized;
+		if( answer.values == null )
+			writeAnswer( createJsonWriter( encoded ), output, answer );
+
+		if( output.nbAnswers++ > 0 )
+			output.counter.write( ',' );
+		output.counter.write( encoded.toString() );
+
+		if( answer.metrics != null )
+			answer.metrics.recordResponse( encoded.getBuffer().length() );
+	}
+
+	// lenient like the JsonElement.toString() of the former encoding, which
+	// wrote NaN and the infinities instead of failing
+	private static JsonWriter createJsonWriter( Writer output )
+	{
+		JsonWriter writer = new JsonWriter( output );
+		writer.setLenient( true );
+		return writer;
+	}
+
+	private static void writeAnswer( JsonWriter writer, ResponseOutput output, CallAnswer answer ) throws IOException
+	{
+		// serialization of the returned value
+		writer.beginArray();
+
+		if( answer.values == null )
+		{
+			writer.value( 3 ); // ServerState/Level
+			writer.value( answer.errorMessage ); // ServerState/Message
+			writer.nullValue(); // Hang_Out_Code
+			writer.nullValue(); // Encoded_response
+		}
+		else
+		{
+			writer.value( 0 ); // ServerState/Level
+			writer.value( "" ); // ServerState/Message
+			writer.nullValue(); // Hang_Out_Code
+
+			// Encoded_response
+			writer.beginArray();
+			for( Object value : answer.values )
+			{
+				if( answer.columnar )
+					writeColumnarResponse( writer, value );
+				else if( output.compact != null )
+					output.compact.write( writer, value );
+				else
+					writeResponse( writer, value );
+			}
+			writer.endArray();
+		}
+
+		writer.endArray();
+		writer.flush();
+	}
+
+	/**
+	 * Writes a response value, encoded the same way as
+	 * {@link #encodeResponse(Object)} does
+	 */
+	public static void writeResponse( JsonWriter writer, Object response ) throws IOException
+	{
+		if( response instanceof Iterable<?> )
+		{
+			// the items of a list often are of the same class
+			DataProxyEncoder encoder = null;
+
+			writer.beginArray();
+			for( Object e : (Iterable<?>) response )
+			{
+				if( e instanceof DataProxy )
+				{
+					if( encoder == null || encoder.type != e.getClass() )
+						encoder = DataProxyEncoder.get( e.getClass() );
+
+					encoder.writeObject( writer, e );
+				}
+				else
+				{
+					writeResponse( writer, e );
+				}
+			}
+			writer.endArray();
+		}
+		else if( response instanceof DataProxy )
+		{
+			// encode a bean
+			DataProxyEncoder.get( response.getClass() ).writeObject( writer, response );
+		}
+		else if( response instanceof String )
+		{
+			writer.value( (String) response );
+		}
+		else if( response instanceof Number )
+		{
+			writer.value( (Number) response );
+		}
+		else if( response instanceof HexaDateTime )
+		{
+			writer.value( ((HexaDateTime) response).getString() );
+		}
+		else
+		{
+			writer.nullValue();
+		}
+	}
+
+	/**
+	 * Writes a response value with the encoding described by
+	 * {@link ColumnarResult}
+	 */
+	public static void writeColumnarResponse( JsonWriter writer, Object response ) throws IOException
+	{
+		DataProxyEncoder encoder = getCommonEncoder( response );
+		if( encoder == null )
+		{
+			writeResponse( writer, response );
+			return;
+		}
+
+		writer.beginArray();
+		encoder.writeFieldNames( writer );
+		for( Object e : (Collection<?>) response )
+			encoder.writeRow( writer, e );
+		writer.endArray();
+	}
+
+	// the encoder of the objects of a collection, if they are all data
+	// proxies of the same class
+	static DataProxyEncoder getCommonEncoder( Object response )
+	{
+		if( !(response instanceof Collection<?>) || ((Collection<?>) response).isEmpty() )
+			return null;
+
+		Class<?> type = null;
+		for( Object e : (Collection<?>) response )
+		{
+			if( !(e instanceof DataProxy) )
+				return null;
+
+			if( type == null )
+				type = e.getClass();
+			else if( type != e.getClass() )
+				return null;
+		}
+
+		return DataProxyEncoder.get( type );
 	}
 
 	public static JsonElement encodeResponse( Object response )
@@ -296,28 +809,9 @@ public abstract class HexaGWTServlet extends HttpServlet
 			// encode a bean
 			JsonObject encoded = new JsonObject();
 
-			// find the DataProxy sub class this response herits from
-			HashSet<Method> methods = new HashSet<Method>();
-			getDataProxyMethods( response.getClass(), methods );
-
-			for( Method m : methods )
-			{
-				FieldName fieldNameAnnotation = m.getAnnotation( FieldName.class );
-				if( fieldNameAnnotation == null )
-					continue;
-
-				try
-				{
-					String field = fieldNameAnnotation.fieldName();
-					Object value = m.invoke( response );
-
-					encoded.add( field, encodeResponse( value ) );
-				}
-				catch( Exception e )
-				{
-					e.printStackTrace();
-				}
-			}
+			DataProxyEncoder encoder = DataProxyEncoder.get( response.getClass() );
+			for( int i = 0; i < encoder.fieldNames.length; i++ )
+				encoded.add( encoder.fieldNames[i], encodeResponse( encoder.getValue( response, i ) ) );
 
 			return encoded;
 		}
@@ -334,30 +828,92 @@ public abstract class HexaGWTServlet extends HttpServlet
 		return null;
 	}
 
-	private static void getDataProxyMethods( Class<?> clazz, HashSet<Method> result )
+	// where the answers of a request are written
+	private static class ResponseOutput
 	{
-		if( clazz == null || clazz == Object.class )
-			return;
+		final CountingWriter counter;
+
+		// null for the json encoding
+		final CompactResponseWriter compact;
 
-		// find annotated methods within the super class
-		getDataProxyMethods( clazz.getSuperclass(), result );
+		final HttpServletResponse response;
+		final long startTime = System.nanoTime();
 
-		// find annotated methods within the implemented interfaces
-		Class<?>[] implementedInterfaces = clazz.getInterfaces();
-		for( int i = 0; i < implementedInterfaces.length; i++ )
-			getDataProxyMethods( implementedInterfaces[i], result );
+		int nbAnswers;
 
-		// find annoted methods in the class
-		Method[] methods = clazz.getDeclaredMethods();
-		for( int i = 0; i < methods.length; i++ )
+		ResponseOutput( CountingWriter counter, CompactResponseWriter compact, HttpServletResponse response )
 		{
-			Method m = methods[i];
+			this.counter = counter;
+			this.compact = compact;
+			this.response = response;
+		}
 
-			FieldName fieldNameAnnotation = m.getAnnotation( FieldName.class );
-			if( fieldNameAnnotation == null )
-				continue;
+		// the processing time is reported only if the headers are not sent
+		// yet, which is the case unless the answers filled the response buffer
+		void reportServerTime()
+		{
+			if( response != null && !response.isCommitted() )
+				response.addHeader( RPCBatchRequestSender.SERVER_TIME_HEADER, String.valueOf( (System.nanoTime() - startTime) / 1000000 ) );
+		}
+	}
+
+	private static class CountingInputStream extends FilterInputStream
+	{
+		long count;
+
+		CountingInputStream( InputStream in )
+		{
+			super( in );
+		}
 
-			result.add( m );
+		@Override
+		public int read() throws IOException
+		{
+			int b = super.read();
+			if( b >= 0 )
+				count++;
+			return b;
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len ) throws IOException
+		{
+			int n = super.read( b, off, len );
+			if( n > 0 )
+				count += n;
+			return n;
+		}
+	}
+
+	// the answers are written by one thread, no synchronization is needed
+	private static class CountingWriter extends FilterWriter
+	{
+		long count;
+
+		CountingWriter( Writer out )
+		{
+			super( out );
+		}
+
+		@Override
+		public void write( int c ) throws IOException
+		{
+			super.write( c );
+			count++;
+		}
+
+		@Override
+		public void write( char[] cbuf, int off, int len ) throws IOException
+		{
+			super.write( cbuf, off, len );
+			count += len;
+		}
+
+		@Override
+		public void write( String str, int off, int len ) throws IOException
+		{
+			super.write( str, off, len );
+			count += len;
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method, or all the methods of a service implementation
+ * class, whose calls do not depend on the other calls of their batch.
+ * 
+ * The independent calls of a batch are run concurrently by the
+ * {@link HexaGWTServlet}. The other calls keep the default ordered
+ * semantics : a call which is not independent runs once all the calls
+ * before it are finished, and before any call after it starts. The answers
+ * are always sent in the order of the calls.
+ * 
+ * An independent call usually runs on a thread of a pool, not on the request
+ * thread : the context bound to the request thread, like the current request
+ * and database context of HexaSpring, is not available there unless the
+ * servlet installs it with
+ * {@link HexaGWTServlet#beforeIndependentCall(javax.servlet.http.HttpServletRequest)}
+ * and {@link HexaGWTServlet#afterIndependentCall()}.
+ */
+@Retention( RetentionPolicy.RUNTIME )
+@Target( { ElementType.METHOD, ElementType.TYPE } )
+public @interface IndependentCall
+{
+}
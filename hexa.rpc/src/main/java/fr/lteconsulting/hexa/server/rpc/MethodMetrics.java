@@ -0,0 +1,123 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency and response size statistics of a service method.
+ * 
+ * The latencies are counted in power of two buckets of microseconds : the
+ * bucket <code>b</code> counts the calls which lasted less than 2^b
+ * microseconds, and at least 2^(b-1).
+ */
+public final class MethodMetrics
+{
+	public static final int NB_BUCKETS = 32;
+
+	private final String serviceName;
+	private final String methodName;
+	private final int nbParameters;
+
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong totalTime = new AtomicLong();
+	private final AtomicLong maxTime = new AtomicLong();
+	private final AtomicLong responseChars = new AtomicLong();
+	private final AtomicLongArray latencies = new AtomicLongArray( NB_BUCKETS );
+
+	MethodMetrics( String serviceName, String methodName, int nbParameters )
+	{
+		this.serviceName = serviceName;
+		this.methodName = methodName;
+		this.nbParameters = nbParameters;
+	}
+
+	void recordCall( long nanos, boolean failed )
+	{
+		calls.incrementAndGet();
+		if( failed )
+			errors.incrementAndGet();
+
+		totalTime.addAndGet( nanos );
+
+		long max;
+		while( nanos > (max = maxTime.get()) && !maxTime.compareAndSet( max, nanos ) )
+		{
+		}
+
+		long micros = nanos / 1000;
+		latencies.incrementAndGet( Math.min( 64 - Long.numberOfLeadingZeros( micros ), NB_BUCKETS - 1 ) );
+	}
+
+	void recordResponse( long chars )
+	{
+		responseChars.addAndGet( chars );
+	}
+
+	public String getServiceName()
+	{
+		return serviceName;
+	}
+
+	public String getMethodName()
+	{
+		return methodName;
+	}
+
+	public int getNbParameters()
+	{
+		return nbParameters;
+	}
+
+	public long getCalls()
+	{
+		return calls.get();
+	}
+
+	public long getErrors()
+	{
+		return errors.get();
+	}
+
+	/**
+	 * The total time spent in the calls, in nanoseconds
+	 */
+	public long getTotalTime()
+	{
+		return totalTime.get();
+	}
+
+	/**
+	 * The time of the longest call, in nanoseconds
+	 */
+	public long getMaxTime()
+	{
+		return maxTime.get();
+	}
+
+	/**
+	 * The total number of characters of the encoded answers
+	 */
+	public long getResponseChars()
+	{
+		return responseChars.get();
+	}
+
+	/**
+	 * The latency histogram, see the class documentation for the buckets
+	 */
+	public long[] getLatencies()
+	{
+		long[] res = new long[NB_BUCKETS];
+		for( int b = 0; b < NB_BUCKETS; b++ )
+			res[b] = latencies.get( b );
+		return res;
+	}
+
+	@Override
+	public String toString()
+	{
+		long nbCalls = getCalls();
+		return serviceName + "." + methodName + "/" + nbParameters + " calls:" + nbCalls + " errors:" + getErrors() + " avg:" + (nbCalls == 0 ? 0 : getTotalTime() / nbCalls / 1000) + "us max:" + getMaxTime() / 1000 + "us response chars:" + getResponseChars();
+	}
+}
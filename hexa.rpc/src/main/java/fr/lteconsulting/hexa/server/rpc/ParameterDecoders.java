@@ -0,0 +1,145 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+import fr.lteconsulting.hexa.shared.rpc.ListInteger;
+
+/**
+ * Decoders of the json encoded call parameters, one for each parameter type.
+ * They are chosen once, when the service is added.
+ */
+class ParameterDecoders
+{
+	interface Decoder
+	{
+		Object decode( JsonElement p );
+	}
+
+	private static final Decoder STRING = new Decoder()
+	{
+		@Override
+		public Object decode( JsonElement p )
+		{
+			if( p == null )
+				return null;
+
+			return p.getAsString();
+		}
+	};
+
+	private static final Decoder INTEGER = new Decoder()
+	{
+		@Override
+		public Object decode( JsonElement p )
+		{
+			if( p == null )
+				return null;
+
+			return Integer.valueOf( p.getAsInt() );
+		}
+	};
+
+	private static final Decoder LIST_INTEGER = new Decoder()
+	{
+		@Override
+		public Object decode( JsonElement p )
+		{
+			if( p == null )
+				return null;
+
+			JsonArray jsonArray = p.getAsJsonArray();
+			int size = jsonArray.size();
+
+			ListInteger res = new ListInteger();
+			res.ensureCapacity( size );
+			for( int i = 0; i < size; i++ )
+				res.add( (Integer) INTEGER.decode( jsonArray.get( i ) ) );
+
+			return res;
+		}
+	};
+
+	private static final Decoder INT_ARRAY = new Decoder()
+	{
+		@Override
+		public Object decode( JsonElement p )
+		{
+			if( p == null )
+				return null;
+
+			JsonArray jsonArray = p.getAsJsonArray();
+			int size = jsonArray.size();
+
+			int[] res = new int[size];
+			for( int i = 0; i < size; i++ )
+				res[i] = jsonArray.get( i ).getAsInt();
+			return res;
+		}
+	};
+
+	/**
+	 * Returns the decoder for a parameter type. For the types which cannot be
+	 * decoded, the returned decoder throws when used.
+	 */
+	static Decoder forType( final Class<?> classType )
+	{
+		if( classType == String.class )
+			return STRING;
+		if( classType == int.class || classType == Integer.class )
+			return INTEGER;
+		if( classType == ListInteger.class )
+			return LIST_INTEGER;
+		if( classType == int[].class )
+			return INT_ARRAY;
+
+		if( classType.isArray() && !classType.getComponentType().isPrimitive() )
+			return new ObjectArrayDecoder( classType.getComponentType() );
+
+		return new Decoder()
+		{
+			@Override
+			public Object decode( JsonElement p )
+			{
+				if( p == null )
+					return null;
+
+				if( classType == ArrayList.class )
+					throw new RuntimeException( "Deserialization of an ArrayList<?>, please use one of the wrapping types like ListInteger...)" );
+
+				throw new RuntimeException( "Unknown deserialization of parameter for class " + classType.getName() + " json element is " + p.toString() );
+			}
+		};
+	}
+
+	private static class ObjectArrayDecoder implements Decoder
+	{
+		private final Class<?> componentClass;
+		private final Decoder componentDecoder;
+
+		ObjectArrayDecoder( Class<?> componentClass )
+		{
+			this.componentClass = componentClass;
+			this.componentDecoder = forType( componentClass );
+		}
+
+		@Override
+		public Object decode( JsonElement p )
+		{
+			if( p == null )
+				return null;
+
+			JsonArray jsonArray = p.getAsJsonArray();
+			int size = jsonArray.size();
+
+			Object[] res = (Object[]) Array.newInstance( componentClass, size );
+			for( int i = 0; i < size; i++ )
+				res[i] = componentDecoder.decode( jsonArray.get( i ) );
+
+			return res;
+		}
+	}
+}
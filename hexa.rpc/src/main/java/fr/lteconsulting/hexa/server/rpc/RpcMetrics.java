@@ -0,0 +1,79 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the requests received by a {@link HexaGWTServlet}, and of the
+ * calls to each of its service methods.
+ * 
+ * The payloads are streamed call by call, so their sizes are only known per
+ * request. The answers sizes are known per call.
+ */
+public final class RpcMetrics
+{
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong payloadBytes = new AtomicLong();
+	private final AtomicLong maxPayloadBytes = new AtomicLong();
+
+	private final List<MethodMetrics> methods = new CopyOnWriteArrayList<MethodMetrics>();
+
+	MethodMetrics createMethodMetrics( String serviceName, String methodName, int nbParameters )
+	{
+		MethodMetrics metrics = new MethodMetrics( serviceName, methodName, nbParameters );
+		methods.add( metrics );
+		return metrics;
+	}
+
+	void recordRequest( long bytes )
+	{
+		requests.incrementAndGet();
+		payloadBytes.addAndGet( bytes );
+
+		long max;
+		while( bytes > (max = maxPayloadBytes.get()) && !maxPayloadBytes.compareAndSet( max, bytes ) )
+		{
+		}
+	}
+
+	public long getRequests()
+	{
+		return requests.get();
+	}
+
+	/**
+	 * The total size of the received payloads
+	 */
+	public long getPayloadBytes()
+	{
+		return payloadBytes.get();
+	}
+
+	public long getMaxPayloadBytes()
+	{
+		return maxPayloadBytes.get();
+	}
+
+	/**
+	 * The statistics of each method of the services
+	 */
+	public List<MethodMetrics> getMethods()
+	{
+		return new ArrayList<MethodMetrics>( methods );
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append( "requests:" ).append( getRequests() ).append( " payload bytes:" ).append( getPayloadBytes() ).append( " max:" ).append( getMaxPayloadBytes() ).append( "\r\n" );
+		for( MethodMetrics method : methods )
+		{
+			if( method.getCalls() > 0 )
+				sb.append( method ).append( "\r\n" );
+		}
+		return sb.toString();
+	}
+}
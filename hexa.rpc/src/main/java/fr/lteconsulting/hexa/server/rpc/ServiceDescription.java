@@ -1,182 +1,214 @@
 package fr.lteconsulting.hexa.server.rpc;
 
-import java.lang.reflect.Array;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import fr.lteconsulting.hexa.server.tools.Trace;
-import fr.lteconsulting.hexa.shared.rpc.ListInteger;
 
+import fr.lteconsulting.hexa.server.tools.TraceBuffer;
+
+/**
+ * A service added to the {@link HexaGWTServlet}.
+ * 
+ * The methods of the delegate are prepared when the service is added : the
+ * parameter decoders are chosen and a method handle is created for each
+ * method. Once built, a description is never modified, so concurrent
+ * requests can use it without locking.
+ */
 class ServiceDescription
 {
+	private static final MethodType INVOKER_TYPE = MethodType.methodType( Object.class, Object[].class );
+
 	String name;
 	String checksum;
 	Object delegate;
 	String[] methodShortcuts;
 
-	// cache methods informations
-	private final HashMap<String, MethodInfo> methodsCache = new HashMap<String, MethodInfo>();
+	// methods by name, the overloads are told apart by their number of
+	// parameters
+	private final HashMap<String, MethodInvoker[]> methods = new HashMap<String, MethodInvoker[]>();
 
-	private static class MethodInfo
+	// methods by shortcut index
+	private final MethodInvoker[][] shortcuts;
+
+	static class MethodInvoker
 	{
-		MethodInfo( Method method )
+		final String name;
+		final ParameterDecoders.Decoder[] decoders;
+		final MethodHandle handle;
+		final boolean independent;
+		final boolean columnar;
+		final MethodMetrics metrics;
+
+		MethodInvoker( Object delegate, Method method, MethodMetrics metrics ) throws IllegalAccessException
 		{
-			this.method = method;
-			paramTypes = method.getParameterTypes();
-		}
+			name = method.getName();
+			this.metrics = metrics;
 
-		Method method;
+			Class<?>[] paramTypes = method.getParameterTypes();
+			decoders = new ParameterDecoders.Decoder[paramTypes.length];
+			for( int i = 0; i < paramTypes.length; i++ )
+				decoders[i] = ParameterDecoders.forType( paramTypes[i] );
 
-		Class<?>[] paramTypes;
+			// the delegate class itself might not be public
+			if( !Modifier.isPublic( method.getDeclaringClass().getModifiers() ) )
+				method.setAccessible( true );
+			handle = MethodHandles.lookup().unreflect( method ).bindTo( delegate ).asSpreader( Object[].class, paramTypes.length ).asType( INVOKER_TYPE );
+
+			independent = method.isAnnotationPresent( IndependentCall.class ) || delegate.getClass().isAnnotationPresent( IndependentCall.class );
+			columnar = method.isAnnotationPresent( ColumnarResult.class );
+		}
 	}
 
-	public ServiceDescription( String name, String checksum, Object delegate, String[] methodShortcuts )
+	public ServiceDescription( String name, String checksum, Object delegate, String[] methodShortcuts, RpcMetrics metrics )
 	{
 		this.name = name;
 		this.checksum = checksum;
 		this.delegate = delegate;
 		this.methodShortcuts = methodShortcuts;
-	}
 
-	private MethodInfo findMethod( String methodName )
-	{
-		MethodInfo result = methodsCache.get( methodName );
-		if( result != null )
-			return result;
-
-		Method[] methods = delegate.getClass().getMethods();
-		for( int i = 0; i < methods.length; i++ )
+		HashMap<String, List<MethodInvoker>> invokers = new HashMap<String, List<MethodInvoker>>();
+		for( Method method : delegate.getClass().getMethods() )
 		{
-			Method method = methods[i];
-			if( method.getName().equals( methodName ) )
+			if( !isServiceMethod( method ) )
+				continue;
+
+			List<MethodInvoker> overloads = invokers.get( method.getName() );
+			if( overloads == null )
 			{
-				MethodInfo methodInfo = new MethodInfo( method );
-				methodsCache.put( methodName, methodInfo );
-				return methodInfo;
+				overloads = new ArrayList<MethodInvoker>();
+				invokers.put( method.getName(), overloads );
+			}
+
+			try
+			{
+				overloads.add( new MethodInvoker( delegate, method, metrics.createMethodMetrics( name, method.getName(), method.getParameterTypes().length ) ) );
+			}
+			catch( IllegalAccessException e )
+			{
+				throw new IllegalStateException( "Cannot access the method " + method + " of the service " + name, e );
 			}
 		}
 
-		return null;
+		for( List<MethodInvoker> overloads : invokers.values() )
+			methods.put( overloads.get( 0 ).name, overloads.toArray( new MethodInvoker[overloads.size()] ) );
+
+		int nbShortcuts = methodShortcuts == null ? 0 : methodShortcuts.length;
+		shortcuts = new MethodInvoker[nbShortcuts][];
+		for( int i = 0; i < nbShortcuts; i++ )
+			shortcuts[i] = methods.get( methodShortcuts[i] );
 	}
 
-	public Object call( String method, JsonArray parameters )
+	/**
+	 * Whether a public method of the delegate can be called by the clients.
+	 * The bridge methods are left out, they have the erased signature of a
+	 * generic method which is implemented by another method with the same
+	 * name and number of parameters.
+	 */
+	private static boolean isServiceMethod( Method method )
 	{
-		// Try parsing a numeric encoded value of the called method
-		try
-		{
-			method = methodShortcuts[Integer.parseInt( method )];
-		}
-		catch( NumberFormatException badFormat )
-		{
-		}
-
-		Trace.it( "Calling method " + method );
+		return method.getDeclaringClass() != Object.class && !method.isBridge() && !method.isSynthetic() && !Modifier.isStatic( method.getModifiers() );
+	}
 
-		MethodInfo jmethod = findMethod( method );
-		if( jmethod == null )
-		{
-			throw new RuntimeException( "Called method not found in delegate of class " + delegate.getClass().getName() );
-		}
+	/**
+	 * Finds the method called by its name, or by the index of its shortcut.
+	 * Returns <code>null</code> if there is no such method.
+	 */
+	MethodInvoker findMethod( String method, int nbParameters )
+	{
+		MethodInvoker[] overloads;
 
-		Trace.it( "Deserialize parameters" );
+		int shortcut = parseShortcut( method );
+		if( shortcut >= 0 && shortcut < shortcuts.length )
+			overloads = shortcuts[shortcut];
+		else
+			overloads = methods.get( method );
 
-		// Deserialize the parameters
-		Class<?>[] paramTypes = jmethod.paramTypes;
-		if( !(parameters == null && paramTypes.length == 0) && parameters.size() != paramTypes.length )
-			throw new InvalidParameterException( "parameters.size()!=paramTypes.length" );
+		if( overloads == null )
+			return null;
 
-		Object[] jparams = new Object[paramTypes.length];
+		if( overloads.length == 1 )
+			return overloads[0];
 
-		for( int i = 0; i < paramTypes.length; i++ )
+		MethodInvoker result = null;
+		for( MethodInvoker invoker : overloads )
 		{
-			Trace.it( "Param " + i );
+			if( invoker.decoders.length != nbParameters )
+				continue;
 
-			Class<?> classType = paramTypes[i];
-			JsonElement p = parameters.get( i );
+			if( result != null )
+				throw new RuntimeException( "Ambiguous call to the overloaded method " + invoker.name + " with " + nbParameters + " parameters in delegate of class " + delegate.getClass().getName() );
 
-			jparams[i] = deserializeParameters( classType, p );
+			result = invoker;
 		}
 
-		// Call the delegate
-		try
-		{
-			Trace.it( "Real call..." );
-			Object res = jmethod.method.invoke( delegate, jparams );
-			Trace.it( "Ok" );
-			return res;
-		}
-		catch( Exception e )
-		{
-			Trace.it( "Failed with: " + e.getClass().getName() );
-			Trace.throwable( e.getCause() );
-			throw new RuntimeException( e );
-		}
+		return result;
 	}
 
-	private Object deserializeParameters( Class<?> classType, JsonElement p )
+	// returns the shortcut index encoded in the method, -1 if it is a name
+	private static int parseShortcut( String method )
 	{
-		if( p == null )
-			return null;
+		int length = method.length();
+		if( length == 0 || length > 9 )
+			return -1;
 
-		if( classType == String.class )
-			return p.getAsString();
-		else if( classType == int.class )
-			return p.getAsInt();
-		else if( classType == Integer.class )
-			return new Integer( p.getAsInt() );
-		else if( classType == ListInteger.class )
+		int index = 0;
+		for( int i = 0; i < length; i++ )
 		{
-			JsonArray jsonArray = p.getAsJsonArray();
-			int size = jsonArray.size();
+			char c = method.charAt( i );
+			if( c < '0' || c > '9' )
+				return -1;
+			index = index * 10 + (c - '0');
+		}
 
-			ListInteger res = new ListInteger();
-			for( int i = 0; i < size; i++ )
-				res.add( (Integer) deserializeParameters( Integer.class, jsonArray.get( i ) ) );
+		return index;
+	}
 
-			return res;
-		}
-		else if( classType.isArray() )
-		{
-			JsonArray jsonArray = p.getAsJsonArray();
-			int size = jsonArray.size();
+	/**
+	 * Calls a method of the delegate, found with
+	 * {@link #findMethod(String, int)}
+	 * 
+	 * @param trace
+	 *            the trace of the request, <code>null</code> if it is not
+	 *            traced
+	 */
+	Object call( MethodInvoker invoker, JsonArray parameters, TraceBuffer trace )
+	{
+		// Deserialize the parameters
+		ParameterDecoders.Decoder[] decoders = invoker.decoders;
+		int nbParameters = parameters == null ? 0 : parameters.size();
+		if( nbParameters != decoders.length )
+			throw new InvalidParameterException( "parameters.size()!=paramTypes.length" );
 
-			Class<?> componentClass = classType.getComponentType();
+		Object[] jparams = new Object[decoders.length];
 
-			if( componentClass.isPrimitive() )
-			{
-				if( componentClass == int.class )
-				{
-					int[] res = new int[size];
-					for( int i = 0; i < size; i++ )
-						res[i] = jsonArray.get( i ).getAsInt();
-					return res;
-				}
-				else if( componentClass == String.class )
-				{
-					String[] res = new String[size];
-					for( int i = 0; i < size; i++ )
-						res[i] = jsonArray.get( i ).getAsString();
-					return res;
-				}
-			}
+		for( int i = 0; i < decoders.length; i++ )
+		{
+			if( trace != null )
+				trace.debug( "Param {} : {}", i, parameters.get( i ) );
 
-			Object res = Array.newInstance( componentClass, size );
-			for( int i = 0; i < size; i++ )
-				Array.set( res, i, deserializeParameters( componentClass, jsonArray.get( i ) ) );
+			jparams[i] = decoders[i].decode( parameters.get( i ) );
+		}
 
-			return res;
+		// Call the delegate
+		try
+		{
+			return (Object) invoker.handle.invokeExact( jparams );
 		}
-		else if( classType == ArrayList.class )
+		catch( RuntimeException e )
 		{
-			throw new RuntimeException( "Deserialization of an ArrayList<?>, please use one of the wrapping types like ListInteger...)" );
+			throw e;
 		}
-		else
+		catch( Throwable e )
 		{
-			throw new RuntimeException( "Unknown deserialization of parameter for class " + classType.getName() + " json element is " + p.toString() );
+			throw new RuntimeException( e );
 		}
 	}
-}
\ No newline at end of file
+}
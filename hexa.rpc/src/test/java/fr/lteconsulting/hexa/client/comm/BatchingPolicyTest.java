@@ -0,0 +1,60 @@
+package fr.lteconsulting.hexa.client.comm;
+
+import junit.framework.TestCase;
+
+/**
+ * The linger time follows the measured round trips
+ */
+public class BatchingPolicyTest extends TestCase
+{
+	public void testNoLingerByDefault()
+	{
+		BatchingPolicy policy = new BatchingPolicy();
+		assertEquals( 0, policy.getLingerTime() );
+
+		policy.recordRoundTrip( 500, 0 );
+		assertEquals( 0, policy.getLingerTime() );
+	}
+
+	public void testLingerAdaptsToTheNetworkTime()
+	{
+		BatchingPolicy policy = new BatchingPolicy();
+		policy.setMaxLingerTime( 20 );
+		assertEquals( 20, policy.getLingerTime() );
+
+		policy.recordRoundTrip( 110, 10 );
+		assertEquals( 10, policy.getLingerTime() );
+
+		// bounded by the maximum linger time
+		policy = new BatchingPolicy();
+		policy.setMaxLingerTime( 20 );
+		policy.recordRoundTrip( 1000, -1 );
+		assertEquals( 20, policy.getLingerTime() );
+
+		// a server time longer than the round trip gives no linger
+		policy = new BatchingPolicy();
+		policy.setMaxLingerTime( 20 );
+		policy.recordRoundTrip( 10, 50 );
+		assertEquals( 0, policy.getLingerTime() );
+	}
+
+	public void testSmoothedTimes()
+	{
+		BatchingPolicy policy = new BatchingPolicy();
+		assertTrue( policy.getRoundTripTime() < 0 );
+		assertTrue( policy.getServerTime() < 0 );
+
+		policy.recordRoundTrip( 100, -1 );
+		assertEquals( 100.0, policy.getRoundTripTime() );
+		assertTrue( policy.getServerTime() < 0 );
+
+		policy.recordRoundTrip( 200, 50 );
+		assertEquals( 120.0, policy.getRoundTripTime(), 1e-9 );
+		assertEquals( 50.0, policy.getServerTime() );
+
+		// an unknown server time keeps the previous one
+		policy.recordRoundTrip( 120, -1 );
+		assertEquals( 120.0, policy.getRoundTripTime(), 1e-9 );
+		assertEquals( 50.0, policy.getServerTime() );
+	}
+}
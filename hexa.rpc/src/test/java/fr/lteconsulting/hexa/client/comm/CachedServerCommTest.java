@@ -0,0 +1,133 @@
+package fr.lteconsulting.hexa.client.comm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+
+/**
+ * The identical requests sent while one is in flight share its answer,
+ * unless a call modified the tables it depends on
+ */
+public class CachedServerCommTest extends TestCase
+{
+	// records the requests instead of sending them
+	private static class RecordingProxy extends RPCProxy
+	{
+		final List<Object> cookies = new ArrayList<Object>();
+
+		@Override
+		public void sendRequest( RequestDesc request, Object cookie, XRPCRequest callback )
+		{
+			cookies.add( cookie );
+		}
+	}
+
+	// calls back the clients at once
+	private static class Comm extends CachedServerComm
+	{
+		@Override
+		void scheduleFinally( ScheduledCommand command )
+		{
+			command.execute();
+		}
+	}
+
+	private static class Client implements XRPCRequest
+	{
+		final List<Object> answers = new ArrayList<Object>();
+
+		@Override
+		public void onResponse( Object cookie, ResponseJSO response, int msgLevel, String msg )
+		{
+			answers.add( cookie );
+		}
+	}
+
+	private Comm comm;
+	private RecordingProxy proxy;
+	private Client client;
+
+	@Override
+	protected void setUp()
+	{
+		comm = new Comm();
+		proxy = new RecordingProxy();
+		comm.srv = proxy;
+		client = new Client();
+	}
+
+	private static RequestDesc request( String method, String... tables )
+	{
+		RequestDesc request = new RequestDesc( "service", "checksum", method, null );
+		request.setCacheInfo( tables, 0 );
+		return request;
+	}
+
+	public void testInFlightRequestsAreCoalesced()
+	{
+		comm.sendRequest( true, false, request( "list", "product" ), "first", client );
+		comm.sendRequest( true, false, request( "list", "product" ), "second", client );
+		comm.sendRequest( true, false, request( "other", "product" ), "third", client );
+
+		assertEquals( 2, proxy.cookies.size() );
+
+		comm.onResponse( proxy.cookies.get( 0 ), null, 0, null );
+		comm.onResponse( proxy.cookies.get( 1 ), null, 0, null );
+
+		// answered in the order of the requests
+		assertEquals( 3, client.answers.size() );
+		assertEquals( "first", client.answers.get( 0 ) );
+		assertEquals( "second", client.answers.get( 1 ) );
+		assertEquals( "third", client.answers.get( 2 ) );
+
+		assertEquals( 2, comm.getCache().size() );
+	}
+
+	public void testRequestsWithoutCacheAreNotCoalesced()
+	{
+		comm.sendRequest( false, false, request( "list", "product" ), "first", client );
+		comm.sendRequest( false, false, request( "list", "product" ), "second", client );
+
+		assertEquals( 2, proxy.cookies.size() );
+	}
+
+	public void testInvalidatedRequestIsNotShared()
+	{
+		comm.sendRequest( true, false, request( "list", "product" ), "first", client );
+
+		// the answer in flight may not see the modification
+		comm.sendRequest( false, true, request( "update", "product" ), "update", client );
+		comm.sendRequest( true, false, request( "list", "product" ), "second", client );
+
+		assertEquals( 3, proxy.cookies.size() );
+
+		for( Object cookie : proxy.cookies )
+			comm.onResponse( cookie, null, 0, null );
+
+		assertEquals( 3, client.answers.size() );
+
+		// only the answer received after the modification is cached
+		assertEquals( 1, comm.getCache().size() );
+	}
+
+	public void testOtherTablesKeepTheRequestShared()
+	{
+		comm.sendRequest( true, false, request( "list", "product" ), "first", client );
+		comm.sendRequest( false, true, request( "update", "customer" ), "update", client );
+		comm.sendRequest( true, false, request( "list", "product" ), "second", client );
+
+		assertEquals( 2, proxy.cookies.size() );
+	}
+
+	public void testErrorsAreNotCached()
+	{
+		comm.sendRequest( true, false, request( "list", "product" ), "first", client );
+		comm.onResponse( proxy.cookies.get( 0 ), null, 3, "error" );
+
+		assertEquals( 1, client.answers.size() );
+		assertEquals( 0, comm.getCache().size() );
+	}
+}
@@ -0,0 +1,277 @@
+package fr.lteconsulting.hexa.client.comm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+
+/**
+ * The proxy groups the calls in batches, sent when they are full or when
+ * the linger time is elapsed
+ */
+public class RPCProxyTest extends TestCase
+{
+	// the size estimated for each call of the tests
+	private static final int CALL_BYTES = "null".length() + "method".length() + 16;
+
+	// keeps its calls instead of sending them on the network
+	private static class Sender extends RPCBatchRequestSender
+	{
+		@Override
+		public void init( String baseUrl, XRPCBatchRequestSender callback )
+		{
+			this.callback = callback;
+		}
+
+		@Override
+		public boolean canAddRequest()
+		{
+			return sentRequests == null && super.canAddRequest();
+		}
+
+		@Override
+		public boolean isReadyToSend()
+		{
+			return sentRequests == null;
+		}
+
+		@Override
+		public boolean send()
+		{
+			sentRequests = new ArrayList<RequestCallInfo>( requestsToSend );
+			requestsToSend.clear();
+			nbSentBytes = nbPendingBytes;
+			callback.sent( this );
+			return true;
+		}
+
+		void answer( double roundTripTime, double serverTime )
+		{
+			for( RequestCallInfo info : sentRequests )
+				info.setResult( 0, "", null, null );
+
+			this.roundTripTime = roundTripTime;
+			this.serverTime = serverTime;
+			callback.answerReceived( this );
+		}
+	}
+
+	// runs the scheduled commands when the test asks for it
+	private static class Proxy extends RPCProxy
+	{
+		final List<Sender> senders = new ArrayList<Sender>();
+
+		ScheduledCommand deferred;
+		RepeatingCommand linger;
+		int lingerTime;
+
+		@Override
+		void scheduleDeferred( ScheduledCommand command )
+		{
+			assertNull( deferred );
+			deferred = command;
+		}
+
+		@Override
+		void scheduleFixedDelay( RepeatingCommand command, int delay )
+		{
+			assertNull( linger );
+			linger = command;
+			lingerTime = delay;
+		}
+
+		@Override
+		RPCBatchRequestSender createBatchRequestSender()
+		{
+			Sender sender = new Sender();
+			senders.add( sender );
+			return sender;
+		}
+
+		void runDeferred()
+		{
+			ScheduledCommand command = deferred;
+			deferred = null;
+			command.execute();
+		}
+
+		void runLinger()
+		{
+			RepeatingCommand command = linger;
+			linger = null;
+			assertFalse( command.execute() );
+		}
+
+		// the number of calls of each sent batch
+		List<Integer> sentBatches()
+		{
+			List<Integer> result = new ArrayList<Integer>();
+			for( Sender sender : senders )
+			{
+				if( sender.sentRequests != null )
+					result.add( sender.sentRequests.size() );
+			}
+			return result;
+		}
+	}
+
+	private static class Client implements XRPCRequest
+	{
+		final List<Object> answers = new ArrayList<Object>();
+
+		@Override
+		public void onResponse( Object cookie, ResponseJSO response, int msgLevel, String msg )
+		{
+			answers.add( cookie );
+		}
+	}
+
+	private Proxy proxy;
+	private Client client;
+
+	@Override
+	protected void setUp()
+	{
+		proxy = new Proxy();
+		client = new Client();
+	}
+
+	private void call( int count )
+	{
+		for( int i = 0; i < count; i++ )
+			proxy.sendRequest( new RequestDesc( "service", "checksum", "method", null ), i, client );
+	}
+
+	public void testCallsOfAnEventLoopAreSentTogether()
+	{
+		call( 3 );
+		assertNull( proxy.linger );
+		assertEquals( 0, proxy.getNbSentBatches() );
+
+		proxy.runDeferred();
+		assertEquals( "[3]", proxy.sentBatches().toString() );
+
+		proxy.senders.get( 0 ).answer( 10, 2 );
+		assertEquals( 3, client.answers.size() );
+		assertEquals( 10.0, proxy.getBatchingPolicy().getRoundTripTime() );
+		assertEquals( 2.0, proxy.getBatchingPolicy().getServerTime() );
+	}
+
+	public void testFlushOnMaxCalls()
+	{
+		proxy.getBatchingPolicy().setMaxCalls( 3 );
+
+		call( 7 );
+		proxy.runDeferred();
+		assertEquals( "[3]", proxy.sentBatches().toString() );
+		assertEquals( 3, proxy.senders.size() );
+
+		// the next batches are sent once the previous answer is received
+		proxy.senders.get( 0 ).answer( 10, -1 );
+		proxy.runDeferred();
+		assertEquals( "[3, 3]", proxy.sentBatches().toString() );
+
+		proxy.senders.get( 1 ).answer( 10, -1 );
+		proxy.runDeferred();
+		assertEquals( "[3, 3, 1]", proxy.sentBatches().toString() );
+	}
+
+	public void testFlushOnMaxBytes()
+	{
+		proxy.getBatchingPolicy().setMaxBytes( 2 * CALL_BYTES );
+
+		// the call which crosses the limit is still added
+		call( 5 );
+		proxy.runDeferred();
+		proxy.senders.get( 0 ).answer( 10, -1 );
+		proxy.runDeferred();
+		proxy.senders.get( 1 ).answer( 10, -1 );
+		proxy.runDeferred();
+
+		assertEquals( "[2, 2, 1]", proxy.sentBatches().toString() );
+		assertEquals( 2 * CALL_BYTES, proxy.getMaxBatchBytes() );
+	}
+
+	public void testFlushOnLinger()
+	{
+		proxy.getBatchingPolicy().setMaxLingerTime( 100 );
+
+		// without measured round trip, the calls wait the maximum time
+		call( 2 );
+		assertNull( proxy.deferred );
+		assertEquals( 100, proxy.lingerTime );
+
+		call( 1 );
+		proxy.runLinger();
+		proxy.runDeferred();
+		assertEquals( "[3]", proxy.sentBatches().toString() );
+
+		// a tenth of the network time of the round trip, 50 ms minus the
+		// 10 ms spent by the server
+		proxy.senders.get( 0 ).answer( 50, 10 );
+		proxy.runDeferred();
+		call( 1 );
+		assertEquals( 4, proxy.lingerTime );
+		proxy.runLinger();
+		proxy.runDeferred();
+		assertEquals( "[3, 1]", proxy.sentBatches().toString() );
+	}
+
+	public void testFullBatchDoesNotWaitTheLinger()
+	{
+		proxy.getBatchingPolicy().setMaxCalls( 2 );
+		proxy.getBatchingPolicy().setMaxLingerTime( 100 );
+
+		call( 1 );
+		assertNotNull( proxy.linger );
+		call( 1 );
+		proxy.runDeferred();
+		assertEquals( "[2]", proxy.sentBatches().toString() );
+
+		// the linger command of the sent calls does nothing
+		proxy.runLinger();
+		assertNull( proxy.deferred );
+	}
+
+	public void testBatchSizeCounters()
+	{
+		int[] sizes = { 1, 2, 3, 5, 4, 1 };
+		for( int size : sizes )
+		{
+			call( size );
+			proxy.runDeferred();
+			proxy.senders.get( proxy.senders.size() - 1 ).answer( 10, -1 );
+		}
+
+		assertEquals( sizes.length, proxy.getNbSentBatches() );
+		assertEquals( 16 * CALL_BYTES, proxy.getNbSentBytes() );
+		assertEquals( 16 * CALL_BYTES / sizes.length, proxy.getAverageBatchBytes() );
+		assertEquals( 5 * CALL_BYTES, proxy.getMaxBatchBytes() );
+
+		// 1 call, 2 to 3 calls, 4 to 7 calls
+		int[] distribution = proxy.getBatchSizeDistribution();
+		assertEquals( 2, distribution[0] );
+		assertEquals( 2, distribution[1] );
+		assertEquals( 2, distribution[2] );
+		assertEquals( 0, distribution[3] );
+
+		// a copy is returned
+		distribution[0] = 100;
+		assertEquals( 2, proxy.getBatchSizeDistribution()[0] );
+	}
+
+	public void testBiggestBucketCountsTheBiggerBatches()
+	{
+		proxy.getBatchingPolicy().setMaxCalls( 100000 );
+		proxy.getBatchingPolicy().setMaxBytes( Integer.MAX_VALUE );
+
+		call( 70000 );
+		proxy.runDeferred();
+
+		int[] distribution = proxy.getBatchSizeDistribution();
+		assertEquals( 1, distribution[distribution.length - 1] );
+	}
+}
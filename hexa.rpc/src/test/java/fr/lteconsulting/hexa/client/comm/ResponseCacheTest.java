@@ -0,0 +1,126 @@
+package fr.lteconsulting.hexa.client.comm;
+
+import junit.framework.TestCase;
+
+/**
+ * The cache evicts the least recently used responses to stay under its
+ * limits, the expired ones, and the ones depending on modified tables
+ */
+public class ResponseCacheTest extends TestCase
+{
+	// the time is set by the test
+	private static class ClockedCache extends ResponseCache
+	{
+		double time = 1000;
+
+		@Override
+		double now()
+		{
+			return time;
+		}
+	}
+
+	public void testEvictsLeastRecentlyUsed()
+	{
+		ResponseCache cache = new ResponseCache();
+		cache.setMaxWeight( 10 );
+
+		cache.put( "a", null, null, 4, 0 );
+		cache.put( "b", null, null, 4, 0 );
+		cache.get( "a" );
+		cache.put( "c", null, null, 4, 0 );
+
+		assertEquals( 2, cache.size() );
+		assertEquals( 8, cache.getWeight() );
+		assertEquals( 1, cache.getNbEvictions() );
+
+		// "a" was used after "b", which is evicted
+		int hits = cache.getNbHits();
+		int misses = cache.getNbMisses();
+		cache.get( "a" );
+		assertEquals( hits + 1, cache.getNbHits() );
+		cache.get( "b" );
+		assertEquals( misses + 1, cache.getNbMisses() );
+		cache.get( "c" );
+		assertEquals( hits + 2, cache.getNbHits() );
+	}
+
+	public void testResponseHeavierThanCacheIsNotCached()
+	{
+		ResponseCache cache = new ResponseCache();
+		cache.setMaxWeight( 10 );
+
+		cache.put( "a", null, null, 4, 0 );
+		cache.put( "b", null, null, 4, 0 );
+		cache.put( "big", null, null, 11, 0 );
+
+		assertEquals( 2, cache.size() );
+		assertEquals( 8, cache.getWeight() );
+		assertEquals( 0, cache.getNbEvictions() );
+	}
+
+	public void testExpiration()
+	{
+		ClockedCache cache = new ClockedCache();
+		cache.setDefaultTimeToLive( 500 );
+
+		cache.put( "ttl", null, null, 1, 100 );
+		cache.put( "default", null, null, 1, 0 );
+
+		cache.time += 99;
+		cache.get( "ttl" );
+		assertEquals( 1, cache.getNbHits() );
+
+		// an expired entry is removed when read
+		cache.time += 1;
+		cache.get( "ttl" );
+		assertEquals( 1, cache.getNbMisses() );
+		assertEquals( 1, cache.size() );
+		assertEquals( 1, cache.getWeight() );
+
+		cache.time += 399;
+		cache.get( "default" );
+		assertEquals( 2, cache.getNbHits() );
+
+		cache.time += 1;
+		cache.get( "default" );
+		assertEquals( 2, cache.getNbMisses() );
+		assertEquals( 0, cache.size() );
+	}
+
+	public void testNoExpiration()
+	{
+		ClockedCache cache = new ClockedCache();
+
+		cache.put( "a", null, null, 1, 0 );
+		cache.time += 1000000;
+		cache.get( "a" );
+
+		assertEquals( 1, cache.getNbHits() );
+	}
+
+	public void testInvalidationByTable()
+	{
+		ResponseCache cache = new ResponseCache();
+
+		cache.put( "products", null, new String[] { "product" }, 1, 0 );
+		cache.put( "orders", null, new String[] { "order", "product" }, 2, 0 );
+		cache.put( "customers", null, new String[] { "customer" }, 4, 0 );
+		cache.put( "unknown", null, null, 8, 0 );
+
+		// the entries without tables depend on all of them
+		cache.invalidate( new String[] { "order" } );
+		assertEquals( 2, cache.size() );
+		assertEquals( 5, cache.getWeight() );
+
+		cache.invalidate( new String[] { "product" } );
+		assertEquals( 1, cache.size() );
+		cache.get( "customers" );
+		assertEquals( 1, cache.getNbHits() );
+
+		// a call without tables modifies all of them
+		cache.invalidate( null );
+		assertEquals( 0, cache.size() );
+		assertEquals( 0, cache.getWeight() );
+	}
+}
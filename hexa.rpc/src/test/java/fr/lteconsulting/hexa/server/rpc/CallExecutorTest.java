@@ -0,0 +1,78 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * The calls which cannot be queued are run by the submitting thread, so that
+ * their future always completes
+ */
+public class CallExecutorTest extends TestCase
+{
+	private static class CurrentThread implements Callable<Thread>
+	{
+		@Override
+		public Thread call()
+		{
+			return Thread.currentThread();
+		}
+	}
+
+	private static class Blocking implements Callable<Thread>
+	{
+		final CountDownLatch release;
+
+		Blocking( CountDownLatch release )
+		{
+			this.release = release;
+		}
+
+		@Override
+		public Thread call() throws InterruptedException
+		{
+			release.await();
+			return Thread.currentThread();
+		}
+	}
+
+	public void testCallerRunsWhenQueueIsFull() throws InterruptedException, ExecutionException
+	{
+		CallExecutor executor = new CallExecutor( 1, 1 );
+		CountDownLatch release = new CountDownLatch( 1 );
+		try
+		{
+			// one running call and one queued call
+			Future<Thread> running = executor.submit( new Blocking( release ) );
+			Future<Thread> queued = executor.submit( new Blocking( release ) );
+
+			Future<Thread> overflow = executor.submit( new CurrentThread() );
+			assertTrue( overflow.isDone() );
+			assertSame( Thread.currentThread(), overflow.get() );
+
+			release.countDown();
+			assertNotSame( Thread.currentThread(), running.get() );
+			assertNotSame( Thread.currentThread(), queued.get() );
+		}
+		finally
+		{
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	public void testCallerRunsAfterShutdown() throws Exception
+	{
+		CallExecutor executor = new CallExecutor( 1, 1 );
+		executor.shutdown();
+
+		Future<Thread> call = executor.submit( new CurrentThread() );
+
+		assertTrue( call.isDone() );
+		assertSame( Thread.currentThread(), call.get( 0, TimeUnit.MILLISECONDS ) );
+	}
+}
@@ -0,0 +1,229 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import fr.lteconsulting.hexa.client.comm.DataProxy;
+import fr.lteconsulting.hexa.client.comm.FieldName;
+import fr.lteconsulting.hexa.client.comm.GenericJSO;
+
+/**
+ * Once decoded, the compact encoding gives the same values as the json
+ * encoding. The decoding follows the javascript of the
+ * CompactResponseDecoder.
+ */
+public class CompactResponseWriterTest extends TestCase
+{
+	public static class Product implements DataProxy
+	{
+		private final int id;
+
+		Product( int id )
+		{
+			this.id = id;
+		}
+
+		@Override
+		public void init( GenericJSO jso )
+		{
+		}
+
+		@FieldName( fieldName = "id" )
+		public int getId()
+		{
+			return id;
+		}
+
+		@FieldName( fieldName = "name" )
+		public String getName()
+		{
+			return id % 5 == 0 ? null : "Product " + (id % 7);
+		}
+
+		@FieldName( fieldName = "description" )
+		public String getDescription()
+		{
+			return "A long description of the product, repeated for each of the products";
+		}
+
+		@FieldName( fieldName = "category" )
+		public Category getCategory()
+		{
+			return new Category( id % 3 );
+		}
+	}
+
+	public static class Category implements DataProxy
+	{
+		private final int id;
+
+		Category( int id )
+		{
+			this.id = id;
+		}
+
+		@Override
+		public void init( GenericJSO jso )
+		{
+		}
+
+		@FieldName( fieldName = "label" )
+		public String getLabel()
+		{
+			return "Category " + id;
+		}
+	}
+
+	private static List<Product> products( int from, int to )
+	{
+		List<Product> products = new ArrayList<Product>();
+		for( int i = from; i < to; i++ )
+			products.add( new Product( i ) );
+		return products;
+	}
+
+	private static final List<?> ANSWERS = Arrays.asList( products( 0, 20 ), new Product( 3 ), "a string", 12, Arrays.asList( new Product( 4 ), new Category( 1 ) ), products( 20, 30 ) );
+
+	public void testSameValuesAsJson() throws IOException
+	{
+		assertEquals( encodeJson( ANSWERS ), decode( encodeCompact( new CompactResponseWriter(), ANSWERS ) ) );
+	}
+
+	public void testFullTables() throws IOException
+	{
+		// the second schema and the third string are not numbered
+		assertEquals( encodeJson( ANSWERS ), decode( encodeCompact( new CompactResponseWriter( 1, 2, 64 ), ANSWERS ) ) );
+	}
+
+	public void testLongStringsAreNotNumbered() throws IOException
+	{
+		// written for each of the 32 products
+		String compact = encodeCompact( new CompactResponseWriter(), ANSWERS );
+		assertEquals( 32, occurrences( compact, "[\"A long description" ) );
+	}
+
+	private static JsonElement encodeJson( List<?> answers ) throws IOException
+	{
+		StringWriter output = new StringWriter();
+		JsonWriter writer = new JsonWriter( output );
+		writer.beginArray();
+		for( Object answer : answers )
+			HexaGWTServlet.writeResponse( writer, answer );
+		writer.endArray();
+		writer.flush();
+
+		return new JsonParser().parse( output.toString() );
+	}
+
+	// the answers share the tables of the writer
+	private static String encodeCompact( CompactResponseWriter compact, List<?> answers ) throws IOException
+	{
+		StringWriter output = new StringWriter();
+		JsonWriter writer = new JsonWriter( output );
+		writer.beginArray();
+		for( Object answer : answers )
+			compact.write( writer, answer );
+		writer.endArray();
+		writer.flush();
+
+		return output.toString();
+	}
+
+	private static JsonElement decode( String compact )
+	{
+		Decoder decoder = new Decoder();
+
+		JsonArray answers = new JsonParser().parse( compact ).getAsJsonArray();
+		JsonArray decoded = new JsonArray();
+		for( JsonElement answer : answers )
+			decoded.add( decoder.decode( answer ) );
+		return decoded;
+	}
+
+	private static int occurrences( String text, String part )
+	{
+		int count = 0;
+		for( int i = text.indexOf( part ); i >= 0; i = text.indexOf( part, i + 1 ) )
+			count++;
+		return count;
+	}
+
+	private static class Decoder
+	{
+		final List<JsonArray> schemas = new ArrayList<JsonArray>();
+		final List<JsonElement> strings = new ArrayList<JsonElement>();
+
+		JsonElement decode( JsonElement value )
+		{
+			if( value.isJsonArray() )
+			{
+				JsonArray result = new JsonArray();
+				for( JsonElement e : value.getAsJsonArray() )
+					result.add( decode( e ) );
+				return result;
+			}
+
+			if( !value.isJsonObject() || !value.getAsJsonObject().has( "$t" ) )
+				return value;
+
+			JsonObject object = value.getAsJsonObject();
+			JsonElement t = object.get( "$t" );
+			JsonArray schema;
+			if( t.isJsonPrimitive() )
+			{
+				schema = schemas.get( t.getAsInt() );
+			}
+			else
+			{
+				schema = t.getAsJsonArray();
+				schemas.add( schema );
+			}
+
+			if( !object.has( "$r" ) )
+				return decodeRow( schema, object.getAsJsonArray( "$o" ) );
+
+			JsonArray result = new JsonArray();
+			for( JsonElement row : object.getAsJsonArray( "$r" ) )
+				result.add( decodeRow( schema, row.getAsJsonArray() ) );
+			return result;
+		}
+
+		JsonObject decodeRow( JsonArray schema, JsonArray row )
+		{
+			JsonArray names = schema.get( 0 ).getAsJsonArray();
+			JsonArray stringFields = schema.get( 1 ).getAsJsonArray();
+
+			JsonObject object = new JsonObject();
+			for( int c = 0; c < names.size(); c++ )
+			{
+				JsonElement v = row.get( c );
+				if( stringFields.get( c ).getAsInt() == 1 )
+				{
+					if( v.isJsonPrimitive() && v.getAsJsonPrimitive().isNumber() )
+						v = strings.get( v.getAsInt() );
+					else if( v.isJsonPrimitive() )
+						strings.add( v );
+					else if( v.isJsonArray() )
+						v = v.getAsJsonArray().get( 0 );
+				}
+				else
+				{
+					v = decode( v );
+				}
+				object.add( names.get( c ).getAsString(), v );
+			}
+			return object;
+		}
+	}
+}
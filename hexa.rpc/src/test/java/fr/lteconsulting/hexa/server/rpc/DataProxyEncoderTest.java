@@ -0,0 +1,309 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import fr.lteconsulting.hexa.client.comm.DataProxy;
+import fr.lteconsulting.hexa.client.comm.FieldName;
+import fr.lteconsulting.hexa.client.comm.GenericJSO;
+
+/**
+ * The encoders give the same json as the reflective encoding they replaced,
+ * which is kept below as the reference
+ */
+public class DataProxyEncoderTest extends TestCase
+{
+	public interface Named
+	{
+		@FieldName( fieldName = "name" )
+		String getName();
+	}
+
+	public static class Entity implements DataProxy
+	{
+		final int id;
+
+		Entity( int id )
+		{
+			this.id = id;
+		}
+
+		@Override
+		public void init( GenericJSO jso )
+		{
+		}
+
+		@FieldName( fieldName = "id" )
+		public int getId()
+		{
+			return id;
+		}
+	}
+
+	public static class Customer extends Entity implements Named
+	{
+		final String name;
+		final double balance;
+		final Customer sponsor;
+
+		Customer( int id, String name, double balance, Customer sponsor )
+		{
+			super( id );
+			this.name = name;
+			this.balance = balance;
+			this.sponsor = sponsor;
+		}
+
+		@Override
+		public String getName()
+		{
+			return name;
+		}
+
+		@FieldName( fieldName = "balance" )
+		public double getBalance()
+		{
+			return balance;
+		}
+
+		@FieldName( fieldName = "sponsor" )
+		public Customer getSponsor()
+		{
+			return sponsor;
+		}
+
+		@FieldName( fieldName = "tags" )
+		public List<String> getTags()
+		{
+			return id % 2 == 0 ? Arrays.asList( "even", name ) : null;
+		}
+
+		// not a field
+		public String getSecret()
+		{
+			return "secret";
+		}
+	}
+
+	public static class Order implements DataProxy
+	{
+		final List<Customer> customers;
+
+		Order( List<Customer> customers )
+		{
+			this.customers = customers;
+		}
+
+		@Override
+		public void init( GenericJSO jso )
+		{
+		}
+
+		@FieldName( fieldName = "customers" )
+		public List<Customer> getCustomers()
+		{
+			return customers;
+		}
+
+		@FieldName( fieldName = "lines" )
+		public Iterable<Integer> getLines()
+		{
+			return new LinkedHashSet<Integer>( Arrays.asList( 3, 1, 2 ) );
+		}
+	}
+
+	private static List<Customer> customers( int count )
+	{
+		List<Customer> result = new ArrayList<Customer>();
+		for( int i = 0; i < count; i++ )
+			result.add( new Customer( i, i % 3 == 0 ? null : "Customer " + i, i * 1.5, i > 0 ? result.get( i - 1 ) : null ) );
+		return result;
+	}
+
+	private static JsonElement written( Object response ) throws IOException
+	{
+		StringWriter output = new StringWriter();
+		JsonWriter writer = new JsonWriter( output );
+		writer.beginArray();
+		HexaGWTServlet.writeResponse( writer, response );
+		writer.endArray();
+		writer.flush();
+		return new JsonParser().parse( output.toString() ).getAsJsonArray().get( 0 );
+	}
+
+	private static JsonElement writtenColumnar( Object response ) throws IOException
+	{
+		StringWriter output = new StringWriter();
+		JsonWriter writer = new JsonWriter( output );
+		writer.beginArray();
+		HexaGWTServlet.writeColumnarResponse( writer, response );
+		writer.endArray();
+		writer.flush();
+		return new JsonParser().parse( output.toString() ).getAsJsonArray().get( 0 );
+	}
+
+	// both encodings match the reference, null standing for JsonNull
+	private static void assertSameEncoding( Object response ) throws IOException
+	{
+		JsonElement expected = reference( response );
+		if( expected == null )
+			expected = JsonNull.INSTANCE;
+
+		JsonElement encoded = HexaGWTServlet.encodeResponse( response );
+		assertEquals( expected, encoded == null ? JsonNull.INSTANCE : encoded );
+		assertEquals( expected, written( response ) );
+	}
+
+	public void testPlainValues() throws IOException
+	{
+		assertSameEncoding( "text" );
+		assertSameEncoding( 42 );
+		assertSameEncoding( 0.5 );
+		assertSameEncoding( Arrays.asList( 1, 2, 3 ) );
+		assertSameEncoding( new Entity( 7 ) );
+		assertSameEncoding( new Customer( 1, "Ann", 10.25, null ) );
+	}
+
+	public void testNestedDataProxies() throws IOException
+	{
+		List<Customer> customers = customers( 6 );
+		assertSameEncoding( customers.get( 5 ) );
+		assertSameEncoding( customers );
+		assertSameEncoding( new Order( customers ) );
+		assertSameEncoding( Arrays.asList( new Order( customers ), new Order( customers( 2 ) ) ) );
+	}
+
+	public void testNullValues() throws IOException
+	{
+		assertSameEncoding( null );
+		assertSameEncoding( Arrays.asList( null, new Entity( 1 ), null ) );
+		assertSameEncoding( new Customer( 3, null, 0, null ) );
+		assertSameEncoding( new Order( null ) );
+	}
+
+	public void testInheritedGetters()
+	{
+		JsonObject customer = HexaGWTServlet.encodeResponse( new Customer( 2, "Bob", 1, null ) ).getAsJsonObject();
+		assertEquals( 2, customer.get( "id" ).getAsInt() );
+		assertEquals( "Bob", customer.get( "name" ).getAsString() );
+		assertFalse( customer.has( "secret" ) );
+	}
+
+	public void testColumnarResult() throws IOException
+	{
+		List<Customer> customers = customers( 5 );
+		JsonArray columnar = writtenColumnar( customers ).getAsJsonArray();
+
+		// one header with the field names, then one row per object
+		assertEquals( customers.size() + 1, columnar.size() );
+		JsonArray names = columnar.get( 0 ).getAsJsonArray();
+		JsonArray rows = new JsonArray();
+		for( int r = 1; r < columnar.size(); r++ )
+		{
+			JsonArray row = columnar.get( r ).getAsJsonArray();
+			assertEquals( names.size(), row.size() );
+
+			JsonObject object = new JsonObject();
+			for( int c = 0; c < names.size(); c++ )
+				object.add( names.get( c ).getAsString(), row.get( c ) );
+			rows.add( object );
+		}
+		assertEquals( reference( customers ), rows );
+	}
+
+	public void testColumnarFallback() throws IOException
+	{
+		// empty, mixed classes and values which are not collections are
+		// encoded as usual
+		List<Entity> mixed = new ArrayList<Entity>();
+		mixed.add( new Entity( 1 ) );
+		mixed.add( new Customer( 2, "Bob", 1, null ) );
+
+		for( Object response : Arrays.asList( new ArrayList<Customer>(), mixed, new Entity( 4 ), Arrays.asList( 1, 2 ), "text" ) )
+			assertEquals( reference( response ), writtenColumnar( response ) );
+		assertEquals( JsonNull.INSTANCE, writtenColumnar( null ) );
+	}
+
+	/**
+	 * The reflective encoding of the former servlet
+	 */
+	private static JsonElement reference( Object response )
+	{
+		if( response == null )
+			return null;
+
+		if( response instanceof Iterable<?> )
+		{
+			JsonArray encoded = new JsonArray();
+			for( Object e : (Iterable<?>) response )
+			{
+				JsonElement element = reference( e );
+				encoded.add( element == null ? JsonNull.INSTANCE : element );
+			}
+			return encoded;
+		}
+
+		if( response instanceof DataProxy )
+		{
+			JsonObject encoded = new JsonObject();
+
+			HashSet<Method> methods = new HashSet<Method>();
+			getDataProxyMethods( response.getClass(), methods );
+
+			for( Method m : methods )
+			{
+				try
+				{
+					encoded.add( m.getAnnotation( FieldName.class ).fieldName(), reference( m.invoke( response ) ) );
+				}
+				catch( Exception e )
+				{
+					throw new AssertionError( e );
+				}
+			}
+
+			return encoded;
+		}
+
+		if( response instanceof String )
+			return new JsonPrimitive( (String) response );
+
+		if( response instanceof Number )
+			return new JsonPrimitive( (Number) response );
+
+		return null;
+	}
+
+	private static void getDataProxyMethods( Class<?> clazz, HashSet<Method> result )
+	{
+		if( clazz == null || clazz == Object.class )
+			return;
+
+		getDataProxyMethods( clazz.getSuperclass(), result );
+
+		for( Class<?> implemented : clazz.getInterfaces() )
+			getDataProxyMethods( implemented, result );
+
+		for( Method m : clazz.getDeclaredMethods() )
+		{
+			if( m.getAnnotation( FieldName.class ) != null )
+				result.add( m );
+		}
+	}
+}
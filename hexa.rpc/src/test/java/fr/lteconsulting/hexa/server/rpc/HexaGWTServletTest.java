@@ -0,0 +1,245 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.TestCase;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+import fr.lteconsulting.hexa.client.comm.DataProxy;
+import fr.lteconsulting.hexa.client.comm.FieldName;
+import fr.lteconsulting.hexa.client.comm.GenericJSO;
+import fr.lteconsulting.hexa.client.comm.RPCBatchRequestSender;
+
+/**
+ * The servlet reads the calls of a POST request and writes their answers
+ */
+public class HexaGWTServletTest extends TestCase
+{
+	public static class Measure implements DataProxy
+	{
+		private final double value;
+
+		Measure( double value )
+		{
+			this.value = value;
+		}
+
+		@Override
+		public void init( GenericJSO jso )
+		{
+		}
+
+		@FieldName( fieldName = "value" )
+		public double getValue()
+		{
+			return value;
+		}
+	}
+
+	public static class MeasureService
+	{
+		public Double ratio( Integer a, Integer b )
+		{
+			return a.doubleValue() / b.doubleValue();
+		}
+
+		public List<Measure> measures()
+		{
+			return Arrays.asList( new Measure( 1.5 ), new Measure( Double.NaN ), new Measure( Double.NEGATIVE_INFINITY ) );
+		}
+	}
+
+	private static class Servlet extends HexaGWTServlet
+	{
+		boolean compression = true;
+
+		@Override
+		protected void onInit()
+		{
+			addService( "measure", "1", new MeasureService(), null );
+		}
+
+		@Override
+		protected boolean isResponseCompressionEnabled()
+		{
+			return compression;
+		}
+	}
+
+	private static final String RATIO_CALL = "[\"ratio\",[1,4],0]";
+
+	private Servlet servlet;
+
+	@Override
+	protected void setUp()
+	{
+		servlet = new Servlet();
+		servlet.init();
+	}
+
+	@Override
+	protected void tearDown()
+	{
+		servlet.destroy();
+	}
+
+	private static byte[] payload( String calls ) throws Exception
+	{
+		return ("[[[\"measure\",\"1\"]],[" + calls + "]]").getBytes( "UTF-8" );
+	}
+
+	private HttpMocks.Response post( HttpMocks.Request request ) throws Exception
+	{
+		HttpMocks.Response response = new HttpMocks.Response();
+		servlet.doPost( request.proxy(), response.proxy() );
+		return response;
+	}
+
+	private static JsonArray answers( HttpMocks.Response response ) throws Exception
+	{
+		return new JsonParser().parse( response.getBody() ).getAsJsonArray();
+	}
+
+	// the value returned by a call
+	private static JsonArray values( JsonArray answers, int call )
+	{
+		JsonArray answer = answers.get( call ).getAsJsonArray();
+		assertEquals( answer.toString(), 0, answer.get( 0 ).getAsInt() );
+		return answer.get( 3 ).getAsJsonArray();
+	}
+
+	public void testNonFiniteNumbers() throws Exception
+	{
+		HttpMocks.Response response = post( new HttpMocks.Request( "application/json", payload( "[\"ratio\",[1,0],0],[\"ratio\",[0,0],0],[\"ratio\",[1,4],0]" ) ) );
+
+		String body = response.getBody();
+		assertTrue( body, body.contains( "Infinity" ) );
+		assertTrue( body, body.contains( "NaN" ) );
+
+		JsonArray answers = answers( response );
+		assertEquals( Double.POSITIVE_INFINITY, values( answers, 0 ).get( 0 ).getAsDouble() );
+		assertTrue( Double.isNaN( values( answers, 1 ).get( 0 ).getAsDouble() ) );
+		assertEquals( 0.25, values( answers, 2 ).get( 0 ).getAsDouble() );
+	}
+
+	public void testNonFiniteFields() throws Exception
+	{
+		for( boolean compact : new boolean[] { false, true } )
+		{
+			HttpMocks.Request request = new HttpMocks.Request( "application/json", payload( "[\"measures\",[],0]" ) );
+			if( compact )
+				request.header( "X-Hexa-Encoding", "compact" );
+
+			HttpMocks.Response response = post( request );
+			assertEquals( compact ? "compact" : null, response.getHeader( "X-Hexa-Encoding" ) );
+
+			// an error answer would have no values
+			String body = response.getBody();
+			assertEquals( body, 0, answers( response ).get( 0 ).getAsJsonArray().get( 0 ).getAsInt() );
+			assertTrue( body, body.contains( "NaN" ) );
+			assertTrue( body, body.contains( "-Infinity" ) );
+		}
+	}
+
+	private static void assertRatioAnswer( HttpMocks.Response response ) throws Exception
+	{
+		assertEquals( 0.25, values( answers( response ), 0 ).get( 0 ).getAsDouble() );
+	}
+
+	private static byte[] compress( byte[] data, boolean gzip ) throws Exception
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		OutputStream output = gzip ? new GZIPOutputStream( bytes ) : new DeflaterOutputStream( bytes );
+		output.write( data );
+		output.close();
+		return bytes.toByteArray();
+	}
+
+	public void testPlainJsonPost() throws Exception
+	{
+		assertRatioAnswer( post( new HttpMocks.Request( "application/json", payload( RATIO_CALL ) ) ) );
+		assertRatioAnswer( post( new HttpMocks.Request( "application/json; charset=UTF-8", payload( RATIO_CALL ) ) ) );
+		assertRatioAnswer( post( new HttpMocks.Request( "application/json", payload( RATIO_CALL ) ).header( "Content-Encoding", "identity" ) ) );
+	}
+
+	public void testCompressedRequests() throws Exception
+	{
+		byte[] gzip = compress( payload( RATIO_CALL ), true );
+		assertRatioAnswer( post( new HttpMocks.Request( "application/json", gzip ).header( "Content-Encoding", "gzip" ) ) );
+		assertRatioAnswer( post( new HttpMocks.Request( "application/json", gzip ).header( "Content-Encoding", "GZIP" ) ) );
+
+		byte[] deflate = compress( payload( RATIO_CALL ), false );
+		assertRatioAnswer( post( new HttpMocks.Request( "application/json", deflate ).header( "Content-Encoding", "deflate" ) ) );
+	}
+
+	public void testUnknownRequestEncoding() throws Exception
+	{
+		HttpMocks.Response response = post( new HttpMocks.Request( "application/json", payload( RATIO_CALL ) ).header( "Content-Encoding", "br" ) );
+
+		assertEquals( "Exception during POST processing : Unsupported content encoding : br", response.getBody() );
+		assertNull( response.getHeader( "Content-Encoding" ) );
+	}
+
+	private String negotiate( String acceptEncoding ) throws Exception
+	{
+		HttpMocks.Request request = new HttpMocks.Request( "application/json", payload( RATIO_CALL ) );
+		if( acceptEncoding != null )
+			request.header( "Accept-Encoding", acceptEncoding );
+
+		HttpMocks.Response response = post( request );
+		assertRatioAnswer( response );
+
+		String encoding = response.getHeader( "Content-Encoding" );
+		byte[] body = response.body.toByteArray();
+		if( encoding == null )
+		{
+			assertNull( response.getHeader( "Vary" ) );
+			assertEquals( '[', body[0] );
+		}
+		else
+		{
+			assertEquals( "Accept-Encoding", response.getHeader( "Vary" ) );
+			assertFalse( body[0] == '[' );
+		}
+		return encoding;
+	}
+
+	public void testAcceptEncoding() throws Exception
+	{
+		assertNull( negotiate( null ) );
+		assertNull( negotiate( "identity" ) );
+		assertNull( negotiate( "br" ) );
+		assertEquals( "gzip", negotiate( "gzip" ) );
+		assertEquals( "gzip", negotiate( "deflate, gzip" ) );
+		assertEquals( "gzip", negotiate( "br;q=1.0, GZIP;q=0.5" ) );
+		assertEquals( "deflate", negotiate( "deflate" ) );
+		assertEquals( "deflate", negotiate( "gzip;q=0, deflate" ) );
+		assertNull( negotiate( "gzip;q=0.0, deflate; q=0" ) );
+
+		servlet.compression = false;
+		assertNull( negotiate( "gzip, deflate" ) );
+	}
+
+	public void testServerTimeHeader() throws Exception
+	{
+		HttpMocks.Response response = post( new HttpMocks.Request( "application/json", payload( RATIO_CALL ) ) );
+		String serverTime = response.getHeader( RPCBatchRequestSender.SERVER_TIME_HEADER );
+		assertNotNull( serverTime );
+		assertTrue( serverTime, Long.parseLong( serverTime ) >= 0 );
+
+		// the headers of a response already sent cannot be changed
+		HttpMocks.Request request = new HttpMocks.Request( "application/json", payload( RATIO_CALL ) );
+		response = new HttpMocks.Response();
+		response.committed = true;
+		servlet.doPost( request.proxy(), response.proxy() );
+		assertNull( response.getHeader( RPCBatchRequestSender.SERVER_TIME_HEADER ) );
+		assertRatioAnswer( response );
+	}
+}
@@ -0,0 +1,207 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Requests and responses to call a servlet without a container. Only the
+ * methods used by the {@link HexaGWTServlet} do something, the others return
+ * null, zero or false.
+ */
+class HttpMocks
+{
+	/**
+	 * A POST request with a body
+	 */
+	static class Request implements InvocationHandler
+	{
+		final Map<String, String> headers = new HashMap<String, String>();
+		final String contentType;
+		final byte[] body;
+
+		Request( String contentType, byte[] body )
+		{
+			this.contentType = contentType;
+			this.body = body;
+		}
+
+		Request header( String name, String value )
+		{
+			headers.put( name.toLowerCase(), value );
+			return this;
+		}
+
+		HttpServletRequest proxy()
+		{
+			return (HttpServletRequest) Proxy.newProxyInstance( HttpMocks.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class }, this );
+		}
+
+		@Override
+		public Object invoke( Object proxy, Method method, Object[] args )
+		{
+			switch( method.getName() )
+			{
+				case "getHeader":
+					return headers.get( ((String) args[0]).toLowerCase() );
+				case "getContentType":
+					return contentType;
+				case "getMethod":
+					return "POST";
+				case "getInputStream":
+					return new InputStreamAdapter( new ByteArrayInputStream( body ) );
+				case "getContentLength":
+					return body.length;
+				default:
+					return defaultValue( method.getReturnType() );
+			}
+		}
+	}
+
+	/**
+	 * Keeps the headers and the body written by the servlet
+	 */
+	static class Response implements InvocationHandler
+	{
+		final Map<String, String> headers = new HashMap<String, String>();
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		// simulates a response whose buffer was already sent
+		boolean committed;
+
+		private PrintWriter writer;
+
+		HttpServletResponse proxy()
+		{
+			return (HttpServletResponse) Proxy.newProxyInstance( HttpMocks.class.getClassLoader(), new Class<?>[] { HttpServletResponse.class }, this );
+		}
+
+		String getHeader( String name )
+		{
+			return headers.get( name.toLowerCase() );
+		}
+
+		/**
+		 * Returns the body, decompressed according to its content encoding
+		 */
+		String getBody() throws IOException
+		{
+			if( writer != null )
+				writer.flush();
+
+			InputStream input = new ByteArrayInputStream( body.toByteArray() );
+			String encoding = getHeader( "Content-Encoding" );
+			if( "gzip".equals( encoding ) )
+				input = new GZIPInputStream( input );
+			else if( "deflate".equals( encoding ) )
+				input = new InflaterInputStream( input );
+
+			StringBuilder text = new StringBuilder();
+			Reader reader = new InputStreamReader( input, "UTF-8" );
+			char[] buffer = new char[1024];
+			int n;
+			while( (n = reader.read( buffer )) > 0 )
+				text.append( buffer, 0, n );
+			return text.toString();
+		}
+
+		@Override
+		public Object invoke( Object proxy, Method method, Object[] args ) throws IOException
+		{
+			switch( method.getName() )
+			{
+				case "addHeader":
+				case "setHeader":
+					headers.put( ((String) args[0]).toLowerCase(), (String) args[1] );
+					return null;
+				case "containsHeader":
+					return headers.containsKey( ((String) args[0]).toLowerCase() );
+				case "getCharacterEncoding":
+					return "UTF-8";
+				case "isCommitted":
+					return committed;
+				case "getWriter":
+					if( writer == null )
+						writer = new PrintWriter( new OutputStreamWriter( body, "UTF-8" ) );
+					return writer;
+				case "getOutputStream":
+					return new OutputStreamAdapter( body );
+				default:
+					return defaultValue( method.getReturnType() );
+			}
+		}
+	}
+
+	static Object defaultValue( Class<?> type )
+	{
+		if( type == boolean.class )
+			return false;
+		if( type == int.class )
+			return 0;
+		if( type == long.class )
+			return 0L;
+		return null;
+	}
+
+	private static class InputStreamAdapter extends ServletInputStream
+	{
+		private final InputStream input;
+
+		InputStreamAdapter( InputStream input )
+		{
+			this.input = input;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			return input.read();
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len ) throws IOException
+		{
+			return input.read( b, off, len );
+		}
+	}
+
+	private static class OutputStreamAdapter extends ServletOutputStream
+	{
+		private final OutputStream output;
+
+		OutputStreamAdapter( OutputStream output )
+		{
+			this.output = output;
+		}
+
+		@Override
+		public void write( int b ) throws IOException
+		{
+			output.write( b );
+		}
+
+		@Override
+		public void write( byte[] b, int off, int len ) throws IOException
+		{
+			output.write( b, off, len );
+		}
+	}
+}
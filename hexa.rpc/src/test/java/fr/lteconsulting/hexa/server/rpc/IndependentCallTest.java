@@ -0,0 +1,111 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+/**
+ * The independent calls of a request are waited for until the call timeout,
+ * counted from the start of the request, and cancelled past it
+ */
+public class IndependentCallTest extends TestCase
+{
+	public static class SlowService
+	{
+		final CountDownLatch interrupted = new CountDownLatch( 2 );
+
+		@IndependentCall
+		public String sleep()
+		{
+			try
+			{
+				Thread.sleep( 10000 );
+				return "woke up";
+			}
+			catch( InterruptedException e )
+			{
+				interrupted.countDown();
+				return "interrupted";
+			}
+		}
+
+		@IndependentCall
+		public String fast()
+		{
+			return "fast";
+		}
+	}
+
+	private static class Servlet extends HexaGWTServlet
+	{
+		final SlowService service = new SlowService();
+
+		@Override
+		protected void onInit()
+		{
+			addService( "slow", "1", service, null );
+		}
+
+		@Override
+		protected long getCallTimeout()
+		{
+			return 300;
+		}
+	}
+
+	private Servlet servlet;
+
+	@Override
+	protected void setUp()
+	{
+		servlet = new Servlet();
+		servlet.init();
+	}
+
+	@Override
+	protected void tearDown()
+	{
+		servlet.destroy();
+	}
+
+	private JsonArray post( String calls ) throws Exception
+	{
+		String payload = "[[[\"slow\",\"1\"]],[" + calls + "]]";
+		HttpMocks.Request request = new HttpMocks.Request( "application/json", payload.getBytes( "UTF-8" ) );
+		HttpMocks.Response response = new HttpMocks.Response();
+
+		servlet.doPost( request.proxy(), response.proxy() );
+
+		return new JsonParser().parse( response.getBody() ).getAsJsonArray();
+	}
+
+	public void testCallsShareTheRequestTimeout() throws Exception
+	{
+		long start = System.nanoTime();
+		JsonArray answers = post( "[\"sleep\",[],0],[\"sleep\",[],0],[\"fast\",[],0]" );
+		long duration = (System.nanoTime() - start) / 1000000;
+
+		// waited once for both, not once per call
+		assertTrue( "took " + duration + " ms", duration < 550 );
+
+		assertEquals( 3, answers.size() );
+		for( int i = 0; i < 2; i++ )
+		{
+			JsonArray answer = answers.get( i ).getAsJsonArray();
+			assertEquals( 3, answer.get( 0 ).getAsInt() );
+			assertTrue( answer.get( 1 ).getAsString().contains( "300 ms" ) );
+		}
+
+		// the finished call is answered even after the timeout
+		JsonArray fast = answers.get( 2 ).getAsJsonArray();
+		assertEquals( 0, fast.get( 0 ).getAsInt() );
+		assertEquals( "fast", fast.get( 3 ).getAsJsonArray().get( 0 ).getAsString() );
+
+		// the timed out calls are cancelled
+		assertTrue( servlet.service.interrupted.await( 5, TimeUnit.SECONDS ) );
+	}
+}
@@ -0,0 +1,120 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import junit.framework.TestCase;
+
+public class RpcMetricsTest extends TestCase
+{
+	public static class EchoService
+	{
+		public String echo( String text )
+		{
+			return text;
+		}
+
+		public String fail()
+		{
+			throw new IllegalStateException( "failed" );
+		}
+	}
+
+	private static MethodMetrics method( RpcMetrics metrics, String name )
+	{
+		for( MethodMetrics method : metrics.getMethods() )
+		{
+			if( method.getMethodName().equals( name ) )
+				return method;
+		}
+		return null;
+	}
+
+	public void testRequests()
+	{
+		RpcMetrics metrics = new RpcMetrics();
+		metrics.recordRequest( 100 );
+		metrics.recordRequest( 300 );
+		metrics.recordRequest( 200 );
+
+		assertEquals( 3, metrics.getRequests() );
+		assertEquals( 600, metrics.getPayloadBytes() );
+		assertEquals( 300, metrics.getMaxPayloadBytes() );
+	}
+
+	public void testLatencyBuckets()
+	{
+		MethodMetrics metrics = new RpcMetrics().createMethodMetrics( "service", "method", 2 );
+
+		// less than 1 us, [1,2[ us, [2,4[ us twice, [512,1024[ us
+		metrics.recordCall( 500, false );
+		metrics.recordCall( 1000, false );
+		metrics.recordCall( 2000, false );
+		metrics.recordCall( 3999, true );
+		metrics.recordCall( 1000000, false );
+		// beyond the last bucket
+		metrics.recordCall( Long.MAX_VALUE / 2, false );
+
+		long[] latencies = metrics.getLatencies();
+		assertEquals( 1, latencies[0] );
+		assertEquals( 1, latencies[1] );
+		assertEquals( 2, latencies[2] );
+		assertEquals( 1, latencies[10] );
+		assertEquals( 1, latencies[MethodMetrics.NB_BUCKETS - 1] );
+
+		assertEquals( 6, metrics.getCalls() );
+		assertEquals( 1, metrics.getErrors() );
+		assertEquals( Long.MAX_VALUE / 2, metrics.getMaxTime() );
+	}
+
+	public void testServletMetrics() throws Exception
+	{
+		HexaGWTServlet servlet = new HexaGWTServlet()
+		{
+			@Override
+			protected void onInit()
+			{
+				addService( "echo", "1", new EchoService(), null );
+			}
+		};
+		servlet.init();
+		try
+		{
+			byte[] payload = "[[[\"echo\",\"1\"]],[[\"echo\",[\"hello\"],0],[\"echo\",[\"world\"],0],[\"fail\",[],0]]]".getBytes( "UTF-8" );
+			servlet.doPost( new HttpMocks.Request( "application/json", payload ).proxy(), new HttpMocks.Response().proxy() );
+
+			RpcMetrics metrics = servlet.getMetrics();
+			assertEquals( 1, metrics.getRequests() );
+			assertEquals( payload.length, metrics.getPayloadBytes() );
+
+			MethodMetrics echo = method( metrics, "echo" );
+			assertEquals( "echo", echo.getServiceName() );
+			assertEquals( 1, echo.getNbParameters() );
+			assertEquals( 2, echo.getCalls() );
+			assertEquals( 0, echo.getErrors() );
+			assertTrue( echo.getResponseChars() > 0 );
+
+			MethodMetrics fail = method( metrics, "fail" );
+			assertEquals( 1, fail.getCalls() );
+			assertEquals( 1, fail.getErrors() );
+
+			// only the called methods are listed
+			String description = metrics.toString();
+			assertTrue( description, description.startsWith( "requests:1 " ) );
+			assertTrue( description, description.contains( "echo.echo/1 calls:2 errors:0" ) );
+			assertTrue( description, description.contains( "echo.fail/0 calls:1 errors:1" ) );
+		}
+		finally
+		{
+			servlet.destroy();
+		}
+	}
+
+	public void testUncalledMethodsAreNotListed()
+	{
+		RpcMetrics metrics = new RpcMetrics();
+		metrics.createMethodMetrics( "service", "called", 0 ).recordCall( 1000, false );
+		metrics.createMethodMetrics( "service", "uncalled", 0 );
+
+		assertEquals( 2, metrics.getMethods().size() );
+		assertTrue( metrics.toString().contains( "service.called/0" ) );
+		assertFalse( metrics.toString().contains( "service.uncalled/0" ) );
+	}
+}
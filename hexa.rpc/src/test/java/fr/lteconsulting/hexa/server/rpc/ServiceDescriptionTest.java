@@ -0,0 +1,55 @@
+package fr.lteconsulting.hexa.server.rpc;
+
+import junit.framework.TestCase;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * The methods of a service delegate are found by their name or shortcut and
+ * their number of parameters
+ */
+public class ServiceDescriptionTest extends TestCase
+{
+	public interface Echo<T>
+	{
+		String echo( T value );
+	}
+
+	// getMethods() also returns the bridge method echo(Object)
+	public static class StringEcho implements Echo<String>
+	{
+		@Override
+		public String echo( String value )
+		{
+			return "echo " + value;
+		}
+
+		public static String notAServiceMethod( String value )
+		{
+			return value;
+		}
+	}
+
+	public void testGenericInterfaceDelegate()
+	{
+		ServiceDescription service = new ServiceDescription( "echo", "checksum", new StringEcho(), new String[] { "echo" }, new RpcMetrics() );
+
+		JsonArray parameters = new JsonArray();
+		parameters.add( new JsonPrimitive( "hello" ) );
+
+		ServiceDescription.MethodInvoker byName = service.findMethod( "echo", 1 );
+		assertNotNull( byName );
+		assertEquals( "echo hello", service.call( byName, parameters, null ) );
+
+		ServiceDescription.MethodInvoker byShortcut = service.findMethod( "0", 1 );
+		assertSame( byName, byShortcut );
+	}
+
+	public void testStaticMethodsAreNotCallable()
+	{
+		ServiceDescription service = new ServiceDescription( "echo", "checksum", new StringEcho(), null, new RpcMetrics() );
+
+		assertNull( service.findMethod( "notAServiceMethod", 1 ) );
+	}
+}
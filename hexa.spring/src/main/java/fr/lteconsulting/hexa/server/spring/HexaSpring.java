@@ -121,6 +121,26 @@ public class HexaSpring
 		cleanThread();
 	}
 
+	/**
+	 * Binds the request to a thread running one of its calls, see
+	 * {@link HexaSpringGWTServlet}. Contrary to
+	 * {@link #onBeginServletRequestProcessing(HttpServletRequest, HttpServletResponse)}
+	 * the auto-login is not done again.
+	 */
+	public void onBeginCallProcessing( HttpServletRequest request )
+	{
+		HexaThreadInfo.get().request = request;
+	}
+
+	/**
+	 * Releases the request and database context bound to a thread which ran
+	 * one of the calls of a request
+	 */
+	public void onEndCallProcessing()
+	{
+		cleanThread();
+	}
+
 	public void runInBackground( final Runnable runnable )
 	{
 		Thread thread = new Thread( new Runnable()
@@ -0,0 +1,30 @@
+package fr.lteconsulting.hexa.server.spring;
+
+import javax.servlet.http.HttpServletRequest;
+
+import fr.lteconsulting.hexa.server.rpc.HexaGWTServlet;
+import fr.lteconsulting.hexa.server.rpc.IndependentCall;
+
+/**
+ * A {@link HexaGWTServlet} whose {@link IndependentCall}s can use the
+ * HexaSpring session and database context, like the other calls.
+ * 
+ * The request is bound to the pool thread running the call, and the database
+ * context requested by the call is released once it is finished.
+ */
+public abstract class HexaSpringGWTServlet extends HexaGWTServlet
+{
+	private static final long serialVersionUID = 5816927140934732601L;
+
+	@Override
+	protected void beforeIndependentCall( HttpServletRequest request )
+	{
+		HexaSpring.hexa().onBeginCallProcessing( request );
+	}
+
+	@Override
+	protected void afterIndependentCall()
+	{
+		HexaSpring.hexa().onEndCallProcessing();
+	}
+}